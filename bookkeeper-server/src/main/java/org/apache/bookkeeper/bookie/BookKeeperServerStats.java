@@ -86,6 +86,7 @@ public interface BookKeeperServerStats {
     String BOOKIE_ADD_ENTRY = "BOOKIE_ADD_ENTRY";
     String BOOKIE_RECOVERY_ADD_ENTRY = "BOOKIE_RECOVERY_ADD_ENTRY";
     String BOOKIE_READ_ENTRY = "BOOKIE_READ_ENTRY";
+    String BOOKIE_READ_ENTRIES = "BOOKIE_READ_ENTRIES";
     String BOOKIE_FORCE_LEDGER = "BOOKIE_FORCE_LEDGER";
     String BOOKIE_ADD_ENTRY_BYTES = "BOOKIE_ADD_ENTRY_BYTES";
     String BOOKIE_READ_ENTRY_BYTES = "BOOKIE_READ_ENTRY_BYTES";
@@ -110,6 +111,14 @@ public interface BookKeeperServerStats {
     String JOURNAL_FORCE_WRITE_ENQUEUE = "JOURNAL_FORCE_WRITE_ENQUEUE";
     String JOURNAL_FORCE_WRITE_BATCH_ENTRIES = "JOURNAL_FORCE_WRITE_BATCH_ENTRIES";
     String JOURNAL_FORCE_WRITE_BATCH_BYTES = "JOURNAL_FORCE_WRITE_BATCH_BYTES";
+    String JOURNAL_FORCE_WRITE_OUTSTANDING = "JOURNAL_FORCE_WRITE_OUTSTANDING";
+    String JOURNAL_COMMIT_LATENCY = "JOURNAL_COMMIT_LATENCY";
+    String JOURNAL_QUEUE_DEPTH = "JOURNAL_QUEUE_DEPTH";
+    String JOURNAL_GROUP_COMMIT_WAIT = "JOURNAL_GROUP_COMMIT_WAIT";
+    String JOURNAL_GROUP_COMMIT_ENTRIES_THRESHOLD = "JOURNAL_GROUP_COMMIT_ENTRIES_THRESHOLD";
+    String JOURNAL_GROUP_COMMIT_BYTES_THRESHOLD = "JOURNAL_GROUP_COMMIT_BYTES_THRESHOLD";
+    String JOURNAL_GROUP_COMMIT_ADD_LATENCY_P99 = "JOURNAL_GROUP_COMMIT_ADD_LATENCY_P99";
+    String JOURNAL_GROUP_COMMIT_ARRIVAL_RATE = "JOURNAL_GROUP_COMMIT_ARRIVAL_RATE";
     String JOURNAL_FLUSH_LATENCY = "JOURNAL_FLUSH_LATENCY";
     String JOURNAL_QUEUE_LATENCY = "JOURNAL_QUEUE_LATENCY";
     String JOURNAL_QUEUE_MAX_SIZE = "JOURNAL_QUEUE_MAX_SIZE";
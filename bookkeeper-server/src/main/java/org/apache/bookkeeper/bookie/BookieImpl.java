@@ -322,6 +322,14 @@ public class BookieImpl implements Bookie {
         return getLedgerDirsManager().getTotalFreeSpace(ledgerDirsManager.getAllLedgerDirs());
     }
 
+    public int getJournalQueueLength() {
+        int length = 0;
+        for (Journal journal : journals) {
+            length += journal.getJournalQueueLength();
+        }
+        return length;
+    }
+
     public static File getCurrentDirectory(File dir) {
         return new File(dir, BookKeeperConstants.CURRENT_DIR);
     }
@@ -1166,6 +1174,36 @@ public class BookieImpl implements Bookie {
         }
     }
 
+    @Override
+    public List<ByteBuf> readEntries(long ledgerId, long firstEntryId, int maxCount, long maxBytes,
+                                     int entryOverhead) throws IOException, NoLedgerException, BookieException {
+        long requestNanos = MathUtils.nowInNano();
+        boolean success = false;
+        try {
+            LedgerDescriptor handle = handles.getReadOnlyHandle(ledgerId);
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Reading {} entries from {}@{}", maxCount, firstEntryId, ledgerId);
+            }
+            List<ByteBuf> entries = handle.readEntries(firstEntryId, maxCount, maxBytes, entryOverhead);
+            long batchSize = 0;
+            for (ByteBuf entry : entries) {
+                // The read bytes stats stay per entry, as for the single entry reads
+                bookieStats.getReadBytesStats().registerSuccessfulValue(entry.readableBytes());
+                batchSize += entry.readableBytes();
+            }
+            bookieStats.getReadBytes().addCount(batchSize);
+            success = true;
+            return entries;
+        } finally {
+            long elapsedNanos = MathUtils.elapsedNanos(requestNanos);
+            if (success) {
+                bookieStats.getReadEntriesStats().registerSuccessfulEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+            } else {
+                bookieStats.getReadEntriesStats().registerFailedEvent(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
     public long readLastAddConfirmed(long ledgerId) throws IOException, BookieException {
         LedgerDescriptor handle = handles.getReadOnlyHandle(ledgerId);
         return handle.getLastAddConfirmed();
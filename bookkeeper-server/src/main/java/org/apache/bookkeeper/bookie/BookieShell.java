@@ -69,6 +69,7 @@ import org.apache.bookkeeper.tools.cli.commands.bookie.ListActiveLedgersCommand;
 import org.apache.bookkeeper.tools.cli.commands.bookie.ListFilesOnDiscCommand;
 import org.apache.bookkeeper.tools.cli.commands.bookie.ListLedgersCommand;
 import org.apache.bookkeeper.tools.cli.commands.bookie.LocalConsistencyCheckCommand;
+import org.apache.bookkeeper.tools.cli.commands.bookie.MigrateDBLedgerLocationsIndexCommand;
 import org.apache.bookkeeper.tools.cli.commands.bookie.ReadJournalCommand;
 import org.apache.bookkeeper.tools.cli.commands.bookie.ReadLedgerCommand;
 import org.apache.bookkeeper.tools.cli.commands.bookie.ReadLogCommand;
@@ -163,6 +164,7 @@ public class BookieShell implements Tool {
     static final String CMD_CONVERT_TO_DB_STORAGE = "convert-to-db-storage";
     static final String CMD_CONVERT_TO_INTERLEAVED_STORAGE = "convert-to-interleaved-storage";
     static final String CMD_REBUILD_DB_LEDGER_LOCATIONS_INDEX = "rebuild-db-ledger-locations-index";
+    static final String CMD_MIGRATE_DB_LEDGER_LOCATIONS_INDEX = "migrate-db-ledger-locations-index";
     static final String CMD_REBUILD_DB_LEDGERS_INDEX = "rebuild-db-ledgers-index";
     static final String CMD_CHECK_DB_LEDGERS_INDEX = "check-db-ledgers-index";
     static final String CMD_REGENERATE_INTERLEAVED_STORAGE_INDEX_FILE = "regenerate-interleaved-storage-index-file";
@@ -2371,6 +2373,41 @@ public class BookieShell implements Tool {
         }
     }
 
+    /**
+     * Convert DbLedgerStorage locations index to range records.
+     */
+    class MigrateDbLedgerLocationsIndexCmd extends MyCommand {
+
+        public MigrateDbLedgerLocationsIndexCmd() {
+            super(CMD_MIGRATE_DB_LEDGER_LOCATIONS_INDEX);
+        }
+
+        @Override
+        Options getOptions() {
+            return opts;
+        }
+
+        @Override
+        String getDescription() {
+            return "Convert DbLedgerStorage locations index to range records";
+        }
+
+        @Override
+        String getUsage() {
+            return "migrate-db-ledger-locations-index      Convert DbLedgerStorage locations index to range "
+                    + "records, migrate-db-ledger-locations-index requires no options,use the default conf "
+                    + "or re-specify BOOKIE_CONF \n"
+                    + "             Usage: migrate-db-ledger-locations-index";
+        }
+
+        @Override
+        int runCmd(CommandLine cmdLine) throws Exception {
+            MigrateDBLedgerLocationsIndexCommand cmd = new MigrateDBLedgerLocationsIndexCommand();
+            cmd.apply(bkConf, new CliFlags());
+            return 0;
+        }
+    }
+
     /**
      * Rebuild DbLedgerStorage ledgers index.
      */
@@ -2602,6 +2639,7 @@ public class BookieShell implements Tool {
         commands.put(CMD_CONVERT_TO_DB_STORAGE, new ConvertToDbStorageCmd());
         commands.put(CMD_CONVERT_TO_INTERLEAVED_STORAGE, new ConvertToInterleavedStorageCmd());
         commands.put(CMD_REBUILD_DB_LEDGER_LOCATIONS_INDEX, new RebuildDbLedgerLocationsIndexCmd());
+        commands.put(CMD_MIGRATE_DB_LEDGER_LOCATIONS_INDEX, new MigrateDbLedgerLocationsIndexCmd());
         commands.put(CMD_REBUILD_DB_LEDGERS_INDEX, new RebuildDbLedgersIndexCmd());
         commands.put(CMD_CHECK_DB_LEDGERS_INDEX, new CheckDbLedgersIndexCmd());
         commands.put(CMD_REGENERATE_INTERLEAVED_STORAGE_INDEX_FILE, new RegenerateInterleavedStorageIndexFile());
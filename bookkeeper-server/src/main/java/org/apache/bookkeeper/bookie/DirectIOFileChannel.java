@@ -0,0 +1,391 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import static org.apache.bookkeeper.bookie.DirectIOFileChannelProvider.ALIGNMENT;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import org.apache.bookkeeper.bookie.DirectIOFileChannelProvider.AlignedBuffer;
+import org.apache.bookkeeper.common.util.nativeio.NativeIO;
+import org.apache.bookkeeper.common.util.nativeio.NativeIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BookieFileChannel writing with O_DIRECT, see {@link DirectIOFileChannelProvider}.
+ */
+public class DirectIOFileChannel implements BookieFileChannel {
+    private final File file;
+    private final DirectIOFileChannelProvider provider;
+    private final NativeIO nativeIO;
+    private final int bufferSize;
+    private RandomAccessFile randomAccessFile;
+    private DirectWriteChannel channel;
+
+    DirectIOFileChannel(File file, DirectIOFileChannelProvider provider, NativeIO nativeIO, int bufferSize) {
+        this.file = file;
+        this.provider = provider;
+        this.nativeIO = nativeIO;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public FileChannel getFileChannel() throws IOException {
+        synchronized (this) {
+            if (channel == null) {
+                randomAccessFile = new RandomAccessFile(file, "rw");
+                channel = new DirectWriteChannel(file.toString(), randomAccessFile.getChannel(), provider,
+                                                 nativeIO, bufferSize);
+            }
+            return channel;
+        }
+    }
+
+    @Override
+    public boolean fileExists(File file) {
+        return file.exists();
+    }
+
+    @Override
+    public FileDescriptor getFD() throws IOException {
+        synchronized (this) {
+            if (randomAccessFile == null) {
+                throw new IOException("randomAccessFile is null, please initialize it by calling getFileChannel");
+            }
+            return randomAccessFile.getFD();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (channel != null) {
+                channel.close();
+            }
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    /**
+     * FileChannel doing the writes with O_DIRECT, while the reads go through a regular file channel.
+     *
+     * <p>O_DIRECT needs aligned offsets and sizes, so each write is copied into an aligned buffer and written as
+     * whole blocks. The partial block at the end of a write is kept at the beginning of the buffer, so that the
+     * next append, which will rewrite that block, doesn't need to read it back. The blocks past the end of the
+     * data are known to be zeros and are never read either.
+     */
+    static class DirectWriteChannel extends FileChannel {
+        private static final Logger LOG = LoggerFactory.getLogger(DirectWriteChannel.class);
+        private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(ALIGNMENT);
+        private static volatile boolean useFallocate = true;
+
+        private final String filename;
+        private final FileChannel reader;
+        private final DirectIOFileChannelProvider provider;
+        private final NativeIO nativeIO;
+        private final int bufferSize;
+
+        // Opened on the first write, as most of the journal files are opened only to be read
+        private volatile int fd = -1;
+        private AlignedBuffer buffer;
+        private long position;
+        // End of the data in the file, past which the file only has zeros
+        private long dataEnd;
+        // Block whose content is at the beginning of the buffer, or -1
+        private long cachedBlock = -1;
+
+        DirectWriteChannel(String filename, FileChannel reader, DirectIOFileChannelProvider provider,
+                           NativeIO nativeIO, int bufferSize) throws IOException {
+            this.filename = filename;
+            this.reader = reader;
+            this.provider = provider;
+            this.nativeIO = nativeIO;
+            this.bufferSize = bufferSize;
+            this.dataEnd = reader.size();
+        }
+
+        private void ensureOpenForWrite() throws IOException {
+            if (fd >= 0) {
+                return;
+            }
+            try {
+                fd = nativeIO.open(filename, NativeIO.O_CREAT | NativeIO.O_WRONLY | NativeIO.O_DIRECT, 00644);
+            } catch (NativeIOException ne) {
+                throw new IOException("Failed to open " + filename + " with O_DIRECT", ne);
+            }
+            buffer = provider.acquireBuffer(bufferSize);
+            cachedBlock = -1;
+        }
+
+        @Override
+        public synchronized int write(ByteBuffer src) throws IOException {
+            int written = write(src, position);
+            position += written;
+            return written;
+        }
+
+        @Override
+        public synchronized int write(ByteBuffer src, long pos) throws IOException {
+            ensureOpenForWrite();
+            int written = 0;
+            while (src.hasRemaining()) {
+                written += writeBlocks(src, pos + written);
+            }
+            return written;
+        }
+
+        /**
+         * Write as much of src as fits in the buffer, as whole blocks.
+         */
+        private int writeBlocks(ByteBuffer src, long pos) throws IOException {
+            ByteBuffer staging = buffer.nioBuffer;
+            long blockStart = pos & ~(ALIGNMENT - 1);
+            int head = (int) (pos - blockStart);
+            if (head > 0 && cachedBlock != blockStart) {
+                readBlock(blockStart, 0);
+            }
+
+            int length = Math.min(src.remaining(), bufferSize - head);
+            int end = head + length;
+            int alignedEnd = (end + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+            int lastBlockOffset = alignedEnd - ALIGNMENT;
+            if (end < alignedEnd) {
+                if (pos + length < dataEnd && (lastBlockOffset > 0 || head == 0)) {
+                    // The write ends before the end of the data, preserve what follows it in the last block
+                    readBlock(blockStart + lastBlockOffset, lastBlockOffset);
+                } else if (pos + length >= dataEnd) {
+                    ByteBuffer zeros = ZEROS.duplicate();
+                    zeros.limit(alignedEnd - end);
+                    staging.clear().position(end);
+                    staging.put(zeros);
+                }
+            }
+
+            ByteBuffer data = src.duplicate();
+            data.limit(data.position() + length);
+            staging.clear().position(head);
+            staging.put(data);
+            src.position(src.position() + length);
+
+            long pointer = buffer.pointer;
+            long offset = blockStart;
+            int remaining = alignedEnd;
+            try {
+                while (remaining > 0) {
+                    int written = nativeIO.pwrite(fd, pointer, remaining, offset);
+                    pointer += written;
+                    offset += written;
+                    remaining -= written;
+                }
+            } catch (NativeIOException ne) {
+                cachedBlock = -1;
+                throw new IOException("Failed to write " + filename + " at " + offset, ne);
+            }
+            dataEnd = Math.max(dataEnd, pos + length);
+
+            if (end < alignedEnd) {
+                if (lastBlockOffset > 0) {
+                    ByteBuffer lastBlock = staging.duplicate();
+                    lastBlock.limit(alignedEnd).position(lastBlockOffset);
+                    staging.clear();
+                    staging.put(lastBlock);
+                }
+                cachedBlock = blockStart + lastBlockOffset;
+            } else {
+                cachedBlock = -1;
+            }
+            return length;
+        }
+
+        /**
+         * Read a block of the file into the buffer, with zeros past the end of the file.
+         */
+        private void readBlock(long blockStart, int bufferOffset) throws IOException {
+            ByteBuffer block = buffer.nioBuffer.duplicate();
+            block.clear().position(bufferOffset).limit(bufferOffset + ALIGNMENT);
+            while (block.hasRemaining()) {
+                int read = reader.read(block, blockStart + block.position() - bufferOffset);
+                if (read <= 0) {
+                    break;
+                }
+            }
+            ByteBuffer zeros = ZEROS.duplicate();
+            zeros.limit(block.remaining());
+            block.put(zeros);
+        }
+
+        /**
+         * Extend the file to the given size, using fallocate when available.
+         */
+        synchronized void preallocate(long size) throws IOException {
+            ensureOpenForWrite();
+            if (useFallocate) {
+                try {
+                    nativeIO.fallocate(fd, 0, 0, size);
+                    return;
+                } catch (NativeIOException ne) {
+                    // fallocate(2) is not supported on all filesystems, fallback to writing zeros
+                    LOG.warn("fallocate is not available for {}, errno={}", filename, ne.getErrno());
+                    useFallocate = false;
+                }
+            }
+            long prevDataEnd = dataEnd;
+            write(ZEROS.duplicate(), ((size - 1) & ~(ALIGNMENT - 1)));
+            // These are zeros, no need to consider them as data
+            dataEnd = prevDataEnd;
+            cachedBlock = -1;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            int writeFd = fd;
+            if (writeFd < 0) {
+                reader.force(metaData);
+                return;
+            }
+            try {
+                nativeIO.fsync(writeFd);
+            } catch (NativeIOException ne) {
+                throw new IOException("Failed to fsync " + filename, ne);
+            }
+        }
+
+        @Override
+        public synchronized int read(ByteBuffer dst) throws IOException {
+            int read = reader.read(dst, position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            long total = 0;
+            for (int i = offset; i < offset + length; i++) {
+                int read = read(dsts[i]);
+                if (read < 0) {
+                    return total > 0 ? total : read;
+                }
+                total += read;
+                if (dsts[i].hasRemaining()) {
+                    break;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long pos) throws IOException {
+            return reader.read(dst, pos);
+        }
+
+        @Override
+        public synchronized long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            long total = 0;
+            for (int i = offset; i < offset + length; i++) {
+                total += write(srcs[i]);
+            }
+            return total;
+        }
+
+        @Override
+        public synchronized long position() {
+            return position;
+        }
+
+        @Override
+        public synchronized FileChannel position(long newPosition) {
+            this.position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return reader.size();
+        }
+
+        @Override
+        public synchronized FileChannel truncate(long size) throws IOException {
+            reader.truncate(size);
+            dataEnd = Math.min(dataEnd, size);
+            position = Math.min(position, size);
+            cachedBlock = -1;
+            return this;
+        }
+
+        @Override
+        public long transferTo(long pos, long count, WritableByteChannel target) throws IOException {
+            return reader.transferTo(pos, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long pos, long count) {
+            throw new UnsupportedOperationException("transferFrom is not supported with O_DIRECT");
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long pos, long size) throws IOException {
+            if (mode != MapMode.READ_ONLY) {
+                throw new UnsupportedOperationException("Only read only mappings are supported with O_DIRECT");
+            }
+            return reader.map(mode, pos, size);
+        }
+
+        @Override
+        public FileLock lock(long pos, long size, boolean shared) throws IOException {
+            return reader.lock(pos, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long pos, long size, boolean shared) throws IOException {
+            return reader.tryLock(pos, size, shared);
+        }
+
+        @Override
+        protected synchronized void implCloseChannel() throws IOException {
+            try {
+                if (fd >= 0) {
+                    nativeIO.close(fd);
+                    fd = -1;
+                }
+            } finally {
+                if (buffer != null) {
+                    provider.releaseBuffer(buffer);
+                    buffer = null;
+                }
+                reader.close();
+            }
+        }
+    }
+}
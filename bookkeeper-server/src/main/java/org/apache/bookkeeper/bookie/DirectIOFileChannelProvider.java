@@ -0,0 +1,116 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.bookkeeper.common.util.nativeio.NativeIO;
+import org.apache.bookkeeper.common.util.nativeio.NativeIOImpl;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+
+/**
+ * FileChannelProvider writing the journal files with O_DIRECT through native-io, so that the journal
+ * writes bypass the page cache.
+ *
+ * <p>To be enabled with {@code journalChannelProvider=org.apache.bookkeeper.bookie.DirectIOFileChannelProvider}.
+ * The journal directory needs to be on a filesystem supporting O_DIRECT.
+ */
+public class DirectIOFileChannelProvider implements FileChannelProvider {
+
+    static final int ALIGNMENT = 4096;
+
+    private final NativeIO nativeIO;
+    // Aligned write buffers of the closed journal files, reused by the next ones
+    private final ConcurrentLinkedQueue<AlignedBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public DirectIOFileChannelProvider() {
+        this(new NativeIOImpl());
+    }
+
+    DirectIOFileChannelProvider(NativeIO nativeIO) {
+        this.nativeIO = nativeIO;
+    }
+
+    @Override
+    public BookieFileChannel open(File file, ServerConfiguration configuration) throws IOException {
+        // Room for a full flush of the journal write buffer, plus the partial blocks at both ends
+        int bufferSize = configuration.getJournalWriteBufferSizeKB() * 1024 + 2 * ALIGNMENT;
+        bufferSize = (bufferSize + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+        return new DirectIOFileChannel(file, this, nativeIO, bufferSize);
+    }
+
+    @Override
+    public void close(BookieFileChannel bookieFileChannel) throws IOException {
+        bookieFileChannel.close();
+    }
+
+    @Override
+    public void close() {
+        AlignedBuffer buffer;
+        while ((buffer = buffers.poll()) != null) {
+            buffer.release();
+        }
+    }
+
+    AlignedBuffer acquireBuffer(int size) {
+        AlignedBuffer buffer;
+        while ((buffer = buffers.poll()) != null) {
+            if (buffer.size == size) {
+                return buffer;
+            }
+            buffer.release();
+        }
+        return new AlignedBuffer(size);
+    }
+
+    void releaseBuffer(AlignedBuffer buffer) {
+        buffers.add(buffer);
+    }
+
+    /**
+     * Direct memory buffer whose address is aligned for O_DIRECT writes.
+     */
+    static class AlignedBuffer {
+        final int size;
+        final long pointer;
+        final ByteBuffer nioBuffer;
+        private final ByteBuf buf;
+
+        AlignedBuffer(int size) {
+            ByteBuf raw = PooledByteBufAllocator.DEFAULT.directBuffer(size + ALIGNMENT);
+            long addr = raw.memoryAddress();
+            int alignOffset = (int) ((ALIGNMENT - (addr & (ALIGNMENT - 1))) & (ALIGNMENT - 1));
+            this.size = size;
+            this.pointer = addr + alignOffset;
+            this.buf = raw.slice(alignOffset, size);
+            this.nioBuffer = buf.nioBuffer(0, size);
+        }
+
+        void release() {
+            buf.release();
+        }
+    }
+}
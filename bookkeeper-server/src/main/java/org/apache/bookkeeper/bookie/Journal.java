@@ -32,15 +32,21 @@ import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.util.Recycler;
 import io.netty.util.Recycler.Handle;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import org.apache.bookkeeper.bookie.LedgerDirsManager.NoWritableLedgerDirException;
@@ -374,6 +380,9 @@ public class Journal implements CheckpointSource {
         private long lastFlushedPosition;
         private long logId;
         private boolean flushed;
+        private long enqueueTime;
+        // Enqueue time of the oldest entry still waiting for the force write, or 0 if none
+        private long oldestEntryEnqueueTime;
 
         public int process(ObjectHashSet<BookieRequestHandler> writeHandlers) {
             closeFileIfNecessary();
@@ -444,6 +453,15 @@ public class Journal implements CheckpointSource {
         req.logId = logId;
         req.lastFlushedPosition = lastFlushedPosition;
         req.shouldClose = shouldClose;
+        req.enqueueTime = MathUtils.nowInNano();
+        req.oldestEntryEnqueueTime = 0;
+        for (int i = 0; i < forceWriteWaiters.size(); i++) {
+            QueueEntry qe = forceWriteWaiters.get(i);
+            if (qe != null) {
+                req.oldestEntryEnqueueTime = qe.enqueueTime;
+                break;
+            }
+        }
         journalStats.getForceWriteQueueSize().inc();
         return req;
     }
@@ -470,14 +488,34 @@ public class Journal implements CheckpointSource {
         private final boolean enableGroupForceWrites;
         private final Counter forceWriteThreadTime;
 
+        // When more than 1 force write can be outstanding, the force writes are issued on the executor
+        // and the requests are completed in order as the force writes complete
+        private final int maxOutstandingForceWrites;
+        private final ExecutorService forceWriteExecutor;
+        private final Semaphore outstandingForceWrites;
+        // Batches whose force write was issued and not yet acknowledged, in journal order
+        private final ArrayDeque<ForceWriteBatch> pendingBatches = new ArrayDeque<>();
+        private final ObjectHashSet<BookieRequestHandler> pendingBatchesWriteHandlers = new ObjectHashSet<>();
+        private IOException forceWriteFailure;
+
         public ForceWriteThread(Consumer<Void> threadToNotifyOnEx,
                                 boolean enableGroupForceWrites,
+                                int maxOutstandingForceWrites,
                                 StatsLogger statsLogger) {
             super("ForceWriteThread");
             this.setPriority(Thread.MAX_PRIORITY);
             this.threadToNotifyOnEx = threadToNotifyOnEx;
             this.enableGroupForceWrites = enableGroupForceWrites;
             this.forceWriteThreadTime = statsLogger.getThreadScopedCounter("force-write-thread-time");
+            this.maxOutstandingForceWrites = Math.max(1, maxOutstandingForceWrites);
+            if (this.maxOutstandingForceWrites > 1) {
+                this.forceWriteExecutor = Executors.newFixedThreadPool(this.maxOutstandingForceWrites,
+                        new DefaultThreadFactory("JournalForceWrite", Thread.MAX_PRIORITY));
+                this.outstandingForceWrites = new Semaphore(this.maxOutstandingForceWrites);
+            } else {
+                this.forceWriteExecutor = null;
+                this.outstandingForceWrites = null;
+            }
         }
         @Override
         public void run() {
@@ -497,31 +535,22 @@ public class Journal implements CheckpointSource {
 
             while (running) {
                 try {
-                    int numEntriesInLastForceWrite = 0;
-
                     int requestsCount = forceWriteRequests.takeAll(localRequests);
 
                     journalStats.getForceWriteQueueSize().addCount(-requestsCount);
 
+                    if (forceWriteExecutor != null) {
+                        issueForceWrite(localRequests, requestsCount, writeHandlers);
+                        continue;
+                    }
+
                     // Sync and mark the journal up to the position of the last entry in the batch
                     ForceWriteRequest lastRequest = localRequests[requestsCount - 1];
                     syncJournal(lastRequest);
 
                     // All the requests in the batch are now fully-synced. We can trigger sending the
                     // responses
-                    for (int i = 0; i < requestsCount; i++) {
-                        ForceWriteRequest req = localRequests[i];
-                        numEntriesInLastForceWrite += req.process(writeHandlers);
-                        localRequests[i] = null;
-                        req.recycle();
-                    }
-
-                    journalStats.getForceWriteGroupingCountStats()
-                            .registerSuccessfulValue(numEntriesInLastForceWrite);
-                    writeHandlers.forEach(
-                            (ObjectProcedure<? super BookieRequestHandler>)
-                                    BookieRequestHandler::flushPendingResponse);
-                    writeHandlers.clear();
+                    completeRequests(localRequests, requestsCount, writeHandlers);
                 } catch (IOException ioe) {
                     LOG.error("I/O exception in ForceWrite thread", ioe);
                     running = false;
@@ -538,12 +567,19 @@ public class Journal implements CheckpointSource {
         }
 
         private void syncJournal(ForceWriteRequest lastRequest) throws IOException {
+            forceWriteToDisk(lastRequest);
+            lastLogMark.setCurLogMark(lastRequest.logId, lastRequest.lastFlushedPosition);
+        }
+
+        private void forceWriteToDisk(ForceWriteRequest lastRequest) throws IOException {
             long fsyncStartTime = MathUtils.nowInNano();
             try {
                 lastRequest.flushFileToDisk();
-                journalStats.getJournalSyncStats().registerSuccessfulEvent(MathUtils.elapsedNanos(fsyncStartTime),
-                        TimeUnit.NANOSECONDS);
-                lastLogMark.setCurLogMark(lastRequest.logId, lastRequest.lastFlushedPosition);
+                long fsyncLatency = MathUtils.elapsedNanos(fsyncStartTime);
+                journalStats.getJournalSyncStats().registerSuccessfulEvent(fsyncLatency, TimeUnit.NANOSECONDS);
+                if (groupCommitController != null) {
+                    groupCommitController.recordSyncLatency(fsyncLatency);
+                }
             } catch (IOException ioe) {
                 journalStats.getJournalSyncStats()
                         .registerFailedEvent(MathUtils.elapsedNanos(fsyncStartTime), TimeUnit.NANOSECONDS);
@@ -551,11 +587,138 @@ public class Journal implements CheckpointSource {
             }
         }
 
+        /**
+         * Trigger the callbacks of force written requests and send the responses.
+         */
+        private void completeRequests(ForceWriteRequest[] requests, int requestsCount,
+                                      ObjectHashSet<BookieRequestHandler> writeHandlers) {
+            int numEntriesInLastForceWrite = 0;
+            for (int i = 0; i < requestsCount; i++) {
+                ForceWriteRequest req = requests[i];
+                numEntriesInLastForceWrite += req.process(writeHandlers);
+                if (groupCommitController != null && req.oldestEntryEnqueueTime != 0) {
+                    groupCommitController.recordAddLatency(MathUtils.elapsedNanos(req.oldestEntryEnqueueTime));
+                }
+                journalStats.getJournalCommitStats()
+                        .registerSuccessfulEvent(MathUtils.elapsedNanos(req.enqueueTime), TimeUnit.NANOSECONDS);
+                requests[i] = null;
+                req.recycle();
+            }
+
+            journalStats.getForceWriteGroupingCountStats()
+                    .registerSuccessfulValue(numEntriesInLastForceWrite);
+            writeHandlers.forEach(
+                    (ObjectProcedure<? super BookieRequestHandler>)
+                            BookieRequestHandler::flushPendingResponse);
+            writeHandlers.clear();
+        }
+
+        /**
+         * Issue the force write of a batch of requests on the executor, without waiting for it to complete.
+         */
+        private void issueForceWrite(ForceWriteRequest[] localRequests, int requestsCount,
+                                     ObjectHashSet<BookieRequestHandler> writeHandlers)
+                throws IOException, InterruptedException {
+            ForceWriteRequest[] requests = Arrays.copyOf(localRequests, requestsCount);
+            Arrays.fill(localRequests, 0, requestsCount, null);
+
+            boolean closesFile = false;
+            for (ForceWriteRequest req : requests) {
+                closesFile |= req.shouldClose;
+            }
+
+            if (closesFile) {
+                // The journal file gets closed once synced, so wait for all the force writes in progress on it
+                // to complete, then sync it from this thread
+                outstandingForceWrites.acquire(maxOutstandingForceWrites);
+                try {
+                    checkForceWriteFailure();
+                    syncJournal(requests[requestsCount - 1]);
+                    completeRequests(requests, requestsCount, writeHandlers);
+                } finally {
+                    outstandingForceWrites.release(maxOutstandingForceWrites);
+                }
+                return;
+            }
+
+            outstandingForceWrites.acquire();
+            journalStats.getForceWriteOutstandingStats().registerSuccessfulValue(
+                    maxOutstandingForceWrites - outstandingForceWrites.availablePermits() - 1);
+            ForceWriteBatch batch = new ForceWriteBatch(requests);
+            synchronized (pendingBatches) {
+                checkForceWriteFailure();
+                pendingBatches.add(batch);
+            }
+
+            forceWriteExecutor.execute(() -> {
+                IOException failure = null;
+                try {
+                    forceWriteToDisk(requests[requestsCount - 1]);
+                } catch (IOException ioe) {
+                    failure = ioe;
+                }
+                completeBatches(batch, failure);
+                outstandingForceWrites.release();
+            });
+        }
+
+        private void completeBatches(ForceWriteBatch batch, IOException failure) {
+            synchronized (pendingBatches) {
+                if (forceWriteFailure != null) {
+                    return;
+                }
+                if (failure != null) {
+                    LOG.error("I/O exception in ForceWrite thread", failure);
+                    forceWriteFailure = failure;
+                    running = false;
+                    this.interrupt();
+                    return;
+                }
+
+                // The force write made durable all the data written before it was issued, so the batches issued
+                // before this one are durable too, even if their own force write is still in progress
+                while (!batch.acknowledged) {
+                    ForceWriteBatch head = pendingBatches.poll();
+                    ForceWriteRequest lastRequest = head.requests[head.requests.length - 1];
+                    lastLogMark.setCurLogMark(lastRequest.logId, lastRequest.lastFlushedPosition);
+                    completeRequests(head.requests, head.requests.length, pendingBatchesWriteHandlers);
+                    head.acknowledged = true;
+                }
+            }
+        }
+
+        private void checkForceWriteFailure() throws IOException {
+            synchronized (pendingBatches) {
+                if (forceWriteFailure != null) {
+                    throw forceWriteFailure;
+                }
+            }
+        }
+
         // shutdown sync thread
         void shutdown() throws InterruptedException {
             running = false;
             this.interrupt();
             this.join();
+            if (forceWriteExecutor != null) {
+                forceWriteExecutor.shutdown();
+                // Let the outstanding force writes complete their requests
+                if (!forceWriteExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOG.warn("Timed out waiting for the outstanding journal force writes to complete");
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests force written together, when several force writes can be in progress.
+     */
+    private static class ForceWriteBatch {
+        final ForceWriteRequest[] requests;
+        boolean acknowledged = false;
+
+        ForceWriteBatch(ForceWriteRequest[] requests) {
+            this.requests = requests;
         }
     }
 
@@ -609,6 +772,8 @@ public class Journal implements CheckpointSource {
     private final long bufferedWritesThreshold;
     // should we flush if the queue is empty
     private final boolean flushWhenQueueEmpty;
+    // tunes the group commit thresholds above from the observed load, null if disabled
+    private final JournalGroupCommitController groupCommitController;
     // should we hint the filesystem to remove pages from cache after force write
     private final boolean removePagesFromCache;
     private final int journalFormatVersionToWrite;
@@ -679,7 +844,8 @@ public class Journal implements CheckpointSource {
         this.syncData = conf.getJournalSyncData();
         this.maxBackupJournals = conf.getMaxBackupJournals();
         this.forceWriteThread = new ForceWriteThread((__) -> this.interruptThread(),
-                conf.getJournalAdaptiveGroupWrites(), journalStatsLogger);
+                conf.getJournalAdaptiveGroupWrites(), conf.getJournalMaxOutstandingForceWrites(),
+                journalStatsLogger);
         this.maxGroupWaitInNanos = TimeUnit.MILLISECONDS.toNanos(conf.getJournalMaxGroupWaitMSec());
         this.bufferedWritesThreshold = conf.getJournalBufferedWritesThreshold();
         this.bufferedEntriesThreshold = conf.getJournalBufferedEntriesThreshold();
@@ -714,6 +880,15 @@ public class Journal implements CheckpointSource {
         // Expose Stats
         this.journalStats = new JournalStats(journalStatsLogger, journalMaxMemory,
                 () -> memoryLimitController.currentUsage());
+
+        long groupCommitTargetLatencyNanos =
+                TimeUnit.MILLISECONDS.toNanos(conf.getJournalGroupCommitTargetLatencyMSec());
+        if (groupCommitTargetLatencyNanos > 0) {
+            this.groupCommitController = new JournalGroupCommitController(groupCommitTargetLatencyNanos,
+                    maxGroupWaitInNanos, bufferedEntriesThreshold, bufferedWritesThreshold, journalStats);
+        } else {
+            this.groupCommitController = null;
+        }
     }
 
     public Journal(int journalIndex, File journalDirectory, ServerConfiguration conf,
@@ -986,6 +1161,11 @@ public class Journal implements CheckpointSource {
             long lastFlushPosition = 0;
             boolean groupWhenTimeout = false;
 
+            long groupWaitNanos = this.maxGroupWaitInNanos;
+            long entriesThreshold = this.bufferedEntriesThreshold;
+            long writesThreshold = this.bufferedWritesThreshold;
+            boolean flushWhenEmpty = this.flushWhenQueueEmpty;
+
             long dequeueStartTime = 0L;
             long lastFlushTimeMs = System.currentTimeMillis();
 
@@ -1021,6 +1201,13 @@ public class Journal implements CheckpointSource {
                             .registerSuccessfulEvent(MathUtils.elapsedNanos(dequeueStartTime), TimeUnit.NANOSECONDS);
                     }
 
+                    if (groupCommitController != null) {
+                        groupWaitNanos = groupCommitController.getGroupWaitNanos();
+                        entriesThreshold = groupCommitController.getEntriesThreshold();
+                        writesThreshold = groupCommitController.getBytesThreshold();
+                        flushWhenEmpty = groupCommitController.shouldFlushWhenQueueEmpty();
+                    }
+
                     // At this point the local queue will always be empty, otherwise we would have
                     // advanced to the next `qe` at the end of the loop
                     localQueueEntriesIdx = 0;
@@ -1031,9 +1218,9 @@ public class Journal implements CheckpointSource {
                     } else {
                         // There are already some entries pending. We must adjust
                         // the waiting time to the remaining groupWait time
-                        long pollWaitTimeNanos = maxGroupWaitInNanos
+                        long pollWaitTimeNanos = groupWaitNanos
                                 - MathUtils.elapsedNanos(toFlush.get(0).enqueueTime);
-                        if (flushWhenQueueEmpty || pollWaitTimeNanos < 0) {
+                        if (flushWhenEmpty || pollWaitTimeNanos < 0) {
                             pollWaitTimeNanos = 0;
                         }
 
@@ -1044,6 +1231,7 @@ public class Journal implements CheckpointSource {
                     dequeueStartTime = MathUtils.nowInNano();
 
                     if (localQueueEntriesLen > 0) {
+                        journalStats.getJournalQueueDepthStats().registerSuccessfulValue(localQueueEntriesLen);
                         qe = localQueueEntries[localQueueEntriesIdx];
                         localQueueEntries[localQueueEntriesIdx++] = null;
                     }
@@ -1053,12 +1241,12 @@ public class Journal implements CheckpointSource {
                     boolean shouldFlush = false;
                     // We should issue a forceWrite if any of the three conditions below holds good
                     // 1. If the oldest pending entry has been pending for longer than the max wait time
-                    if (maxGroupWaitInNanos > 0 && !groupWhenTimeout && (MathUtils
-                            .elapsedNanos(toFlush.get(0).enqueueTime) > maxGroupWaitInNanos)) {
+                    if (groupWaitNanos > 0 && !groupWhenTimeout && (MathUtils
+                            .elapsedNanos(toFlush.get(0).enqueueTime) > groupWaitNanos)) {
                         groupWhenTimeout = true;
-                    } else if (maxGroupWaitInNanos > 0 && groupWhenTimeout
+                    } else if (groupWaitNanos > 0 && groupWhenTimeout
                         && (qe == null // no entry to group
-                            || MathUtils.elapsedNanos(qe.enqueueTime) < maxGroupWaitInNanos)) {
+                            || MathUtils.elapsedNanos(qe.enqueueTime) < groupWaitNanos)) {
                         // when group timeout, it would be better to look forward, as there might be lots of
                         // entries already timeout
                         // due to a previous slow write (writing to filesystem which impacted by force write).
@@ -1069,13 +1257,13 @@ public class Journal implements CheckpointSource {
                         shouldFlush = true;
                         journalStats.getFlushMaxWaitCounter().inc();
                     } else if (qe != null
-                            && ((bufferedEntriesThreshold > 0 && toFlush.size() > bufferedEntriesThreshold)
-                            || (bc.position() > lastFlushPosition + bufferedWritesThreshold))) {
+                            && ((entriesThreshold > 0 && toFlush.size() > entriesThreshold)
+                            || (bc.position() > lastFlushPosition + writesThreshold))) {
                         // 2. If we have buffered more than the buffWriteThreshold or bufferedEntriesThreshold
                         groupWhenTimeout = false;
                         shouldFlush = true;
                         journalStats.getFlushMaxOutstandingBytesCounter().inc();
-                    } else if (qe == null && flushWhenQueueEmpty) {
+                    } else if (qe == null && flushWhenEmpty) {
                         // We should get here only if we flushWhenQueueEmpty is true else we would wait
                         // for timeout that would put is past the maxWait threshold
                         // 3. If the queue is empty i.e. no benefit of grouping. This happens when we have one
@@ -1093,6 +1281,15 @@ public class Journal implements CheckpointSource {
                         journalFlushWatcher.reset().start();
                         bc.flush();
 
+                        if (groupCommitController != null) {
+                            if (!syncData) {
+                                // The entries are acknowledged once flushed, see below
+                                groupCommitController.recordAddLatency(
+                                        MathUtils.elapsedNanos(toFlush.get(0).enqueueTime));
+                            }
+                            groupCommitController.onFlush(numEntriesToFlush, batchSize);
+                        }
+
                         for (int i = 0; i < toFlush.size(); i++) {
                             QueueEntry entry = toFlush.get(i);
                             if (entry != null && (!syncData || entry.ackBeforeSync)) {
@@ -261,7 +261,7 @@ class JournalChannel implements Closeable {
         bc = bcBuilder.create(fc, writeBufferSize);
         forceWrite(true);
         nextPrealloc = this.preAllocSize;
-        fc.write(zeros, nextPrealloc - journalAlignSize);
+        preAllocate();
     }
 
     public static void renameJournalFile(File source, File target) throws IOException {
@@ -285,6 +285,14 @@ class JournalChannel implements Closeable {
     void preAllocIfNeeded(long size) throws IOException {
         if (bc.position() + size > nextPrealloc) {
             nextPrealloc += preAllocSize;
+            preAllocate();
+        }
+    }
+
+    private void preAllocate() throws IOException {
+        if (fc instanceof DirectIOFileChannel.DirectWriteChannel) {
+            ((DirectIOFileChannel.DirectWriteChannel) fc).preallocate(nextPrealloc);
+        } else {
             zeros.clear();
             fc.write(zeros, nextPrealloc - journalAlignSize);
         }
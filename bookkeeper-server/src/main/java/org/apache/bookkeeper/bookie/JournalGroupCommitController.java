@@ -0,0 +1,203 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.bookie.stats.JournalStats;
+import org.apache.bookkeeper.common.util.MathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tunes the group commit of a journal from the observed load, to keep the p99 add latency under a target.
+ *
+ * <p>Over each adjustment interval, the controller looks at the arrival rate of the entries, the fsync latency
+ * and the p99 of the add latency, ie: from the entry being enqueued to it being acknowledged. Then:
+ * <ul>
+ * <li>the group wait is halved when the p99 is over the target, and increased by a step when there is room
+ * below the target, without going over the target minus the fsync latency nor the configured max group wait.
+ * <li>the entries threshold is set to the number of entries expected to arrive during a group wait, and the
+ * bytes threshold to their expected size, so that a group gets flushed as soon as it's as large as it would
+ * get by waiting, without going over the configured thresholds.
+ * <li>the journal flushes when the queue is empty if less than one entry is expected during a group wait, as
+ * waiting would only add latency.
+ * </ul>
+ *
+ * <p>The thresholds are read and adjusted by the journal thread only, while the latencies are also recorded by
+ * the force write threads.
+ */
+class JournalGroupCommitController {
+    private static final Logger LOG = LoggerFactory.getLogger(JournalGroupCommitController.class);
+
+    static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_LATENCY_SAMPLES = 1024;
+    // Weight of the last fsync latency in its moving average
+    private static final double SYNC_LATENCY_ALPHA = 0.2;
+    // Fraction of the target under which the group wait is increased
+    private static final double INCREASE_THRESHOLD = 0.8;
+
+    private final long targetLatencyNanos;
+    private final long maxGroupWaitNanos;
+    private final long maxEntriesThreshold;
+    private final long maxBytesThreshold;
+    private final long groupWaitStepNanos;
+    private final JournalStats journalStats;
+
+    // Decisions, only accessed by the journal thread
+    private long groupWaitNanos;
+    private long entriesThreshold;
+    private long bytesThreshold;
+    private boolean flushWhenQueueEmpty;
+
+    // Arrivals since the last adjustment, only accessed by the journal thread
+    private long intervalStartNanos;
+    private long intervalEntries;
+    private long intervalBytes;
+
+    // Latencies since the last adjustment, guarded by this
+    private final long[] latencySamples = new long[MAX_LATENCY_SAMPLES];
+    private int numLatencySamples;
+    private double syncLatencyNanos;
+
+    JournalGroupCommitController(long targetLatencyNanos, long maxGroupWaitNanos, long maxEntriesThreshold,
+                                 long maxBytesThreshold, JournalStats journalStats) {
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.maxGroupWaitNanos = maxGroupWaitNanos;
+        this.maxEntriesThreshold = maxEntriesThreshold;
+        this.maxBytesThreshold = maxBytesThreshold;
+        this.groupWaitStepNanos = Math.max(targetLatencyNanos / 20, TimeUnit.MICROSECONDS.toNanos(50));
+        this.journalStats = journalStats;
+
+        // Start from the configured values, then adapt
+        this.groupWaitNanos = maxGroupWaitNanos;
+        this.entriesThreshold = maxEntriesThreshold;
+        this.bytesThreshold = maxBytesThreshold;
+        this.flushWhenQueueEmpty = maxGroupWaitNanos <= 0;
+        this.intervalStartNanos = MathUtils.nowInNano();
+    }
+
+    long getGroupWaitNanos() {
+        return groupWaitNanos;
+    }
+
+    long getEntriesThreshold() {
+        return entriesThreshold;
+    }
+
+    long getBytesThreshold() {
+        return bytesThreshold;
+    }
+
+    boolean shouldFlushWhenQueueEmpty() {
+        return flushWhenQueueEmpty;
+    }
+
+    /**
+     * Record the latency of the oldest entry of a group, from it being enqueued to it being acknowledged.
+     */
+    synchronized void recordAddLatency(long latencyNanos) {
+        latencySamples[numLatencySamples % MAX_LATENCY_SAMPLES] = latencyNanos;
+        numLatencySamples++;
+    }
+
+    synchronized void recordSyncLatency(long latencyNanos) {
+        if (syncLatencyNanos == 0) {
+            syncLatencyNanos = latencyNanos;
+        } else {
+            syncLatencyNanos += SYNC_LATENCY_ALPHA * (latencyNanos - syncLatencyNanos);
+        }
+    }
+
+    /**
+     * Record a group flushed by the journal thread and adjust the thresholds if the interval is over.
+     */
+    void onFlush(int numEntries, long numBytes) {
+        intervalEntries += numEntries;
+        intervalBytes += numBytes;
+
+        long elapsedNanos = MathUtils.elapsedNanos(intervalStartNanos);
+        if (elapsedNanos >= ADJUST_INTERVAL_NANOS) {
+            adjust(elapsedNanos);
+        }
+    }
+
+    private void adjust(long elapsedNanos) {
+        long p99;
+        long syncLatency;
+        synchronized (this) {
+            p99 = percentile99();
+            syncLatency = (long) syncLatencyNanos;
+            numLatencySamples = 0;
+        }
+
+        double arrivalRate = intervalEntries * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        long avgEntrySize = intervalEntries > 0 ? intervalBytes / intervalEntries : 0;
+
+        if (p99 > targetLatencyNanos) {
+            groupWaitNanos /= 2;
+        } else if (p99 >= 0 && p99 < targetLatencyNanos * INCREASE_THRESHOLD) {
+            groupWaitNanos += groupWaitStepNanos;
+        }
+        // Leave room for the fsync in the target
+        groupWaitNanos = Math.max(0, Math.min(groupWaitNanos,
+                Math.min(maxGroupWaitNanos, targetLatencyNanos - syncLatency)));
+
+        double expectedEntries = arrivalRate * groupWaitNanos / TimeUnit.SECONDS.toNanos(1);
+        entriesThreshold = Math.max(1, (long) Math.ceil(expectedEntries));
+        if (maxEntriesThreshold > 0) {
+            entriesThreshold = Math.min(entriesThreshold, maxEntriesThreshold);
+        }
+        bytesThreshold = Math.min(maxBytesThreshold, Math.max(entriesThreshold * avgEntrySize, avgEntrySize));
+        flushWhenQueueEmpty = groupWaitNanos <= 0 || expectedEntries < 1;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Adjusted group commit: p99 {} ns, fsync {} ns, {} entries/s -> group wait {} ns,"
+                    + " entries threshold {}, bytes threshold {}, flush when queue empty {}", p99, syncLatency,
+                    (long) arrivalRate, groupWaitNanos, entriesThreshold, bytesThreshold, flushWhenQueueEmpty);
+        }
+        if (p99 >= 0) {
+            journalStats.getGroupCommitAddLatencyStats().registerSuccessfulEvent(p99, TimeUnit.NANOSECONDS);
+        }
+        journalStats.getGroupCommitArrivalRateStats().registerSuccessfulValue((long) arrivalRate);
+        journalStats.getGroupCommitWaitStats().registerSuccessfulEvent(groupWaitNanos, TimeUnit.NANOSECONDS);
+        journalStats.getGroupCommitEntriesThresholdStats().registerSuccessfulValue(entriesThreshold);
+        journalStats.getGroupCommitBytesThresholdStats().registerSuccessfulValue(bytesThreshold);
+
+        intervalStartNanos = MathUtils.nowInNano();
+        intervalEntries = 0;
+        intervalBytes = 0;
+    }
+
+    /**
+     * @return the p99 of the latency samples of the interval, or -1 if there are none
+     */
+    private long percentile99() {
+        int count = Math.min(numLatencySamples, MAX_LATENCY_SAMPLES);
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencySamples, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1)];
+    }
+}
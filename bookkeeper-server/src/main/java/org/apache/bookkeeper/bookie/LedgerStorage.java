@@ -144,6 +144,43 @@ public interface LedgerStorage {
      */
     ByteBuf getEntry(long ledgerId, long entryId) throws IOException, BookieException;
 
+    /**
+     * Read a batch of consecutive entries from storage, starting from {@code firstEntryId}.
+     *
+     * <p>The batch stops at the first entry that can't be read, after {@code maxCount} entries, or before the total
+     * size of the entries exceeds {@code maxBytes}. The first entry is always returned, regardless of its size.
+     *
+     * <p>Each entry counts for its size plus {@code entryOverhead} bytes, so that the caller can bound the size of a
+     * response that adds a header to each entry.
+     *
+     * @return the entries read, which need to be released by the caller
+     * @throws BookieException if the first entry can't be read
+     */
+    default List<ByteBuf> getEntries(long ledgerId, long firstEntryId, int maxCount, long maxBytes,
+                                      int entryOverhead) throws IOException, BookieException {
+        List<ByteBuf> entries = new ArrayList<>();
+        long size = 0;
+        for (int i = 0; i < maxCount; i++) {
+            ByteBuf entry;
+            try {
+                entry = getEntry(ledgerId, firstEntryId + i);
+            } catch (IOException | BookieException e) {
+                if (entries.isEmpty()) {
+                    throw e;
+                }
+                break;
+            }
+
+            if (!entries.isEmpty() && size + entry.readableBytes() + entryOverhead > maxBytes) {
+                entry.release();
+                break;
+            }
+            entries.add(entry);
+            size += entry.readableBytes() + entryOverhead;
+        }
+        return entries;
+    }
+
     /**
      * Get last add confirmed.
      *
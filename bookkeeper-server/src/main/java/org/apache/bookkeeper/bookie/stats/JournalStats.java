@@ -23,6 +23,7 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.ADD_ENTRY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.CATEGORY_SERVER;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.FORCE_LEDGER;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_ADD_ENTRY;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_COMMIT_LATENCY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_CREATION_LATENCY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FLUSH_LATENCY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_LEDGER;
@@ -30,13 +31,20 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_W
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_ENTRIES;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_ENQUEUE;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_GROUPING_COUNT;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_OUTSTANDING;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_FORCE_WRITE_QUEUE_SIZE;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_GROUP_COMMIT_ADD_LATENCY_P99;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_GROUP_COMMIT_ARRIVAL_RATE;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_GROUP_COMMIT_BYTES_THRESHOLD;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_GROUP_COMMIT_ENTRIES_THRESHOLD;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_GROUP_COMMIT_WAIT;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_MEMORY_MAX;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_MEMORY_USED;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_NUM_FLUSH_EMPTY_QUEUE;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_NUM_FLUSH_MAX_OUTSTANDING_BYTES;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_NUM_FLUSH_MAX_WAIT;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_PROCESS_TIME_LATENCY;
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_QUEUE_DEPTH;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_QUEUE_LATENCY;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_QUEUE_SIZE;
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.JOURNAL_SCOPE;
@@ -131,6 +139,49 @@ public class JournalStats {
         help = "The distribution of number of bytes grouped together into a force write request"
     )
     private final OpStatsLogger forceWriteBatchBytesStats;
+    @StatsDoc(
+        name = JOURNAL_FORCE_WRITE_OUTSTANDING,
+        help = "The distribution of number of force writes already in progress when a new one is issued"
+    )
+    private final OpStatsLogger forceWriteOutstandingStats;
+    @StatsDoc(
+        name = JOURNAL_COMMIT_LATENCY,
+        help = "operation stats of committing force write requests, from being enqueued to the callbacks of the"
+            + " entries being triggered",
+        parent = JOURNAL_ADD_ENTRY,
+        happensAfter = JOURNAL_FORCE_WRITE_ENQUEUE
+    )
+    private final OpStatsLogger journalCommitStats;
+    @StatsDoc(
+        name = JOURNAL_QUEUE_DEPTH,
+        help = "The distribution of number of entries drained from the journal queue at once"
+    )
+    private final OpStatsLogger journalQueueDepthStats;
+    @StatsDoc(
+        name = JOURNAL_GROUP_COMMIT_WAIT,
+        help = "The group wait chosen by the adaptive group commit, recorded at each adjustment"
+    )
+    private final OpStatsLogger groupCommitWaitStats;
+    @StatsDoc(
+        name = JOURNAL_GROUP_COMMIT_ENTRIES_THRESHOLD,
+        help = "The buffered entries threshold chosen by the adaptive group commit, recorded at each adjustment"
+    )
+    private final OpStatsLogger groupCommitEntriesThresholdStats;
+    @StatsDoc(
+        name = JOURNAL_GROUP_COMMIT_BYTES_THRESHOLD,
+        help = "The buffered bytes threshold chosen by the adaptive group commit, recorded at each adjustment"
+    )
+    private final OpStatsLogger groupCommitBytesThresholdStats;
+    @StatsDoc(
+        name = JOURNAL_GROUP_COMMIT_ADD_LATENCY_P99,
+        help = "The p99 add latency observed by the adaptive group commit over each adjustment interval"
+    )
+    private final OpStatsLogger groupCommitAddLatencyStats;
+    @StatsDoc(
+        name = JOURNAL_GROUP_COMMIT_ARRIVAL_RATE,
+        help = "The entries per second observed by the adaptive group commit over each adjustment interval"
+    )
+    private final OpStatsLogger groupCommitArrivalRateStats;
     @StatsDoc(
         name = JOURNAL_QUEUE_SIZE,
         help = "The journal queue size"
@@ -188,6 +239,19 @@ public class JournalStats {
         forceWriteBatchEntriesStats =
                 statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_ENTRIES);
         forceWriteBatchBytesStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_BATCH_BYTES);
+        forceWriteOutstandingStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_FORCE_WRITE_OUTSTANDING);
+        journalCommitStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_COMMIT_LATENCY);
+        journalQueueDepthStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_QUEUE_DEPTH);
+        groupCommitWaitStats = statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_GROUP_COMMIT_WAIT);
+        groupCommitEntriesThresholdStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_GROUP_COMMIT_ENTRIES_THRESHOLD);
+        groupCommitBytesThresholdStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_GROUP_COMMIT_BYTES_THRESHOLD);
+        groupCommitAddLatencyStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_GROUP_COMMIT_ADD_LATENCY_P99);
+        groupCommitArrivalRateStats =
+                statsLogger.getOpStatsLogger(BookKeeperServerStats.JOURNAL_GROUP_COMMIT_ARRIVAL_RATE);
         journalQueueSize = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_QUEUE_SIZE);
         forceWriteQueueSize = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_FORCE_WRITE_QUEUE_SIZE);
         flushMaxWaitCounter = statsLogger.getCounter(BookKeeperServerStats.JOURNAL_NUM_FLUSH_MAX_WAIT);
@@ -46,6 +46,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import org.apache.bookkeeper.bookie.AbstractLogCompactor;
@@ -55,6 +56,7 @@ import org.apache.bookkeeper.bookie.storage.CompactionEntryLog;
 import org.apache.bookkeeper.bookie.storage.EntryLogIds;
 import org.apache.bookkeeper.bookie.storage.EntryLogScanner;
 import org.apache.bookkeeper.bookie.storage.EntryLogger;
+import org.apache.bookkeeper.common.util.nativeio.IoRing;
 import org.apache.bookkeeper.common.util.nativeio.NativeIO;
 import org.apache.bookkeeper.slogger.Slogger;
 import org.apache.bookkeeper.stats.StatsLogger;
@@ -83,6 +85,9 @@ public class DirectEntryLogger implements EntryLogger {
     private final NativeIO nativeIO;
     private final List<Cache<?, ?>> allCaches = new CopyOnWriteArrayList<>();
     private final ThreadLocal<Cache<Integer, LogReader>> caches;
+    private final int ioRingDepth;
+    // Rings shared by the readers, created on first use. Readers serialize on the ring they use.
+    private final AtomicReferenceArray<IoRing> readRings;
 
     private static final int NUMBER_OF_WRITE_BUFFERS = 8;
 
@@ -101,6 +106,32 @@ public class DirectEntryLogger implements EntryLogger {
                              int maxFdCacheTimeSeconds,
                              Slogger slogParent,
                              StatsLogger stats) throws IOException {
+        this(ledgerDir, ids, nativeIO, allocator, writeExecutor, flushExecutor, maxFileSize, maxSaneEntrySize,
+             totalWriteBufferSize, totalReadBufferSize, readBufferSize, numReadThreads, maxFdCacheTimeSeconds,
+             0, slogParent, stats);
+    }
+
+    /**
+     * @param ioRingDepth if positive, the depth of the {@link IoRing}s used to submit the writes of the current
+     *                    log, and the reads of the readers. The readers share a pool of {@code numReadThreads}
+     *                    rings, picked by thread
+     */
+    public DirectEntryLogger(File ledgerDir,
+                             EntryLogIds ids,
+                             NativeIO nativeIO,
+                             ByteBufAllocator allocator,
+                             ExecutorService writeExecutor,
+                             ExecutorService flushExecutor,
+                             long maxFileSize,
+                             int maxSaneEntrySize,
+                             long totalWriteBufferSize,
+                             long totalReadBufferSize,
+                             int readBufferSize,
+                             int numReadThreads,
+                             int maxFdCacheTimeSeconds,
+                             int ioRingDepth,
+                             Slogger slogParent,
+                             StatsLogger stats) throws IOException {
         this.ledgerDir = ledgerDir;
         this.flushExecutor = flushExecutor;
         this.writeExecutor = writeExecutor;
@@ -112,6 +143,7 @@ public class DirectEntryLogger implements EntryLogger {
         this.maxSaneEntrySize = maxSaneEntrySize;
         this.readBufferSize = Buffer.nextAlignment(readBufferSize);
         this.ids = ids;
+        this.ioRingDepth = ioRingDepth;
         this.slog = slogParent.kv("directory", ledgerDir).ctx(DirectEntryLogger.class);
 
         this.stats = new DirectEntryLoggerStats(stats);
@@ -150,6 +182,7 @@ public class DirectEntryLogger implements EntryLogger {
             .kv("perThreadBufferSize", perThreadBufferSize)
             .kv("maxCachedReadersPerThread", maxCachedReadersPerThread)
             .kv("maxCachedReaders", maxCachedReaders)
+            .kv("ioRingDepth", ioRingDepth)
             .info(Events.ENTRYLOGGER_CREATED);
 
         this.caches = ThreadLocal.withInitial(() -> {
@@ -171,6 +204,7 @@ public class DirectEntryLogger implements EntryLogger {
             allCaches.add(cache);
             return cache;
         });
+        this.readRings = new AtomicReferenceArray<>(ioRingDepth > 0 ? Math.max(1, numReadThreads) : 0);
     }
 
     @Override
@@ -361,6 +395,12 @@ public class DirectEntryLogger implements EntryLogger {
         for (Cache<?, ?> c : allCaches) {
             c.invalidateAll();
         }
+        for (int i = 0; i < readRings.length(); i++) {
+            IoRing ring = readRings.getAndSet(i, null);
+            if (ring != null) {
+                ring.close();
+            }
+        }
 
         writeBuffers.close();
     }
@@ -443,14 +483,42 @@ public class DirectEntryLogger implements EntryLogger {
     @VisibleForTesting
     LogReader newDirectReader(int logId) throws IOException {
         return new DirectReader(logId, logFilename(ledgerDir, logId),
-                                allocator, nativeIO, readBufferSize,
+                                allocator, nativeIO, ioRingDepth > 0 ? readRing() : null, readBufferSize,
                                 maxSaneEntrySize, stats.getReadBlockStats());
     }
 
+    private IoRing readRing() throws IOException {
+        // The number of rings is bounded, rather than having one per thread that would only be freed on close
+        int idx = (int) (Thread.currentThread().getId() % readRings.length());
+        IoRing ring = readRings.get(idx);
+        if (ring == null) {
+            IoRing newRing = IoRing.create(nativeIO, ioRingDepth);
+            if (readRings.compareAndSet(idx, null, newRing)) {
+                ring = newRing;
+            } else {
+                newRing.close();
+                ring = readRings.get(idx);
+            }
+        }
+        return ring;
+    }
+
     private LogWriter newDirectWriter(int newId) throws IOException {
         unflushedLogs.add(newId);
-        LogWriter writer = new DirectWriter(newId, logFilename(ledgerDir, newId), maxFileSize,
-                                            writeExecutor, writeBuffers, nativeIO, slog);
+        // Keep the writes in flight below half of the write buffers, the rest being available to the
+        // write buffer of the writer and to the compaction logs
+        IoRing ring = ioRingDepth > 0
+            ? IoRing.create(nativeIO, Math.min(ioRingDepth, NUMBER_OF_WRITE_BUFFERS / 2)) : null;
+        LogWriter writer;
+        try {
+            writer = new DirectWriter(newId, logFilename(ledgerDir, newId), maxFileSize,
+                                      writeExecutor, writeBuffers, nativeIO, ring, slog);
+        } catch (IOException e) {
+            if (ring != null) {
+                ring.close();
+            }
+            throw e;
+        }
         ByteBuf buf = allocator.buffer(Buffer.ALIGNMENT);
         try {
             Header.writeEmptyHeader(buf);
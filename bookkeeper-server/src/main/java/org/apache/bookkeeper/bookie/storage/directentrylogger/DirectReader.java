@@ -29,11 +29,15 @@ import io.netty.util.ReferenceCountUtil;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.common.util.nativeio.IoRing;
 import org.apache.bookkeeper.common.util.nativeio.NativeIO;
 import org.apache.bookkeeper.common.util.nativeio.NativeIOException;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 
 class DirectReader implements LogReader {
+    // Min size of the chunks in which a block is split when reading through an IoRing
+    static final int READ_CHUNK_SIZE = 64 * 1024;
+
     private final ByteBufAllocator allocator;
     private final NativeIO nativeIO;
     private final Buffer nativeBuffer;
@@ -42,6 +46,9 @@ class DirectReader implements LogReader {
     private final int fd;
     private final int maxSaneEntrySize;
     private final OpStatsLogger readBlockStats;
+    private final IoRing ring;
+    private final long[] ringUserData;
+    private final int[] ringResults;
     private long currentBlock = -1;
     private long currentBlockEnd = -1;
     private long maxOffset;
@@ -50,12 +57,25 @@ class DirectReader implements LogReader {
     DirectReader(int logId, String filename, ByteBufAllocator allocator,
                  NativeIO nativeIO, int bufferSize,
                  int maxSaneEntrySize, OpStatsLogger readBlockStats) throws IOException {
+        this(logId, filename, allocator, nativeIO, null, bufferSize, maxSaneEntrySize, readBlockStats);
+    }
+
+    /**
+     * @param ring if not null, the blocks are read in chunks submitted together to the ring, so that a
+     *             single block read keeps multiple requests in flight on the device
+     */
+    DirectReader(int logId, String filename, ByteBufAllocator allocator,
+                 NativeIO nativeIO, IoRing ring, int bufferSize,
+                 int maxSaneEntrySize, OpStatsLogger readBlockStats) throws IOException {
         this.nativeIO = nativeIO;
         this.allocator = allocator;
         this.logId = logId;
         this.filename = filename;
         this.maxSaneEntrySize = maxSaneEntrySize;
         this.readBlockStats = readBlockStats;
+        this.ring = ring;
+        this.ringUserData = ring != null ? new long[ring.depth()] : null;
+        this.ringResults = ring != null ? new int[ring.depth()] : null;
         closed = false;
 
         try {
@@ -208,7 +228,12 @@ class DirectReader implements LogReader {
         long bytesOutstanding = bytesToRead;
         long bytesRead = -1;
         try {
-            while (true) {
+            if (ring != null && bytesToRead > READ_CHUNK_SIZE) {
+                // Whatever was not read by the chunks is completed by the loop below
+                bufferOffset = readChunks(blockStart, blockSize, bytesToRead);
+                bytesOutstanding -= bufferOffset;
+            }
+            while (bytesOutstanding > 0) {
                 long readSize = blockSize - bufferOffset;
                 long pointerWithOffset = nativeBuffer.pointer(bufferOffset, readSize);
                 bytesRead = nativeIO.pread(fd, pointerWithOffset,
@@ -246,6 +271,53 @@ class DirectReader implements LogReader {
         currentBlockEnd = blockStart + Math.min(blockSize, bytesAvailable);
     }
 
+    /**
+     * Read a block through the ring, as a batch of chunks read in parallel.
+     *
+     * @return the number of bytes read contiguously from the start of the block, which is either all the bytes
+     *         to read or an aligned size
+     */
+    private long readChunks(long blockStart, int blockSize, long bytesToRead) throws IOException {
+        int numChunks = (int) Math.min(ring.depth(), (bytesToRead + READ_CHUNK_SIZE - 1) / READ_CHUNK_SIZE);
+        int chunkSize = Buffer.nextAlignment((int) ((bytesToRead + numChunks - 1) / numChunks));
+        numChunks = (int) ((bytesToRead + chunkSize - 1) / chunkSize);
+
+        long[] chunkBytesRead = new long[numChunks];
+        synchronized (ring) {
+            for (int i = 0; i < numChunks; i++) {
+                long chunkOffset = (long) i * chunkSize;
+                int readSize = (int) Math.min(chunkSize, blockSize - chunkOffset);
+                boolean prepared = ring.prepareRead(fd, nativeBuffer.pointer(chunkOffset, readSize), readSize,
+                                                    blockStart + chunkOffset, i);
+                checkState(prepared, "Ring should have room for %d chunks", numChunks);
+            }
+
+            int completed = 0;
+            while (completed < numChunks) {
+                ring.submit();
+                int reaped = ring.reap(ringUserData, ringResults, true);
+                for (int i = 0; i < reaped; i++) {
+                    chunkBytesRead[(int) ringUserData[i]] = ringResults[i];
+                }
+                completed += reaped;
+            }
+        }
+
+        long bytesRead = 0;
+        for (int i = 0; i < numChunks; i++) {
+            if (chunkBytesRead[i] < 0) {
+                throw new NativeIOException("Failed to read from file", (int) -chunkBytesRead[i]);
+            }
+            long expected = Math.min(chunkSize, bytesToRead - (long) i * chunkSize);
+            if (chunkBytesRead[i] < expected) {
+                // Short read, keep only the aligned part and let the caller read the rest
+                return bytesRead + (chunkBytesRead[i] & ~(Buffer.ALIGNMENT - 1));
+            }
+            bytesRead += expected;
+        }
+        return bytesRead;
+    }
+
     @Override
     public void close() throws IOException {
         synchronized (nativeBuffer) {
@@ -27,10 +27,13 @@ import static org.apache.bookkeeper.common.util.ExceptionMessageHelper.exMsg;
 import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import org.apache.bookkeeper.common.util.nativeio.IoRing;
 import org.apache.bookkeeper.common.util.nativeio.NativeIO;
 import org.apache.bookkeeper.common.util.nativeio.NativeIOException;
 import org.apache.bookkeeper.slogger.Slogger;
@@ -46,6 +49,14 @@ class DirectWriter implements LogWriter {
     final Object bufferLock = new Object();
     final List<Future<?>> outstandingWrites = new ArrayList<Future<?>>();
     final Slogger slog;
+    // When set, the writes are submitted to the ring instead of the write executor
+    final IoRing ring;
+    // Writes submitted to the ring and not yet completed, by user data. Guarded by outstandingWrites
+    final Map<Long, RingWrite> ringWrites = new HashMap<>();
+    final long[] ringUserData;
+    final int[] ringResults;
+    long nextRingWriteId = 0;
+    IOException ringWriteError;
     Buffer nativeBuffer;
     long offset;
     private static volatile boolean useFallocate = true;
@@ -56,11 +67,27 @@ class DirectWriter implements LogWriter {
                  ExecutorService writeExecutor,
                  BufferPool bufferPool,
                  NativeIO nativeIO, Slogger slog) throws IOException {
+        this(id, filename, maxFileSize, writeExecutor, bufferPool, nativeIO, null, slog);
+    }
+
+    /**
+     * @param ring if not null, the writer owns the ring and uses it to submit the writes, which then complete
+     *             asynchronously without occupying a thread of the write executor
+     */
+    DirectWriter(int id,
+                 String filename,
+                 long maxFileSize,
+                 ExecutorService writeExecutor,
+                 BufferPool bufferPool,
+                 NativeIO nativeIO, IoRing ring, Slogger slog) throws IOException {
         checkArgument(maxFileSize > 0, "Max file size (%d) must be positive");
         this.id = id;
         this.filename = filename;
         this.writeExecutor = writeExecutor;
         this.nativeIO = nativeIO;
+        this.ring = ring;
+        this.ringUserData = ring != null ? new long[ring.depth()] : null;
+        this.ringResults = ring != null ? new int[ring.depth()] : null;
         this.slog = slog.ctx(DirectWriter.class);
 
         offset = 0;
@@ -124,6 +151,10 @@ class DirectWriter implements LogWriter {
         Buffer tmpBuffer = bufferPool.acquire();
         tmpBuffer.reset();
         tmpBuffer.writeByteBuf(buf);
+        if (ring != null) {
+            submitRingWrite(tmpBuffer, bytesToWrite, offset);
+            return;
+        }
         Future<?> f = writeExecutor.submit(() -> {
             writeByteBuf(tmpBuffer, bytesToWrite, offset);
             return null;
@@ -222,23 +253,35 @@ class DirectWriter implements LogWriter {
 
     @Override
     public void close() throws IOException {
-        synchronized (bufferLock) {
-            if (nativeBuffer != null && nativeBuffer.position() > 0) {
-                flush();
-            }
-        }
-
         try {
-            int ret = nativeIO.close(fd);
-            checkState(ret == 0, "Close should throw exception on non-zero return (%d)", ret);
-        } catch (NativeIOException ne) {
-            throw new IOException(exMsg(ne.getMessage())
-                                  .kv("file", filename)
-                                  .kv("errno", ne.getErrno()).toString());
-        } finally {
             synchronized (bufferLock) {
-                bufferPool.release(nativeBuffer);
-                nativeBuffer = null;
+                if (nativeBuffer != null && nativeBuffer.position() > 0) {
+                    flush();
+                }
+            }
+            if (ring != null) {
+                waitForOutstandingWrites();
+            }
+        } finally {
+            // The ring and the file are released even if the outstanding writes failed
+            try {
+                try {
+                    if (ring != null) {
+                        ring.close();
+                    }
+                } finally {
+                    int ret = nativeIO.close(fd);
+                    checkState(ret == 0, "Close should throw exception on non-zero return (%d)", ret);
+                }
+            } catch (NativeIOException ne) {
+                throw new IOException(exMsg(ne.getMessage())
+                                      .kv("file", filename)
+                                      .kv("errno", ne.getErrno()).toString());
+            } finally {
+                synchronized (bufferLock) {
+                    bufferPool.release(nativeBuffer);
+                    nativeBuffer = null;
+                }
             }
         }
     }
@@ -262,6 +305,13 @@ class DirectWriter implements LogWriter {
 
     private void waitForOutstandingWrites() throws IOException {
         synchronized (outstandingWrites) {
+            if (ring != null) {
+                while (!ringWrites.isEmpty()) {
+                    reapRingWrites(true);
+                }
+                checkRingWriteError();
+            }
+
             Iterator<Future<?>> iter = outstandingWrites.iterator();
             while (iter.hasNext()) { // clear out completed futures
                 Future<?> f = iter.next();
@@ -300,6 +350,12 @@ class DirectWriter implements LogWriter {
                 long offsetToWrite = offset;
                 offset += bytesToWrite;
 
+                if (ring != null) {
+                    submitRingWrite(bufferToFlush, bytesToWrite, offsetToWrite);
+                    this.nativeBuffer = bufferPool.acquire();
+                    return;
+                }
+
                 Future<?> f = writeExecutor.submit(() -> {
                     writeByteBuf(bufferToFlush, bytesToWrite, offsetToWrite);
                     return null;
@@ -314,6 +370,74 @@ class DirectWriter implements LogWriter {
         }
     }
 
+    private void submitRingWrite(Buffer buffer, int bytesToWrite, long offsetToWrite) throws IOException {
+        synchronized (outstandingWrites) {
+            boolean queued = false;
+            try {
+                long userData = nextRingWriteId++;
+                while (!ring.prepareWrite(fd, buffer.pointer(), bytesToWrite, offsetToWrite, userData)) {
+                    // The ring is full, wait for some of the writes to complete. This also bounds the number
+                    // of buffers held by the in flight writes, so that the buffer pool can't be exhausted.
+                    reapRingWrites(true);
+                }
+                ringWrites.put(userData, new RingWrite(buffer, bytesToWrite, offsetToWrite));
+                queued = true;
+                ring.submit();
+                reapRingWrites(false);
+            } catch (NativeIOException ne) {
+                if (!queued) {
+                    bufferPool.release(buffer);
+                }
+                throw new IOException(exMsg("Write error")
+                    .kv("filename", filename)
+                    .kv("offset", offsetToWrite)
+                    .kv("writeSize", bytesToWrite)
+                    .kv("pointer", buffer.pointer())
+                    .kv("errno", ne.getErrno())
+                    .toString());
+            }
+            checkRingWriteError();
+        }
+    }
+
+    private void reapRingWrites(boolean wait) throws NativeIOException {
+        if (wait) {
+            // Make sure nothing is left in the submission queue before blocking
+            ring.submit();
+        }
+        int reaped = ring.reap(ringUserData, ringResults, wait);
+        for (int i = 0; i < reaped; i++) {
+            RingWrite write = ringWrites.remove(ringUserData[i]);
+            bufferPool.release(write.buffer);
+            if (ringResults[i] != write.size && ringWriteError == null) {
+                ringWriteError = new IOException(exMsg(ringResults[i] < 0 ? "Write error" : "Incomplete write")
+                    .kv("filename", filename)
+                    .kv("offset", write.offset)
+                    .kv("writeSize", write.size)
+                    .kv(ringResults[i] < 0 ? "errno" : "bytesWritten", Math.abs(ringResults[i]))
+                    .toString());
+            }
+        }
+    }
+
+    private void checkRingWriteError() throws IOException {
+        if (ringWriteError != null) {
+            throw ringWriteError;
+        }
+    }
+
+    private static class RingWrite {
+        final Buffer buffer;
+        final int size;
+        final long offset;
+
+        RingWrite(Buffer buffer, int size, long offset) {
+            this.buffer = buffer;
+            this.size = size;
+            this.offset = offset;
+        }
+    }
+
     @Override
     public int serializedSize(ByteBuf buf) {
         return buf.readableBytes() + Integer.BYTES;
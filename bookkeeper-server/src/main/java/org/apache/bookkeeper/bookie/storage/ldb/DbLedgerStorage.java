@@ -91,6 +91,8 @@ public class DbLedgerStorage implements LedgerStorage {
         "dbStorage_directIOEntryLoggerReadBufferSizeMB";
     public static final String DIRECT_IO_ENTRYLOGGER_MAX_FD_CACHE_TIME_SECONDS =
         "dbStorage_directIOEntryLoggerMaxFdCacheTimeSeconds";
+    public static final String DIRECT_IO_ENTRYLOGGER_IO_RING_DEPTH =
+        "dbStorage_directIOEntryLoggerIoRingDepth";
 
     static final String MAX_THROTTLE_TIME_MILLIS = "dbStorage_maxThrottleTimeMs";
 
@@ -106,6 +108,28 @@ public class DbLedgerStorage implements LedgerStorage {
     private static final int DEFAULT_READ_AHEAD_CACHE_BATCH_SIZE = 100;
     // the default value is -1. this feature(limit of read ahead bytes) is disabled
     private static final int DEFAULT_READ_AHEAD_CACHE_BATCH_BYTES_SIZE = -1;
+    static final String READ_CACHE_ZERO_COPY = "dbStorage_readCacheZeroCopy";
+    static final String READ_CACHE_ADMISSION_POLICY = "dbStorage_readCacheAdmissionPolicy";
+    static final String READ_CACHE_DEMAND_REGION_RATIO = "dbStorage_readCacheDemandRegionRatio";
+    static final double DEFAULT_READ_CACHE_DEMAND_REGION_RATIO = 0.5;
+    static final String READ_AHEAD_ASYNC = "dbStorage_readAheadAsync";
+    static final String READ_AHEAD_ASYNC_THREADS = "dbStorage_readAheadAsyncThreads";
+    static final int DEFAULT_READ_AHEAD_ASYNC_THREADS = 2;
+    static final String READ_AHEAD_ADAPTIVE = "dbStorage_readAheadAdaptive";
+    static final String READ_AHEAD_ADAPTIVE_MIN_BATCH_SIZE = "dbStorage_readAheadAdaptiveMinBatchSize";
+    static final String READ_AHEAD_ADAPTIVE_MAX_BATCH_SIZE = "dbStorage_readAheadAdaptiveMaxBatchSize";
+    static final int DEFAULT_READ_AHEAD_ADAPTIVE_MIN_BATCH_SIZE = 4;
+    static final int DEFAULT_READ_AHEAD_ADAPTIVE_MAX_BATCH_SIZE = 1000;
+    static final String PIPELINED_FLUSH = "dbStorage_pipelinedFlush";
+    static final String PIPELINED_FLUSH_INDEX_THREADS = "dbStorage_pipelinedFlushIndexThreads";
+    static final int DEFAULT_PIPELINED_FLUSH_INDEX_THREADS = 2;
+    static final String WRITE_CACHE_SEGMENTS = "dbStorage_writeCacheSegments";
+    static final int DEFAULT_WRITE_CACHE_SEGMENTS = 2;
+    static final String WRITE_CACHE_TARGET_FLUSH_TIME_MILLIS = "dbStorage_writeCacheTargetFlushTimeMs";
+    static final long DEFAULT_WRITE_CACHE_TARGET_FLUSH_TIME_MILLIS = 1000;
+    static final String ENTRY_LOCATION_CACHE_MAX_SIZE_MB = "dbStorage_entryLocationCacheMaxSizeMb";
+    static final long DEFAULT_ENTRY_LOCATION_CACHE_MAX_SIZE_MB = 0;
+    static final String ENTRY_LOCATION_INDEX_FORMAT = "dbStorage_entryLocationIndexFormat";
 
     private static final long DEFAULT_DIRECT_IO_TOTAL_WRITEBUFFER_SIZE_MB =
         (long) (0.125 * PlatformDependent.estimateMaxDirectMemory())
@@ -117,6 +141,8 @@ public class DbLedgerStorage implements LedgerStorage {
 
     private static final int DEFAULT_DIRECT_IO_MAX_FD_CACHE_TIME_SECONDS = 300;
 
+    private static final int DEFAULT_DIRECT_IO_IO_RING_DEPTH = 0;
+
     // use the storage assigned to ledger 0 for flags.
     // if the storage configuration changes, the flags may be lost
     // but in that case data integrity should kick off anyhow.
@@ -213,6 +239,10 @@ public class DbLedgerStorage implements LedgerStorage {
                     conf,
                     DIRECT_IO_ENTRYLOGGER_MAX_FD_CACHE_TIME_SECONDS,
                     DEFAULT_DIRECT_IO_MAX_FD_CACHE_TIME_SECONDS);
+                int ioRingDepth = (int) getLongVariableOrDefault(
+                    conf,
+                    DIRECT_IO_ENTRYLOGGER_IO_RING_DEPTH,
+                    DEFAULT_DIRECT_IO_IO_RING_DEPTH);
                 Slf4jSlogger slog = new Slf4jSlogger(DbLedgerStorage.class);
                 entryLoggerWriteExecutor = Executors.newSingleThreadExecutor(
                     new DefaultThreadFactory("EntryLoggerWrite"));
@@ -234,6 +264,7 @@ public class DbLedgerStorage implements LedgerStorage {
                     readBufferSize,
                     numReadThreads,
                     maxFdCacheTimeSeconds,
+                    ioRingDepth,
                     slog, statsLogger);
             } else {
                 entrylogger = new DefaultEntryLogger(conf, ldm, null, statsLogger, allocator);
@@ -361,6 +392,12 @@ public class DbLedgerStorage implements LedgerStorage {
         return getLedgerStorage(ledgerId).getEntry(ledgerId, entryId);
     }
 
+    @Override
+    public List<ByteBuf> getEntries(long ledgerId, long firstEntryId, int maxCount, long maxBytes,
+                                    int entryOverhead) throws IOException, BookieException {
+        return getLedgerStorage(ledgerId).getEntries(ledgerId, firstEntryId, maxCount, maxBytes, entryOverhead);
+    }
+
     @Override
     public long getLastAddConfirmed(long ledgerId) throws IOException, BookieException {
         return getLedgerStorage(ledgerId).getLastAddConfirmed(ledgerId);
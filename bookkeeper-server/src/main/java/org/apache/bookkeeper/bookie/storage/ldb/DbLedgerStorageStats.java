@@ -46,16 +46,33 @@ class DbLedgerStorageStats {
 
     private static final String ADD_ENTRY = "add-entry";
     private static final String READ_ENTRY = "read-entry";
+    private static final String READ_ENTRIES = "read-entries";
+    private static final String READ_ENTRIES_BATCH_COUNT = "read-entries-batch-count";
     private static final String READ_ENTRY_LOCATIONS_INDEX_TIME = "read-locations-index-time";
     private static final String READ_ENTRYLOG_TIME = "read-entrylog-time";
     private static final String WRITE_CACHE_HITS = "write-cache-hits";
     private static final String WRITE_CACHE_MISSES = "write-cache-misses";
     private static final String READ_CACHE_HITS = "read-cache-hits";
     private static final String READ_CACHE_MISSES = "read-cache-misses";
+    private static final String READ_CACHE_DEMAND_REGION_HITS = "read-cache-demand-region-hits";
+    private static final String READ_CACHE_DEMAND_REGION_MISSES = "read-cache-demand-region-misses";
+    private static final String READ_CACHE_DEMAND_REGION_EVICTIONS = "read-cache-demand-region-evictions";
+    private static final String READ_CACHE_READAHEAD_REGION_HITS = "read-cache-readahead-region-hits";
+    private static final String READ_CACHE_READAHEAD_REGION_MISSES = "read-cache-readahead-region-misses";
+    private static final String READ_CACHE_READAHEAD_REGION_EVICTIONS = "read-cache-readahead-region-evictions";
+    private static final String READ_CACHE_PROMOTIONS = "read-cache-promotions";
     private static final String READAHEAD_BATCH_COUNT = "readahead-batch-count";
     private static final String READAHEAD_BATCH_SIZE = "readahead-batch-size";
     private static final String READAHEAD_TIME = "readahead-time";
+    private static final String READAHEAD_WASTED_BYTES = "readahead-wasted-bytes";
+    private static final String READAHEAD_MERGED = "readahead-merged";
+    private static final String READAHEAD_CANCELLED = "readahead-cancelled";
+    private static final String READAHEAD_WINDOW_SIZE = "readahead-window-size";
+    private static final String READAHEAD_PREFETCH_HITS = "readahead-prefetch-hits";
+    private static final String READAHEAD_PREFETCH_MISSES = "readahead-prefetch-misses";
     private static final String FLUSH = "flush";
+    private static final String FLUSH_SORT = "flush-sort";
+    private static final String FLUSH_ENTRYLOG_WRITE = "flush-entrylog-write";
     private static final String FLUSH_ENTRYLOG = "flush-entrylog";
     private static final String FLUSH_LOCATIONS_INDEX = "flush-locations-index";
     private static final String FLUSH_LEDGER_INDEX = "flush-ledger-index";
@@ -83,6 +100,17 @@ class DbLedgerStorageStats {
         parent = BOOKIE_READ_ENTRY
     )
     private final OpStatsLogger readEntryStats;
+    @StatsDoc(
+        name = READ_ENTRIES,
+        help = "operation stats of reading batches of entries from db ledger storage"
+    )
+    private final OpStatsLogger readEntriesStats;
+    @StatsDoc(
+        name = READ_ENTRIES_BATCH_COUNT,
+        help = "the distribution of number of entries returned by batch reads",
+        parent = READ_ENTRIES
+    )
+    private final OpStatsLogger readEntriesBatchCountStats;
     @StatsDoc(
             name = READ_ENTRY_LOCATIONS_INDEX_TIME,
             help = "time spent reading entries from the locations index of the db ledger storage engine",
@@ -119,6 +147,37 @@ class DbLedgerStorageStats {
         parent = READ_ENTRY
     )
     private final Counter readCacheMissCounter;
+    @StatsDoc(
+        name = READ_CACHE_DEMAND_REGION_HITS,
+        help = "number of read cache hits in the demand region, only recorded with a read cache admission policy",
+        parent = READ_CACHE_HITS
+    )
+    private final Counter readCacheDemandRegionHitCounter;
+    @StatsDoc(
+        name = READ_CACHE_DEMAND_REGION_MISSES,
+        help = "number of read cache misses in the demand region, that are then looked up in the read-ahead"
+            + " region, only recorded with a read cache admission policy",
+        parent = READ_ENTRY
+    )
+    private final Counter readCacheDemandRegionMissCounter;
+    @StatsDoc(
+        name = READ_CACHE_READAHEAD_REGION_HITS,
+        help = "number of read cache hits in the read-ahead region, only recorded with a read cache admission policy",
+        parent = READ_CACHE_HITS
+    )
+    private final Counter readCacheReadAheadRegionHitCounter;
+    @StatsDoc(
+        name = READ_CACHE_READAHEAD_REGION_MISSES,
+        help = "number of read cache misses in the read-ahead region, only recorded with a read cache admission"
+            + " policy",
+        parent = READ_CACHE_MISSES
+    )
+    private final Counter readCacheReadAheadRegionMissCounter;
+    @StatsDoc(
+        name = READ_CACHE_PROMOTIONS,
+        help = "number of entries promoted from the read-ahead region to the demand region of the read cache"
+    )
+    private final Counter readCachePromotionCounter;
     @StatsDoc(
         name = READAHEAD_BATCH_COUNT,
         help = "the distribution of num of entries to read in one readahead batch"
@@ -134,11 +193,51 @@ class DbLedgerStorageStats {
             help = "Time spent on readahead operations"
     )
     private final Counter readAheadTime;
+    @StatsDoc(
+            name = READAHEAD_WASTED_BYTES,
+            help = "Number of bytes read by the background read-ahead for entries that were not useful anymore"
+    )
+    private final Counter readAheadWastedBytes;
+    @StatsDoc(
+            name = READAHEAD_MERGED,
+            help = "Number of read-ahead requests merged into an already scheduled background read-ahead"
+    )
+    private final Counter readAheadMergedCounter;
+    @StatsDoc(
+            name = READAHEAD_CANCELLED,
+            help = "Number of background read-ahead operations cancelled before completing"
+    )
+    private final Counter readAheadCancelledCounter;
+    @StatsDoc(
+            name = READAHEAD_WINDOW_SIZE,
+            help = "the distribution of the per-ledger adaptive readahead window size, in entries"
+    )
+    private final OpStatsLogger readAheadWindowSizeStats;
+    @StatsDoc(
+            name = READAHEAD_PREFETCH_HITS,
+            help = "Number of entries prefetched by the adaptive readahead that were later requested by a reader"
+    )
+    private final Counter readAheadPrefetchHits;
+    @StatsDoc(
+            name = READAHEAD_PREFETCH_MISSES,
+            help = "Number of entries prefetched by the adaptive readahead that were not requested by a reader"
+    )
+    private final Counter readAheadPrefetchMisses;
     @StatsDoc(
         name = FLUSH,
         help = "operation stats of flushing write cache to entry log files"
     )
     private final OpStatsLogger flushStats;
+    @StatsDoc(
+            name = FLUSH_SORT,
+            help = "operation stats of sorting the write cache entries before writing them to the entry log"
+    )
+    private final OpStatsLogger flushSortStats;
+    @StatsDoc(
+            name = FLUSH_ENTRYLOG_WRITE,
+            help = "operation stats of writing the sorted write cache entries to the current entry log file"
+    )
+    private final OpStatsLogger flushEntryLogWriteStats;
     @StatsDoc(
             name = FLUSH_ENTRYLOG,
             help = "operation stats of flushing to the current entry log file"
@@ -195,24 +294,51 @@ class DbLedgerStorageStats {
         help = "Current number of entries in read cache"
     )
     private final Gauge<Long> readCacheCountGauge;
+    @StatsDoc(
+        name = READ_CACHE_DEMAND_REGION_EVICTIONS,
+        help = "Total number of entries evicted from the demand region of the read cache"
+    )
+    private final Gauge<Long> readCacheDemandRegionEvictionsGauge;
+    @StatsDoc(
+        name = READ_CACHE_READAHEAD_REGION_EVICTIONS,
+        help = "Total number of entries evicted from the read-ahead region of the read cache"
+    )
+    private final Gauge<Long> readCacheReadAheadRegionEvictionsGauge;
 
     DbLedgerStorageStats(StatsLogger stats,
                          Supplier<Long> writeCacheSizeSupplier,
                          Supplier<Long> writeCacheCountSupplier,
                          Supplier<Long> readCacheSizeSupplier,
-                         Supplier<Long> readCacheCountSupplier) {
+                         Supplier<Long> readCacheCountSupplier,
+                         Supplier<Long> readCacheDemandRegionEvictionsSupplier,
+                         Supplier<Long> readCacheReadAheadRegionEvictionsSupplier) {
         addEntryStats = stats.getThreadScopedOpStatsLogger(ADD_ENTRY);
         readEntryStats = stats.getThreadScopedOpStatsLogger(READ_ENTRY);
+        readEntriesStats = stats.getThreadScopedOpStatsLogger(READ_ENTRIES);
+        readEntriesBatchCountStats = stats.getOpStatsLogger(READ_ENTRIES_BATCH_COUNT);
         readFromLocationIndexTime = stats.getThreadScopedCounter(READ_ENTRY_LOCATIONS_INDEX_TIME);
         readFromEntryLogTime = stats.getThreadScopedCounter(READ_ENTRYLOG_TIME);
         readCacheHitCounter = stats.getCounter(READ_CACHE_HITS);
         readCacheMissCounter = stats.getCounter(READ_CACHE_MISSES);
+        readCacheDemandRegionHitCounter = stats.getCounter(READ_CACHE_DEMAND_REGION_HITS);
+        readCacheDemandRegionMissCounter = stats.getCounter(READ_CACHE_DEMAND_REGION_MISSES);
+        readCacheReadAheadRegionHitCounter = stats.getCounter(READ_CACHE_READAHEAD_REGION_HITS);
+        readCacheReadAheadRegionMissCounter = stats.getCounter(READ_CACHE_READAHEAD_REGION_MISSES);
+        readCachePromotionCounter = stats.getCounter(READ_CACHE_PROMOTIONS);
         writeCacheHitCounter = stats.getCounter(WRITE_CACHE_HITS);
         writeCacheMissCounter = stats.getCounter(WRITE_CACHE_MISSES);
         readAheadBatchCountStats = stats.getOpStatsLogger(READAHEAD_BATCH_COUNT);
         readAheadBatchSizeStats = stats.getOpStatsLogger(READAHEAD_BATCH_SIZE);
         readAheadTime = stats.getThreadScopedCounter(READAHEAD_TIME);
+        readAheadWastedBytes = stats.getCounter(READAHEAD_WASTED_BYTES);
+        readAheadMergedCounter = stats.getCounter(READAHEAD_MERGED);
+        readAheadCancelledCounter = stats.getCounter(READAHEAD_CANCELLED);
+        readAheadWindowSizeStats = stats.getOpStatsLogger(READAHEAD_WINDOW_SIZE);
+        readAheadPrefetchHits = stats.getCounter(READAHEAD_PREFETCH_HITS);
+        readAheadPrefetchMisses = stats.getCounter(READAHEAD_PREFETCH_MISSES);
         flushStats = stats.getOpStatsLogger(FLUSH);
+        flushSortStats = stats.getOpStatsLogger(FLUSH_SORT);
+        flushEntryLogWriteStats = stats.getOpStatsLogger(FLUSH_ENTRYLOG_WRITE);
         flushEntryLogStats = stats.getOpStatsLogger(FLUSH_ENTRYLOG);
         flushLocationIndexStats = stats.getOpStatsLogger(FLUSH_LOCATIONS_INDEX);
         flushLedgerIndexStats = stats.getOpStatsLogger(FLUSH_LEDGER_INDEX);
@@ -271,6 +397,30 @@ class DbLedgerStorageStats {
             }
         };
         stats.registerGauge(READ_CACHE_COUNT, readCacheCountGauge);
+        readCacheDemandRegionEvictionsGauge = new Gauge<Long>() {
+            @Override
+            public Long getDefaultValue() {
+                return 0L;
+            }
+
+            @Override
+            public Long getSample() {
+                return readCacheDemandRegionEvictionsSupplier.get();
+            }
+        };
+        stats.registerGauge(READ_CACHE_DEMAND_REGION_EVICTIONS, readCacheDemandRegionEvictionsGauge);
+        readCacheReadAheadRegionEvictionsGauge = new Gauge<Long>() {
+            @Override
+            public Long getDefaultValue() {
+                return 0L;
+            }
+
+            @Override
+            public Long getSample() {
+                return readCacheReadAheadRegionEvictionsSupplier.get();
+            }
+        };
+        stats.registerGauge(READ_CACHE_READAHEAD_REGION_EVICTIONS, readCacheReadAheadRegionEvictionsGauge);
     }
 
 }
@@ -0,0 +1,207 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap;
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap.LongPair;
+
+/**
+ * Off-heap cache of the most recently written entry locations, in front of the entry location index db.
+ *
+ * <p>Entry ids in a ledger are dense, so the locations are grouped in chunks, each one covering a contiguous range
+ * of {@link #ENTRIES_PER_CHUNK} entries of a ledger. A chunk only keeps a base location and, in direct memory, the
+ * 32 bits delta of each entry location from the base.
+ *
+ * <p>Chunks are recycled in a circular fashion, so the chunks of the ledgers that were not written for the longest
+ * time are evicted first, and the lookups for those ledgers fall back to the db.
+ */
+class EntryLocationCache implements Closeable {
+
+    static final int ENTRIES_PER_CHUNK = 64;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(ENTRIES_PER_CHUNK);
+    private static final int CHUNK_SIZE = ENTRIES_PER_CHUNK * Integer.BYTES;
+
+    // Marker for the entries that are not present in a chunk
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    private final ByteBuf chunks;
+    private final int numChunks;
+
+    // (ledgerId, chunkIdx) -> (slot, baseLocation)
+    private final ConcurrentLongLongPairHashMap index;
+
+    // Owner of each slot, used to unlink the chunk when the slot gets recycled
+    private final long[] slotLedgerIds;
+    private final long[] slotChunkIdxs;
+    private int nextSlot = 0;
+
+    // Only taken in write mode when modifying the chunks, lookups are using optimistic reads
+    private final StampedLock lock = new StampedLock();
+
+    EntryLocationCache(long maxSize) {
+        this.numChunks = (int) Math.max(1, Math.min(maxSize, Integer.MAX_VALUE) / CHUNK_SIZE);
+        this.chunks = Unpooled.directBuffer(numChunks * CHUNK_SIZE, numChunks * CHUNK_SIZE);
+        this.index = ConcurrentLongLongPairHashMap.newBuilder()
+                .expectedItems(numChunks)
+                .concurrencyLevel(2 * Runtime.getRuntime().availableProcessors())
+                .build();
+        this.slotLedgerIds = new long[numChunks];
+        this.slotChunkIdxs = new long[numChunks];
+        Arrays.fill(slotLedgerIds, -1L);
+    }
+
+    /**
+     * Get the location of an entry.
+     *
+     * @return the entry location or 0 if the entry is not in the cache
+     */
+    long getLocation(long ledgerId, long entryId) {
+        long stamp = lock.tryOptimisticRead();
+        long location = doGetLocation(ledgerId, entryId);
+        if (!lock.validate(stamp)) {
+            // Fallback to regular read lock approach
+            stamp = lock.readLock();
+            try {
+                location = doGetLocation(ledgerId, entryId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return location;
+    }
+
+    private long doGetLocation(long ledgerId, long entryId) {
+        LongPair slotAndBase = index.get(ledgerId, entryId >>> CHUNK_SHIFT);
+        if (slotAndBase == null) {
+            return 0;
+        }
+
+        int delta = chunks.getInt(offset((int) slotAndBase.first, entryId));
+        if (delta == MISSING) {
+            return 0;
+        }
+        return slotAndBase.second + delta;
+    }
+
+    void put(long ledgerId, long entryId, long location) {
+        long stamp = lock.writeLock();
+        try {
+            doPut(ledgerId, entryId, location);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Put the locations of multiple entries, taking the lock only once.
+     *
+     * @param locations (ledgerId, entryId, location) triples
+     * @param offset index in the array of the first triple
+     * @param count number of triples to put
+     */
+    void putAll(long[] locations, int offset, int count) {
+        long stamp = lock.writeLock();
+        try {
+            for (int i = offset; i < offset + count * 3; i += 3) {
+                doPut(locations[i], locations[i + 1], locations[i + 2]);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void doPut(long ledgerId, long entryId, long location) {
+        long chunkIdx = entryId >>> CHUNK_SHIFT;
+        int slot;
+        long baseLocation;
+        LongPair slotAndBase = index.get(ledgerId, chunkIdx);
+        if (slotAndBase != null) {
+            slot = (int) slotAndBase.first;
+            baseLocation = slotAndBase.second;
+        } else {
+            slot = allocateSlot(ledgerId, chunkIdx);
+            baseLocation = location;
+            index.put(ledgerId, chunkIdx, slot, baseLocation);
+        }
+
+        long delta = location - baseLocation;
+        if (delta > Integer.MIN_VALUE && delta <= Integer.MAX_VALUE) {
+            chunks.setInt(offset(slot, entryId), (int) delta);
+        } else {
+            // The location can't be stored relative to the base of this chunk, eg: it's in a different entry
+            // log. The lookup will go to the db.
+            chunks.setInt(offset(slot, entryId), MISSING);
+        }
+    }
+
+    /**
+     * Remove all the chunks belonging to the given ledgers.
+     */
+    void removeLedgers(Set<Long> ledgerIds) {
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot < numChunks; slot++) {
+                if (slotLedgerIds[slot] != -1L && ledgerIds.contains(slotLedgerIds[slot])) {
+                    index.remove(slotLedgerIds[slot], slotChunkIdxs[slot]);
+                    slotLedgerIds[slot] = -1L;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    long count() {
+        return index.size();
+    }
+
+    @Override
+    public void close() {
+        chunks.release();
+    }
+
+    private int allocateSlot(long ledgerId, long chunkIdx) {
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % numChunks;
+
+        if (slotLedgerIds[slot] != -1L) {
+            // Evict the oldest chunk
+            index.remove(slotLedgerIds[slot], slotChunkIdxs[slot]);
+        }
+
+        slotLedgerIds[slot] = ledgerId;
+        slotChunkIdxs[slot] = chunkIdx;
+        for (int i = 0; i < ENTRIES_PER_CHUNK; i++) {
+            chunks.setInt(slot * CHUNK_SIZE + i * Integer.BYTES, MISSING);
+        }
+        return slot;
+    }
+
+    private static int offset(int slot, long entryId) {
+        return slot * CHUNK_SIZE + (int) (entryId & (ENTRIES_PER_CHUNK - 1)) * Integer.BYTES;
+    }
+}
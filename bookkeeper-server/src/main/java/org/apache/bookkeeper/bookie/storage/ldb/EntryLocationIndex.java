@@ -23,8 +23,15 @@ package org.apache.bookkeeper.bookie.storage.ldb;
 import com.google.common.collect.Iterables;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import org.apache.bookkeeper.bookie.Bookie;
 import org.apache.bookkeeper.bookie.EntryLocation;
@@ -42,18 +49,58 @@ import org.slf4j.LoggerFactory;
  *
  * <p>For each ledger multiple entries are stored in the same "record", represented
  * by the {@link LedgerIndexPage} class.
+ *
+ * <p>With the {@link #FORMAT_RANGE} format, the locations of consecutive entries are stored in range records, as
+ * described in {@link EntryLocationRanges}. Lookups are able to read both per-entry and range records, so the
+ * format can be switched on an existing index, and {@link LocationsIndexRangeMigrationOp} can be used to convert
+ * the existing per-entry records.
  */
 public class EntryLocationIndex implements Closeable {
 
+    /**
+     * One record per entry.
+     */
+    public static final String FORMAT_ENTRY = "entry";
+
+    /**
+     * One record per run of consecutive entries.
+     */
+    public static final String FORMAT_RANGE = "range";
+
+    // Max number of locations put in the cache while holding its lock
+    private static final int MAX_CACHE_PUT_ENTRIES = 1024;
+
     private final KeyValueStorage locationsDb;
+    private final boolean rangeFormat;
     private final ConcurrentLongHashSet deletedLedgers = ConcurrentLongHashSet.newBuilder().build();
     private final EntryLocationIndexStats stats;
+    // Cache of the recently written locations, null when disabled
+    private final EntryLocationCache locationCache;
     private boolean isCompacting;
 
     public EntryLocationIndex(ServerConfiguration conf, KeyValueStorageFactory storageFactory, String basePath,
             StatsLogger stats) throws IOException {
         locationsDb = storageFactory.newKeyValueStorage(basePath, "locations", DbConfigType.EntryLocation, conf);
 
+        String format = conf.getString(DbLedgerStorage.ENTRY_LOCATION_INDEX_FORMAT, FORMAT_ENTRY);
+        if (FORMAT_RANGE.equals(format)) {
+            rangeFormat = true;
+        } else if (FORMAT_ENTRY.equals(format)) {
+            rangeFormat = false;
+        } else {
+            throw new IllegalArgumentException("Invalid entry location index format: " + format);
+        }
+
+        long locationCacheMaxSize = conf.getLong(DbLedgerStorage.ENTRY_LOCATION_CACHE_MAX_SIZE_MB,
+                DbLedgerStorage.DEFAULT_ENTRY_LOCATION_CACHE_MAX_SIZE_MB) * 1024 * 1024;
+        if (locationCacheMaxSize > 0) {
+            locationCache = new EntryLocationCache(locationCacheMaxSize);
+            log.info("Entry location cache enabled for {} -- size: {} MB", basePath,
+                    locationCacheMaxSize / 1024 / 1024);
+        } else {
+            locationCache = null;
+        }
+
         this.stats = new EntryLocationIndexStats(
             stats,
             () -> {
@@ -62,32 +109,54 @@ public class EntryLocationIndex implements Closeable {
                 } catch (IOException e) {
                     return -1L;
                 }
-            });
+            },
+            () -> locationCache != null ? locationCache.count() : 0L);
     }
 
     @Override
     public void close() throws IOException {
         locationsDb.close();
+        if (locationCache != null) {
+            locationCache.close();
+        }
     }
 
     public long getLocation(long ledgerId, long entryId) throws IOException {
-        LongPairWrapper key = LongPairWrapper.get(ledgerId, entryId);
-        LongWrapper value = LongWrapper.get();
-
         long startTimeNanos = MathUtils.nowInNano();
+        if (locationCache != null) {
+            long location = locationCache.getLocation(ledgerId, entryId);
+            if (location != 0) {
+                stats.getLocationCacheHitCounter().inc();
+                stats.getLookupEntryLocationStats()
+                        .registerSuccessfulEvent(MathUtils.elapsedNanos(startTimeNanos), TimeUnit.NANOSECONDS);
+                return location;
+            }
+            stats.getLocationCacheMissCounter().inc();
+        }
+
         boolean operationSuccess = false;
         try {
-            if (locationsDb.get(key.array, value.array) < 0) {
+            stats.getLocationsDbGetCounter().inc();
+            long location;
+            if (rangeFormat) {
+                Entry<byte[], byte[]> record = findRecord(ledgerId, entryId);
+                location = record != null
+                        ? EntryLocationRanges.getLocation(ArrayUtil.getLong(record.getKey(), 8), record.getValue(),
+                                entryId)
+                        : 0;
+            } else {
+                location = getEntryRecord(ledgerId, entryId);
+            }
+
+            if (location == 0) {
                 if (log.isDebugEnabled()) {
                     log.debug("Entry not found {}@{} in db index", ledgerId, entryId);
                 }
                 return 0;
             }
             operationSuccess = true;
-            return value.getValue();
+            return location;
         } finally {
-            key.recycle();
-            value.recycle();
             if (operationSuccess) {
                 stats.getLookupEntryLocationStats()
                         .registerSuccessfulEvent(MathUtils.elapsedNanos(startTimeNanos), TimeUnit.NANOSECONDS);
@@ -98,6 +167,116 @@ public class EntryLocationIndex implements Closeable {
         }
     }
 
+    private long getEntryRecord(long ledgerId, long entryId) throws IOException {
+        LongPairWrapper key = LongPairWrapper.get(ledgerId, entryId);
+        LongWrapper value = LongWrapper.get();
+        try {
+            if (locationsDb.get(key.array, value.array) < 0) {
+                return 0;
+            }
+            return value.getValue();
+        } finally {
+            key.recycle();
+            value.recycle();
+        }
+    }
+
+    /**
+     * Find the per-entry or range record holding the location of an entry.
+     *
+     * @return the record or null if the entry is not in the index
+     */
+    private Entry<byte[], byte[]> findRecord(long ledgerId, long entryId) throws IOException {
+        // getFloor() returns the record with the highest key strictly lower than the given one
+        LongPairWrapper key = LongPairWrapper.get(ledgerId, entryId + 1);
+        try {
+            while (true) {
+                Entry<byte[], byte[]> record = locationsDb.getFloor(key.array);
+                if (record == null || ArrayUtil.getLong(record.getKey(), 0) != ledgerId) {
+                    return null;
+                }
+
+                long firstEntryId = ArrayUtil.getLong(record.getKey(), 8);
+                if (entryId - firstEntryId >= EntryLocationRanges.MAX_RUN_LENGTH) {
+                    // No record starting before this one can be long enough to include the entry
+                    return null;
+                }
+
+                if (EntryLocationRanges.getLocation(firstEntryId, record.getValue(), entryId) != 0) {
+                    return record;
+                }
+
+                // The record doesn't include the entry, though an older overlapping record might
+                key.set(ledgerId, firstEntryId);
+            }
+        } finally {
+            key.recycle();
+        }
+    }
+
+    /**
+     * Get the locations of a range of entries of a ledger.
+     *
+     * <p>With the range format, this only reads the few records covering the range, instead of doing one lookup
+     * per entry.
+     *
+     * <p>With the per-entry format, the lookups stop at the first entry not in the index, so the following
+     * entries are reported as missing too.
+     *
+     * @return the locations of the entries from {@code firstEntryId}, with 0 for the entries not in the index
+     */
+    public long[] getLocations(long ledgerId, long firstEntryId, int maxCount) throws IOException {
+        long[] locations = new long[maxCount];
+        if (!rangeFormat) {
+            for (int i = 0; i < maxCount; i++) {
+                locations[i] = getLocation(ledgerId, firstEntryId + i);
+                if (locations[i] == 0) {
+                    // Most likely the end of the ledger, don't look up the entries past it
+                    break;
+                }
+            }
+            return locations;
+        }
+
+        long startTimeNanos = MathUtils.nowInNano();
+        long lastEntryId = firstEntryId + maxCount - 1;
+        LongPairWrapper key = LongPairWrapper.get(ledgerId, firstEntryId);
+        try {
+            stats.getLocationsDbGetCounter().inc();
+            Entry<byte[], byte[]> record = findRecord(ledgerId, firstEntryId);
+            if (record == null) {
+                record = locationsDb.getCeil(key.array);
+            }
+
+            while (record != null && ArrayUtil.getLong(record.getKey(), 0) == ledgerId) {
+                long recordFirstEntryId = ArrayUtil.getLong(record.getKey(), 8);
+                if (recordFirstEntryId > lastEntryId) {
+                    break;
+                }
+
+                long[] recordLocations = EntryLocationRanges.decode(recordFirstEntryId, record.getValue());
+                for (int i = 0; i < recordLocations.length; i++) {
+                    long entryId = recordFirstEntryId + i;
+                    if (entryId >= firstEntryId && entryId <= lastEntryId && recordLocations[i] != 0) {
+                        locations[(int) (entryId - firstEntryId)] = recordLocations[i];
+                    }
+                }
+
+                long nextEntryId = recordFirstEntryId + recordLocations.length;
+                if (nextEntryId > lastEntryId) {
+                    break;
+                }
+                key.set(ledgerId, nextEntryId);
+                record = locationsDb.getCeil(key.array);
+            }
+        } finally {
+            key.recycle();
+            stats.getLookupEntryLocationRangeStats()
+                    .registerSuccessfulEvent(MathUtils.elapsedNanos(startTimeNanos), TimeUnit.NANOSECONDS);
+        }
+        return locations;
+    }
+
     public long getLastEntryInLedger(long ledgerId) throws IOException {
         if (deletedLedgers.contains(ledgerId)) {
             // Ledger already deleted
@@ -133,7 +312,8 @@ public class EntryLocationIndex implements Closeable {
             throw new Bookie.NoEntryException(ledgerId, -1);
         } else {
             long foundLedgerId = ArrayUtil.getLong(entry.getKey(), 0);
-            long lastEntryId = ArrayUtil.getLong(entry.getKey(), 8);
+            long lastEntryId = EntryLocationRanges.lastEntryId(ArrayUtil.getLong(entry.getKey(), 8),
+                    entry.getValue());
 
             if (foundLedgerId == ledgerId) {
                 if (log.isDebugEnabled()) {
@@ -147,24 +327,42 @@ public class EntryLocationIndex implements Closeable {
     }
 
     public void addLocation(long ledgerId, long entryId, long location) throws IOException {
-        try (Batch batch = locationsDb.newBatch()) {
+        try (Batch batch = newBatch()) {
             addLocation(batch, ledgerId, entryId, location);
             batch.flush();
         }
     }
 
+    /**
+     * Create a new batch to add locations.
+     *
+     * <p>With the range format, the locations added to the batch need to be in ledger and entry id order, with each
+     * entry added at most once. The entries that are already in the index get their location replaced, and the
+     * records that overlap with the added entries are rewritten.
+     */
     public Batch newBatch() {
-        return locationsDb.newBatch();
+        if (rangeFormat) {
+            return new RangeBatch(locationsDb.newBatch());
+        }
+        return locationCache != null ? new IndexBatch(locationsDb.newBatch()) : locationsDb.newBatch();
     }
 
     public void addLocation(Batch batch, long ledgerId, long entryId, long location) throws IOException {
-        LongPairWrapper key = LongPairWrapper.get(ledgerId, entryId);
-        LongWrapper value = LongWrapper.get(location);
-
         if (log.isDebugEnabled()) {
             log.debug("Add location - ledger: {} -- entry: {} -- location: {}", ledgerId, entryId, location);
         }
 
+        if (batch instanceof IndexBatch) {
+            ((IndexBatch) batch).add(ledgerId, entryId, location);
+        } else {
+            putEntryRecord(batch, ledgerId, entryId, location);
+        }
+    }
+
+    private static void putEntryRecord(Batch batch, long ledgerId, long entryId, long location) throws IOException {
+        LongPairWrapper key = LongPairWrapper.get(ledgerId, entryId);
+        LongWrapper value = LongWrapper.get(location);
+
         try {
             batch.put(key.array, value.array);
         } finally {
@@ -178,6 +376,10 @@ public class EntryLocationIndex implements Closeable {
             log.debug("Update locations -- {}", Iterables.size(newLocations));
         }
 
+        if (rangeFormat) {
+            newLocations = sortedLocations(newLocations);
+        }
+
         try (Batch batch = newBatch()) {
             // Update all the ledger index pages with the new locations
             for (EntryLocation e : newLocations) {
@@ -191,6 +393,29 @@ public class EntryLocationIndex implements Closeable {
         }
     }
 
+    /**
+     * Sort the locations in ledger and entry id order, as required by the range batch. When an entry is
+     * present multiple times, only its last location is kept.
+     */
+    private static List<EntryLocation> sortedLocations(Iterable<EntryLocation> locations) {
+        List<EntryLocation> sorted = new ArrayList<>();
+        Iterables.addAll(sorted, locations);
+        // The sort is stable, so the last location of an entry stays the last one
+        sorted.sort((e1, e2) -> e1.ledger != e2.ledger
+                ? Long.compare(e1.ledger, e2.ledger)
+                : Long.compare(e1.entry, e2.entry));
+
+        List<EntryLocation> deduplicated = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            EntryLocation e = sorted.get(i);
+            if (i + 1 < sorted.size() && sorted.get(i + 1).ledger == e.ledger && sorted.get(i + 1).entry == e.entry) {
+                continue;
+            }
+            deduplicated.add(e);
+        }
+        return deduplicated;
+    }
+
     public void delete(long ledgerId) throws IOException {
         // We need to find all the LedgerIndexPage records belonging to one specific
         // ledgers
@@ -240,6 +465,9 @@ public class EntryLocationIndex implements Closeable {
             }
 
             batch.flush();
+            if (locationCache != null) {
+                locationCache.removeLedgers(ledgersToDelete);
+            }
             for (long ledgerId : ledgersToDelete) {
                 deletedLedgers.remove(ledgerId);
             }
@@ -252,5 +480,242 @@ public class EntryLocationIndex implements Closeable {
                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) / 1000.0);
     }
 
+    /**
+     * Batch that keeps the added locations aside, to put them in the location cache once the batch is committed.
+     *
+     * <p>The entries are not readable before the entry log is flushed, which happens before the index batch is
+     * flushed, so the cache must not return their locations earlier.
+     */
+    private class IndexBatch implements Batch {
+        protected final Batch batch;
+
+        // (ledgerId, entryId, location) triples of the added locations
+        private long[] pendingLocations = new long[3 * 64];
+        private int pendingCount = 0;
+
+        IndexBatch(Batch batch) {
+            this.batch = batch;
+        }
+
+        void add(long ledgerId, long entryId, long location) throws IOException {
+            putEntryRecord(batch, ledgerId, entryId, location);
+            addPendingLocation(ledgerId, entryId, location);
+        }
+
+        protected void addPendingLocation(long ledgerId, long entryId, long location) {
+            if (locationCache == null) {
+                return;
+            }
+
+            if (pendingCount == pendingLocations.length) {
+                pendingLocations = Arrays.copyOf(pendingLocations, pendingLocations.length * 2);
+            }
+            pendingLocations[pendingCount++] = ledgerId;
+            pendingLocations[pendingCount++] = entryId;
+            pendingLocations[pendingCount++] = location;
+        }
+
+        @Override
+        public void put(byte[] key, byte[] value) throws IOException {
+            batch.put(key, value);
+        }
+
+        @Override
+        public void remove(byte[] key) throws IOException {
+            batch.remove(key);
+        }
+
+        @Override
+        public void deleteRange(byte[] beginKey, byte[] endKey) throws IOException {
+            batch.deleteRange(beginKey, endKey);
+        }
+
+        @Override
+        public void clear() {
+            pendingCount = 0;
+            batch.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            batch.flush();
+
+            // Take the cache lock once per ledger run
+            int start = 0;
+            while (start < pendingCount) {
+                int end = start + 3;
+                while (end < pendingCount && pendingLocations[end] == pendingLocations[start]
+                        && end - start < 3 * MAX_CACHE_PUT_ENTRIES) {
+                    end += 3;
+                }
+                locationCache.putAll(pendingLocations, start, (end - start) / 3);
+                start = end;
+            }
+            pendingCount = 0;
+        }
+
+        @Override
+        public int batchCount() {
+            return batch.batchCount();
+        }
+
+        @Override
+        public void close() throws IOException {
+            batch.close();
+        }
+    }
+
+    /**
+     * Batch that accumulates the added locations in range records.
+     *
+     * <p>The records of the index never overlap: each run of added locations is merged with the existing records
+     * that overlap with it, which are rewritten. The parts of these records that are after the run are kept aside
+     * until the next run of the same ledger, since they might overlap with it as well, and as the records written
+     * to the batch are not visible to the lookups in the db until the batch is flushed.
+     */
+    private class RangeBatch extends IndexBatch {
+        private final EntryLocationRanges.Writer writer = new EntryLocationRanges.Writer(this::putRun);
+
+        // Existing locations of the current ledger, taken from the rewritten records and not written yet
+        private long carriedLedgerId = -1;
+        private final TreeMap<Long, Long> carriedLocations = new TreeMap<>();
+        // First entry ids of the records of the current ledger that were already rewritten in this batch
+        private final Set<Long> rewrittenRecords = new HashSet<>();
+
+        RangeBatch(Batch batch) {
+            super(batch);
+        }
+
+        @Override
+        void add(long ledgerId, long entryId, long location) throws IOException {
+            writer.add(batch, ledgerId, entryId, location);
+            addPendingLocation(ledgerId, entryId, location);
+        }
+
+        private void putRun(long ledgerId, long firstEntryId, byte[] value) throws IOException {
+            if (ledgerId != carriedLedgerId) {
+                writeCarriedLocations(Long.MAX_VALUE);
+                rewrittenRecords.clear();
+                carriedLedgerId = ledgerId;
+            }
+
+            long lastEntryId = EntryLocationRanges.lastEntryId(firstEntryId, value);
+            // The carried locations before the run don't overlap with anything else
+            writeCarriedLocations(firstEntryId);
+
+            List<Entry<byte[], byte[]>> overlappingRecords = findOverlappingRecords(ledgerId, firstEntryId,
+                    lastEntryId);
+            if (overlappingRecords.isEmpty() && carriedLocations.isEmpty()) {
+                putRecord(ledgerId, firstEntryId, value);
+                return;
+            }
+
+            TreeMap<Long, Long> locations = new TreeMap<>(carriedLocations);
+            carriedLocations.clear();
+            for (Entry<byte[], byte[]> record : overlappingRecords) {
+                long recordFirstEntryId = ArrayUtil.getLong(record.getKey(), 8);
+                batch.remove(record.getKey());
+                rewrittenRecords.add(recordFirstEntryId);
+                putLocations(locations, recordFirstEntryId, record.getValue());
+            }
+            // The added locations replace the existing ones
+            putLocations(locations, firstEntryId, value);
+
+            SortedMap<Long, Long> after = locations.tailMap(lastEntryId, false);
+            carriedLocations.putAll(after);
+            after.clear();
+            writeLocations(ledgerId, locations);
+        }
+
+        /**
+         * Find the records of the index overlapping with a range of entries, excluding the records already
+         * rewritten in this batch.
+         */
+        private List<Entry<byte[], byte[]>> findOverlappingRecords(long ledgerId, long firstEntryId,
+                                                                  long lastEntryId) throws IOException {
+            List<Entry<byte[], byte[]>> records = new ArrayList<>();
+            LongPairWrapper key = LongPairWrapper.get(ledgerId, lastEntryId + 1);
+            try {
+                while (true) {
+                    Entry<byte[], byte[]> record = locationsDb.getFloor(key.array);
+                    if (record == null || ArrayUtil.getLong(record.getKey(), 0) != ledgerId) {
+                        break;
+                    }
+
+                    long recordFirstEntryId = ArrayUtil.getLong(record.getKey(), 8);
+                    if (rewrittenRecords.contains(recordFirstEntryId)
+                            || EntryLocationRanges.lastEntryId(recordFirstEntryId, record.getValue()) < firstEntryId) {
+                        // Records don't overlap, so the ones before this one can't reach the range either
+                        break;
+                    }
+
+                    records.add(record);
+                    if (recordFirstEntryId <= firstEntryId) {
+                        break;
+                    }
+                    key.set(ledgerId, recordFirstEntryId);
+                }
+            } finally {
+                key.recycle();
+            }
+            return records;
+        }
+
+        private void writeCarriedLocations(long beforeEntryId) throws IOException {
+            SortedMap<Long, Long> locations = carriedLocations.headMap(beforeEntryId);
+            if (!locations.isEmpty()) {
+                writeLocations(carriedLedgerId, locations);
+                locations.clear();
+            }
+        }
+
+        private void writeLocations(long ledgerId, SortedMap<Long, Long> locations) throws IOException {
+            EntryLocationRanges.Writer recordWriter = new EntryLocationRanges.Writer();
+            for (Entry<Long, Long> e : locations.entrySet()) {
+                recordWriter.add(batch, ledgerId, e.getKey(), e.getValue());
+            }
+            recordWriter.flush(batch);
+        }
+
+        private void putRecord(long ledgerId, long firstEntryId, byte[] value) throws IOException {
+            LongPairWrapper key = LongPairWrapper.get(ledgerId, firstEntryId);
+            try {
+                batch.put(key.array, value);
+            } finally {
+                key.recycle();
+            }
+        }
+
+        private void reset() {
+            carriedLedgerId = -1;
+            carriedLocations.clear();
+            rewrittenRecords.clear();
+        }
+
+        @Override
+        public void clear() {
+            writer.clear();
+            reset();
+            super.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush(batch);
+            writeCarriedLocations(Long.MAX_VALUE);
+            reset();
+            super.flush();
+        }
+    }
+
+    private static void putLocations(Map<Long, Long> locations, long firstEntryId, byte[] value) {
+        long[] recordLocations = EntryLocationRanges.decode(firstEntryId, value);
+        for (int i = 0; i < recordLocations.length; i++) {
+            if (recordLocations[i] != 0) {
+                locations.put(firstEntryId + i, recordLocations[i]);
+            }
+        }
+    }
+
     private static final Logger log = LoggerFactory.getLogger(EntryLocationIndex.class);
 }
@@ -24,6 +24,7 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.CATEGORY_SERVER
 
 import java.util.function.Supplier;
 import lombok.Getter;
+import org.apache.bookkeeper.stats.Counter;
 import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
@@ -43,6 +44,11 @@ class EntryLocationIndexStats {
     private static final String ENTRIES_COUNT = "entries-count";
     private static final String LOOKUP_ENTRY_LOCATION = "lookup-entry-location";
     private static final String GET_LAST_ENTRY_IN_LEDGER = "get-last-entry-in-ledger";
+    private static final String LOOKUP_ENTRY_LOCATION_RANGE = "lookup-entry-location-range";
+    private static final String LOCATIONS_DB_GET = "locations-db-get";
+    private static final String LOCATION_CACHE_HITS = "location-cache-hits";
+    private static final String LOCATION_CACHE_MISSES = "location-cache-misses";
+    private static final String LOCATION_CACHE_CHUNKS = "location-cache-chunks";
 
     @StatsDoc(
         name = ENTRIES_COUNT,
@@ -62,8 +68,39 @@ class EntryLocationIndexStats {
     )
     private final OpStatsLogger getLastEntryInLedgerStats;
 
+    @StatsDoc(
+            name = LOOKUP_ENTRY_LOCATION_RANGE,
+            help = "operation stats of looking up the locations of a range of entries"
+    )
+    private final OpStatsLogger lookupEntryLocationRangeStats;
+
+    @StatsDoc(
+            name = LOCATIONS_DB_GET,
+            help = "number of entry location lookups that went to the locations db"
+    )
+    private final Counter locationsDbGetCounter;
+
+    @StatsDoc(
+            name = LOCATION_CACHE_HITS,
+            help = "number of entry location lookups served by the location cache"
+    )
+    private final Counter locationCacheHitCounter;
+
+    @StatsDoc(
+            name = LOCATION_CACHE_MISSES,
+            help = "number of entry location lookups not found in the location cache"
+    )
+    private final Counter locationCacheMissCounter;
+
+    @StatsDoc(
+            name = LOCATION_CACHE_CHUNKS,
+            help = "current number of ledger entry ranges held by the location cache"
+    )
+    private final Gauge<Long> locationCacheChunksGauge;
+
     EntryLocationIndexStats(StatsLogger statsLogger,
-                            Supplier<Long> entriesCountSupplier) {
+                            Supplier<Long> entriesCountSupplier,
+                            Supplier<Long> locationCacheChunksSupplier) {
         entriesCountGauge = new Gauge<Long>() {
             @Override
             public Long getDefaultValue() {
@@ -78,6 +115,22 @@ class EntryLocationIndexStats {
         statsLogger.registerGauge(ENTRIES_COUNT, entriesCountGauge);
         lookupEntryLocationStats = statsLogger.getOpStatsLogger(LOOKUP_ENTRY_LOCATION);
         getLastEntryInLedgerStats = statsLogger.getOpStatsLogger(GET_LAST_ENTRY_IN_LEDGER);
+        lookupEntryLocationRangeStats = statsLogger.getOpStatsLogger(LOOKUP_ENTRY_LOCATION_RANGE);
+        locationsDbGetCounter = statsLogger.getCounter(LOCATIONS_DB_GET);
+        locationCacheHitCounter = statsLogger.getCounter(LOCATION_CACHE_HITS);
+        locationCacheMissCounter = statsLogger.getCounter(LOCATION_CACHE_MISSES);
+        locationCacheChunksGauge = new Gauge<Long>() {
+            @Override
+            public Long getDefaultValue() {
+                return 0L;
+            }
+
+            @Override
+            public Long getSample() {
+                return locationCacheChunksSupplier.get();
+            }
+        };
+        statsLogger.registerGauge(LOCATION_CACHE_CHUNKS, locationCacheChunksGauge);
     }
 
 }
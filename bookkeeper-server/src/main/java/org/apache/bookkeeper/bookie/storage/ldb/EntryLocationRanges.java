@@ -0,0 +1,206 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import java.io.IOException;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage.Batch;
+
+/**
+ * Encoding of the range records of the entry location index.
+ *
+ * <p>A range record holds the locations of a run of consecutive entries of a ledger. The key is the same
+ * (ledgerId, firstEntryId) pair used by the per-entry records, while the value is:
+ * <pre>
+ * count (4 bytes) | base location (8 bytes) | count x location delta from the base (4 bytes)
+ * </pre>
+ * Entries missing in the run have a {@link #MISSING} delta. The per-entry records have an 8 bytes value, so the two
+ * formats can be told apart by the value size, and a per-entry record can always be read as a run of length 1.
+ */
+final class EntryLocationRanges {
+
+    /**
+     * Max number of entries in a single range record.
+     */
+    static final int MAX_RUN_LENGTH = 1024;
+
+    private static final int MISSING = Integer.MIN_VALUE;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private EntryLocationRanges() {}
+
+    static boolean isRange(byte[] value) {
+        return value.length != Long.BYTES;
+    }
+
+    /**
+     * @return the number of entries covered by the record
+     */
+    static int count(byte[] value) {
+        return isRange(value) ? getInt(value, 0) : 1;
+    }
+
+    static long lastEntryId(long firstEntryId, byte[] value) {
+        return firstEntryId + count(value) - 1;
+    }
+
+    /**
+     * Get the location of an entry from a record.
+     *
+     * @return the entry location or 0 if the record doesn't have the entry
+     */
+    static long getLocation(long firstEntryId, byte[] value, long entryId) {
+        if (!isRange(value)) {
+            return entryId == firstEntryId ? ArrayUtil.getLong(value, 0) : 0;
+        }
+
+        long idx = entryId - firstEntryId;
+        if (idx < 0 || idx >= getInt(value, 0)) {
+            return 0;
+        }
+
+        int delta = getInt(value, HEADER_SIZE + (int) idx * Integer.BYTES);
+        return delta == MISSING ? 0 : ArrayUtil.getLong(value, Integer.BYTES) + delta;
+    }
+
+    /**
+     * Decode all the locations of a record, with 0 for the missing entries.
+     */
+    static long[] decode(long firstEntryId, byte[] value) {
+        long[] locations = new long[count(value)];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = getLocation(firstEntryId, value, firstEntryId + i);
+        }
+        return locations;
+    }
+
+    /**
+     * Receives the records produced by a {@link Writer}, instead of writing them as they are in the batch.
+     */
+    interface RecordSink {
+        void put(long ledgerId, long firstEntryId, byte[] value) throws IOException;
+    }
+
+    /**
+     * Accumulates the locations of consecutive entries and writes them in range records.
+     *
+     * <p>Locations need to be added in ledger and entry id order. A new record is started when the ledger changes,
+     * when the run reaches {@link #MAX_RUN_LENGTH} entries or when a location can't be expressed as a delta from the
+     * base location of the run, eg: when the entry is in a different entry log.
+     *
+     * <p>The records are put in the batch under their (ledgerId, firstEntryId) key, replacing any record with the
+     * same key, unless a {@link RecordSink} is provided.
+     */
+    static class Writer {
+        private final RecordSink sink;
+        private final int[] deltas = new int[MAX_RUN_LENGTH];
+        private long ledgerId = -1;
+        private long firstEntryId = -1;
+        private long baseLocation;
+        private int count = 0;
+
+        Writer() {
+            this(null);
+        }
+
+        Writer(RecordSink sink) {
+            this.sink = sink;
+        }
+
+        void add(Batch batch, long ledgerId, long entryId, long location) throws IOException {
+            if (count > 0 && !canAppend(ledgerId, entryId, location)) {
+                flush(batch);
+            }
+
+            if (count == 0) {
+                this.ledgerId = ledgerId;
+                this.firstEntryId = entryId;
+                this.baseLocation = location;
+            }
+
+            int idx = (int) (entryId - firstEntryId);
+            while (count < idx) {
+                // Gap in the entry ids
+                deltas[count++] = MISSING;
+            }
+            deltas[count++] = (int) (location - baseLocation);
+        }
+
+        private boolean canAppend(long ledgerId, long entryId, long location) {
+            if (ledgerId != this.ledgerId || entryId < firstEntryId + count
+                    || entryId - firstEntryId >= MAX_RUN_LENGTH) {
+                return false;
+            }
+
+            long delta = location - baseLocation;
+            return delta > Integer.MIN_VALUE && delta <= Integer.MAX_VALUE;
+        }
+
+        /**
+         * Discard the pending run.
+         */
+        void clear() {
+            count = 0;
+        }
+
+        /**
+         * Write the pending run, if any, in the batch.
+         */
+        void flush(Batch batch) throws IOException {
+            if (count == 0) {
+                return;
+            }
+
+            byte[] value = new byte[HEADER_SIZE + count * Integer.BYTES];
+            setInt(value, 0, count);
+            ArrayUtil.setLong(value, Integer.BYTES, baseLocation);
+            for (int i = 0; i < count; i++) {
+                setInt(value, HEADER_SIZE + i * Integer.BYTES, deltas[i]);
+            }
+
+            count = 0;
+            if (sink != null) {
+                sink.put(ledgerId, firstEntryId, value);
+                return;
+            }
+
+            LongPairWrapper key = LongPairWrapper.get(ledgerId, firstEntryId);
+            try {
+                batch.put(key.array, value);
+            } finally {
+                key.recycle();
+            }
+        }
+    }
+
+    private static int getInt(byte[] array, int index) {
+        return ((array[index] & 0xFF) << 24)
+                | ((array[index + 1] & 0xFF) << 16)
+                | ((array[index + 2] & 0xFF) << 8)
+                | (array[index + 3] & 0xFF);
+    }
+
+    private static void setInt(byte[] array, int index, int value) {
+        array[index] = (byte) (value >>> 24);
+        array[index + 1] = (byte) (value >>> 16);
+        array[index + 2] = (byte) (value >>> 8);
+        array[index + 3] = (byte) value;
+    }
+}
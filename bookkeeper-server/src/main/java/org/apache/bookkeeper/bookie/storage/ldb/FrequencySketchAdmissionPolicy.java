@@ -0,0 +1,147 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TinyLFU style admission policy for the read cache.
+ *
+ * <p>The access frequency of the entries is estimated with a count-min sketch of 4-bit counters. The
+ * counters are periodically halved, so that the sketch adapts to changes in the access patterns.
+ *
+ * <p>An entry is promoted to the demand region only once it was read at least a few times. Entries that
+ * are read only once, as it happens with a catch-up reader scanning a ledger, stay in the read-ahead region.
+ */
+class FrequencySketchAdmissionPolicy implements ReadCacheAdmissionPolicy {
+
+    static final int DEFAULT_PROMOTION_FREQUENCY = 2;
+
+    // Assumed average entry size, used to derive the number of counters from the cache size
+    private static final int AVERAGE_ENTRY_SIZE = 1024;
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long COUNTER_MASK = 0xfL;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    private final int promotionFrequency;
+
+    FrequencySketchAdmissionPolicy(long readCacheSize) {
+        this(readCacheSize / AVERAGE_ENTRY_SIZE, DEFAULT_PROMOTION_FREQUENCY);
+    }
+
+    FrequencySketchAdmissionPolicy(long expectedEntries, int promotionFrequency) {
+        int tableSize = (int) Math.min(MAX_TABLE_SIZE, Math.max(64, expectedEntries));
+        // Round up to the next power of two
+        tableSize = Integer.highestOneBit(tableSize - 1) << 1;
+
+        this.table = new AtomicLongArray(tableSize);
+        this.tableMask = tableSize - 1;
+        this.sampleSize = 10 * tableSize;
+        this.promotionFrequency = promotionFrequency;
+    }
+
+    @Override
+    public void recordAccess(long ledgerId, long entryId) {
+        long hash = hash(ledgerId, entryId);
+        int start = ((int) hash & 3) << 2;
+
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    @Override
+    public boolean shouldPromote(long ledgerId, long entryId) {
+        return frequency(ledgerId, entryId) >= promotionFrequency;
+    }
+
+    /**
+     * @return the estimated number of times the entry was accessed, capped at 15
+     */
+    int frequency(long ledgerId, long entryId) {
+        long hash = hash(ledgerId, entryId);
+        int start = ((int) hash & 3) << 2;
+
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table.get(indexOf(hash, i)) >>> offset) & COUNTER_MASK);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = COUNTER_MASK << offset;
+        while (true) {
+            long current = table.get(index);
+            if ((current & mask) == mask) {
+                // Counter is already saturated
+                return false;
+            }
+
+            if (table.compareAndSet(index, current, current + (1L << offset))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Halve all the counters, to let the sketch forget about the entries that are not popular anymore.
+     */
+    private void reset() {
+        additions.set(0);
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, value -> (value >>> 1) & RESET_MASK);
+        }
+    }
+
+    private int indexOf(long hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static long hash(long ledgerId, long entryId) {
+        long h = ledgerId * 0x9e3779b97f4a7c15L + entryId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
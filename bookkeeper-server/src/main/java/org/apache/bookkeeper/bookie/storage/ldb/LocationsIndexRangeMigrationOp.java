@@ -0,0 +1,128 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.bookie.BookieImpl;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage.Batch;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage.CloseableIterator;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorageFactory.DbConfigType;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Convert the per-entry records of the locations index to the range format.
+ *
+ * <p>The existing index is kept as a backup and a new index is written with the entries of each ledger grouped in
+ * range records. The bookie needs to be configured with the {@link EntryLocationIndex#FORMAT_RANGE} format before
+ * being restarted on the converted index.
+ */
+public class LocationsIndexRangeMigrationOp {
+    private final ServerConfiguration conf;
+
+    public LocationsIndexRangeMigrationOp(ServerConfiguration conf) {
+        this.conf = conf;
+    }
+
+    private static final int BATCH_COMMIT_SIZE = 10_000;
+
+    public void initiate() throws IOException {
+        LOG.info("Starting locations index migration to range records");
+        File[] indexDirs = conf.getIndexDirs();
+        if (indexDirs == null) {
+            indexDirs = conf.getLedgerDirs();
+        }
+        long startTime = System.nanoTime();
+        for (File indexDir : indexDirs) {
+            String iBasePath = BookieImpl.getCurrentDirectory(indexDir).toString();
+            Path indexCurrentPath = FileSystems.getDefault().getPath(iBasePath, "locations");
+            String backupName = "locations.BACKUP-"
+                    + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(new Date());
+            Path backupPath = FileSystems.getDefault().getPath(iBasePath, backupName);
+            Files.move(indexCurrentPath, backupPath);
+
+            LOG.info("Created locations index backup at {}", backupPath);
+
+            KeyValueStorage oldIndex = KeyValueStorageRocksDB.factory.newKeyValueStorage(iBasePath, backupName,
+                    DbConfigType.Default, conf);
+            KeyValueStorage newIndex = KeyValueStorageRocksDB.factory.newKeyValueStorage(iBasePath, "locations",
+                    DbConfigType.Default, conf);
+
+            long oldRecords = 0;
+            long entries = 0;
+            EntryLocationRanges.Writer writer = new EntryLocationRanges.Writer();
+            Batch batch = newIndex.newBatch();
+            int count = 0;
+            try (CloseableIterator<Entry<byte[], byte[]>> iterator = oldIndex.iterator()) {
+                while (iterator.hasNext()) {
+                    Entry<byte[], byte[]> record = iterator.next();
+                    long ledgerId = ArrayUtil.getLong(record.getKey(), 0);
+                    long firstEntryId = ArrayUtil.getLong(record.getKey(), 8);
+
+                    // Records are sorted by ledger and entry id, and an index can already have some range records
+                    long[] locations = EntryLocationRanges.decode(firstEntryId, record.getValue());
+                    for (int i = 0; i < locations.length; i++) {
+                        if (locations[i] != 0) {
+                            writer.add(batch, ledgerId, firstEntryId + i, locations[i]);
+                            ++entries;
+                        }
+                    }
+                    ++oldRecords;
+
+                    if (++count > BATCH_COMMIT_SIZE) {
+                        writer.flush(batch);
+                        batch.flush();
+                        batch.close();
+
+                        batch = newIndex.newBatch();
+                        count = 0;
+                    }
+                }
+
+                writer.flush(batch);
+                batch.flush();
+            } finally {
+                batch.close();
+            }
+
+            newIndex.sync();
+            LOG.info("Converted {} entries from {} records to {} records in {}", entries, oldRecords,
+                    newIndex.count(), iBasePath);
+            newIndex.close();
+            oldIndex.close();
+        }
+        LOG.info("Locations index migration is done. Total time: {}",
+                DurationFormatUtils.formatDurationHMS(
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocationsIndexRangeMigrationOp.class);
+}
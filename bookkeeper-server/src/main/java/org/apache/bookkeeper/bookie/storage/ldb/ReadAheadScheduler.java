@@ -0,0 +1,285 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.bookie.storage.EntryLogger;
+import org.apache.bookkeeper.common.util.MathUtils;
+import org.apache.bookkeeper.common.util.OrderedExecutor;
+import org.apache.bookkeeper.util.collections.ConcurrentLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Performs the read-ahead of entries in background, so that the read that triggered it can be served
+ * without waiting for the read-ahead to complete.
+ *
+ * <p>There is at most one registered read-ahead task per ledger. Requests from concurrent readers of the
+ * same ledger that fall within the range covered by the registered task are merged into it, rather than
+ * scheduling a new read of the same entries. When a reader overtakes the task, the task is moved to the
+ * reader position, skipping the entries that are not useful anymore.
+ */
+class ReadAheadScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ReadAheadScheduler.class);
+
+    /**
+     * Decides whether a read-ahead task can read more entries.
+     */
+    interface ReadAheadLimit {
+        boolean canReadMore(int batchSize, int currentReadAheadCount, long currentReadAheadBytes);
+    }
+
+    /**
+     * Notified when a read-ahead task completes.
+     */
+    interface ReadAheadListener {
+        /**
+         * @param startEntryId the first entry of the last range requested to the task
+         * @param endEntryId the entry after the last one that was prefetched
+         */
+        void onReadAheadCompleted(long ledgerId, long startEntryId, long endEntryId);
+    }
+
+    private final EntryLogger entryLogger;
+    private final ReadCache readAheadCache;
+    private final ReadAheadLimit limit;
+    private final ReadAheadListener listener;
+    private final DbLedgerStorageStats stats;
+
+    private final OrderedExecutor executor;
+    private final ConcurrentLongHashMap<ReadAheadTask> tasks;
+    // Stops the tasks, including the ones that were replaced and are not registered anymore
+    private volatile boolean shutdown = false;
+
+    ReadAheadScheduler(EntryLogger entryLogger, ReadCache readAheadCache, ReadAheadLimit limit,
+                       ReadAheadListener listener, DbLedgerStorageStats stats, int numThreads) {
+        this.entryLogger = entryLogger;
+        this.readAheadCache = readAheadCache;
+        this.limit = limit;
+        this.listener = listener;
+        this.stats = stats;
+        this.executor = OrderedExecutor.newBuilder()
+                .numThreads(numThreads)
+                .name("db-storage-read-ahead")
+                .build();
+        this.tasks = ConcurrentLongHashMap.<ReadAheadTask>newBuilder()
+                .expectedItems(1024)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
+    /**
+     * Schedule the read-ahead of up to {@code batchSize} entries of a ledger, starting from the given entry
+     * and location.
+     */
+    void schedule(long ledgerId, long firstEntryId, long firstEntryLocation, int batchSize) {
+        if (shutdown) {
+            return;
+        }
+        ReadAheadTask existingTask = tasks.get(ledgerId);
+        if (existingTask != null && existingTask.merge(firstEntryId, firstEntryLocation, batchSize)) {
+            stats.getReadAheadMergedCounter().inc();
+            return;
+        }
+
+        ReadAheadTask task = new ReadAheadTask(ledgerId, firstEntryId, firstEntryLocation, batchSize);
+        ReadAheadTask previousTask = tasks.put(ledgerId, task);
+        if (previousTask != null) {
+            // The readers of the ledger moved to a different position, the previous task will complete on its
+            // own but it won't receive any new request
+            if (log.isDebugEnabled()) {
+                log.debug("Replacing read-ahead task for ledger {} at entry {} with new task at entry {}",
+                        ledgerId, previousTask.nextEntryId, firstEntryId);
+            }
+        }
+
+        try {
+            executor.executeOrdered(ledgerId, task);
+        } catch (RejectedExecutionException e) {
+            tasks.remove(ledgerId, task);
+        }
+    }
+
+    /**
+     * Cancel the pending read-ahead for a ledger, eg: because the ledger was deleted.
+     */
+    void cancel(long ledgerId) {
+        ReadAheadTask task = tasks.remove(ledgerId);
+        if (task != null && task.cancel()) {
+            stats.getReadAheadCancelledCounter().inc();
+        }
+    }
+
+    /**
+     * Stop the read-ahead and wait for the running tasks to complete, so that the entry logger can be closed
+     * after it. The tasks stop after the entry they are reading.
+     */
+    void shutdown() throws InterruptedException {
+        shutdown = true;
+        tasks.forEach((ledgerId, task) -> task.cancel());
+        tasks.clear();
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+            log.warn("Waiting for the read-ahead tasks to complete");
+        }
+    }
+
+    private class ReadAheadTask implements Runnable {
+        private final long ledgerId;
+        private final long firstEntryLogId;
+
+        // Position of the first and next entry to read, guarded by the task monitor
+        private long startEntryId;
+        private long nextEntryId;
+        private long nextEntryLocation;
+        private int batchSize;
+        private int count;
+        private long size;
+        private boolean done;
+
+        ReadAheadTask(long ledgerId, long firstEntryId, long firstEntryLocation, int batchSize) {
+            this.ledgerId = ledgerId;
+            this.batchSize = batchSize;
+            this.firstEntryLogId = firstEntryLocation >> 32;
+            this.startEntryId = firstEntryId;
+            this.nextEntryId = firstEntryId;
+            this.nextEntryLocation = firstEntryLocation;
+        }
+
+        /**
+         * Try to merge a new read-ahead request into this task.
+         *
+         * @return true if the request is going to be served by this task
+         */
+        synchronized boolean merge(long firstEntryId, long firstEntryLocation, int batchSize) {
+            if (done || (firstEntryLocation >> 32) != firstEntryLogId) {
+                return false;
+            }
+
+            if (firstEntryId >= startEntryId && firstEntryId <= nextEntryId) {
+                // The task is ahead of the reader, renew the budget so that it keeps prefetching in front of it
+                this.batchSize = batchSize;
+                count = 0;
+                size = 0;
+                return true;
+            } else if (firstEntryId > nextEntryId && firstEntryLocation > nextEntryLocation) {
+                // The reader overtook the task, skip the entries it already read
+                startEntryId = firstEntryId;
+                nextEntryId = firstEntryId;
+                nextEntryLocation = firstEntryLocation;
+                this.batchSize = batchSize;
+                count = 0;
+                size = 0;
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        synchronized boolean cancel() {
+            boolean wasPending = !done;
+            done = true;
+            return wasPending;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = MathUtils.nowInNano();
+            int totalCount = 0;
+            long totalSize = 0;
+
+            try {
+                while (true) {
+                    long entryId;
+                    long entryLocation;
+                    synchronized (this) {
+                        if (done || shutdown || !limit.canReadMore(batchSize, count, size)
+                                || (nextEntryLocation >> 32) != firstEntryLogId) {
+                            // Stop accepting merges in the same critical section, or a request merged after
+                            // this point would be lost
+                            done = true;
+                            break;
+                        }
+                        entryId = nextEntryId;
+                        entryLocation = nextEntryLocation;
+                    }
+
+                    ByteBuf entry = entryLogger.readEntry(ledgerId, entryId, entryLocation);
+                    try {
+                        int entrySize = entry.readableBytes();
+                        if (entry.getLong(0) != ledgerId) {
+                            // Found an entry belonging to a different ledger, stopping read-ahead
+                            synchronized (this) {
+                                done = true;
+                            }
+                            break;
+                        }
+
+                        boolean stillUseful;
+                        synchronized (this) {
+                            stillUseful = !done && nextEntryId == entryId;
+                            if (stillUseful) {
+                                nextEntryId++;
+                                nextEntryLocation += 4 + entrySize;
+                                count++;
+                                size += entrySize;
+                            }
+                        }
+
+                        if (!stillUseful || readAheadCache.hasEntry(ledgerId, entryId)) {
+                            // The task was moved or cancelled while reading, or the entry was already read by
+                            // someone else
+                            stats.getReadAheadWastedBytes().addCount(entrySize);
+                            continue;
+                        }
+
+                        readAheadCache.put(ledgerId, entryId, entry);
+                        totalCount++;
+                        totalSize += entrySize;
+                    } finally {
+                        ReferenceCountUtil.release(entry);
+                    }
+                }
+            } catch (Exception e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Exception during read ahead for ledger: {}", ledgerId, e);
+                }
+            } finally {
+                long startEntry;
+                long endEntry;
+                synchronized (this) {
+                    done = true;
+                    startEntry = startEntryId;
+                    endEntry = nextEntryId;
+                }
+                tasks.remove(ledgerId, this);
+                listener.onReadAheadCompleted(ledgerId, startEntry, endEntry);
+
+                stats.getReadAheadBatchCountStats().registerSuccessfulValue(totalCount);
+                stats.getReadAheadBatchSizeStats().registerSuccessfulValue(totalSize);
+                stats.getReadAheadTime().addLatency(MathUtils.elapsedNanos(startNanos), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
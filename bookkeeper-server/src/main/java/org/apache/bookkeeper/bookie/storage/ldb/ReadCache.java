@@ -25,11 +25,12 @@ import static org.apache.bookkeeper.bookie.storage.ldb.WriteCache.align64;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.ReferenceCountUtil;
 import java.io.Closeable;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap;
 import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap.LongPair;
@@ -45,21 +46,35 @@ import org.slf4j.LoggerFactory;
  * ring-buffer fashion. When the read cache is full, the oldest segment
  * is cleared and rotated to make space for new entries to be added to
  * the read cache.
+ *
+ * <p>Lookups do not acquire any lock. Each segment carries an epoch that is bumped when the segment
+ * is recycled, and a lookup is only considered valid if the epoch did not change while the entry was
+ * being copied, or retained in zero-copy mode. When a segment is recycled while some slices of it are
+ * still referenced, its memory is detached and left to be freed by the last reader, instead of being
+ * overwritten.
+ *
+ * <p>In zero-copy mode, {@link #get(long, long)} returns a read-only retained slice of the segment
+ * memory rather than a copy of the entry.
  */
 public class ReadCache implements Closeable {
     private static final Logger log = LoggerFactory.getLogger(ReadCache.class);
 
     private static final int DEFAULT_MAX_SEGMENT_SIZE = 1 * 1024 * 1024 * 1024;
 
-    private final List<ByteBuf> cacheSegments;
-    private final List<ConcurrentLongLongPairHashMap> cacheIndexes;
+    private final Segment[] segments;
 
-    private int currentSegmentIdx;
+    private volatile int currentSegmentIdx;
     private final AtomicInteger currentSegmentOffset = new AtomicInteger(0);
 
     private final int segmentSize;
 
+    private final boolean zeroCopy;
+
+    private final LongAdder evictedEntries = new LongAdder();
+
     private ByteBufAllocator allocator;
+
+    // Only used to coordinate writers with the segments rollover. Readers never acquire it.
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     public ReadCache(ByteBufAllocator allocator, long maxCacheSize) {
@@ -67,26 +82,30 @@ public class ReadCache implements Closeable {
     }
 
     public ReadCache(ByteBufAllocator allocator, long maxCacheSize, int maxSegmentSize) {
+        this(allocator, maxCacheSize, maxSegmentSize, false);
+    }
+
+    public ReadCache(ByteBufAllocator allocator, long maxCacheSize, boolean zeroCopy) {
+        this(allocator, maxCacheSize, DEFAULT_MAX_SEGMENT_SIZE, zeroCopy);
+    }
+
+    public ReadCache(ByteBufAllocator allocator, long maxCacheSize, int maxSegmentSize, boolean zeroCopy) {
         this.allocator = allocator;
+        this.zeroCopy = zeroCopy;
         int segmentsCount = Math.max(2, (int) (maxCacheSize / maxSegmentSize));
         segmentSize = (int) (maxCacheSize / segmentsCount);
 
-        cacheSegments = new ArrayList<>();
-        cacheIndexes = new ArrayList<>();
-
+        segments = new Segment[segmentsCount];
         for (int i = 0; i < segmentsCount; i++) {
-            cacheSegments.add(Unpooled.directBuffer(segmentSize, segmentSize));
-            ConcurrentLongLongPairHashMap concurrentLongLongPairHashMap = ConcurrentLongLongPairHashMap.newBuilder()
-                    .expectedItems(4096)
-                    .concurrencyLevel(2 * Runtime.getRuntime().availableProcessors())
-                    .build();
-            cacheIndexes.add(concurrentLongLongPairHashMap);
+            segments[i] = new Segment(segmentSize);
         }
     }
 
     @Override
     public void close() {
-        cacheSegments.forEach(ReferenceCountUtil::safeRelease);
+        for (Segment segment : segments) {
+            ReferenceCountUtil.safeRelease(segment.buffer);
+        }
     }
 
     public void put(long ledgerId, long entryId, ByteBuf entry) {
@@ -105,9 +124,7 @@ public class ReadCache implements Closeable {
                 // Roll-over the segment (outside the read-lock)
             } else {
                 // Copy entry into read cache segment
-                cacheSegments.get(currentSegmentIdx).setBytes(offset, entry, entry.readerIndex(),
-                        entry.readableBytes());
-                cacheIndexes.get(currentSegmentIdx).put(ledgerId, entryId, offset, entrySize);
+                segments[currentSegmentIdx].put(ledgerId, entryId, offset, entry);
                 return;
             }
         } finally {
@@ -122,64 +139,66 @@ public class ReadCache implements Closeable {
             int offset = currentSegmentOffset.getAndAdd(entrySize);
             if (offset + entrySize > segmentSize) {
                 // Rollover to next segment
-                currentSegmentIdx = (currentSegmentIdx + 1) % cacheSegments.size();
+                int nextSegmentIdx = (currentSegmentIdx + 1) % segments.length;
+                evictedEntries.add(segments[nextSegmentIdx].recycle());
+                currentSegmentIdx = nextSegmentIdx;
                 currentSegmentOffset.set(alignedSize);
-                cacheIndexes.get(currentSegmentIdx).clear();
                 offset = 0;
             }
 
             // Copy entry into read cache segment
-            cacheSegments.get(currentSegmentIdx).setBytes(offset, entry, entry.readerIndex(), entry.readableBytes());
-            cacheIndexes.get(currentSegmentIdx).put(ledgerId, entryId, offset, entrySize);
+            segments[currentSegmentIdx].put(ledgerId, entryId, offset, entry);
         } finally {
             lock.writeLock().unlock();
         }
     }
 
     public ByteBuf get(long ledgerId, long entryId) {
-        lock.readLock().lock();
-
-        try {
-            // We need to check all the segments, starting from the current one and looking
-            // backward to minimize the
-            // checks for recently inserted entries
-            int size = cacheSegments.size();
-            for (int i = 0; i < size; i++) {
-                int segmentIdx = (currentSegmentIdx + (size - i)) % size;
-
-                LongPair res = cacheIndexes.get(segmentIdx).get(ledgerId, entryId);
-                if (res != null) {
-                    int entryOffset = (int) res.first;
-                    int entryLen = (int) res.second;
-
-                    ByteBuf entry = allocator.buffer(entryLen, entryLen);
-                    entry.writeBytes(cacheSegments.get(segmentIdx), entryOffset, entryLen);
+        // We need to check all the segments, starting from the current one and looking
+        // backward to minimize the
+        // checks for recently inserted entries
+        int size = segments.length;
+        int currentIdx = currentSegmentIdx;
+        for (int i = 0; i < size; i++) {
+            int segmentIdx = (currentIdx + (size - i)) % size;
+
+            if (zeroCopy) {
+                ByteBuf slice = segments[segmentIdx].retainedSlice(ledgerId, entryId);
+                if (slice != null) {
+                    return slice.asReadOnly();
+                }
+            } else {
+                ByteBuf entry = segments[segmentIdx].copy(ledgerId, entryId, allocator);
+                if (entry != null) {
                     return entry;
                 }
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
         // Entry not found in any segment
         return null;
     }
 
-    public boolean hasEntry(long ledgerId, long entryId) {
-        lock.readLock().lock();
+    /**
+     * Remove an entry from the cache index.
+     *
+     * <p>The memory used by the entry is only reclaimed when its segment is recycled.
+     */
+    public void remove(long ledgerId, long entryId) {
+        for (Segment segment : segments) {
+            segment.index.remove(ledgerId, entryId);
+        }
+    }
 
-        try {
-            int size = cacheSegments.size();
-            for (int i = 0; i < size; i++) {
-                int segmentIdx = (currentSegmentIdx + (size - i)) % size;
+    public boolean hasEntry(long ledgerId, long entryId) {
+        int size = segments.length;
+        int currentIdx = currentSegmentIdx;
+        for (int i = 0; i < size; i++) {
+            int segmentIdx = (currentIdx + (size - i)) % size;
 
-                LongPair res = cacheIndexes.get(segmentIdx).get(ledgerId, entryId);
-                if (res != null) {
-                    return true;
-                }
+            if (segments[segmentIdx].index.containsKey(ledgerId, entryId)) {
+                return true;
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
         // Entry not found in any segment
@@ -190,41 +209,158 @@ public class ReadCache implements Closeable {
      * @return the total size of cached entries
      */
     public long size() {
-        lock.readLock().lock();
-
-        try {
-            long size = 0;
-            for (int i = 0; i < cacheIndexes.size(); i++) {
-                if (i == currentSegmentIdx) {
-                    size += currentSegmentOffset.get();
-                } else if (!cacheIndexes.get(i).isEmpty()) {
-                    size += segmentSize;
-                } else {
-                    // the segment is empty
-                }
+        long size = 0;
+        int currentIdx = currentSegmentIdx;
+        for (int i = 0; i < segments.length; i++) {
+            if (i == currentIdx) {
+                size += currentSegmentOffset.get();
+            } else if (!segments[i].index.isEmpty()) {
+                size += segmentSize;
+            } else {
+                // the segment is empty
             }
-
-            return size;
-        } finally {
-            lock.readLock().unlock();
         }
+
+        return size;
     }
 
     /**
      * @return the total number of cached entries
      */
     public long count() {
-        lock.readLock().lock();
+        long count = 0;
+        for (int i = 0; i < segments.length; i++) {
+            count += segments[i].index.size();
+        }
 
-        try {
-            long count = 0;
-            for (int i = 0; i < cacheIndexes.size(); i++) {
-                count += cacheIndexes.get(i).size();
+        return count;
+    }
+
+    /**
+     * @return the total number of entries that were evicted from the cache when rotating the segments
+     */
+    public long evictedCount() {
+        return evictedEntries.sum();
+    }
+
+    /**
+     * @return true if the cache returns retained slices of its own memory instead of copies
+     */
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    /**
+     * A portion of the cache memory, along with the index of the entries stored in it.
+     */
+    private static final class Segment {
+        private final int size;
+        private final ConcurrentLongLongPairHashMap index;
+
+        // The epoch is odd while the segment is being recycled, and it's bumped twice on each recycle
+        private final AtomicLong epoch = new AtomicLong(0);
+        private volatile ByteBuf buffer;
+
+        Segment(int size) {
+            this.size = size;
+            this.buffer = Unpooled.directBuffer(size, size);
+            this.index = ConcurrentLongLongPairHashMap.newBuilder()
+                    .expectedItems(4096)
+                    .concurrencyLevel(2 * Runtime.getRuntime().availableProcessors())
+                    .build();
+        }
+
+        void put(long ledgerId, long entryId, int offset, ByteBuf entry) {
+            int entrySize = entry.readableBytes();
+            buffer.setBytes(offset, entry, entry.readerIndex(), entrySize);
+            index.put(ledgerId, entryId, offset, entrySize);
+        }
+
+        /**
+         * Returns a copy of the entry, or null if the entry is not in this segment or the segment got recycled
+         * during the lookup. The segment memory is not retained: the entry is only overwritten after the segment
+         * is recycled, so the copy is valid if the epoch did not change while copying.
+         */
+        ByteBuf copy(long ledgerId, long entryId, ByteBufAllocator allocator) {
+            long startEpoch = epoch.get();
+            if ((startEpoch & 1) != 0) {
+                // Segment is being recycled
+                return null;
             }
 
-            return count;
-        } finally {
-            lock.readLock().unlock();
+            LongPair res = index.get(ledgerId, entryId);
+            if (res == null) {
+                return null;
+            }
+
+            int entryLen = (int) res.second;
+            ByteBuf entry = allocator.buffer(entryLen, entryLen);
+            entry.writeBytes(buffer, (int) res.first, entryLen);
+
+            if (epoch.get() != startEpoch) {
+                // The segment was recycled during the copy, the content might be overwritten
+                entry.release();
+                return null;
+            }
+
+            return entry;
+        }
+
+        /**
+         * Returns a retained slice pointing to the entry, or null if the entry is not in this segment or
+         * the segment got recycled during the lookup.
+         */
+        ByteBuf retainedSlice(long ledgerId, long entryId) {
+            long startEpoch = epoch.get();
+            if ((startEpoch & 1) != 0) {
+                // Segment is being recycled
+                return null;
+            }
+
+            LongPair res = index.get(ledgerId, entryId);
+            if (res == null) {
+                return null;
+            }
+
+            ByteBuf slice;
+            try {
+                slice = buffer.retainedSlice((int) res.first, (int) res.second);
+            } catch (IllegalReferenceCountException e) {
+                // The segment memory was detached and already released by all its readers
+                return null;
+            }
+
+            if (epoch.get() != startEpoch) {
+                // The segment was recycled after the index lookup, the content might be overwritten
+                slice.release();
+                return null;
+            }
+
+            return slice;
+        }
+
+        /**
+         * Clear the segment so that it can be reused. Must be called while holding the cache write lock.
+         *
+         * @return the number of entries that were dropped from the segment
+         */
+        long recycle() {
+            // Flag the segment as being recycled before checking for outstanding references, so that
+            // readers that retain the buffer after this point are going to discard their slice
+            epoch.incrementAndGet();
+            long evicted = index.size();
+            index.clear();
+
+            ByteBuf currentBuffer = buffer;
+            if (currentBuffer.refCnt() > 1) {
+                // Some readers are still holding slices of the segment: leave the memory to them and
+                // allocate a new buffer for the segment
+                buffer = Unpooled.directBuffer(size, size);
+                currentBuffer.release();
+            }
+
+            epoch.incrementAndGet();
+            return evicted;
         }
     }
 }
@@ -0,0 +1,77 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+/**
+ * Policy that decides which entries found in the read-ahead region of the read cache are worth being
+ * promoted into the demand region.
+ *
+ * <p>When an admission policy is configured, the read cache is split in two regions. Entries read from the
+ * entry logs, either on a cache miss or through read-ahead, are inserted in the read-ahead region. Entries
+ * that get read again while they're in the read-ahead region can be promoted to the demand region, where they
+ * are protected from the churn caused by the read-ahead of catch-up readers scanning old ledgers.
+ */
+public interface ReadCacheAdmissionPolicy {
+
+    /**
+     * Policy name for a single FIFO read cache region, with no admission control.
+     */
+    String NONE = "none";
+
+    /**
+     * Policy name for promoting the entries that are read a second time while in the read-ahead region.
+     */
+    String SLRU = "slru";
+
+    /**
+     * Policy name for promoting entries based on their estimated access frequency.
+     */
+    String TINY_LFU = "tinylfu";
+
+    /**
+     * Record a read request for an entry, regardless of whether it is found in the cache or not.
+     */
+    void recordAccess(long ledgerId, long entryId);
+
+    /**
+     * @return whether an entry found in the read-ahead region should be moved into the demand region
+     */
+    boolean shouldPromote(long ledgerId, long entryId);
+
+    /**
+     * Create the admission policy with the given name.
+     *
+     * @param name the policy name
+     * @param readCacheSize the total size of the read cache, used to size the policy internal structures
+     * @return the policy, or null if the read cache should not use admission control
+     */
+    static ReadCacheAdmissionPolicy create(String name, long readCacheSize) {
+        if (name == null || NONE.equalsIgnoreCase(name)) {
+            return null;
+        } else if (SLRU.equalsIgnoreCase(name)) {
+            return new SegmentedLruAdmissionPolicy(readCacheSize);
+        } else if (TINY_LFU.equalsIgnoreCase(name)) {
+            return new FrequencySketchAdmissionPolicy(readCacheSize);
+        } else {
+            throw new IllegalArgumentException("Unknown read cache admission policy: " + name);
+        }
+    }
+}
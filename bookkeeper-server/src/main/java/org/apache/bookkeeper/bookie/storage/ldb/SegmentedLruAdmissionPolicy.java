@@ -0,0 +1,79 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap;
+import org.apache.bookkeeper.util.collections.ConcurrentLongLongPairHashMap.LongPair;
+
+/**
+ * Segmented LRU admission policy for the read cache.
+ *
+ * <p>Entries in the read-ahead region act as the probation segment. An entry is promoted to the demand region,
+ * the protected segment, only on its second read. Entries inserted by read-ahead are not counted as accessed,
+ * so a catch-up reader scanning a ledger, which reads each entry once, doesn't promote anything.
+ *
+ * <p>The entries that were read once are tracked in a map with a bounded number of items. When the map is full it
+ * is cleared, so that entries that are not read again eventually lose their probation state.
+ */
+class SegmentedLruAdmissionPolicy implements ReadCacheAdmissionPolicy {
+
+    // Assumed average entry size, used to derive the number of tracked entries from the cache size
+    private static final int AVERAGE_ENTRY_SIZE = 1024;
+    private static final int MAX_TRACKED_ENTRIES = 1 << 20;
+
+    private static final long ACCESSED_ONCE = 1;
+    private static final long ACCESSED_MORE = 2;
+
+    // (ledgerId, entryId) -> (number of accesses, unused)
+    private final ConcurrentLongLongPairHashMap accessedEntries;
+    private final long maxTrackedEntries;
+
+    SegmentedLruAdmissionPolicy(long readCacheSize) {
+        this.maxTrackedEntries = Math.min(MAX_TRACKED_ENTRIES, Math.max(1024, readCacheSize / AVERAGE_ENTRY_SIZE));
+        this.accessedEntries = ConcurrentLongLongPairHashMap.newBuilder()
+                .expectedItems(4096)
+                .concurrencyLevel(2 * Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
+    @Override
+    public void recordAccess(long ledgerId, long entryId) {
+        if (accessedEntries.putIfAbsent(ledgerId, entryId, ACCESSED_ONCE, 0)) {
+            if (accessedEntries.size() > maxTrackedEntries) {
+                accessedEntries.clear();
+            }
+        } else {
+            accessedEntries.put(ledgerId, entryId, ACCESSED_MORE, 0);
+        }
+    }
+
+    @Override
+    public boolean shouldPromote(long ledgerId, long entryId) {
+        LongPair accesses = accessedEntries.get(ledgerId, entryId);
+        if (accesses == null || accesses.first < ACCESSED_MORE) {
+            return false;
+        }
+
+        // The entry leaves the probation segment
+        accessedEntries.remove(ledgerId, entryId);
+        return true;
+    }
+}
@@ -35,14 +35,21 @@ import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.PrimitiveIterator.OfLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -102,12 +109,41 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
     // Write cache where all new entries are inserted into
     protected volatile WriteCache writeCache;
 
-    // Write cache that is used to swap with writeCache during flushes
-    protected volatile WriteCache writeCacheBeingFlushed;
-
-    // Cache where we insert entries for speculative reading
+    // Write caches that were sealed, either because they were full or because of a checkpoint, and that are
+    // waiting to be flushed. Ordered from the oldest to the newest and replaced on each change.
+    private volatile WriteCache[] sealedWriteCaches = new WriteCache[0];
+
+    // Empty write caches, ready to replace the current write cache when it gets sealed. Guarded by the write
+    // cache rotation lock.
+    private final ArrayDeque<WriteCache> freeWriteCaches = new ArrayDeque<>();
+    // Number of free write caches, readable without the lock
+    private volatile int freeWriteCachesCount;
+    // Set while a writer thread is sealing the current write cache, so that the other writers don't line up
+    // on the write cache rotation lock
+    private final AtomicBoolean isSealOngoing = new AtomicBoolean(false);
+
+    private final int writeCacheSegmentSize;
+
+    // When there are more than 2 write cache segments, the current write cache is sealed as soon as it holds
+    // the amount of data that can be flushed in the target flush time, based on the observed flush throughput
+    private final boolean adaptiveWriteCacheSealing;
+    private final long writeCacheTargetFlushTimeNanos;
+    private volatile long writeCacheSealThreshold;
+    private double flushThroughputBytesPerSecond = -1;
+
+    // Cache where we insert entries for speculative reading. When an admission policy is configured, this is the
+    // demand region, which only holds entries promoted from the read-ahead region
     private final ReadCache readCache;
 
+    // Read cache region where entries read from the entry logs are inserted. Same as readCache when there is no
+    // read cache admission policy
+    private final ReadCache readAheadCache;
+
+    private final ReadCacheAdmissionPolicy readCacheAdmissionPolicy;
+
+    // Performs the read-ahead in background, when enabled. Otherwise the read-ahead is done in the read thread
+    private final ReadAheadScheduler readAheadScheduler;
+
     private final StampedLock writeCacheRotationLock = new StampedLock();
 
     protected final ReentrantLock flushMutex = new ReentrantLock();
@@ -139,8 +175,18 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
     private final int readAheadCacheBatchSize;
     private final long readAheadCacheBatchBytesSize;
 
+    // Per-ledger read-ahead window bounds, when the adaptive read-ahead is enabled
+    private final boolean readAheadAdaptive;
+    private final int readAheadMinBatchSize;
+    private final int readAheadMaxBatchSize;
+
     private final long maxThrottleTimeNanos;
 
+    // Executor used to build and commit the locations index batches when the pipelined flush is enabled
+    private final ExecutorService flushIndexExecutor;
+    private final int flushIndexShards;
+    private static final long[] END_OF_FLUSH = new long[0];
+
     private final DbLedgerStorageStats dbLedgerStorageStats;
 
     private static final long DEFAULT_MAX_THROTTLE_TIME_MILLIS = TimeUnit.SECONDS.toMillis(10);
@@ -178,22 +224,70 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                 .scopeLabel("indexDir", indexBaseDir);
 
         this.writeCacheMaxSize = writeCacheSize;
-        this.writeCache = new WriteCache(allocator, writeCacheMaxSize / 2);
-        this.writeCacheBeingFlushed = new WriteCache(allocator, writeCacheMaxSize / 2);
+        int writeCacheSegments = Math.max(2, conf.getInt(DbLedgerStorage.WRITE_CACHE_SEGMENTS,
+                DbLedgerStorage.DEFAULT_WRITE_CACHE_SEGMENTS));
+        // Each segment needs to hold the largest entry the bookie accepts, otherwise the entry can never be added
+        int maxWriteCacheSegments = (int) Math.max(2,
+                Math.min(Integer.MAX_VALUE, writeCacheMaxSize / conf.getNettyMaxFrameSizeBytes()));
+        if (writeCacheSegments > maxWriteCacheSegments) {
+            log.warn("{} write cache segments of {} bytes can't hold entries of nettyMaxFrameSizeBytes ({} bytes),"
+                    + " using {} segments", writeCacheSegments, writeCacheMaxSize / writeCacheSegments,
+                    conf.getNettyMaxFrameSizeBytes(), maxWriteCacheSegments);
+            writeCacheSegments = maxWriteCacheSegments;
+        }
+        this.writeCacheSegmentSize = (int) Math.min(Integer.MAX_VALUE, writeCacheMaxSize / writeCacheSegments);
+        this.writeCache = new WriteCache(allocator, writeCacheMaxSize / writeCacheSegments);
+        for (int i = 1; i < writeCacheSegments; i++) {
+            freeWriteCaches.add(new WriteCache(allocator, writeCacheMaxSize / writeCacheSegments));
+        }
+        this.freeWriteCachesCount = freeWriteCaches.size();
+        this.adaptiveWriteCacheSealing = writeCacheSegments > 2;
+        this.writeCacheTargetFlushTimeNanos = TimeUnit.MILLISECONDS.toNanos(conf.getLong(
+                DbLedgerStorage.WRITE_CACHE_TARGET_FLUSH_TIME_MILLIS,
+                DbLedgerStorage.DEFAULT_WRITE_CACHE_TARGET_FLUSH_TIME_MILLIS));
+        this.writeCacheSealThreshold = writeCacheMaxSize / writeCacheSegments;
         this.singleLedgerDirs = conf.getLedgerDirs().length == 1;
 
         readCacheMaxSize = readCacheSize;
         this.readAheadCacheBatchSize = readAheadCacheBatchSize;
         this.readAheadCacheBatchBytesSize = readAheadCacheBatchBytesSize;
-
-        // Do not attempt to perform read-ahead more than half the total size of the cache
-        maxReadAheadBytesSize = readCacheMaxSize / 2;
+        this.readAheadAdaptive = DbLedgerStorage.getBooleanVariableOrDefault(conf,
+                DbLedgerStorage.READ_AHEAD_ADAPTIVE, false);
+        this.readAheadMinBatchSize = conf.getInt(DbLedgerStorage.READ_AHEAD_ADAPTIVE_MIN_BATCH_SIZE,
+                DbLedgerStorage.DEFAULT_READ_AHEAD_ADAPTIVE_MIN_BATCH_SIZE);
+        this.readAheadMaxBatchSize = Math.max(readAheadMinBatchSize,
+                conf.getInt(DbLedgerStorage.READ_AHEAD_ADAPTIVE_MAX_BATCH_SIZE,
+                        DbLedgerStorage.DEFAULT_READ_AHEAD_ADAPTIVE_MAX_BATCH_SIZE));
 
         long maxThrottleTimeMillis = conf.getLong(DbLedgerStorage.MAX_THROTTLE_TIME_MILLIS,
                 DEFAULT_MAX_THROTTLE_TIME_MILLIS);
         maxThrottleTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxThrottleTimeMillis);
 
-        readCache = new ReadCache(allocator, readCacheMaxSize);
+        boolean readCacheZeroCopy = DbLedgerStorage.getBooleanVariableOrDefault(conf,
+                DbLedgerStorage.READ_CACHE_ZERO_COPY, false);
+        readCacheAdmissionPolicy = ReadCacheAdmissionPolicy.create(
+                conf.getString(DbLedgerStorage.READ_CACHE_ADMISSION_POLICY, ReadCacheAdmissionPolicy.NONE),
+                readCacheMaxSize);
+        long readAheadRegionSize;
+        if (readCacheAdmissionPolicy == null) {
+            readCache = new ReadCache(allocator, readCacheMaxSize, readCacheZeroCopy);
+            readAheadCache = readCache;
+            readAheadRegionSize = readCacheMaxSize;
+        } else {
+            double demandRegionRatio = conf.getDouble(DbLedgerStorage.READ_CACHE_DEMAND_REGION_RATIO,
+                    DbLedgerStorage.DEFAULT_READ_CACHE_DEMAND_REGION_RATIO);
+            checkArgument(demandRegionRatio > 0 && demandRegionRatio < 1,
+                    "Read cache demand region ratio must be in the (0, 1) range");
+            long demandRegionSize = (long) (readCacheMaxSize * demandRegionRatio);
+            readAheadRegionSize = readCacheMaxSize - demandRegionSize;
+            readCache = new ReadCache(allocator, demandRegionSize, readCacheZeroCopy);
+            readAheadCache = new ReadCache(allocator, readAheadRegionSize, readCacheZeroCopy);
+            log.info("Read cache admission policy: {}, demand region size: {} MB",
+                    conf.getString(DbLedgerStorage.READ_CACHE_ADMISSION_POLICY), demandRegionSize / 1024 / 1024);
+        }
+
+        // Do not attempt to perform read-ahead more than half the total size of the cache
+        maxReadAheadBytesSize = readAheadRegionSize / 2;
 
         ledgerIndex = new LedgerMetadataIndex(conf,
                 KeyValueStorageRocksDB.factory, indexBaseDir, ledgerIndexDirStatsLogger);
@@ -214,12 +308,48 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
 
         dbLedgerStorageStats = new DbLedgerStorageStats(
             ledgerIndexDirStatsLogger,
-            () -> writeCache.size() + writeCacheBeingFlushed.size(),
-            () -> writeCache.count() + writeCacheBeingFlushed.count(),
-            () -> readCache.size(),
-            () -> readCache.count()
+            () -> {
+                long size = writeCache.size();
+                for (WriteCache wc : sealedWriteCaches) {
+                    size += wc.size();
+                }
+                return size;
+            },
+            () -> {
+                long count = writeCache.count();
+                for (WriteCache wc : sealedWriteCaches) {
+                    count += wc.count();
+                }
+                return count;
+            },
+            () -> readCache == readAheadCache ? readCache.size() : readCache.size() + readAheadCache.size(),
+            () -> readCache == readAheadCache ? readCache.count() : readCache.count() + readAheadCache.count(),
+            () -> readCache == readAheadCache ? 0L : readCache.evictedCount(),
+            () -> readAheadCache.evictedCount()
         );
 
+        if (DbLedgerStorage.getBooleanVariableOrDefault(conf, DbLedgerStorage.PIPELINED_FLUSH, false)) {
+            flushIndexShards = Math.max(1, conf.getInt(DbLedgerStorage.PIPELINED_FLUSH_INDEX_THREADS,
+                    DbLedgerStorage.DEFAULT_PIPELINED_FLUSH_INDEX_THREADS));
+            flushIndexExecutor = Executors.newFixedThreadPool(flushIndexShards,
+                    new DefaultThreadFactory("db-storage-flush-index"));
+            log.info("Pipelined write cache flush enabled with {} index threads", flushIndexShards);
+        } else {
+            flushIndexShards = 0;
+            flushIndexExecutor = null;
+        }
+
+        if (DbLedgerStorage.getBooleanVariableOrDefault(conf, DbLedgerStorage.READ_AHEAD_ASYNC, false)) {
+            int readAheadThreads = conf.getInt(DbLedgerStorage.READ_AHEAD_ASYNC_THREADS,
+                    DbLedgerStorage.DEFAULT_READ_AHEAD_ASYNC_THREADS);
+            readAheadScheduler = new ReadAheadScheduler(entryLogger, readAheadCache,
+                    this::chargeReadAheadCache, this::readAheadCompleted,
+                    dbLedgerStorageStats, readAheadThreads);
+            log.info("Read-ahead is performed in background by {} threads", readAheadThreads);
+        } else {
+            readAheadScheduler = null;
+        }
+
         flushExecutorTime = ledgerIndexDirStatsLogger.getThreadScopedCounter("db-storage-thread-time");
 
         executor.submit(() -> {
@@ -345,6 +475,9 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             flush();
 
             gcThread.shutdown();
+            if (readAheadScheduler != null) {
+                readAheadScheduler.shutdown();
+            }
             entryLogger.close();
 
             cleanupExecutor.shutdown();
@@ -354,8 +487,17 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             entryLocationIndex.close();
 
             writeCache.close();
-            writeCacheBeingFlushed.close();
+            for (WriteCache wc : sealedWriteCaches) {
+                wc.close();
+            }
+            freeWriteCaches.forEach(WriteCache::close);
             readCache.close();
+            if (flushIndexExecutor != null) {
+                flushIndexExecutor.shutdown();
+            }
+            if (readAheadCache != readCache) {
+                readAheadCache.close();
+            }
             executor.shutdown();
 
         } catch (IOException e) {
@@ -383,26 +525,28 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             return false;
         }
 
-        // We need to try to read from both write caches, since recent entries could be found in either of the two. The
-        // write caches are already thread safe on their own, here we just need to make sure we get references to both
-        // of them. Using an optimistic lock since the read lock is always free, unless we're swapping the caches.
+        // We need to try to read from all the unflushed write caches, since recent entries could be found in any of
+        // them. The write caches are already thread safe on their own, here we just need to make sure we get
+        // references to all of them. Using an optimistic lock since the read lock is always free, unless we're
+        // rotating the caches.
         long stamp = writeCacheRotationLock.tryOptimisticRead();
         WriteCache localWriteCache = writeCache;
-        WriteCache localWriteCacheBeingFlushed = writeCacheBeingFlushed;
+        WriteCache[] localSealedWriteCaches = sealedWriteCaches;
         if (!writeCacheRotationLock.validate(stamp)) {
             // Fallback to regular read lock approach
             stamp = writeCacheRotationLock.readLock();
             try {
                 localWriteCache = writeCache;
-                localWriteCacheBeingFlushed = writeCacheBeingFlushed;
+                localSealedWriteCaches = sealedWriteCaches;
             } finally {
                 writeCacheRotationLock.unlockRead(stamp);
             }
         }
 
         boolean inCache = localWriteCache.hasEntry(ledgerId, entryId)
-             || localWriteCacheBeingFlushed.hasEntry(ledgerId, entryId)
-             || readCache.hasEntry(ledgerId, entryId);
+             || sealedWriteCachesHaveEntry(localSealedWriteCaches, ledgerId, entryId)
+             || readCache.hasEntry(ledgerId, entryId)
+             || (readAheadCache != readCache && readAheadCache.hasEntry(ledgerId, entryId));
 
         if (inCache) {
             return true;
@@ -505,6 +649,11 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
 
         if (!inserted) {
             triggerFlushAndAddEntry(ledgerId, entryId, entry);
+        } else if (adaptiveWriteCacheSealing) {
+            WriteCache currentWriteCache = writeCache;
+            if (currentWriteCache.size() >= writeCacheSealThreshold && trySealWriteCache(currentWriteCache)) {
+                triggerBackgroundFlush();
+            }
         }
 
         // after successfully insert the entry, update LAC and notify the watchers
@@ -514,6 +663,38 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
         return entryId;
     }
 
+    /**
+     * Trigger a flush in background, unless a flush is already ongoing or already triggered.
+     *
+     * @return true if the flush was triggered
+     */
+    private boolean triggerBackgroundFlush() {
+        if (!isFlushOngoing.get() && hasFlushBeenTriggered.compareAndSet(false, true)) {
+            // Trigger an early flush in background
+            executor.execute(() -> {
+                    long startTime = System.nanoTime();
+                    try {
+                        flush();
+                    } catch (IOException e) {
+                        log.error("Error during flush", e);
+                    } finally {
+                        flushExecutorTime.addLatency(MathUtils.elapsedNanos(startTime), TimeUnit.NANOSECONDS);
+                    }
+                });
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean sealedWriteCachesHaveEntry(WriteCache[] sealedWriteCaches, long ledgerId, long entryId) {
+        for (WriteCache wc : sealedWriteCaches) {
+            if (wc.mayContain(ledgerId, entryId) && wc.hasEntry(ledgerId, entryId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void triggerFlushAndAddEntry(long ledgerId, long entryId, ByteBuf entry)
             throws IOException, BookieException {
         long throttledStartTime = MathUtils.nowInNano();
@@ -524,19 +705,17 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             // Write cache is full, we need to trigger a flush so that it gets rotated
             // If the flush has already been triggered or flush has already switched the
             // cache, we don't need to trigger another flush
-            if (!isFlushOngoing.get() && hasFlushBeenTriggered.compareAndSet(false, true)) {
-                // Trigger an early flush in background
+            if (triggerBackgroundFlush()) {
                 log.info("Write cache is full, triggering flush");
-                executor.execute(() -> {
-                        long startTime = System.nanoTime();
-                        try {
-                            flush();
-                        } catch (IOException e) {
-                            log.error("Error during flush", e);
-                        } finally {
-                            flushExecutorTime.addLatency(MathUtils.elapsedNanos(startTime), TimeUnit.NANOSECONDS);
-                        }
-                    });
+            }
+
+            // If there is a free write cache, seal the full one and move on with the free one, without waiting
+            // for the flush
+            WriteCache fullWriteCache = writeCache;
+            if (fullWriteCache.size() > 0 && trySealWriteCache(fullWriteCache)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Write cache is full, sealed it and rotated to a free write cache");
+                }
             }
 
             long stamp = writeCacheRotationLock.readLock();
@@ -587,41 +766,13 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             return getLastEntry(ledgerId);
         }
 
-        // We need to try to read from both write caches, since recent entries could be found in either of the two. The
-        // write caches are already thread safe on their own, here we just need to make sure we get references to both
-        // of them. Using an optimistic lock since the read lock is always free, unless we're swapping the caches.
-        long stamp = writeCacheRotationLock.tryOptimisticRead();
-        WriteCache localWriteCache = writeCache;
-        WriteCache localWriteCacheBeingFlushed = writeCacheBeingFlushed;
-        if (!writeCacheRotationLock.validate(stamp)) {
-            // Fallback to regular read lock approach
-            stamp = writeCacheRotationLock.readLock();
-            try {
-                localWriteCache = writeCache;
-                localWriteCacheBeingFlushed = writeCacheBeingFlushed;
-            } finally {
-                writeCacheRotationLock.unlockRead(stamp);
-            }
-        }
-
-        // First try to read from the write cache of recent entries
-        ByteBuf entry = localWriteCache.get(ledgerId, entryId);
-        if (entry != null) {
-            dbLedgerStorageStats.getWriteCacheHitCounter().inc();
-            return entry;
-        }
-
-        // If there's a flush going on, the entry might be in the flush buffer
-        entry = localWriteCacheBeingFlushed.get(ledgerId, entryId);
+        ByteBuf entry = getFromWriteCaches(ledgerId, entryId);
         if (entry != null) {
-            dbLedgerStorageStats.getWriteCacheHitCounter().inc();
             return entry;
         }
 
-        dbLedgerStorageStats.getWriteCacheMissCounter().inc();
-
         // Try reading from read-ahead cache
-        entry = readCache.get(ledgerId, entryId);
+        entry = getFromReadCache(ledgerId, entryId);
         if (entry != null) {
             dbLedgerStorageStats.getReadCacheHitCounter().inc();
             return entry;
@@ -653,16 +804,230 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                     MathUtils.elapsedNanos(readEntryStartNano), TimeUnit.NANOSECONDS);
         }
 
-        readCache.put(ledgerId, entryId, entry);
+        readAheadCache.put(ledgerId, entryId, entry);
 
         // Try to read more entries
         long nextEntryLocation = entryLocation + 4 /* size header */ + entry.readableBytes();
-        fillReadAheadCache(ledgerId, entryId + 1, nextEntryLocation);
+        int readAheadBatchSize = readAheadAdaptive
+                ? getOrAddLedgerInfo(ledgerId).updateReadAheadWindow(entryId, readAheadCacheBatchSize,
+                        readAheadMinBatchSize, readAheadMaxBatchSize, dbLedgerStorageStats)
+                : readAheadCacheBatchSize;
+        if (readAheadScheduler != null) {
+            readAheadScheduler.schedule(ledgerId, entryId + 1, nextEntryLocation, readAheadBatchSize);
+        } else {
+            int count = fillReadAheadCache(ledgerId, entryId + 1, nextEntryLocation, readAheadBatchSize);
+            readAheadCompleted(ledgerId, entryId + 1, entryId + 1 + count);
+        }
 
         return entry;
     }
 
-    private void fillReadAheadCache(long originalLedgerId, long firstEntryId, long firstEntryLocation) {
+    @Override
+    public List<ByteBuf> getEntries(long ledgerId, long firstEntryId, int maxCount, long maxBytes,
+                                    int entryOverhead) throws IOException, BookieException {
+        if (firstEntryId == BookieProtocol.LAST_ADD_CONFIRMED) {
+            return Collections.singletonList(getEntry(ledgerId, firstEntryId));
+        }
+
+        long startTime = MathUtils.nowInNano();
+        List<ByteBuf> entries = new ArrayList<>(Math.min(maxCount, EntryLocationRanges.MAX_RUN_LENGTH));
+        boolean success = false;
+        try {
+            doGetEntries(ledgerId, firstEntryId, maxCount, maxBytes, entryOverhead, entries);
+            success = true;
+        } catch (IOException | BookieException e) {
+            if (entries.isEmpty()) {
+                throw e;
+            }
+            // Return the entries read so far
+            success = true;
+            if (log.isDebugEnabled()) {
+                log.debug("Stopping batch read of ledger {} at entry {}", ledgerId, firstEntryId + entries.size(),
+                        e);
+            }
+        } finally {
+            if (success) {
+                recordSuccessfulEvent(dbLedgerStorageStats.getReadEntriesStats(), startTime);
+                dbLedgerStorageStats.getReadEntriesBatchCountStats().registerSuccessfulValue(entries.size());
+            } else {
+                recordFailedEvent(dbLedgerStorageStats.getReadEntriesStats(), startTime);
+                entries.forEach(ReferenceCountUtil::release);
+            }
+        }
+        return entries;
+    }
+
+    private void doGetEntries(long ledgerId, long firstEntryId, int maxCount, long maxBytes, int entryOverhead,
+                              List<ByteBuf> entries) throws IOException, BookieException {
+        long size = 0;
+        long entryId = firstEntryId;
+        while (entries.size() < maxCount) {
+            // Entries that are still in the caches are taken from there
+            ByteBuf entry = getFromWriteCaches(ledgerId, entryId);
+            if (entry == null) {
+                entry = getFromReadCache(ledgerId, entryId);
+                if (entry != null) {
+                    dbLedgerStorageStats.getReadCacheHitCounter().inc();
+                } else {
+                    dbLedgerStorageStats.getReadCacheMissCounter().inc();
+                }
+            }
+
+            if (entry != null) {
+                if (!entries.isEmpty() && size + entry.readableBytes() + entryOverhead > maxBytes) {
+                    entry.release();
+                    return;
+                }
+                entries.add(entry);
+                size += entry.readableBytes() + entryOverhead;
+                entryId++;
+                continue;
+            }
+
+            // Otherwise, get the locations of the next entries with a single index lookup and read them from the
+            // entry log, in sequence
+            int count = Math.min(maxCount - entries.size(), EntryLocationRanges.MAX_RUN_LENGTH);
+            long[] locations;
+            long locationIndexStartNano = MathUtils.nowInNano();
+            try {
+                locations = entryLocationIndex.getLocations(ledgerId, entryId, count);
+            } finally {
+                dbLedgerStorageStats.getReadFromLocationIndexTime().addLatency(
+                        MathUtils.elapsedNanos(locationIndexStartNano), TimeUnit.NANOSECONDS);
+            }
+
+            if (locations[0] == 0) {
+                if (entries.isEmpty()) {
+                    // Only a negative result while in limbo equates to unknown
+                    throwIfLimbo(ledgerId);
+
+                    throw new NoEntryException(ledgerId, entryId);
+                }
+                return;
+            }
+
+            long readEntryStartNano = MathUtils.nowInNano();
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (locations[i] == 0) {
+                        // The batch stops at the first missing entry
+                        return;
+                    }
+
+                    entry = entryLogger.readEntry(ledgerId, entryId, locations[i]);
+                    if (!entries.isEmpty() && size + entry.readableBytes() + entryOverhead > maxBytes) {
+                        entry.release();
+                        return;
+                    }
+
+                    readAheadCache.put(ledgerId, entryId, entry);
+                    entries.add(entry);
+                    size += entry.readableBytes() + entryOverhead;
+                    entryId++;
+                }
+            } finally {
+                dbLedgerStorageStats.getReadFromEntryLogTime().addLatency(
+                        MathUtils.elapsedNanos(readEntryStartNano), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Try to read an entry from the write caches.
+     *
+     * @return the entry or null if the entry is not in the write caches
+     */
+    private ByteBuf getFromWriteCaches(long ledgerId, long entryId) {
+        // We need to try to read from all the unflushed write caches, since recent entries could be found in any of
+        // them. The write caches are already thread safe on their own, here we just need to make sure we get
+        // references to all of them. Using an optimistic lock since the read lock is always free, unless we're
+        // rotating the caches.
+        long stamp = writeCacheRotationLock.tryOptimisticRead();
+        WriteCache localWriteCache = writeCache;
+        WriteCache[] localSealedWriteCaches = sealedWriteCaches;
+        if (!writeCacheRotationLock.validate(stamp)) {
+            // Fallback to regular read lock approach
+            stamp = writeCacheRotationLock.readLock();
+            try {
+                localWriteCache = writeCache;
+                localSealedWriteCaches = sealedWriteCaches;
+            } finally {
+                writeCacheRotationLock.unlockRead(stamp);
+            }
+        }
+
+        // First try to read from the write cache of recent entries
+        ByteBuf entry = localWriteCache.get(ledgerId, entryId);
+        if (entry != null) {
+            dbLedgerStorageStats.getWriteCacheHitCounter().inc();
+            return entry;
+        }
+
+        // If there are sealed write caches waiting to be flushed, the entry might be in one of them. Check from the
+        // most recent one, skipping the caches that don't hold entries of the ledger up to the requested one.
+        for (int i = localSealedWriteCaches.length - 1; i >= 0; i--) {
+            WriteCache sealedWriteCache = localSealedWriteCaches[i];
+            if (!sealedWriteCache.mayContain(ledgerId, entryId)) {
+                continue;
+            }
+
+            entry = sealedWriteCache.get(ledgerId, entryId);
+            if (entry != null) {
+                dbLedgerStorageStats.getWriteCacheHitCounter().inc();
+                return entry;
+            }
+        }
+
+        dbLedgerStorageStats.getWriteCacheMissCounter().inc();
+        return null;
+    }
+
+    private ByteBuf getFromReadCache(long ledgerId, long entryId) {
+        if (readCacheAdmissionPolicy == null) {
+            // A single region serves both the demand reads and the read-ahead, only the read cache hits and misses
+            // are recorded
+            return readCache.get(ledgerId, entryId);
+        }
+
+        readCacheAdmissionPolicy.recordAccess(ledgerId, entryId);
+
+        ByteBuf entry = readCache.get(ledgerId, entryId);
+        if (entry != null) {
+            dbLedgerStorageStats.getReadCacheDemandRegionHitCounter().inc();
+            return entry;
+        }
+        dbLedgerStorageStats.getReadCacheDemandRegionMissCounter().inc();
+
+        entry = readAheadCache.get(ledgerId, entryId);
+        if (entry == null) {
+            dbLedgerStorageStats.getReadCacheReadAheadRegionMissCounter().inc();
+            return null;
+        }
+        dbLedgerStorageStats.getReadCacheReadAheadRegionHitCounter().inc();
+
+        if (readCacheAdmissionPolicy.shouldPromote(ledgerId, entryId)) {
+            // The entry was read more than once, protect it from the churn of the read-ahead region
+            readCache.put(ledgerId, entryId, entry);
+            readAheadCache.remove(ledgerId, entryId);
+            dbLedgerStorageStats.getReadCachePromotionCounter().inc();
+        }
+        return entry;
+    }
+
+    private void readAheadCompleted(long ledgerId, long startEntryId, long endEntryId) {
+        if (readAheadAdaptive) {
+            TransientLedgerInfo ledgerInfo = transientLedgerInfoCache.get(ledgerId);
+            if (ledgerInfo != null) {
+                ledgerInfo.readAheadCompleted(startEntryId, endEntryId);
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries inserted in the read cache
+     */
+    private int fillReadAheadCache(long originalLedgerId, long firstEntryId, long firstEntryLocation,
+                                   int readAheadBatchSize) {
         long readAheadStartNano = MathUtils.nowInNano();
         int count = 0;
         long size = 0;
@@ -672,7 +1037,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             long currentEntryLogId = firstEntryLogId;
             long currentEntryLocation = firstEntryLocation;
 
-            while (chargeReadAheadCache(count, size) && currentEntryLogId == firstEntryLogId) {
+            while (chargeReadAheadCache(readAheadBatchSize, count, size) && currentEntryLogId == firstEntryLogId) {
                 ByteBuf entry = entryLogger.readEntry(originalLedgerId,
                         firstEntryId, currentEntryLocation);
 
@@ -686,7 +1051,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                     }
 
                     // Insert entry in read cache
-                    readCache.put(originalLedgerId, currentEntryId, entry);
+                    readAheadCache.put(originalLedgerId, currentEntryId, entry);
 
                     count++;
                     firstEntryId++;
@@ -708,11 +1073,17 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             dbLedgerStorageStats.getReadAheadTime().addLatency(
                     MathUtils.elapsedNanos(readAheadStartNano), TimeUnit.NANOSECONDS);
         }
+        return count;
     }
 
     protected boolean chargeReadAheadCache(int currentReadAheadCount, long currentReadAheadBytes) {
+        return chargeReadAheadCache(readAheadCacheBatchSize, currentReadAheadCount, currentReadAheadBytes);
+    }
+
+    private boolean chargeReadAheadCache(int readAheadBatchSize, int currentReadAheadCount,
+                                         long currentReadAheadBytes) {
         // compatible with old logic
-        boolean chargeSizeCondition = currentReadAheadCount < readAheadCacheBatchSize
+        boolean chargeSizeCondition = currentReadAheadCount < readAheadBatchSize
                 && currentReadAheadBytes < maxReadAheadBytesSize;
         if (chargeSizeCondition && readAheadCacheBatchBytesSize > 0) {
             // exact limits limit the size and count for each batch
@@ -743,20 +1114,24 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
                 return entry;
             }
 
-            // If there's a flush going on, the entry might be in the flush buffer
-            entry = writeCacheBeingFlushed.getLastEntry(ledgerId);
-            if (entry != null) {
-                if (log.isDebugEnabled()) {
-                    entry.readLong(); // ledgerId
-                    long entryId = entry.readLong();
-                    entry.resetReaderIndex();
+            // If there are write caches waiting to be flushed, the entry might be in one of them
+            WriteCache[] localSealedWriteCaches = sealedWriteCaches;
+            for (int i = localSealedWriteCaches.length - 1; i >= 0; i--) {
+                entry = localSealedWriteCaches[i].getLastEntry(ledgerId);
+                if (entry != null) {
                     if (log.isDebugEnabled()) {
-                        log.debug("Found last entry for ledger {} in write cache being flushed: {}", ledgerId, entryId);
+                        entry.readLong(); // ledgerId
+                        long entryId = entry.readLong();
+                        entry.resetReaderIndex();
+                        if (log.isDebugEnabled()) {
+                            log.debug("Found last entry for ledger {} in write cache being flushed: {}", ledgerId,
+                                    entryId);
+                        }
                     }
-                }
 
-                dbLedgerStorageStats.getWriteCacheHitCounter().inc();
-                return entry;
+                    dbLedgerStorageStats.getWriteCacheHitCounter().inc();
+                    return entry;
+                }
             }
         } finally {
             writeCacheRotationLock.unlockRead(stamp);
@@ -786,7 +1161,7 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
     boolean isFlushRequired() {
         long stamp = writeCacheRotationLock.readLock();
         try {
-            return !writeCache.isEmpty();
+            return !writeCache.isEmpty() || sealedWriteCaches.length > 0;
         } finally {
             writeCacheRotationLock.unlockRead(stamp);
         }
@@ -810,51 +1185,26 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             throw new IOException(e);
         }
 
+        boolean flushCompleted = false;
         try {
-            if (writeCache.isEmpty()) {
+            if (writeCache.isEmpty() && sealedWriteCaches.length == 0) {
                 return;
             }
-            // Swap the write cache so that writes can continue to happen while the flush is
-            // ongoing
-            swapWriteCache();
-
-            long sizeToFlush = writeCacheBeingFlushed.size();
-            if (log.isDebugEnabled()) {
-                log.debug("Flushing entries. count: {} -- size {} Mb", writeCacheBeingFlushed.count(),
-                        sizeToFlush / 1024.0 / 1024);
-            }
-
-            // Write all the pending entries into the entry logger and collect the offset
-            // position for each entry
 
-            try (Batch batch = entryLocationIndex.newBatch()) {
-                writeCacheBeingFlushed.forEach((ledgerId, entryId, entry) -> {
-                    long location = entryLogger.addEntry(ledgerId, entry);
-                    entryLocationIndex.addLocation(batch, ledgerId, entryId, location);
-                });
-
-                long entryLoggerStart = MathUtils.nowInNano();
-                entryLogger.flush();
-                recordSuccessfulEvent(dbLedgerStorageStats.getFlushEntryLogStats(), entryLoggerStart);
-
-                long batchFlushStartTime = MathUtils.nowInNano();
-                batch.flush();
+            long sizeToFlush = 0;
+            boolean writeCacheSealed;
+            do {
+                // Seal the write cache so that writes can continue to happen on a new one while the flush is
+                // ongoing. If there is no free write cache, we first need to flush the ones already sealed.
+                writeCacheSealed = sealWriteCache(null);
 
-                recordSuccessfulEvent(dbLedgerStorageStats.getFlushLocationIndexStats(), batchFlushStartTime);
-                if (log.isDebugEnabled()) {
-                    log.debug("DB batch flushed time : {} s",
-                            MathUtils.elapsedNanos(batchFlushStartTime) / (double) TimeUnit.SECONDS.toNanos(1));
+                for (WriteCache writeCacheToFlush : sealedWriteCaches) {
+                    sizeToFlush += flushSealedWriteCache(writeCacheToFlush);
                 }
-            }
-
-            long ledgerIndexStartTime = MathUtils.nowInNano();
-            ledgerIndex.flush();
-            recordSuccessfulEvent(dbLedgerStorageStats.getFlushLedgerIndexStats(), ledgerIndexStartTime);
+            } while (!writeCacheSealed);
 
             lastCheckpoint = thisCheckpoint;
-
-            // Discard all the entry from the write cache, since they're now persisted
-            writeCacheBeingFlushed.clear();
+            flushCompleted = true;
 
             double flushTimeSeconds = MathUtils.elapsedNanos(startTime) / (double) TimeUnit.SECONDS.toNanos(1);
             double flushThroughput = sizeToFlush / 1024.0 / 1024.0 / flushTimeSeconds;
@@ -890,25 +1240,323 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             } finally {
                 flushMutex.unlock();
             }
+
+            if (flushCompleted && sealedWriteCaches.length > 0) {
+                // More write caches were sealed while we were flushing
+                triggerBackgroundFlush();
+            }
+        }
+    }
+
+    /**
+     * Flush one of the sealed write caches and make it available for new writes.
+     *
+     * @return the number of bytes flushed
+     */
+    private long flushSealedWriteCache(WriteCache writeCacheToFlush) throws IOException {
+        long startTime = MathUtils.nowInNano();
+        long sizeToFlush = writeCacheToFlush.size();
+        if (log.isDebugEnabled()) {
+            log.debug("Flushing entries. count: {} -- size {} Mb", writeCacheToFlush.count(),
+                    sizeToFlush / 1024.0 / 1024);
+        }
+
+        // Write all the pending entries into the entry logger and collect the offset
+        // position for each entry
+        if (flushIndexExecutor != null) {
+            flushWriteCachePipelined(writeCacheToFlush);
+        } else {
+            flushWriteCache(writeCacheToFlush);
+        }
+
+        // Discard all the entry from the write cache, since they're now persisted
+        long stamp = writeCacheRotationLock.writeLock();
+        try {
+            WriteCache[] remaining = new WriteCache[sealedWriteCaches.length - 1];
+            int idx = 0;
+            for (WriteCache wc : sealedWriteCaches) {
+                if (wc != writeCacheToFlush) {
+                    remaining[idx++] = wc;
+                }
+            }
+            sealedWriteCaches = remaining;
+            writeCacheToFlush.clear();
+            freeWriteCaches.add(writeCacheToFlush);
+            freeWriteCachesCount = freeWriteCaches.size();
+        } finally {
+            writeCacheRotationLock.unlockWrite(stamp);
+        }
+
+        if (adaptiveWriteCacheSealing) {
+            updateWriteCacheSealThreshold(sizeToFlush, MathUtils.elapsedNanos(startTime));
+        }
+        return sizeToFlush;
+    }
+
+    /**
+     * Adjust the size at which the current write cache gets sealed, so that a sealed write cache can be
+     * flushed in about the target flush time.
+     */
+    private void updateWriteCacheSealThreshold(long flushedBytes, long flushTimeNanos) {
+        if (flushedBytes == 0 || flushTimeNanos <= 0) {
+            return;
+        }
+
+        double throughput = flushedBytes / (flushTimeNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        if (flushThroughputBytesPerSecond < 0) {
+            flushThroughputBytesPerSecond = throughput;
+        } else {
+            flushThroughputBytesPerSecond = 0.8 * flushThroughputBytesPerSecond + 0.2 * throughput;
+        }
+
+        double targetSize = flushThroughputBytesPerSecond * writeCacheTargetFlushTimeNanos
+                / TimeUnit.SECONDS.toNanos(1);
+        writeCacheSealThreshold = Math.max(writeCacheSegmentSize / 16,
+                Math.min(writeCacheSegmentSize, (long) targetSize));
+        if (log.isDebugEnabled()) {
+            log.debug("Write cache flush throughput: {} MB/s -- seal threshold: {} MB",
+                    flushThroughputBytesPerSecond / 1024 / 1024, writeCacheSealThreshold / 1024.0 / 1024);
+        }
+    }
+
+    private void flushWriteCache(WriteCache writeCacheToFlush) throws IOException {
+        try (Batch batch = entryLocationIndex.newBatch()) {
+            FlushStageTimer timer = new FlushStageTimer();
+            writeCacheToFlush.forEach((ledgerId, entryId, entry) -> {
+                timer.onEntry();
+                long location = entryLogger.addEntry(ledgerId, entry);
+                entryLocationIndex.addLocation(batch, ledgerId, entryId, location);
+            });
+            timer.onComplete();
+
+            long entryLoggerStart = MathUtils.nowInNano();
+            entryLogger.flush();
+            recordSuccessfulEvent(dbLedgerStorageStats.getFlushEntryLogStats(), entryLoggerStart);
+
+            long batchFlushStartTime = MathUtils.nowInNano();
+            batch.flush();
+
+            recordSuccessfulEvent(dbLedgerStorageStats.getFlushLocationIndexStats(), batchFlushStartTime);
+            if (log.isDebugEnabled()) {
+                log.debug("DB batch flushed time : {} s",
+                        MathUtils.elapsedNanos(batchFlushStartTime) / (double) TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+
+        long ledgerIndexStartTime = MathUtils.nowInNano();
+        ledgerIndex.flush();
+        recordSuccessfulEvent(dbLedgerStorageStats.getFlushLedgerIndexStats(), ledgerIndexStartTime);
+    }
+
+    /**
+     * Flush the write cache overlapping the different stages of the flush.
+     *
+     * <p>While the flush thread writes the sorted entries into the entry log, the locations are sent to the
+     * index shards, that build their own RocksDB batch in parallel. The fsync of the entry log then overlaps
+     * with the completion of the batches, and the batches are committed in parallel with the ledger index flush.
+     * The batches are only committed once the entry log has been flushed, so that the index never points to
+     * entries that are not persisted.
+     */
+    private void flushWriteCachePipelined(WriteCache writeCacheToFlush) throws IOException {
+        CompletableFuture<Void> entryLogFlushed = new CompletableFuture<>();
+        FlushIndexShard[] shards = new FlushIndexShard[flushIndexShards];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new FlushIndexShard(entryLogFlushed);
+            flushIndexExecutor.execute(shards[i]);
+        }
+
+        try {
+            FlushStageTimer timer = new FlushStageTimer();
+            writeCacheToFlush.forEach((ledgerId, entryId, entry) -> {
+                timer.onEntry();
+                long location = entryLogger.addEntry(ledgerId, entry);
+                shards[(int) ((ledgerId & Long.MAX_VALUE) % shards.length)].add(ledgerId, entryId, location);
+            });
+            timer.onComplete();
+        } catch (Throwable t) {
+            entryLogFlushed.completeExceptionally(t);
+            throw t;
+        } finally {
+            for (FlushIndexShard shard : shards) {
+                shard.finish();
+            }
+        }
+
+        try {
+            long entryLoggerStart = MathUtils.nowInNano();
+            entryLogger.flush();
+            recordSuccessfulEvent(dbLedgerStorageStats.getFlushEntryLogStats(), entryLoggerStart);
+            entryLogFlushed.complete(null);
+        } catch (Throwable t) {
+            entryLogFlushed.completeExceptionally(t);
+            throw t;
+        }
+
+        // The location index batches are being committed by the shards while we flush the ledger index
+        long ledgerIndexStartTime = MathUtils.nowInNano();
+        ledgerIndex.flush();
+        recordSuccessfulEvent(dbLedgerStorageStats.getFlushLedgerIndexStats(), ledgerIndexStartTime);
+
+        for (FlushIndexShard shard : shards) {
+            try {
+                shard.done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while flushing the locations index", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed to flush the locations index", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Records the duration of the sort and entry log write stages of a flush. The write cache sorts the
+     * entries before passing the first one to the consumer.
+     */
+    private final class FlushStageTimer {
+        private final long startTime = MathUtils.nowInNano();
+        private long firstEntryTime = -1;
+
+        void onEntry() {
+            if (firstEntryTime < 0) {
+                firstEntryTime = MathUtils.nowInNano();
+                recordSuccessfulEvent(dbLedgerStorageStats.getFlushSortStats(), startTime);
+            }
+        }
+
+        void onComplete() {
+            if (firstEntryTime >= 0) {
+                recordSuccessfulEvent(dbLedgerStorageStats.getFlushEntryLogWriteStats(), firstEntryTime);
+            }
         }
     }
 
     /**
-     * Swap the current write cache with the replacement cache.
+     * Builds the locations index batch for a subset of the ledgers being flushed, and commits it once the
+     * entry log has been flushed.
      */
-    private void swapWriteCache() {
+    private final class FlushIndexShard implements Runnable {
+        private static final int CHUNK_SIZE = 3 * 1024;
+
+        private final BlockingQueue<long[]> chunks = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Void> entryLogFlushed;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private long[] currentChunk = new long[CHUNK_SIZE];
+        private int currentChunkIdx = 0;
+
+        FlushIndexShard(CompletableFuture<Void> entryLogFlushed) {
+            this.entryLogFlushed = entryLogFlushed;
+        }
+
+        void add(long ledgerId, long entryId, long location) {
+            currentChunk[currentChunkIdx++] = ledgerId;
+            currentChunk[currentChunkIdx++] = entryId;
+            currentChunk[currentChunkIdx++] = location;
+            if (currentChunkIdx == CHUNK_SIZE) {
+                chunks.add(currentChunk);
+                currentChunk = new long[CHUNK_SIZE];
+                currentChunkIdx = 0;
+            }
+        }
+
+        void finish() {
+            if (currentChunkIdx > 0) {
+                chunks.add(Arrays.copyOf(currentChunk, currentChunkIdx));
+            }
+            chunks.add(END_OF_FLUSH);
+        }
+
+        @Override
+        public void run() {
+            try (Batch batch = entryLocationIndex.newBatch()) {
+                while (true) {
+                    long[] chunk = chunks.take();
+                    if (chunk == END_OF_FLUSH) {
+                        break;
+                    }
+
+                    for (int i = 0; i < chunk.length; i += 3) {
+                        entryLocationIndex.addLocation(batch, chunk[i], chunk[i + 1], chunk[i + 2]);
+                    }
+                }
+
+                // Wait for the entries to be persisted before committing their locations
+                entryLogFlushed.get();
+
+                long batchFlushStartTime = MathUtils.nowInNano();
+                batch.flush();
+                recordSuccessfulEvent(dbLedgerStorageStats.getFlushLocationIndexStats(), batchFlushStartTime);
+                done.complete(null);
+            } catch (Throwable t) {
+                if (t instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                done.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * Seal the current write cache from a writer thread, without taking the write cache rotation lock when there is
+     * no free write cache to rotate to, or when another writer is already sealing.
+     *
+     * @return same as {@link #sealWriteCache(WriteCache)}, or false if the seal was not attempted
+     */
+    private boolean trySealWriteCache(WriteCache expectedWriteCache) {
+        if (freeWriteCachesCount == 0 || !isSealOngoing.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            return sealWriteCache(expectedWriteCache);
+        } finally {
+            isSealOngoing.set(false);
+        }
+    }
+
+    /**
+     * Seal the current write cache and replace it with a free one.
+     *
+     * <p>When called by the flush, with a null {@code expectedWriteCache}, the current write cache is sealed
+     * regardless and the flush is marked as ongoing. Otherwise the write cache is only sealed if it is still
+     * the current one.
+     *
+     * @return true if the write cache was sealed, or if there was nothing to seal
+     */
+    private boolean sealWriteCache(WriteCache expectedWriteCache) {
         long stamp = writeCacheRotationLock.writeLock();
         try {
-            // First, swap the current write-cache map with an empty one so that writes will
+            if (expectedWriteCache == null) {
+                // Set to true before updating hasFlushBeenTriggered to false.
+                isFlushOngoing.set(true);
+                // since the cache is going to be switched, we can allow flush to be triggered
+                hasFlushBeenTriggered.set(false);
+            } else if (writeCache != expectedWriteCache) {
+                // Already sealed by someone else
+                return true;
+            }
+
+            if (writeCache.isEmpty()) {
+                return true;
+            }
+
+            WriteCache newWriteCache = freeWriteCaches.poll();
+            if (newWriteCache == null) {
+                return false;
+            }
+            freeWriteCachesCount = freeWriteCaches.size();
+
+            // First, swap the current write-cache with an empty one so that writes will
             // go on unaffected. Only a single flush is happening at the same time
-            WriteCache tmp = writeCacheBeingFlushed;
-            writeCacheBeingFlushed = writeCache;
-            writeCache = tmp;
-
-            // Set to true before updating hasFlushBeenTriggered to false.
-            isFlushOngoing.set(true);
-            // since the cache is switched, we can allow flush to be triggered
-            hasFlushBeenTriggered.set(false);
+            WriteCache[] newSealedWriteCaches = Arrays.copyOf(sealedWriteCaches, sealedWriteCaches.length + 1);
+            newSealedWriteCaches[newSealedWriteCaches.length - 1] = writeCache;
+            sealedWriteCaches = newSealedWriteCaches;
+            writeCache = newWriteCache;
+            return true;
         } finally {
             writeCacheRotationLock.unlockWrite(stamp);
         }
@@ -929,14 +1577,21 @@ public class SingleDirectoryDbLedgerStorage implements CompactableLedgerStorage
             log.debug("Deleting ledger {}", ledgerId);
         }
 
-        // Delete entries from this ledger that are still in the write cache
+        // Delete entries from this ledger that are still in the write caches
         long stamp = writeCacheRotationLock.readLock();
         try {
             writeCache.deleteLedger(ledgerId);
+            for (WriteCache wc : sealedWriteCaches) {
+                wc.deleteLedger(ledgerId);
+            }
         } finally {
             writeCacheRotationLock.unlockRead(stamp);
         }
 
+        if (readAheadScheduler != null) {
+            readAheadScheduler.cancel(ledgerId);
+        }
+
         entryLocationIndex.delete(ledgerId);
         ledgerIndex.delete(ledgerId);
 
@@ -55,6 +55,13 @@ class TransientLedgerInfo extends Watchable<LastAddConfirmedUpdateNotification>
 
     private long lastAccessed;
 
+    // Adaptive read-ahead state, guarded by the object monitor
+    private int readAheadWindow = 0;
+    private long readAheadStartEntryId = -1;
+    private long readAheadEndEntryId = -1;
+    // Whether the last read-ahead stopped before the end of the window, eg: at the end of the entry log
+    private boolean readAheadTruncated = false;
+
     /**
      * Construct an Watchable with zero watchers.
      */
@@ -137,6 +144,60 @@ class TransientLedgerInfo extends Watchable<LastAddConfirmedUpdateNotification>
         setLastAddConfirmed(explicitLacValue);
     }
 
+    /**
+     * Update the read-ahead window of the ledger after a read cache miss.
+     *
+     * <p>Similarly to a TCP congestion window, the window is doubled when the reader consumed all the
+     * entries prefetched by the previous read-ahead, and halved when the miss is not related to the
+     * previous read-ahead. The window is not grown when the previous read-ahead prefetched less entries than
+     * planned, since the reader didn't really consume a full window.
+     *
+     * @return the number of entries to read-ahead after the missed entry
+     */
+    synchronized int updateReadAheadWindow(long entryId, int initialWindow, int minWindow, int maxWindow,
+                                           DbLedgerStorageStats stats) {
+        int window = readAheadWindow == 0 ? initialWindow : readAheadWindow;
+        if (readAheadEndEntryId >= 0) {
+            long prefetched = readAheadEndEntryId - readAheadStartEntryId;
+            long used = Math.max(0, Math.min(entryId, readAheadEndEntryId) - readAheadStartEntryId);
+            stats.getReadAheadPrefetchHits().addCount(used);
+            stats.getReadAheadPrefetchMisses().addCount(prefetched - used);
+
+            if (entryId == readAheadEndEntryId) {
+                // The whole window was consumed sequentially
+                if (!readAheadTruncated) {
+                    window = Math.min(window * 2, maxWindow);
+                }
+            } else if (entryId >= readAheadStartEntryId && entryId < readAheadEndEntryId) {
+                // Still within the previous window, which was cut short or is still being filled
+            } else {
+                window = Math.max(window / 2, minWindow);
+            }
+        }
+
+        readAheadWindow = window;
+        readAheadStartEntryId = entryId + 1;
+        readAheadEndEntryId = entryId + 1 + window;
+        readAheadTruncated = false;
+        lastAccessed = System.currentTimeMillis();
+        stats.getReadAheadWindowSizeStats().registerSuccessfulValue(window);
+        return window;
+    }
+
+    /**
+     * Record the entries that were actually prefetched by a read-ahead, so that the window is not updated on
+     * entries that were never read.
+     *
+     * @param startEntryId the first entry requested to the read-ahead
+     * @param endEntryId the entry after the last one that was prefetched
+     */
+    synchronized void readAheadCompleted(long startEntryId, long endEntryId) {
+        if (startEntryId == readAheadStartEntryId && endEntryId < readAheadEndEntryId) {
+            readAheadEndEntryId = Math.max(startEntryId, endEntryId);
+            readAheadTruncated = true;
+        }
+    }
+
     boolean isStale() {
         return (lastAccessed + TimeUnit.MINUTES.toMillis(LEDGER_INFO_CACHING_TIME_MINUTES)) < System
                 .currentTimeMillis();
@@ -203,6 +203,15 @@ public class WriteCache implements Closeable {
         return index.get(ledgerId, entryId) != null;
     }
 
+    /**
+     * Quick check, based on the per-ledger last entry index, to rule out that the write cache holds an entry.
+     *
+     * @return false if the write cache does not contain the entry, true if it might contain it
+     */
+    public boolean mayContain(long ledgerId, long entryId) {
+        return lastEntryMap.get(ledgerId) >= entryId;
+    }
+
     public ByteBuf getLastEntry(long ledgerId) {
         long lastEntryId = lastEntryMap.get(ledgerId);
         if (lastEntryId == -1) {
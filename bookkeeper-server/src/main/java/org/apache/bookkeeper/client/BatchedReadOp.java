@@ -106,6 +106,7 @@ public class BatchedReadOp extends ReadOpBase implements BatchedReadEntryCallbac
             return;
         }
 
+        recordReadLatency(rctx);
         heardFromHosts.add(rctx.to);
         heardFromHostsBitSet.set(rctx.bookieIndex, true);
 
@@ -126,6 +127,7 @@ public class BatchedReadOp extends ReadOpBase implements BatchedReadEntryCallbac
         if (lh.throttler != null) {
             lh.throttler.acquire();
         }
+        entry.lastRequestedBookie = to;
         if (isRecoveryRead) {
             int flags = BookieProtocol.FLAG_HIGH_PRIORITY | BookieProtocol.FLAG_DO_FENCING;
             clientCtx.getBookieClient().batchReadEntries(to, lh.ledgerId, entry.eId,
@@ -177,6 +179,10 @@ public class BatchedReadOp extends ReadOpBase implements BatchedReadEntryCallbac
                     LedgerEntryImpl entryImpl =  LedgerEntryImpl.create(lh.ledgerId, startEntryId + i);
                     entryImpl.setLength(buffer.getLong(DigestManager.METADATA_LENGTH - 8));
                     entryImpl.setEntryBuf(content);
+                    if (content != buffer) {
+                        // The entry was decompressed in a new buffer
+                        buffer.release();
+                    }
                     entries.add(entryImpl);
                 }
                 writeSet.recycle();
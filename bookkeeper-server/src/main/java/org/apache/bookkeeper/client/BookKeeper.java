@@ -517,7 +517,24 @@ public class BookKeeper implements org.apache.bookkeeper.client.api.BookKeeper {
         this.bookieClient = new BookieClientImpl(conf, this.eventLoopGroup, this.allocator, this.mainWorkerPool,
                 scheduler, rootStatsLogger, this.bookieWatcher.getBookieAddressResolver());
 
-        if (conf.getDiskWeightBasedPlacementEnabled()) {
+        if (internalConf.addLatencyTracker.isPresent()) {
+            LOG.info("Load based ledger placement enabled");
+            final BookieAddLatencyTracker addLatencyTracker = internalConf.addLatencyTracker.get();
+            this.placementPolicy.registerBookiesLoadInfo(new BookiesLoadInfo() {
+                @Override
+                public long getBookiePendingRequests(BookieId bookieId) {
+                    return bookieClient.getNumPendingRequests(bookieId, 0L)
+                            & ~BookieClient.PENDINGREQ_NOTWRITABLE_MASK;
+                }
+
+                @Override
+                public long getBookieAddLatencyNanos(BookieId bookieId) {
+                    return addLatencyTracker.getAddLatencyNanos(bookieId);
+                }
+            });
+        }
+
+        if (conf.getDiskWeightBasedPlacementEnabled() || conf.getLoadBasedPlacementEnabled()) {
             LOG.info("Weighted ledger placement enabled");
             ThreadFactoryBuilder tFBuilder = new ThreadFactoryBuilder()
                     .setNameFormat("BKClientMetaDataPollScheduler-%d");
@@ -95,6 +95,14 @@ public interface BookKeeperClientStats {
     String FAILED_CONNECTION_COUNTER = "FAILED_CONNECTION_COUNTER";
     String FAILED_TLS_HANDSHAKE_COUNTER = "FAILED_TLS_HANDSHAKE_COUNTER";
 
+    // channel pool stats
+    String CHANNEL_POOL_SIZE = "CHANNEL_POOL_SIZE";
+    String CHANNEL_POOL_GROW = "CHANNEL_POOL_GROW";
+    String CHANNEL_POOL_SHRINK = "CHANNEL_POOL_SHRINK";
+    String CHANNEL_WRITTEN_BYTES = "CHANNEL_WRITTEN_BYTES";
+    String CHANNEL_PENDING_WRITE_BYTES = "CHANNEL_PENDING_WRITE_BYTES";
+    String CHANNEL_PENDING_REQUESTS = "CHANNEL_PENDING_REQUESTS";
+
     // placementpolicy stats
     String NUM_WRITABLE_BOOKIES_IN_DEFAULT_RACK = "NUM_WRITABLE_BOOKIES_IN_DEFAULT_RACK";
     String WRITE_DELAYED_DUE_TO_NOT_ENOUGH_FAULT_DOMAINS = "WRITE_DELAYED_DUE_TO_NOT_ENOUGH_FAULT_DOMAINS";
@@ -104,6 +112,7 @@ public interface BookKeeperClientStats {
     String NUM_WRITABLE_BOOKIES_IN_DEFAULT_FAULTDOMAIN = "NUM_WRITABLE_BOOKIES_IN_DEFAULT_FAULTDOMAIN";
 
     String BOOKIE_LABEL = "bookie";
+    String CHANNEL_LABEL = "channel";
 
     OpStatsLogger getCreateOpLogger();
     OpStatsLogger getOpenOpLogger();
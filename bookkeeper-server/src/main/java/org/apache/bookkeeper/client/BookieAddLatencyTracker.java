@@ -0,0 +1,52 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.bookkeeper.client.BookieReadLatencyTracker.LatencyHistogram;
+import org.apache.bookkeeper.common.util.MathUtils;
+import org.apache.bookkeeper.net.BookieId;
+
+/**
+ * Tracks the recent add latency of each bookie, for the load based ensemble placement.
+ *
+ * <p>It uses the same decaying histograms as the {@link BookieReadLatencyTracker}.
+ */
+class BookieAddLatencyTracker {
+
+    static final double PERCENTILE = 99;
+
+    private final ConcurrentHashMap<BookieId, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    void recordAddLatency(BookieId bookie, long latencyNanos) {
+        histograms.computeIfAbsent(bookie, b -> new LatencyHistogram()).record(latencyNanos);
+    }
+
+    /**
+     * Get the p99 add latency of a bookie.
+     *
+     * @return the latency in nanos, or -1 if the bookie doesn't have enough recent adds
+     */
+    long getAddLatencyNanos(BookieId bookie) {
+        LatencyHistogram histogram = histograms.get(bookie);
+        return histogram == null ? -1L : histogram.getPercentileNanos(PERCENTILE, MathUtils.nowInNano());
+    }
+}
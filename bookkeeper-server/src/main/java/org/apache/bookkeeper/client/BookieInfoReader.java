@@ -48,7 +48,8 @@ public class BookieInfoReader {
     private static final Logger LOG = LoggerFactory.getLogger(BookieInfoReader.class);
     private static final long GET_BOOKIE_INFO_REQUEST_FLAGS =
         BookkeeperProtocol.GetBookieInfoRequest.Flags.TOTAL_DISK_CAPACITY_VALUE
-                               | BookkeeperProtocol.GetBookieInfoRequest.Flags.FREE_DISK_SPACE_VALUE;
+                               | BookkeeperProtocol.GetBookieInfoRequest.Flags.FREE_DISK_SPACE_VALUE
+                               | BookkeeperProtocol.GetBookieInfoRequest.Flags.JOURNAL_QUEUE_LENGTH_VALUE;
 
     private final ScheduledExecutorService scheduler;
     private final BookKeeper bk;
@@ -62,12 +63,17 @@ public class BookieInfoReader {
     public static class BookieInfo implements WeightedObject {
         private final long freeDiskSpace;
         private final long totalDiskSpace;
+        private final long journalQueueLength;
         public BookieInfo() {
             this(0L, 0L);
         }
         public BookieInfo(long totalDiskSpace, long freeDiskSpace) {
+            this(totalDiskSpace, freeDiskSpace, 0L);
+        }
+        public BookieInfo(long totalDiskSpace, long freeDiskSpace, long journalQueueLength) {
             this.totalDiskSpace = totalDiskSpace;
             this.freeDiskSpace = freeDiskSpace;
+            this.journalQueueLength = journalQueueLength;
         }
         public long getFreeDiskSpace() {
             return freeDiskSpace;
@@ -75,13 +81,17 @@ public class BookieInfoReader {
         public long getTotalDiskSpace() {
             return totalDiskSpace;
         }
+        public long getJournalQueueLength() {
+            return journalQueueLength;
+        }
         @Override
         public long getWeight() {
             return freeDiskSpace;
         }
         @Override
         public String toString() {
-            return "FreeDiskSpace: " + this.freeDiskSpace + " TotalDiskCapacity: " + this.totalDiskSpace;
+            return "FreeDiskSpace: " + this.freeDiskSpace + " TotalDiskCapacity: " + this.totalDiskSpace
+                    + " JournalQueueLength: " + this.journalQueueLength;
         }
     }
 
@@ -326,8 +336,16 @@ public class BookieInfoReader {
         }
 
         BookieClient bkc = bk.getBookieClient();
-        final long requested = BookkeeperProtocol.GetBookieInfoRequest.Flags.TOTAL_DISK_CAPACITY_VALUE
-                               | BookkeeperProtocol.GetBookieInfoRequest.Flags.FREE_DISK_SPACE_VALUE;
+        // Only ask for the disk space when it's used for the placement, otherwise all the bookies get the same
+        // base weight and the placement only depends on the load
+        long requested = 0L;
+        if (conf.getDiskWeightBasedPlacementEnabled()) {
+            requested |= BookkeeperProtocol.GetBookieInfoRequest.Flags.TOTAL_DISK_CAPACITY_VALUE
+                    | BookkeeperProtocol.GetBookieInfoRequest.Flags.FREE_DISK_SPACE_VALUE;
+        }
+        if (conf.getLoadBasedPlacementEnabled()) {
+            requested |= BookkeeperProtocol.GetBookieInfoRequest.Flags.JOURNAL_QUEUE_LENGTH_VALUE;
+        }
         totalSent = 0;
         completedCnt = 0;
         errorCnt = 0;
@@ -403,8 +421,7 @@ public class BookieInfoReader {
         final ConcurrentMap<BookieId, BookieInfo> map =
             new ConcurrentHashMap<BookieId, BookieInfo>();
         final CountDownLatch latch = new CountDownLatch(1);
-        long requested = BookkeeperProtocol.GetBookieInfoRequest.Flags.TOTAL_DISK_CAPACITY_VALUE
-                         | BookkeeperProtocol.GetBookieInfoRequest.Flags.FREE_DISK_SPACE_VALUE;
+        long requested = GET_BOOKIE_INFO_REQUEST_FLAGS;
 
         Collection<BookieId> bookies;
         bookies = bk.bookieWatcher.getBookies();
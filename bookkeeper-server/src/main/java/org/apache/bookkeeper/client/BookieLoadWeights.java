@@ -0,0 +1,103 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.apache.bookkeeper.client.BookieInfoReader.BookieInfo;
+import org.apache.bookkeeper.client.WeightedRandomSelection.WeightedObject;
+import org.apache.bookkeeper.net.BookieId;
+
+/**
+ * Lowers the weights of the weighted ensemble placement according to the load of the bookies.
+ *
+ * <p>Each load signal of a bookie (pending requests, p99 add latency and journal queue length) is compared to the
+ * median of the candidate bookies. The relative excess over the median of all the signals adds up in a load score,
+ * and the weight of the bookie is divided by {@code 1 + score}. So a bookie with twice the median pending requests
+ * gets half of its weight, while the weights are unchanged when all the bookies are equally loaded. The medians
+ * have a floor, so the small variations of an idle cluster don't move the placement.
+ */
+final class BookieLoadWeights {
+
+    static final long MIN_PENDING_REQUESTS = 16;
+    static final long MIN_ADD_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    static final long MIN_JOURNAL_QUEUE_LENGTH = 64;
+
+    // Base weight of all the bookies when no disk space based weight is available
+    static final long DEFAULT_WEIGHT = 1L << 20;
+
+    private BookieLoadWeights() {}
+
+    static <T> Map<T, WeightedObject> reweigh(Map<T, WeightedObject> weights,
+                                              Function<T, BookieId> toBookieId,
+                                              BookiesLoadInfo loadInfo) {
+        int size = weights.size();
+        List<T> nodes = new ArrayList<>(weights.keySet());
+        long[] baseWeights = new long[size];
+        long[] pendingRequests = new long[size];
+        long[] addLatencies = new long[size];
+        long[] journalQueueLengths = new long[size];
+        boolean hasBaseWeight = false;
+        for (int i = 0; i < size; i++) {
+            BookieId bookie = toBookieId.apply(nodes.get(i));
+            WeightedObject weight = weights.get(nodes.get(i));
+            baseWeights[i] = weight.getWeight();
+            hasBaseWeight |= baseWeights[i] > 0;
+            pendingRequests[i] = loadInfo.getBookiePendingRequests(bookie);
+            addLatencies[i] = loadInfo.getBookieAddLatencyNanos(bookie);
+            journalQueueLengths[i] = weight instanceof BookieInfo
+                    ? ((BookieInfo) weight).getJournalQueueLength() : -1L;
+        }
+
+        long pendingRequestsRef = Math.max(median(pendingRequests), MIN_PENDING_REQUESTS);
+        long addLatencyRef = Math.max(median(addLatencies), MIN_ADD_LATENCY_NANOS);
+        long journalQueueLengthRef = Math.max(median(journalQueueLengths), MIN_JOURNAL_QUEUE_LENGTH);
+
+        Map<T, WeightedObject> loadWeights = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            double load = excess(pendingRequests[i], pendingRequestsRef)
+                    + excess(addLatencies[i], addLatencyRef)
+                    + excess(journalQueueLengths[i], journalQueueLengthRef);
+            long baseWeight = hasBaseWeight ? baseWeights[i] : DEFAULT_WEIGHT;
+            // Bookies without weight are left as they are, the weighted selection gives them the min weight
+            long weight = baseWeight <= 0 ? baseWeight : Math.max(1L, (long) (baseWeight / (1 + load)));
+            loadWeights.put(nodes.get(i), () -> weight);
+        }
+        return loadWeights;
+    }
+
+    /**
+     * @return the median of the known (non negative) values, or 0 if there are none
+     */
+    private static long median(long[] values) {
+        long[] known = Arrays.stream(values).filter(v -> v >= 0).sorted().toArray();
+        return known.length == 0 ? 0L : known[known.length / 2];
+    }
+
+    private static double excess(long value, long reference) {
+        return value <= reference ? 0 : (double) (value - reference) / reference;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.bookkeeper.common.util.MathUtils;
+import org.apache.bookkeeper.net.BookieId;
+
+/**
+ * Tracks the recent read latency of each bookie, to drive the latency aware speculative reads.
+ *
+ * <p>Each bookie has a small log-linear histogram, with 4 buckets per power of two microseconds. The counts are
+ * halved every {@link #DECAY_SAMPLES} samples, so the histogram follows the recent behavior of the bookie, and
+ * the histogram is ignored if the bookie wasn't read for {@link #STALE_NANOS}, so a bookie that was slow gets
+ * back its place in the read sequence.
+ */
+class BookieReadLatencyTracker {
+
+    static final int DECAY_SAMPLES = 512;
+    static final int MIN_SAMPLES = 16;
+    static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // A bookie is moved at the end of the read sequence if its expected latency is this many times the expected
+    // latency of the fastest bookie of the write set
+    static final int SLOW_BOOKIE_FACTOR = 4;
+
+    private final double percentile;
+    private final ConcurrentHashMap<BookieId, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    BookieReadLatencyTracker(double percentile) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Invalid latency percentile: " + percentile);
+        }
+        this.percentile = percentile;
+    }
+
+    void recordReadLatency(BookieId bookie, long latencyNanos) {
+        histograms.computeIfAbsent(bookie, b -> new LatencyHistogram()).record(latencyNanos);
+    }
+
+    /**
+     * Get the expected read latency of a bookie, at the configured percentile.
+     *
+     * @return the latency in nanos, or -1 if the bookie doesn't have enough recent reads
+     */
+    long getExpectedLatencyNanos(BookieId bookie) {
+        if (bookie == null) {
+            return -1L;
+        }
+        LatencyHistogram histogram = histograms.get(bookie);
+        return histogram == null ? -1L : histogram.getPercentileNanos(percentile, MathUtils.nowInNano());
+    }
+
+    /**
+     * Move at the end of the read sequence the bookies that are much slower than the fastest bookie of the write
+     * set. The relative order of the other bookies, as decided by the placement policy, is preserved.
+     */
+    void reorderReadSequence(List<BookieId> ensemble, DistributionSchedule.WriteSet writeSet) {
+        int size = writeSet.size();
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            long latency = getExpectedLatencyNanos(ensemble.get(writeSet.get(i)));
+            if (latency >= 0) {
+                fastest = Math.min(fastest, latency);
+            }
+        }
+        if (fastest == Long.MAX_VALUE) {
+            return;
+        }
+
+        long slowThreshold = Math.max(fastest, TimeUnit.MILLISECONDS.toNanos(1)) * SLOW_BOOKIE_FACTOR;
+        int end = size;
+        for (int i = 0; i < end;) {
+            if (getExpectedLatencyNanos(ensemble.get(writeSet.get(i))) > slowThreshold) {
+                writeSet.moveAndShift(i, size - 1);
+                --end;
+            } else {
+                ++i;
+            }
+        }
+    }
+
+    static class LatencyHistogram {
+        static final int SUB_BUCKETS_BITS = 2;
+        static final int SUB_BUCKETS = 1 << SUB_BUCKETS_BITS;
+        // Up to 2^25 micros, ~33 seconds
+        static final int NUM_BUCKETS = 25 * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+        private final AtomicLong samples = new AtomicLong();
+        private volatile long lastRecordNanos = MathUtils.nowInNano();
+
+        // Percentile computed at most every REFRESH_NANOS
+        private volatile long cachedPercentileNanos = -1L;
+        private volatile long cachedAtNanos = MathUtils.nowInNano() - REFRESH_NANOS;
+
+        void record(long latencyNanos) {
+            counts.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            lastRecordNanos = MathUtils.nowInNano();
+            if (samples.incrementAndGet() >= DECAY_SAMPLES) {
+                decay();
+            }
+        }
+
+        private synchronized void decay() {
+            if (samples.get() < DECAY_SAMPLES) {
+                return;
+            }
+            long total = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                long count = counts.get(i) >>> 1;
+                counts.set(i, count);
+                total += count;
+            }
+            // Samples recorded during the decay are not counted, it only delays the next decay a bit
+            samples.set(total);
+        }
+
+        long getPercentileNanos(double percentile, long nowNanos) {
+            if (nowNanos - lastRecordNanos > STALE_NANOS) {
+                return -1L;
+            }
+            if (nowNanos - cachedAtNanos < REFRESH_NANOS) {
+                return cachedPercentileNanos;
+            }
+
+            long total = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            long result = -1L;
+            if (total >= MIN_SAMPLES) {
+                long rank = (long) Math.ceil(total * percentile / 100);
+                long seen = 0;
+                for (int i = 0; i < NUM_BUCKETS; i++) {
+                    seen += counts.get(i);
+                    if (seen >= rank) {
+                        result = TimeUnit.MICROSECONDS.toNanos(upperBoundMicros(i));
+                        break;
+                    }
+                }
+            }
+            cachedPercentileNanos = result;
+            cachedAtNanos = nowNanos;
+            return result;
+        }
+
+        static int bucket(long micros) {
+            if (micros < 1) {
+                micros = 1;
+            }
+            int log = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = log >= SUB_BUCKETS_BITS
+                    ? (int) (micros >>> (log - SUB_BUCKETS_BITS)) & (SUB_BUCKETS - 1)
+                    : (int) (micros << (SUB_BUCKETS_BITS - log)) & (SUB_BUCKETS - 1);
+            return Math.min(NUM_BUCKETS - 1, log * SUB_BUCKETS + sub);
+        }
+
+        static long upperBoundMicros(int bucket) {
+            int log = bucket / SUB_BUCKETS;
+            int sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1L) << log) >>> SUB_BUCKETS_BITS;
+        }
+    }
+}
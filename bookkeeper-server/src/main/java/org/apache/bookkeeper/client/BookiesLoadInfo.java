@@ -0,0 +1,47 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import org.apache.bookkeeper.net.BookieId;
+
+/**
+ * This interface returns the live load of a Bookkeeper server, as seen by the client, used to weigh the bookies
+ * in the ensemble placement.
+ */
+public interface BookiesLoadInfo {
+
+    /**
+     * Returns pending requests to a bookie.
+     *
+     * @param bookieId
+     * @return number of pending requests
+     */
+    long getBookiePendingRequests(BookieId bookieId);
+
+    /**
+     * Returns the recent p99 add latency of a bookie.
+     *
+     * @param bookieId
+     * @return add latency in nanos, -1 if there have been no recent adds to the bookie
+     */
+    long getBookieAddLatencyNanos(BookieId bookieId);
+
+}
@@ -33,6 +33,8 @@ class ClientInternalConf {
 
     final Optional<SpeculativeRequestExecutionPolicy> readSpeculativeRequestPolicy;
     final Optional<SpeculativeRequestExecutionPolicy> readLACSpeculativeRequestPolicy;
+    final Optional<BookieReadLatencyTracker> readLatencyTracker;
+    final Optional<BookieAddLatencyTracker> addLatencyTracker;
 
     final int explicitLacInterval;
     final long waitForWriteSetMs;
@@ -84,14 +86,27 @@ class ClientInternalConf {
         this.useV2WireProtocol = conf.getUseV2WireProtocol();
         this.enableStickyReads = conf.isStickyReadsEnabled();
         this.enforceMinNumFaultDomainsForWrite = conf.getEnforceMinNumFaultDomainsForWrite();
+        this.addLatencyTracker = conf.getLoadBasedPlacementEnabled()
+                ? Optional.of(new BookieAddLatencyTracker()) : Optional.empty();
 
-        if (conf.getFirstSpeculativeReadTimeout() > 0) {
+        if (conf.getFirstSpeculativeReadTimeout() > 0 && conf.getSpeculativeReadLatencyPercentile() > 0) {
+            BookieReadLatencyTracker latencyTracker =
+                    new BookieReadLatencyTracker(conf.getSpeculativeReadLatencyPercentile());
+            this.readLatencyTracker = Optional.of(latencyTracker);
+            this.readSpeculativeRequestPolicy =
+                    Optional.of(new LatencyAwareSpeculativeRequestExecutionPolicy(
+                                        latencyTracker,
+                                        conf.getFirstSpeculativeReadTimeout(),
+                                        conf.getMaxSpeculativeReadTimeout()));
+        } else if (conf.getFirstSpeculativeReadTimeout() > 0) {
+            this.readLatencyTracker = Optional.empty();
             this.readSpeculativeRequestPolicy =
                     Optional.of(new DefaultSpeculativeRequestExecutionPolicy(
                                         conf.getFirstSpeculativeReadTimeout(),
                                         conf.getMaxSpeculativeReadTimeout(),
                                         conf.getSpeculativeReadTimeoutBackoffMultiplier()));
         } else {
+            this.readLatencyTracker = Optional.empty();
             this.readSpeculativeRequestPolicy = Optional.<SpeculativeRequestExecutionPolicy>empty();
         }
         if (conf.getFirstSpeculativeReadLACTimeout() > 0) {
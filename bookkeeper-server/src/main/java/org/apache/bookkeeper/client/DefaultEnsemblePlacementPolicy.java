@@ -55,6 +55,7 @@ public class DefaultEnsemblePlacementPolicy implements EnsemblePlacementPolicy {
     private Set<BookieId> knownBookies = new HashSet<BookieId>();
     private Map<BookieId, WeightedObject> bookieInfoMap;
     private WeightedRandomSelection<BookieId> weightedSelection;
+    private volatile BookiesLoadInfo bookiesLoadInfo = null;
     private final ReentrantReadWriteLock rwLock;
 
     DefaultEnsemblePlacementPolicy() {
@@ -86,8 +87,15 @@ public class DefaultEnsemblePlacementPolicy implements EnsemblePlacementPolicy {
                 if (CollectionUtils.subtract(allBookies, excludeBookies).size() < ensembleSize) {
                     throw new BKNotEnoughBookiesException();
                 }
+                WeightedRandomSelection<BookieId> selection = weightedSelection;
+                BookiesLoadInfo loadInfo = bookiesLoadInfo;
+                if (loadInfo != null && !bookieInfoMap.isEmpty()) {
+                    // the load changes all the time, weigh the bookies for this ensemble only
+                    selection = new WeightedRandomSelectionImpl<BookieId>(this.maxWeightMultiple);
+                    selection.updateMap(BookieLoadWeights.reweigh(bookieInfoMap, b -> b, loadInfo));
+                }
                 while (ensembleSize > 0) {
-                    BookieId b = weightedSelection.getNextRandom();
+                    BookieId b = selection.getNextRandom();
                     if (newBookies.contains(b) || excludeBookies.contains(b)) {
                         continue;
                     }
@@ -192,7 +200,7 @@ public class DefaultEnsemblePlacementPolicy implements EnsemblePlacementPolicy {
                                        FeatureProvider featureProvider,
                                        StatsLogger statsLogger,
                                        BookieAddressResolver bookieAddressResolver) {
-        this.isWeighted = conf.getDiskWeightBasedPlacementEnabled();
+        this.isWeighted = conf.getDiskWeightBasedPlacementEnabled() || conf.getLoadBasedPlacementEnabled();
         if (this.isWeighted) {
             this.maxWeightMultiple = conf.getBookieMaxWeightMultipleForWeightBasedPlacement();
             this.weightedSelection = new WeightedRandomSelectionImpl<BookieId>(this.maxWeightMultiple);
@@ -213,6 +221,11 @@ public class DefaultEnsemblePlacementPolicy implements EnsemblePlacementPolicy {
         }
     }
 
+    @Override
+    public void registerBookiesLoadInfo(BookiesLoadInfo bookiesLoadInfo) {
+        this.bookiesLoadInfo = bookiesLoadInfo;
+    }
+
     @Override
     public void uninitalize() {
         // do nothing
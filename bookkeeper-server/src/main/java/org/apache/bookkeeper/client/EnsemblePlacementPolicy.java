@@ -363,6 +363,19 @@ public interface EnsemblePlacementPolicy {
     default void updateBookieInfo(Map<BookieId, BookieInfo> bookieInfoMap) {
     }
 
+    /**
+     * Register the source of the live load of the bookies, used by the load based placement.
+     *
+     * <p>It is only called when load based placement is enabled, the journal queue length of the bookies is
+     * provided through {@link #updateBookieInfo(Map)}.
+     *
+     * @param bookiesLoadInfo
+     *          the live load of the bookies, as seen by the client
+     * @since 4.18
+     */
+    default void registerBookiesLoadInfo(BookiesLoadInfo bookiesLoadInfo) {
+    }
+
     /**
      * Select one bookie to the "sticky" bookie where all reads for a particular
      * ledger will be directed to.
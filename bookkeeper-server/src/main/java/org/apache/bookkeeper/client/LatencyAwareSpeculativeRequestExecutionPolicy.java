@@ -0,0 +1,109 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SpeculativeRequestExecutionPolicy} issuing the speculative requests based on the recent latency of the
+ * bookies.
+ *
+ * <p>The next speculative request is issued when the last requested bookie didn't answer within the configured
+ * percentile of its recent read latency, tracked by a {@link BookieReadLatencyTracker}. The timeout is bounded by
+ * {@code maxSpeculativeRequestTimeout}, and {@code firstSpeculativeRequestTimeout} is used for the bookies without
+ * enough recent reads.
+ */
+public class LatencyAwareSpeculativeRequestExecutionPolicy implements SpeculativeRequestExecutionPolicy {
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareSpeculativeRequestExecutionPolicy.class);
+    private static final long MIN_SPECULATIVE_REQUEST_TIMEOUT_MICROS = 100;
+
+    final BookieReadLatencyTracker latencyTracker;
+    final int firstSpeculativeRequestTimeout;
+    final int maxSpeculativeRequestTimeout;
+
+    LatencyAwareSpeculativeRequestExecutionPolicy(BookieReadLatencyTracker latencyTracker,
+            int firstSpeculativeRequestTimeout, int maxSpeculativeRequestTimeout) {
+        this.latencyTracker = latencyTracker;
+        this.firstSpeculativeRequestTimeout = firstSpeculativeRequestTimeout;
+        this.maxSpeculativeRequestTimeout = maxSpeculativeRequestTimeout;
+    }
+
+    @Override
+    public ScheduledFuture<?> initiateSpeculativeRequest(final ScheduledExecutorService scheduler,
+            final SpeculativeRequestExecutor requestExecutor) {
+        return scheduleSpeculativeRead(scheduler, requestExecutor);
+    }
+
+    long getSpeculativeRequestTimeoutMicros(SpeculativeRequestExecutor requestExecutor) {
+        long latencyNanos = latencyTracker.getExpectedLatencyNanos(requestExecutor.getLastRequestedBookie());
+        if (latencyNanos < 0) {
+            return TimeUnit.MILLISECONDS.toMicros(firstSpeculativeRequestTimeout);
+        }
+        return Math.max(MIN_SPECULATIVE_REQUEST_TIMEOUT_MICROS,
+                Math.min(TimeUnit.MILLISECONDS.toMicros(maxSpeculativeRequestTimeout),
+                        TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    private ScheduledFuture<?> scheduleSpeculativeRead(final ScheduledExecutorService scheduler,
+                                                       final SpeculativeRequestExecutor requestExecutor) {
+        final long speculativeRequestTimeout = getSpeculativeRequestTimeoutMicros(requestExecutor);
+        try {
+            return scheduler.schedule(() -> {
+                ListenableFuture<Boolean> issueNextRequest = requestExecutor.issueSpeculativeRequest();
+                Futures.addCallback(issueNextRequest, new FutureCallback<Boolean>() {
+                    @Override
+                    public void onSuccess(Boolean issueNextRequest) {
+                        if (issueNextRequest) {
+                            scheduleSpeculativeRead(scheduler, requestExecutor);
+                        } else {
+                            if (LOG.isTraceEnabled()) {
+                                LOG.trace("Stopped issuing speculative requests for {}, "
+                                    + "speculativeReadTimeout = {}us", requestExecutor, speculativeRequestTimeout);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable thrown) {
+                        LOG.warn("Failed to issue speculative request for {}, speculativeReadTimeout = {}us : ",
+                                requestExecutor, speculativeRequestTimeout, thrown);
+                    }
+                }, directExecutor());
+            }, speculativeRequestTimeout, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException re) {
+            if (!scheduler.isShutdown()) {
+                LOG.warn("Failed to schedule speculative request for {}, speculativeReadTimeout = {}us : ",
+                        requestExecutor, speculativeRequestTimeout, re);
+            }
+        }
+        return null;
+    }
+}
@@ -25,6 +25,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.security.GeneralSecurityException;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -35,6 +36,7 @@ import org.apache.bookkeeper.client.BKException.BKNotEnoughBookiesException;
 import org.apache.bookkeeper.client.BookKeeper.DigestType;
 import org.apache.bookkeeper.client.SyncCallbackUtils.SyncCreateAdvCallback;
 import org.apache.bookkeeper.client.SyncCallbackUtils.SyncCreateCallback;
+import org.apache.bookkeeper.client.api.CompressionType;
 import org.apache.bookkeeper.client.api.CreateAdvBuilder;
 import org.apache.bookkeeper.client.api.CreateBuilder;
 import org.apache.bookkeeper.client.api.LedgerMetadata;
@@ -45,6 +47,7 @@ import org.apache.bookkeeper.common.util.MathUtils;
 import org.apache.bookkeeper.meta.LedgerIdGenerator;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.proto.compression.CompressionCodec;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.versioning.Versioned;
 import org.slf4j.Logger;
@@ -289,6 +292,7 @@ class LedgerCreateOp {
         private org.apache.bookkeeper.client.api.DigestType builderDigestType =
             org.apache.bookkeeper.client.api.DigestType.CRC32;
         private Map<String, byte[]> builderCustomMetadata = Collections.emptyMap();
+        private CompressionType builderCompressionType = CompressionType.NONE;
 
         CreateBuilderImpl(BookKeeper bk) {
             this.bk = bk;
@@ -337,6 +341,12 @@ class LedgerCreateOp {
             return this;
         }
 
+        @Override
+        public CreateBuilder withCompressionType(CompressionType compressionType) {
+            this.builderCompressionType = compressionType;
+            return this;
+        }
+
         @Override
         public CreateAdvBuilder makeAdv() {
             return new CreateAdvBuilderImpl(this);
@@ -379,9 +389,24 @@ class LedgerCreateOp {
                 return false;
             }
 
+            if (builderCompressionType == null) {
+                LOG.error("invalid null compressionType");
+                return false;
+            }
+
             return true;
         }
 
+        private Map<String, byte[]> customMetadata() {
+            if (builderCompressionType == CompressionType.NONE) {
+                return builderCustomMetadata;
+            }
+            Map<String, byte[]> customMetadata = new HashMap<>(builderCustomMetadata);
+            customMetadata.put(CompressionCodec.METADATA_KEY,
+                    CompressionCodec.toCustomMetadata(builderCompressionType));
+            return customMetadata;
+        }
+
         @Override
         public CompletableFuture<WriteHandle> execute() {
             CompletableFuture<WriteHandle> future = new CompletableFuture<>();
@@ -397,7 +422,7 @@ class LedgerCreateOp {
             }
             LedgerCreateOp op = new LedgerCreateOp(bk, builderEnsembleSize,
                 builderWriteQuorumSize, builderAckQuorumSize, DigestType.fromApiDigestType(builderDigestType),
-                builderPassword, cb, null, builderCustomMetadata, builderWriteFlags,
+                builderPassword, cb, null, customMetadata(), builderWriteFlags,
                 bk.getClientCtx().getClientStats());
             ReentrantReadWriteLock closeLock = bk.getCloseLock();
             closeLock.readLock().lock();
@@ -456,7 +481,7 @@ class LedgerCreateOp {
             LedgerCreateOp op = new LedgerCreateOp(parent.bk, parent.builderEnsembleSize,
                     parent.builderWriteQuorumSize, parent.builderAckQuorumSize,
                     DigestType.fromApiDigestType(parent.builderDigestType),
-                    parent.builderPassword, cb, null, parent.builderCustomMetadata,
+                    parent.builderPassword, cb, null, parent.customMetadata(),
                     parent.builderWriteFlags,
                     parent.bk.getClientCtx().getClientStats());
             ReentrantReadWriteLock closeLock = parent.bk.getCloseLock();
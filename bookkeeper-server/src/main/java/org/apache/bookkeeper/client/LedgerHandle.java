@@ -48,6 +48,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -68,6 +69,7 @@ import org.apache.bookkeeper.client.SyncCallbackUtils.SyncCloseCallback;
 import org.apache.bookkeeper.client.SyncCallbackUtils.SyncReadCallback;
 import org.apache.bookkeeper.client.SyncCallbackUtils.SyncReadLastConfirmedCallback;
 import org.apache.bookkeeper.client.api.BKException.Code;
+import org.apache.bookkeeper.client.api.CompressionType;
 import org.apache.bookkeeper.client.api.LastConfirmedAndEntry;
 import org.apache.bookkeeper.client.api.LedgerEntries;
 import org.apache.bookkeeper.client.api.LedgerMetadata;
@@ -80,6 +82,7 @@ import org.apache.bookkeeper.common.util.MathUtils;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookieProtocol;
 import org.apache.bookkeeper.proto.checksum.DigestManager;
+import org.apache.bookkeeper.proto.compression.CompressionCodec;
 import org.apache.bookkeeper.stats.Counter;
 import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.OpStatsLogger;
@@ -103,7 +106,8 @@ public class LedgerHandle implements WriteHandle {
     private Versioned<LedgerMetadata> versionedMetadata;
     final long ledgerId;
     final ExecutorService executor;
-    long lastAddPushed;
+    // Updated under the handle lock, volatile so that it can be read without it
+    volatile long lastAddPushed;
     boolean notSupportBatch;
 
     private enum HandleState {
@@ -213,8 +217,15 @@ public class LedgerHandle implements WriteHandle {
             this.throttler = null;
         }
 
+        CompressionType compressionType;
+        try {
+            compressionType = CompressionCodec.fromCustomMetadata(metadata.getCustomMetadata());
+        } catch (IllegalArgumentException e) {
+            throw new GeneralSecurityException("Unknown compression type for ledger " + ledgerId, e);
+        }
         macManager = DigestManager.instantiate(ledgerId, password, BookKeeper.DigestType.toProtoDigestType(digestType),
-                                               clientCtx.getByteBufAllocator(), clientCtx.getConf().useV2WireProtocol);
+                                               clientCtx.getByteBufAllocator(), clientCtx.getConf().useV2WireProtocol,
+                                               compressionType);
 
         // If the password is empty, pass the same random ledger key which is generated by the hash of the empty
         // password, so that the bookie can avoid processing the keys for each entry
@@ -288,7 +299,14 @@ public class LedgerHandle implements WriteHandle {
 
         if (clientCtx.getConf().addEntryQuorumTimeoutNanos > 0) {
             this.timeoutFuture = clientCtx.getScheduler().scheduleAtFixedRate(
-                    () -> monitorPendingAddOps(),
+                    () -> {
+                        try {
+                            // The pending add ops are only accessed from the ordered executor thread
+                            executeOrdered(this::monitorPendingAddOps);
+                        } catch (RejectedExecutionException e) {
+                            LOG.debug("Failed to check add ops timeouts on ledger {}", ledgerId, e);
+                        }
+                    },
                     clientCtx.getConf().timeoutMonitorIntervalSec,
                     clientCtx.getConf().timeoutMonitorIntervalSec,
                     TimeUnit.SECONDS);
@@ -321,7 +339,7 @@ public class LedgerHandle implements WriteHandle {
      * {@inheritDoc}
      */
     @Override
-    public synchronized long getLastAddConfirmed() {
+    public long getLastAddConfirmed() {
         return lastAddConfirmed;
     }
 
@@ -333,7 +351,7 @@ public class LedgerHandle implements WriteHandle {
      * {@inheritDoc}
      */
     @Override
-    public synchronized long getLastAddPushed() {
+    public long getLastAddPushed() {
         return lastAddPushed;
     }
 
@@ -2381,6 +2399,15 @@ public class LedgerHandle implements WriteHandle {
         executor.execute(runnable);
     }
 
+    /**
+     * Get the thread of the client scheduler pinned to the ledger, to schedule tasks related to the ledger.
+     *
+     * @return the scheduler
+     */
+    public ScheduledExecutorService getOrderedScheduler() {
+        return clientCtx.getScheduler().chooseThread(ledgerId);
+    }
+
     @VisibleForTesting
     public Queue<PendingAddOp> getPendingAddOps() {
         return pendingAddOps;
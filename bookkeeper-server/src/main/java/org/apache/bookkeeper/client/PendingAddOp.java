@@ -34,6 +34,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import org.apache.bookkeeper.client.AsyncCallback.AddCallbackWithLatency;
 import org.apache.bookkeeper.client.api.WriteFlag;
@@ -50,9 +51,12 @@ import org.slf4j.LoggerFactory;
  * and placed at the same position in the ensemble. The pending adds are then
  * rereplicated.
  *
- *
+ * <p>The digest of the entry is computed in the thread adding the entry, then the op runs in the ordered executor
+ * thread of the ledger, see {@link LedgerHandle#executeOrdered(Runnable)}. From there on, its state is only
+ * accessed from that thread: the write responses, the ensemble changes, the quorum timeouts and the callbacks
+ * are all executed in it, so the op doesn't need any locking.
  */
-class PendingAddOp implements WriteCallback {
+class PendingAddOp implements WriteCallback, Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(PendingAddOp.class);
 
     ByteBuf payload;
@@ -147,10 +151,11 @@ class PendingAddOp implements WriteCallback {
     private void sendWriteRequest(List<BookieId> ensemble, int bookieIndex) {
         int flags = isRecoveryAdd ? FLAG_RECOVERY_ADD | FLAG_HIGH_PRIORITY : FLAG_NONE;
 
+        // Count the request first, the bookie client can fail it right away
+        ++pendingWriteRequests;
         clientCtx.getBookieClient().addEntry(ensemble.get(bookieIndex),
                                              lh.ledgerId, lh.ledgerKey, entryId, toSend, this, bookieIndex,
                                              flags, allowFailFast, lh.writeFlags);
-        ++pendingWriteRequests;
     }
 
     boolean maybeTimeout() {
@@ -161,7 +166,7 @@ class PendingAddOp implements WriteCallback {
         return false;
     }
 
-    synchronized void timeoutQuorumWait() {
+    void timeoutQuorumWait() {
         if (completed) {
             return;
         }
@@ -176,14 +181,14 @@ class PendingAddOp implements WriteCallback {
         lh.handleUnrecoverableErrorDuringAdd(BKException.Code.AddEntryQuorumTimeoutException);
     }
 
-    synchronized void unsetSuccessAndSendWriteRequest(List<BookieId> ensemble, int bookieIndex) {
+    void unsetSuccessAndSendWriteRequest(List<BookieId> ensemble, int bookieIndex) {
         // update the ensemble
         this.ensemble = ensemble;
 
-        if (toSend == null) {
-            // this addOp hasn't yet had its mac computed. When the mac is
-            // computed, its write requests will be sent, so no need to send it
-            // now
+        if (!hasRun || toSend == null) {
+            // this addOp hasn't yet sent its write requests. When it runs, its
+            // write requests will be sent to the updated ensemble, so no need
+            // to send it now
             return;
         }
         // Suppose that unset doesn't happen on the write set of an entry. In this
@@ -227,17 +232,11 @@ class PendingAddOp implements WriteCallback {
 
     /**
      * Initiate the add operation.
+     *
+     * <p>Computes the digest of the entry in the calling thread, then sends the write requests from the ordered
+     * executor thread of the ledger.
      */
-    public synchronized void initiate() {
-        hasRun = true;
-        if (callbackTriggered) {
-            // this should only be true if the request was failed due
-            // to another request ahead in the pending queue,
-            // so we can just ignore this request
-            maybeRecycle();
-            return;
-        }
-
+    public void initiate() {
         this.requestTimeNanos = MathUtils.nowInNano();
         checkNotNull(lh);
         checkNotNull(lh.macManager);
@@ -249,6 +248,25 @@ class PendingAddOp implements WriteCallback {
         // ownership of RefCounted ByteBuf was passed to computeDigestAndPackageForSending
         payload = null;
 
+        try {
+            lh.executeOrdered(this);
+        } catch (RejectedExecutionException e) {
+            // The client is being closed, nothing else is running for the ledger anymore
+            run();
+        }
+    }
+
+    @Override
+    public void run() {
+        hasRun = true;
+        if (callbackTriggered) {
+            // this should only be true if the request was failed due
+            // to another request ahead in the pending queue,
+            // so we can just ignore this request
+            maybeRecycle();
+            return;
+        }
+
         // We are about to send. Check if we need to make an ensemble change
         // because of delayed write errors
         lh.maybeHandleDelayedWriteBookieFailure();
@@ -260,7 +278,7 @@ class PendingAddOp implements WriteCallback {
     }
 
     @Override
-    public synchronized void writeComplete(int rc, long ledgerId, long entryId, BookieId addr, Object ctx) {
+    public void writeComplete(int rc, long ledgerId, long entryId, BookieId addr, Object ctx) {
         int bookieIndex = (Integer) ctx;
         --pendingWriteRequests;
 
@@ -277,6 +295,10 @@ class PendingAddOp implements WriteCallback {
         if (BKException.Code.OK == rc) {
             ackQuorum = ackSet.completeBookieAndCheck(bookieIndex);
             addEntrySuccessBookies.add(ensemble.get(bookieIndex));
+            if (clientCtx.getConf().addLatencyTracker.isPresent()) {
+                clientCtx.getConf().addLatencyTracker.get()
+                        .recordAddLatency(addr, MathUtils.elapsedNanos(requestTimeNanos));
+            }
         }
 
         if (completed) {
@@ -390,7 +412,7 @@ class PendingAddOp implements WriteCallback {
         lh.sendAddSuccessCallbacks();
     }
 
-    synchronized void submitCallback(final int rc) {
+    void submitCallback(final int rc) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Submit callback (lid:{}, eid: {}). rc:{}", lh.getId(), entryId, rc);
         }
@@ -444,7 +466,7 @@ class PendingAddOp implements WriteCallback {
     }
 
 
-    private synchronized void maybeRecycle() {
+    private void maybeRecycle() {
         /**
          * We have opportunity to recycle two objects here.
          * PendingAddOp#toSend and LedgerHandle#pendingAddOp
@@ -474,7 +496,7 @@ class PendingAddOp implements WriteCallback {
         }
     }
 
-    public synchronized void recyclePendAddOpObject() {
+    public void recyclePendAddOpObject() {
         entryId = LedgerHandle.INVALID_ENTRY_ID;
         currentLedgerLength = -1;
         if (payload != null) {
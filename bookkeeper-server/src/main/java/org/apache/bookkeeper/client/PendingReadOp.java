@@ -102,6 +102,7 @@ class PendingReadOp extends ReadOpBase implements ReadEntryCallback  {
             return;
         }
 
+        recordReadLatency(rctx);
         heardFromHosts.add(rctx.to);
         heardFromHostsBitSet.set(rctx.bookieIndex, true);
 
@@ -170,6 +171,7 @@ class PendingReadOp extends ReadOpBase implements ReadEntryCallback  {
             lh.throttler.acquire();
         }
 
+        entry.lastRequestedBookie = to;
         if (isRecoveryRead) {
             int flags = BookieProtocol.FLAG_HIGH_PRIORITY | BookieProtocol.FLAG_DO_FENCING;
             clientCtx.getBookieClient().readEntry(to, lh.ledgerId, entry.eId,
@@ -224,9 +226,16 @@ class PendingReadOp extends ReadOpBase implements ReadEntryCallback  {
                  */
                 entryImpl.setLength(buffer.getLong(DigestManager.METADATA_LENGTH - 8));
                 entryImpl.setEntryBuf(content);
+                if (content != buffer) {
+                    // The entry was decompressed in a new buffer
+                    buffer.release();
+                }
                 writeSet.recycle();
                 return true;
             } else {
+                if (content != buffer) {
+                    content.release();
+                }
                 return false;
             }
         }
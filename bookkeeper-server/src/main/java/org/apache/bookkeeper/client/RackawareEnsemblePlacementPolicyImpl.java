@@ -339,7 +339,7 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
                 conf.getBoolean(REPP_RANDOM_READ_REORDERING, false),
                 conf.getNetworkTopologyStabilizePeriodSeconds(),
                 conf.getReorderThresholdPendingRequests(),
-                conf.getDiskWeightBasedPlacementEnabled(),
+                conf.getDiskWeightBasedPlacementEnabled() || conf.getLoadBasedPlacementEnabled(),
                 conf.getBookieMaxWeightMultipleForWeightBasedPlacement(),
                 conf.getMinNumRacksPerWriteQuorum(),
                 conf.getEnforceMinNumRacksPerWriteQuorum(),
@@ -683,7 +683,7 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
 
         WeightedRandomSelection<BookieNode> wRSelection = new WeightedRandomSelectionImpl<BookieNode>(
                 maxWeightMultiple);
-        wRSelection.updateMap(rackMap);
+        wRSelection.updateMap(applyBookiesLoad(rackMap));
         return wRSelection;
     }
 
@@ -799,7 +799,7 @@ public class RackawareEnsemblePlacementPolicyImpl extends TopologyAwareEnsembleP
                     rackMap.put(n, new BookieInfo());
                 }
             }
-            wRSelection.updateMap(rackMap);
+            wRSelection.updateMap(applyBookiesLoad(rackMap));
         } else {
             Collections.shuffle(bookiesToSelectFrom);
         }
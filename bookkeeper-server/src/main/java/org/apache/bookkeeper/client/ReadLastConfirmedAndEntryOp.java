@@ -138,8 +138,15 @@ class ReadLastConfirmedAndEntryOp implements BookkeeperInternalCallbacks.ReadEnt
                  */
                 entryImpl.setLength(buffer.getLong(DigestManager.METADATA_LENGTH - 8));
                 entryImpl.setEntryBuf(content);
+                if (content != buffer) {
+                    // The entry was decompressed in a new buffer
+                    buffer.release();
+                }
                 return true;
             } else {
+                if (content != buffer) {
+                    content.release();
+                }
                 return false;
             }
         }
@@ -586,7 +593,7 @@ class ReadLastConfirmedAndEntryOp implements BookkeeperInternalCallbacks.ReadEnt
 
                     // if the request has already completed, the buffer is not going to be used anymore, release it.
                     if (!completeRequest()) {
-                        buffer.release();
+                        request.entryImpl.getEntryBuffer().release();
                     }
                     heardFromHostsBitSet.set(rCtx.getBookieIndex(), true);
                 } else {
@@ -31,6 +31,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.bookkeeper.client.api.LedgerEntries;
 import org.apache.bookkeeper.client.api.LedgerMetadata;
+import org.apache.bookkeeper.common.util.MathUtils;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks;
 import org.slf4j.Logger;
@@ -84,6 +85,16 @@ public abstract class ReadOpBase implements Runnable {
         }
     }
 
+    /**
+     * Record the latency of a successful read, for the latency aware speculative reads.
+     */
+    protected void recordReadLatency(ReadContext rctx) {
+        if (clientCtx.getConf().readLatencyTracker.isPresent()) {
+            clientCtx.getConf().readLatencyTracker.get()
+                    .recordReadLatency(rctx.to, MathUtils.elapsedNanos(rctx.sendTimeNanos));
+        }
+    }
+
     public ScheduledFuture<?> getSpeculativeTask() {
         return speculativeTask;
     }
@@ -121,6 +132,7 @@ public abstract class ReadOpBase implements Runnable {
 
         final List<BookieId> ensemble;
         final DistributionSchedule.WriteSet writeSet;
+        volatile BookieId lastRequestedBookie = null;
 
 
         LedgerEntryRequest(List<BookieId> ensemble, final long eId) {
@@ -135,6 +147,14 @@ public abstract class ReadOpBase implements Runnable {
             } else {
                 writeSet = lh.getWriteSetForReadOperation(eId);
             }
+            if (clientCtx.getConf().readLatencyTracker.isPresent()) {
+                clientCtx.getConf().readLatencyTracker.get().reorderReadSequence(ensemble, writeSet);
+            }
+        }
+
+        @Override
+        public BookieId getLastRequestedBookie() {
+            return lastRequestedBookie;
         }
 
         public void close() {
@@ -272,6 +292,7 @@ public abstract class ReadOpBase implements Runnable {
         final int bookieIndex;
         final BookieId to;
         final PendingReadOp.LedgerEntryRequest entry;
+        final long sendTimeNanos = MathUtils.nowInNano();
         long lac = LedgerHandle.INVALID_ENTRY_ID;
 
         ReadContext(int bookieIndex, BookieId to, PendingReadOp.LedgerEntryRequest entry) {
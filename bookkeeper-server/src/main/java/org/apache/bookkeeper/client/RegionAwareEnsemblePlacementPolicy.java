@@ -160,6 +160,7 @@ public class RegionAwareEnsemblePlacementPolicy extends RackawareEnsemblePlaceme
                                 this.ignoreLocalNodeInPlacementPolicy,
                                 this.useHostnameResolveLocalNodePlacementPolicy, statsLogger, bookieAddressResolver)
                         .withDefaultRack(NetworkTopology.DEFAULT_REGION_AND_RACK));
+                perRegionPlacement.get(region).registerBookiesLoadInfo(bookiesLoadInfo);
             }
 
             Set<BookieId> regionSet = perRegionClusterChange.get(region);
@@ -223,6 +224,7 @@ public class RegionAwareEnsemblePlacementPolicy extends RackawareEnsemblePlaceme
                                                 this.useHostnameResolveLocalNodePlacementPolicy, statsLogger,
                                                 bookieAddressResolver)
                                         .withDefaultRack(NetworkTopology.DEFAULT_REGION_AND_RACK);
+                                newRegionPlacement.registerBookiesLoadInfo(bookiesLoadInfo);
                                 perRegionPlacement.put(newRegion, newRegionPlacement);
                             }
                             newRegionPlacement.handleBookiesThatJoined(Collections.singleton(bookieAddress));
@@ -688,4 +690,17 @@ public class RegionAwareEnsemblePlacementPolicy extends RackawareEnsemblePlaceme
             policy.updateBookieInfo(bookieInfoMap);
         }
     }
+
+    @Override
+    public void registerBookiesLoadInfo(BookiesLoadInfo bookiesLoadInfo) {
+        rwLock.writeLock().lock();
+        try {
+            super.registerBookiesLoadInfo(bookiesLoadInfo);
+            for (TopologyAwareEnsemblePlacementPolicy policy : perRegionPlacement.values()) {
+                policy.registerBookiesLoadInfo(bookiesLoadInfo);
+            }
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
 }
@@ -68,6 +68,7 @@ abstract class TopologyAwareEnsemblePlacementPolicy implements
     protected ImmutableSet<BookieId> readOnlyBookies = ImmutableSet.of();
     boolean isWeighted;
     protected WeightedRandomSelection<BookieNode> weightedSelection;
+    protected volatile BookiesLoadInfo bookiesLoadInfo = null;
     // for now, we just maintain the writable bookies' topology
     protected NetworkTopology topology;
     protected DNSToSwitchMapping dnsResolver;
@@ -807,6 +808,23 @@ abstract class TopologyAwareEnsemblePlacementPolicy implements
         }
     }
 
+    @Override
+    public void registerBookiesLoadInfo(BookiesLoadInfo bookiesLoadInfo) {
+        this.bookiesLoadInfo = bookiesLoadInfo;
+    }
+
+    /**
+     * Adjust the weights of the weighted selection to the current load of the bookies, if load based placement
+     * is enabled.
+     */
+    protected Map<BookieNode, WeightedObject> applyBookiesLoad(Map<BookieNode, WeightedObject> weights) {
+        BookiesLoadInfo loadInfo = this.bookiesLoadInfo;
+        if (loadInfo == null || weights.isEmpty()) {
+            return weights;
+        }
+        return BookieLoadWeights.reweigh(weights, BookieNode::getAddr, loadInfo);
+    }
+
     protected BookieNode createBookieNode(BookieId addr) {
         return new BookieNode(addr, resolveNetworkLocation(addr));
     }
@@ -0,0 +1,90 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.api;
+
+import java.util.Objects;
+import org.apache.bookkeeper.common.annotation.InterfaceAudience.Public;
+import org.apache.bookkeeper.common.annotation.InterfaceStability.Unstable;
+
+/**
+ * The position of a record written by a {@link BatchedWriter}: the id of the entry holding the batch and the index
+ * of the record in the batch.
+ *
+ * @since 4.18
+ */
+@Public
+@Unstable
+public final class BatchPosition implements Comparable<BatchPosition> {
+
+    private final long entryId;
+    private final int index;
+
+    public BatchPosition(long entryId, int index) {
+        this.entryId = entryId;
+        this.index = index;
+    }
+
+    /**
+     * The id of the entry holding the record.
+     *
+     * @return the id of the entry
+     */
+    public long getEntryId() {
+        return entryId;
+    }
+
+    /**
+     * The index of the record in the entry.
+     *
+     * @return the index of the record, starting from 0
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int compareTo(BatchPosition other) {
+        int res = Long.compare(entryId, other.entryId);
+        return res != 0 ? res : Integer.compare(index, other.index);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BatchPosition)) {
+            return false;
+        }
+        BatchPosition other = (BatchPosition) o;
+        return entryId == other.entryId && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entryId, index);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + entryId + ", " + index + ")";
+    }
+}
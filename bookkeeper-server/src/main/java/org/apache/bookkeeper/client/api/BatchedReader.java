@@ -0,0 +1,82 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.bookkeeper.client.impl.BatchedReaderImpl;
+import org.apache.bookkeeper.common.annotation.InterfaceAudience.Public;
+import org.apache.bookkeeper.common.annotation.InterfaceStability.Unstable;
+import org.apache.bookkeeper.common.concurrent.FutureUtils;
+
+/**
+ * Reader unpacking the batches written by a {@link BatchedWriter}.
+ *
+ * <p>The users are responsible for closing the returned records.
+ *
+ * @see BatchedWriter
+ *
+ * @since 4.18
+ */
+@Public
+@Unstable
+public interface BatchedReader {
+
+    /**
+     * Create a reader of the batches of the given ledger.
+     *
+     * @param handle the handle of the ledger to read from
+     * @return the reader
+     */
+    static BatchedReader newReader(ReadHandle handle) {
+        return new BatchedReaderImpl(handle);
+    }
+
+    /**
+     * Read a range of entries and unpack the records of their batches.
+     *
+     * @param firstEntry id of the first entry of the range
+     * @param lastEntry id of the last entry of the range (included)
+     * @return an handle to the result, the records in position order
+     */
+    CompletableFuture<List<BatchedRecord>> readAsync(long firstEntry, long lastEntry);
+
+    /**
+     * Read a range of entries and unpack the records of their batches.
+     *
+     * @param firstEntry id of the first entry of the range
+     * @param lastEntry id of the last entry of the range (included)
+     * @return the records in position order
+     */
+    default List<BatchedRecord> read(long firstEntry, long lastEntry) throws BKException, InterruptedException {
+        return FutureUtils.<List<BatchedRecord>, BKException>result(readAsync(firstEntry, lastEntry),
+                BKException.HANDLER);
+    }
+
+    /**
+     * Unpack the records of an entry. The entry is not closed.
+     *
+     * @param entry an entry written by a {@link BatchedWriter}
+     * @return the records in position order
+     * @throws BKException if the entry is not a valid batch
+     */
+    List<BatchedRecord> unpack(LedgerEntry entry) throws BKException;
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.api;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.concurrent.CompletableFuture;
+import org.apache.bookkeeper.client.impl.BatchedWriterBuilderImpl;
+import org.apache.bookkeeper.common.annotation.InterfaceAudience.Public;
+import org.apache.bookkeeper.common.annotation.InterfaceStability.Unstable;
+import org.apache.bookkeeper.common.concurrent.FutureUtils;
+
+/**
+ * Writer packing many small records in a single ledger entry.
+ *
+ * <p>Records are accumulated in a batch, the batch is appended to the ledger as one entry when it reaches the
+ * configured size or number of records, when the configured delay since its first record expires, or on
+ * {@link #flush()}. Records are written in the order they are submitted. The batches can be read back with a
+ * {@link BatchedReader}.
+ *
+ * <p>The writer doesn't own the {@link WriteHandle}: closing the writer flushes the pending records but doesn't
+ * close the ledger.
+ *
+ * @see BatchedReader
+ *
+ * @since 4.18
+ */
+@Public
+@Unstable
+public interface BatchedWriter extends AutoCloseable {
+
+    /**
+     * Create a builder of a writer appending batches to the given ledger.
+     *
+     * @param handle the handle of the ledger to write to
+     * @return the writer builder
+     */
+    static BatchedWriterBuilder newBuilder(WriteHandle handle) {
+        return new BatchedWriterBuilderImpl(handle);
+    }
+
+    /**
+     * Write a record asynchronously.
+     *
+     * @param record the content of the record. The bytebuf's reference count will be decremented by 1 once the
+     *               record has been added to the batch.
+     * @return an handle to the result, in case of success it will return the position of the record
+     */
+    CompletableFuture<BatchPosition> writeAsync(ByteBuf record);
+
+    /**
+     * Write a record asynchronously.
+     *
+     * @param record array of bytes to be written
+     * @return an handle to the result, in case of success it will return the position of the record
+     */
+    default CompletableFuture<BatchPosition> writeAsync(byte[] record) {
+        return writeAsync(Unpooled.wrappedBuffer(record));
+    }
+
+    /**
+     * Write a record synchronously.
+     *
+     * <p>The batch holding the record is flushed right away, prefer {@link #writeAsync(ByteBuf)} to make use of the
+     * batching.
+     *
+     * @param record array of bytes to be written
+     * @return the position of the record
+     */
+    default BatchPosition write(byte[] record) throws BKException, InterruptedException {
+        CompletableFuture<BatchPosition> future = writeAsync(record);
+        flush();
+        return FutureUtils.<BatchPosition, BKException>result(future, BKException.HANDLER);
+    }
+
+    /**
+     * Append the pending batch to the ledger.
+     *
+     * @return an handle to the result, completed once all the records written so far are in the ledger
+     */
+    CompletableFuture<Void> flush();
+
+    /**
+     * Flush the pending records and release the resources of the writer. Records written after the writer has
+     * been closed are failed.
+     *
+     * @return an handle to the result, completed once all the records written so far are in the ledger
+     */
+    CompletableFuture<Void> closeAsync();
+
+    /**
+     * Flush the pending records and release the resources of the writer.
+     *
+     * @see #closeAsync()
+     */
+    @Override
+    default void close() throws BKException, InterruptedException {
+        FutureUtils.<Void, BKException>result(closeAsync(), BKException.HANDLER);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.api;
+
+import io.netty.buffer.ByteBufAllocator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.common.annotation.InterfaceAudience.Public;
+import org.apache.bookkeeper.common.annotation.InterfaceStability.Unstable;
+
+/**
+ * Builder of {@link BatchedWriter} instances.
+ *
+ * @since 4.18
+ */
+@Public
+@Unstable
+public interface BatchedWriterBuilder {
+
+    /**
+     * Max size of a batch, in bytes. A batch is appended to the ledger as soon as it reaches this size, a record
+     * larger than this size is written alone in its batch. Default is 128KB.
+     *
+     * @param maxBatchSize the max size of a batch
+     * @return the builder itself
+     */
+    BatchedWriterBuilder withMaxBatchSize(int maxBatchSize);
+
+    /**
+     * Max number of records in a batch. Default is 1000.
+     *
+     * @param maxBatchRecords the max number of records in a batch
+     * @return the builder itself
+     */
+    BatchedWriterBuilder withMaxBatchRecords(int maxBatchRecords);
+
+    /**
+     * Max time a record waits in a batch before the batch is appended to the ledger. With a 0 delay, the batches
+     * are only appended when full or on {@link BatchedWriter#flush()}. Default is 1 millisecond.
+     *
+     * @param delay the max delay
+     * @param unit the unit of the delay
+     * @return the builder itself
+     */
+    BatchedWriterBuilder withMaxBatchDelay(long delay, TimeUnit unit);
+
+    /**
+     * Compression applied to the batches. Default is {@link CompressionType#NONE}.
+     *
+     * @param compressionType the compression type
+     * @return the builder itself
+     */
+    BatchedWriterBuilder withCompressionType(CompressionType compressionType);
+
+    /**
+     * Allocator of the batch buffers. Default is the pooled allocator.
+     *
+     * @param allocator the allocator
+     * @return the builder itself
+     */
+    BatchedWriterBuilder withAllocator(ByteBufAllocator allocator);
+
+    /**
+     * Scheduler used to flush the batches on the max delay. If not set, the writer uses the scheduler of the
+     * client the handle belongs to, or creates its own scheduler thread for other handles.
+     *
+     * @param scheduler the scheduler
+     * @return the builder itself
+     */
+    BatchedWriterBuilder withScheduler(ScheduledExecutorService scheduler);
+
+    /**
+     * Create the writer.
+     *
+     * @return the writer
+     */
+    BatchedWriter build();
+}
@@ -114,6 +114,19 @@ public interface CreateBuilder extends OpBuilder<WriteHandle> {
      */
     CreateBuilder withDigestType(DigestType digestType);
 
+    /**
+     * Set the compression applied to the payload of the entries. It defaults to {@link CompressionType#NONE}.
+     *
+     * <p>The compression type is recorded in the custom metadata of the ledger, so that readers decompress the
+     * entries with the same codec. Clients not knowing the compression type fail to open the ledger.
+     *
+     * @param compressionType the type of compression
+     *
+     * @return the builder itself
+     * @since 4.18
+     */
+    CreateBuilder withCompressionType(CompressionType compressionType);
+
     /**
      * Switch the ledger into 'Advanced' mode. A ledger used in Advanced mode will explicitly generate the sequence of
      * entry identifiers. Advanced ledgers can be created with a client side defined ledgerId
@@ -0,0 +1,152 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.api.CompressionType;
+import org.apache.bookkeeper.proto.compression.CompressionCodec;
+
+/**
+ * Layout of the entries written by the {@link BatchedWriterImpl}.
+ *
+ * <pre>
+ * magic (4 bytes) | version (1 byte) | compression (1 byte) | number of records (4 bytes) | payload
+ * </pre>
+ * The payload is the sequence of the records, each one prefixed by its size (4 bytes). If the compression is not
+ * {@link CompressionType#NONE}, the payload is compressed as a whole and prefixed by its uncompressed size
+ * (4 bytes).
+ */
+final class BatchedEntryFormat {
+
+    static final int MAGIC = 0x42415443;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + 2 + Integer.BYTES;
+    static final int RECORD_OVERHEAD = Integer.BYTES;
+
+    private static final byte COMPRESSION_NONE = 0;
+    private static final byte COMPRESSION_SNAPPY = 1;
+    private static final byte COMPRESSION_LZ4 = 2;
+
+    private BatchedEntryFormat() {}
+
+    /**
+     * Turn a batch into an entry. The batch has {@link #HEADER_SIZE} bytes reserved at the beginning, followed by
+     * the records.
+     *
+     * @return the entry, the ownership of the batch buffer is passed to it
+     */
+    static ByteBuf seal(ByteBufAllocator allocator, CompressionType compressionType, ByteBuf batch,
+                        int numRecords) {
+        CompressionCodec codec = CompressionCodec.of(compressionType);
+        if (codec == null) {
+            writeHeader(batch, batch.readerIndex(), COMPRESSION_NONE, numRecords);
+            return batch;
+        }
+
+        try {
+            ByteBuf payload = batch.slice(batch.readerIndex() + HEADER_SIZE, batch.readableBytes() - HEADER_SIZE);
+            ByteBuf entry = codec.compress(allocator, payload, HEADER_SIZE + Integer.BYTES);
+            writeHeader(entry, 0, toCompressionId(compressionType), numRecords);
+            entry.setInt(HEADER_SIZE, payload.readableBytes());
+            return entry;
+        } finally {
+            batch.release();
+        }
+    }
+
+    private static void writeHeader(ByteBuf buf, int index, byte compression, int numRecords) {
+        buf.setInt(index, MAGIC);
+        buf.setByte(index + Integer.BYTES, VERSION);
+        buf.setByte(index + Integer.BYTES + 1, compression);
+        buf.setInt(index + Integer.BYTES + 2, numRecords);
+    }
+
+    private static byte toCompressionId(CompressionType compressionType) {
+        switch (compressionType) {
+        case SNAPPY:
+            return COMPRESSION_SNAPPY;
+        case LZ4:
+            return COMPRESSION_LZ4;
+        case NONE:
+        default:
+            return COMPRESSION_NONE;
+        }
+    }
+
+    /**
+     * Get the number of records of an entry.
+     *
+     * @throws BKException if the entry is not a batch
+     */
+    static int numRecords(ByteBuf entry) throws BKException {
+        int index = entry.readerIndex();
+        if (entry.readableBytes() < HEADER_SIZE
+                || entry.getInt(index) != MAGIC
+                || entry.getByte(index + Integer.BYTES) != VERSION) {
+            throw new BKException.BKUnexpectedConditionException();
+        }
+        int numRecords = entry.getInt(index + Integer.BYTES + 2);
+        if (numRecords < 0) {
+            throw new BKException.BKUnexpectedConditionException();
+        }
+        return numRecords;
+    }
+
+    /**
+     * Get the records of an entry, decompressing them if needed.
+     *
+     * @return a buffer with the sequence of size prefixed records, to be released by the caller
+     * @throws BKException if the entry is not a batch
+     */
+    static ByteBuf payload(ByteBufAllocator allocator, ByteBuf entry) throws BKException {
+        numRecords(entry);
+        int index = entry.readerIndex();
+        CompressionCodec codec;
+        switch (entry.getByte(index + Integer.BYTES + 1)) {
+        case COMPRESSION_NONE:
+            return entry.retainedSlice(index + HEADER_SIZE, entry.readableBytes() - HEADER_SIZE);
+        case COMPRESSION_SNAPPY:
+            codec = CompressionCodec.of(CompressionType.SNAPPY);
+            break;
+        case COMPRESSION_LZ4:
+            codec = CompressionCodec.of(CompressionType.LZ4);
+            break;
+        default:
+            throw new BKException.BKUnexpectedConditionException();
+        }
+
+        if (entry.readableBytes() < HEADER_SIZE + Integer.BYTES) {
+            throw new BKException.BKUnexpectedConditionException();
+        }
+        int uncompressedSize = entry.getInt(index + HEADER_SIZE);
+        ByteBuf compressed = entry.slice(index + HEADER_SIZE + Integer.BYTES,
+                entry.readableBytes() - HEADER_SIZE - Integer.BYTES);
+        try {
+            return codec.decompress(allocator, compressed, uncompressedSize);
+        } catch (IllegalArgumentException e) {
+            BKException bke = new BKException.BKUnexpectedConditionException();
+            bke.initCause(e);
+            throw bke;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.api.BatchPosition;
+import org.apache.bookkeeper.client.api.BatchedReader;
+import org.apache.bookkeeper.client.api.BatchedRecord;
+import org.apache.bookkeeper.client.api.LedgerEntry;
+import org.apache.bookkeeper.client.api.ReadHandle;
+import org.apache.bookkeeper.common.concurrent.FutureUtils;
+
+/**
+ * Reader unpacking the entries written by the {@link BatchedWriterImpl}.
+ *
+ * <p>The records of uncompressed batches are slices of the entry buffers, no copy is made.
+ *
+ * @since 4.18
+ */
+public class BatchedReaderImpl implements BatchedReader {
+
+    private final ReadHandle handle;
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    public BatchedReaderImpl(ReadHandle handle) {
+        this.handle = handle;
+    }
+
+    @Override
+    public CompletableFuture<List<BatchedRecord>> readAsync(long firstEntry, long lastEntry) {
+        return handle.readAsync(firstEntry, lastEntry).thenCompose(entries -> {
+            List<BatchedRecord> records = new ArrayList<>();
+            try {
+                for (LedgerEntry entry : entries) {
+                    records.addAll(unpack(entry));
+                }
+                return FutureUtils.value(records);
+            } catch (BKException e) {
+                records.forEach(BatchedRecord::close);
+                return FutureUtils.exception(e);
+            } finally {
+                entries.close();
+            }
+        });
+    }
+
+    @Override
+    public List<BatchedRecord> unpack(LedgerEntry entry) throws BKException {
+        ByteBuf entryBuf = entry.getEntryBuffer();
+        int numRecords = BatchedEntryFormat.numRecords(entryBuf);
+        ByteBuf payload = BatchedEntryFormat.payload(allocator, entryBuf);
+        List<BatchedRecord> records = new ArrayList<>(
+                Math.min(numRecords, payload.readableBytes() / BatchedEntryFormat.RECORD_OVERHEAD));
+        try {
+            for (int i = 0; i < numRecords; i++) {
+                if (payload.readableBytes() < BatchedEntryFormat.RECORD_OVERHEAD) {
+                    throw new BKException.BKUnexpectedConditionException();
+                }
+                int size = payload.readInt();
+                if (size < 0 || payload.readableBytes() < size) {
+                    throw new BKException.BKUnexpectedConditionException();
+                }
+                records.add(new BatchedRecordImpl(new BatchPosition(entry.getEntryId(), i),
+                        payload.readRetainedSlice(size)));
+            }
+            return records;
+        } catch (BKException e) {
+            records.forEach(BatchedRecord::close);
+            throw e;
+        } finally {
+            payload.release();
+        }
+    }
+
+    private static class BatchedRecordImpl implements BatchedRecord {
+        private final BatchPosition position;
+        private ByteBuf payload;
+
+        BatchedRecordImpl(BatchPosition position, ByteBuf payload) {
+            this.position = position;
+            this.payload = payload;
+        }
+
+        @Override
+        public BatchPosition getPosition() {
+            return position;
+        }
+
+        @Override
+        public ByteBuf getPayload() {
+            return payload;
+        }
+
+        @Override
+        public void close() {
+            if (payload != null) {
+                payload.release();
+                payload = null;
+            }
+        }
+    }
+}
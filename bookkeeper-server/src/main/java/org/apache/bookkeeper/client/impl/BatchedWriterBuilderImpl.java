@@ -0,0 +1,98 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.client.api.BatchedWriter;
+import org.apache.bookkeeper.client.api.BatchedWriterBuilder;
+import org.apache.bookkeeper.client.api.CompressionType;
+import org.apache.bookkeeper.client.api.WriteHandle;
+
+/**
+ * Internal builder for {@link BatchedWriter} instances.
+ *
+ * @since 4.18
+ */
+public class BatchedWriterBuilderImpl implements BatchedWriterBuilder {
+
+    private final WriteHandle handle;
+    private int maxBatchSize = 128 * 1024;
+    private int maxBatchRecords = 1000;
+    private long maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    private CompressionType compressionType = CompressionType.NONE;
+    private ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private ScheduledExecutorService scheduler = null;
+
+    public BatchedWriterBuilderImpl(WriteHandle handle) {
+        this.handle = checkNotNull(handle);
+    }
+
+    @Override
+    public BatchedWriterBuilder withMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > BatchedEntryFormat.HEADER_SIZE, "Invalid max batch size: %s", maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    @Override
+    public BatchedWriterBuilder withMaxBatchRecords(int maxBatchRecords) {
+        checkArgument(maxBatchRecords > 0, "Invalid max batch records: %s", maxBatchRecords);
+        this.maxBatchRecords = maxBatchRecords;
+        return this;
+    }
+
+    @Override
+    public BatchedWriterBuilder withMaxBatchDelay(long delay, TimeUnit unit) {
+        checkArgument(delay >= 0, "Invalid max batch delay: %s", delay);
+        this.maxBatchDelayNanos = unit.toNanos(delay);
+        return this;
+    }
+
+    @Override
+    public BatchedWriterBuilder withCompressionType(CompressionType compressionType) {
+        this.compressionType = checkNotNull(compressionType);
+        return this;
+    }
+
+    @Override
+    public BatchedWriterBuilder withAllocator(ByteBufAllocator allocator) {
+        this.allocator = checkNotNull(allocator);
+        return this;
+    }
+
+    @Override
+    public BatchedWriterBuilder withScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    @Override
+    public BatchedWriter build() {
+        return new BatchedWriterImpl(handle, maxBatchSize, maxBatchRecords, maxBatchDelayNanos, compressionType,
+                allocator, scheduler);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.client.LedgerHandle;
+import org.apache.bookkeeper.client.api.BatchPosition;
+import org.apache.bookkeeper.client.api.BatchedWriter;
+import org.apache.bookkeeper.client.api.CompressionType;
+import org.apache.bookkeeper.client.api.WriteHandle;
+
+/**
+ * Writer accumulating the records in a direct buffer and appending it to the ledger as a single entry.
+ *
+ * @see BatchedEntryFormat
+ */
+class BatchedWriterImpl implements BatchedWriter {
+
+    private static final int INITIAL_BATCH_CAPACITY = 4096;
+
+    private final WriteHandle handle;
+    private final int maxBatchSize;
+    private final int maxBatchRecords;
+    private final long maxBatchDelayNanos;
+    private final CompressionType compressionType;
+    private final ByteBufAllocator allocator;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+
+    // All the state below is guarded by the writer monitor
+    private ByteBuf batch = null;
+    private final List<CompletableFuture<BatchPosition>> batchFutures = new ArrayList<>();
+    // Sequence of the current batch, so that a delayed flush doesn't flush a later batch
+    private long batchSequence = 0;
+    private ScheduledFuture<?> delayedFlush = null;
+    private CompletableFuture<Void> lastAppend = CompletableFuture.completedFuture(null);
+    private boolean closed = false;
+
+    BatchedWriterImpl(WriteHandle handle, int maxBatchSize, int maxBatchRecords, long maxBatchDelayNanos,
+                      CompressionType compressionType, ByteBufAllocator allocator,
+                      ScheduledExecutorService scheduler) {
+        this.handle = handle;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchRecords = maxBatchRecords;
+        this.maxBatchDelayNanos = maxBatchDelayNanos;
+        this.compressionType = compressionType;
+        this.allocator = allocator;
+        if (scheduler == null && maxBatchDelayNanos > 0 && handle instanceof LedgerHandle) {
+            // Use the scheduler of the client, rather than a thread per writer
+            this.scheduler = ((LedgerHandle) handle).getOrderedScheduler();
+            this.ownScheduler = false;
+        } else if (scheduler == null && maxBatchDelayNanos > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new DefaultThreadFactory("BatchedWriterScheduler"));
+            this.ownScheduler = true;
+        } else {
+            this.scheduler = scheduler;
+            this.ownScheduler = false;
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<BatchPosition> writeAsync(ByteBuf record) {
+        CompletableFuture<BatchPosition> future = new CompletableFuture<>();
+        try {
+            if (closed) {
+                future.completeExceptionally(new BKException.BKLedgerClosedException());
+                return future;
+            }
+
+            int recordSize = BatchedEntryFormat.RECORD_OVERHEAD + record.readableBytes();
+            if (batch != null && batch.readableBytes() + recordSize > maxBatchSize) {
+                appendBatch();
+            }
+
+            if (batch == null) {
+                batch = allocator.directBuffer(Math.max(BatchedEntryFormat.HEADER_SIZE + recordSize,
+                        Math.min(INITIAL_BATCH_CAPACITY, maxBatchSize)));
+                batch.writerIndex(BatchedEntryFormat.HEADER_SIZE);
+                if (maxBatchDelayNanos > 0) {
+                    final long sequence = batchSequence;
+                    delayedFlush = scheduler.schedule(() -> flushOnDelay(sequence), maxBatchDelayNanos,
+                            TimeUnit.NANOSECONDS);
+                }
+            }
+
+            batch.writeInt(record.readableBytes());
+            batch.writeBytes(record, record.readerIndex(), record.readableBytes());
+            batchFutures.add(future);
+
+            if (batch.readableBytes() >= maxBatchSize || batchFutures.size() >= maxBatchRecords) {
+                appendBatch();
+            }
+            return future;
+        } finally {
+            ReferenceCountUtil.release(record);
+        }
+    }
+
+    private synchronized void flushOnDelay(long sequence) {
+        if (sequence == batchSequence && batch != null) {
+            delayedFlush = null;
+            appendBatch();
+        }
+    }
+
+    private void appendBatch() {
+        if (delayedFlush != null) {
+            delayedFlush.cancel(false);
+            delayedFlush = null;
+        }
+
+        final List<CompletableFuture<BatchPosition>> futures = new ArrayList<>(batchFutures);
+        batchFutures.clear();
+        ByteBuf entry = BatchedEntryFormat.seal(allocator, compressionType, batch, futures.size());
+        batch = null;
+        ++batchSequence;
+
+        CompletableFuture<Long> append = handle.appendAsync(entry);
+        append.whenComplete((entryId, cause) -> {
+            for (int i = 0; i < futures.size(); i++) {
+                if (cause != null) {
+                    futures.get(i).completeExceptionally(cause);
+                } else {
+                    futures.get(i).complete(new BatchPosition(entryId, i));
+                }
+            }
+        });
+        // Appends on a ledger complete in order, so the last one tells when all the records are in the ledger
+        lastAppend = append.thenApply(entryId -> null);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> flush() {
+        if (batch != null) {
+            appendBatch();
+        }
+        return lastAppend;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> closeAsync() {
+        if (!closed) {
+            closed = true;
+            if (batch != null) {
+                appendBatch();
+            }
+            if (ownScheduler) {
+                scheduler.shutdown();
+            }
+        }
+        return lastAppend;
+    }
+}
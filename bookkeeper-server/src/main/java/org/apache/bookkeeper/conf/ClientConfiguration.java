@@ -97,6 +97,7 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
     protected static final String CLIENT_CONNECT_TIMEOUT_MILLIS = "clientConnectTimeoutMillis";
     protected static final String CLIENT_TCP_USER_TIMEOUT_MILLIS = "clientTcpUserTimeoutMillis";
     protected static final String NUM_CHANNELS_PER_BOOKIE = "numChannelsPerBookie";
+    protected static final String MAX_NUM_CHANNELS_PER_BOOKIE = "maxNumChannelsPerBookie";
     protected static final String USE_V2_WIRE_PROTOCOL = "useV2WireProtocol";
     protected static final String NETTY_USE_POOLED_BUFFERS = "nettyUsePooledBuffers";
 
@@ -107,6 +108,7 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
     protected static final String MAX_SPECULATIVE_READ_TIMEOUT = "maxSpeculativeReadTimeout";
     protected static final String SPECULATIVE_READ_TIMEOUT_BACKOFF_MULTIPLIER =
         "speculativeReadTimeoutBackoffMultiplier";
+    protected static final String SPECULATIVE_READ_LATENCY_PERCENTILE = "speculativeReadLatencyPercentile";
     protected static final String FIRST_SPECULATIVE_READ_LAC_TIMEOUT = "firstSpeculativeReadLACTimeout";
     protected static final String MAX_SPECULATIVE_READ_LAC_TIMEOUT = "maxSpeculativeReadLACTimeout";
     protected static final String SPECULATIVE_READ_LAC_TIMEOUT_BACKOFF_MULTIPLIER =
@@ -143,6 +145,7 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
 
     // Bookie info poll interval
     protected static final String DISK_WEIGHT_BASED_PLACEMENT_ENABLED = "diskWeightBasedPlacementEnabled";
+    protected static final String LOAD_BASED_PLACEMENT_ENABLED = "loadBasedPlacementEnabled";
     protected static final String GET_BOOKIE_INFO_INTERVAL_SECONDS = "getBookieInfoIntervalSeconds";
     protected static final String GET_BOOKIE_INFO_RETRY_INTERVAL_SECONDS = "getBookieInfoRetryIntervalSeconds";
     protected static final String BOOKIE_MAX_MULTIPLE_FOR_WEIGHTED_PLACEMENT =
@@ -579,6 +582,31 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Get the max num channels per bookie.
+     *
+     * @return max num channels per bookie.
+     */
+    public int getMaxNumChannelsPerBookie() {
+        return Math.max(getInt(MAX_NUM_CHANNELS_PER_BOOKIE, 0), getNumChannelsPerBookie());
+    }
+
+    /**
+     * Set the max num channels per bookie.
+     *
+     * <p>When it's greater than {@link #getNumChannelsPerBookie()}, the channel pool of a bookie grows up to this
+     * number of channels when its channels are backlogged, and shrinks back when they are idle. The requests that
+     * would go to a non writable channel are then routed to another channel of the pool.
+     *
+     * @param maxNumChannelsPerBookie
+     *          max num channels per bookie.
+     * @return client configuration.
+     */
+    public ClientConfiguration setMaxNumChannelsPerBookie(int maxNumChannelsPerBookie) {
+        setProperty(MAX_NUM_CHANNELS_PER_BOOKIE, maxNumChannelsPerBookie);
+        return this;
+    }
+
     /**
      * Use older Bookkeeper wire protocol (no protobuf).
      *
@@ -999,6 +1027,35 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Get the percentile of the recent read latency of a bookie after which a speculative read is sent to the
+     * next replica. 0 means that the speculative reads use the fixed backoff timeouts.
+     *
+     * @return speculative read latency percentile.
+     */
+    public double getSpeculativeReadLatencyPercentile() {
+        return getDouble(SPECULATIVE_READ_LATENCY_PERCENTILE, 0);
+    }
+
+    /**
+     * Set the percentile of the recent read latency of a bookie after which a speculative read is sent to the
+     * next replica, eg: 99.
+     *
+     * <p>The client then keeps a latency histogram per bookie: a speculative read is sent when the pending bookie
+     * didn't answer within its latency percentile, bounded by {@link #getMaxSpeculativeReadTimeout()}, and the
+     * bookies much slower than the others are moved at the end of the read sequence. The
+     * {@link #getFirstSpeculativeReadTimeout()} is used for the bookies without recent reads. Speculative reads
+     * need to be enabled for this setting to be used.
+     *
+     * @param percentile
+     *          the latency percentile, in (0, 100), 0 to disable.
+     * @return client configuration.
+     */
+    public ClientConfiguration setSpeculativeReadLatencyPercentile(double percentile) {
+        setProperty(SPECULATIVE_READ_LATENCY_PERCENTILE, percentile);
+        return this;
+    }
+
     /**
      * Multiplier to use when determining time between successive speculative read LAC requests.
      *
@@ -1532,6 +1589,14 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return getBoolean(DISK_WEIGHT_BASED_PLACEMENT_ENABLED, false);
     }
 
+    /**
+     * Return whether load based placement is enabled.
+     * @return
+     */
+    public boolean getLoadBasedPlacementEnabled() {
+        return getBoolean(LOAD_BASED_PLACEMENT_ENABLED, false);
+    }
+
     /**
      * Returns the max multiple to use for nodes with very high weight.
      * @return max multiple
@@ -1567,6 +1632,22 @@ public class ClientConfiguration extends AbstractConfiguration<ClientConfigurati
         return this;
     }
 
+    /**
+     * Set whether or not load based placement is enabled.
+     *
+     * <p>When enabled, the weight of each bookie in the ensemble placement is lowered according to its current
+     * load: the requests pending on the client connections, the p99 add latency observed by the client and the
+     * journal queue length reported by the bookie. The journal queue length is polled every
+     * {@link #getGetBookieInfoIntervalSeconds()}. It can be combined with the disk weight based placement.
+     *
+     * @param isEnabled - boolean indicating enabled or not
+     * @return client configuration
+     */
+    public ClientConfiguration setLoadBasedPlacementEnabled(boolean isEnabled) {
+        setProperty(LOAD_BASED_PLACEMENT_ENABLED, isEnabled);
+        return this;
+    }
+
     /**
      * Set the time interval between successive polls for bookie get info.
      *
@@ -145,6 +145,7 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String JOURNAL_BUFFERED_WRITES_THRESHOLD = "journalBufferedWritesThreshold";
     protected static final String JOURNAL_BUFFERED_ENTRIES_THRESHOLD = "journalBufferedEntriesThreshold";
     protected static final String JOURNAL_FLUSH_WHEN_QUEUE_EMPTY = "journalFlushWhenQueueEmpty";
+    protected static final String JOURNAL_GROUP_COMMIT_TARGET_LATENCY_MSEC = "journalGroupCommitTargetLatencyMSec";
     protected static final String JOURNAL_REMOVE_FROM_PAGE_CACHE = "journalRemoveFromPageCache";
     protected static final String JOURNAL_PRE_ALLOC_SIZE = "journalPreAllocSizeMB";
     protected static final String JOURNAL_WRITE_BUFFER_SIZE = "journalWriteBufferSizeKB";
@@ -152,6 +153,7 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
     protected static final String NUM_JOURNAL_CALLBACK_THREADS = "numJournalCallbackThreads";
     protected static final String JOURNAL_FORMAT_VERSION_TO_WRITE = "journalFormatVersionToWrite";
     protected static final String JOURNAL_QUEUE_SIZE = "journalQueueSize";
+    protected static final String JOURNAL_MAX_OUTSTANDING_FORCE_WRITES = "journalMaxOutstandingForceWrites";
     protected static final String JOURNAL_MAX_MEMORY_SIZE_MB = "journalMaxMemorySizeMb";
     protected static final String JOURNAL_PAGECACHE_FLUSH_INTERVAL_MSEC = "journalPageCacheFlushIntervalMSec";
     protected static final String JOURNAL_CHANNEL_PROVIDER = "journalChannelProvider";
@@ -968,6 +970,30 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return this.getInt(JOURNAL_QUEUE_SIZE, 10_000);
     }
 
+    /**
+     * Set the max number of force writes that can be in progress at the same time on a journal.
+     *
+     * @param maxOutstandingForceWrites
+     *            the max number of outstanding force writes per journal
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalMaxOutstandingForceWrites(int maxOutstandingForceWrites) {
+        this.setProperty(JOURNAL_MAX_OUTSTANDING_FORCE_WRITES, maxOutstandingForceWrites);
+        return this;
+    }
+
+    /**
+     * Get the max number of force writes that can be in progress at the same time on a journal.
+     *
+     * <p>With more than 1, the force writes of consecutive group commits are issued in parallel, while the
+     * callbacks are still triggered in the journal order.
+     *
+     * @return the max number of outstanding force writes per journal.
+     */
+    public int getJournalMaxOutstandingForceWrites() {
+        return this.getInt(JOURNAL_MAX_OUTSTANDING_FORCE_WRITES, 1);
+    }
+
     /**
      * Set the max amount of memory that can be used by the journal.
      *
@@ -2456,6 +2482,33 @@ public class ServerConfiguration extends AbstractConfiguration<ServerConfigurati
         return getBoolean(JOURNAL_FLUSH_WHEN_QUEUE_EMPTY, false);
     }
 
+    /**
+     * Set the target p99 latency of the journal adds, used to adapt the group commit.
+     *
+     * @param targetLatencyMSec
+     *          target latency in milliseconds, 0 to disable the adaptive group commit.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalGroupCommitTargetLatencyMSec(long targetLatencyMSec) {
+        setProperty(JOURNAL_GROUP_COMMIT_TARGET_LATENCY_MSEC, targetLatencyMSec);
+        return this;
+    }
+
+    /**
+     * Get the target p99 latency of the journal adds, used to adapt the group commit.
+     *
+     * <p>When greater than 0, the journal tunes the group wait, the buffered entries and bytes thresholds and
+     * whether to flush when the queue is empty from the observed arrival rate and fsync latency, to keep the
+     * p99 add latency under the target. {@link #getJournalMaxGroupWaitMSec()},
+     * {@link #getJournalBufferedEntriesThreshold()} and {@link #getJournalBufferedWritesThreshold()} are then
+     * used as upper bounds. Default is 0, the thresholds are used as configured.
+     *
+     * @return target latency in milliseconds
+     */
+    public long getJournalGroupCommitTargetLatencyMSec() {
+        return getLong(JOURNAL_GROUP_COMMIT_TARGET_LATENCY_MSEC, 0);
+    }
+
     /**
      * Set whether the bookie is able to go into read-only mode.
      * If this is set to false, the bookie will shutdown on encountering
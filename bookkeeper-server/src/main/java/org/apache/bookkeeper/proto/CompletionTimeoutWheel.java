@@ -0,0 +1,157 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package org.apache.bookkeeper.proto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+/**
+ * Hashed timing wheel holding the deadlines of the pending operations of a channel.
+ *
+ * <p>Operations are scheduled from any thread, while {@link #expire(long)} is called periodically from the
+ * timeout task only. It only goes through the buckets of the ticks elapsed since the previous call, instead of
+ * all the pending operations.
+ *
+ * <p>Entries are not removed when the operations complete, so the timeout check must be able to deal with keys
+ * whose operation is already completed, or even reused for another operation. The deadlines are only released by
+ * {@link #expire(long)}, so the wheel must only be used when the timeout task runs.
+ */
+class CompletionTimeoutWheel {
+
+    private static final class Deadline {
+        final CompletionKey key;
+        final long deadlineNanos;
+
+        Deadline(CompletionKey key, long deadlineNanos) {
+            this.key = key;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private static final int MAX_BUCKETS = 4096;
+
+    private final long tickNanos;
+    private final ArrayDeque<Deadline>[] buckets;
+    private final int mask;
+    private final Queue<Deadline> scheduled = new ConcurrentLinkedQueue<>();
+    private final Predicate<CompletionKey> timeoutCheck;
+
+    // Last tick processed by expire
+    private long lastTick = Long.MIN_VALUE;
+
+    /**
+     * @param tickNanos duration of a bucket of the wheel, must be positive
+     * @param maxTimeoutNanos longest timeout of the operations, used to size the wheel
+     * @param timeoutCheck called for each expired deadline, returns true if the operation was timed out
+     */
+    @SuppressWarnings("unchecked")
+    CompletionTimeoutWheel(long tickNanos, long maxTimeoutNanos, Predicate<CompletionKey> timeoutCheck) {
+        checkArgument(tickNanos > 0, "Invalid timeout wheel tick: %s ns", tickNanos);
+        this.tickNanos = tickNanos;
+        long ticks = Math.min(Math.max(0, maxTimeoutNanos) / this.tickNanos + 2, MAX_BUCKETS);
+        int numBuckets = Integer.highestOneBit((int) ticks - 1) << 1;
+        // Buckets are allocated on first use
+        this.buckets = new ArrayDeque[numBuckets];
+        this.mask = numBuckets - 1;
+        this.timeoutCheck = timeoutCheck;
+    }
+
+    /**
+     * Schedule the timeout check of an operation. Operations without a timeout are not tracked.
+     */
+    void schedule(CompletionKey key, long timeoutNanos, long deadlineNanos) {
+        if (timeoutNanos > 0) {
+            scheduled.add(new Deadline(key, deadlineNanos));
+        }
+    }
+
+    /**
+     * @return the number of deadlines held by the wheel. Only to be called from the timeout task, or in tests.
+     */
+    @VisibleForTesting
+    int size() {
+        int size = scheduled.size();
+        for (ArrayDeque<Deadline> bucket : buckets) {
+            if (bucket != null) {
+                size += bucket.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Check the operations whose deadline is before nowNanos.
+     *
+     * @return the number of operations that were timed out
+     */
+    int expire(long nowNanos) {
+        int timedOut = 0;
+        Deadline deadline;
+        while ((deadline = scheduled.poll()) != null) {
+            if (deadline.deadlineNanos <= nowNanos) {
+                // Might belong to a tick already processed
+                if (timeoutCheck.test(deadline.key)) {
+                    timedOut++;
+                }
+            } else {
+                int idx = (int) (deadline.deadlineNanos / tickNanos) & mask;
+                if (buckets[idx] == null) {
+                    buckets[idx] = new ArrayDeque<>();
+                }
+                buckets[idx].add(deadline);
+            }
+        }
+
+        long currentTick = nowNanos / tickNanos;
+        long firstTick = lastTick == Long.MIN_VALUE ? currentTick - mask : lastTick;
+        // Going around the wheel once covers all the buckets
+        firstTick = Math.max(firstTick, currentTick - mask);
+
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            ArrayDeque<Deadline> bucket = buckets[(int) tick & mask];
+            if (bucket == null) {
+                continue;
+            }
+            Iterator<Deadline> it = bucket.iterator();
+            while (it.hasNext()) {
+                Deadline d = it.next();
+                // The bucket also holds the deadlines of the next rounds of the wheel
+                if (d.deadlineNanos <= nowNanos) {
+                    it.remove();
+                    if (timeoutCheck.test(d.key)) {
+                        timedOut++;
+                    }
+                }
+            }
+        }
+        // The current tick is not over, go through it again next time
+        lastTick = currentTick;
+        return timedOut;
+    }
+}
@@ -77,8 +77,22 @@ abstract class CompletionValue {
         }
     }
 
+    /**
+     * @return the time after which the operation times out, from its start
+     */
+    long timeoutNanos() {
+        return perChannelBookieClient.readEntryTimeoutNanos;
+    }
+
+    /**
+     * @return the {@link MathUtils#nowInNano()} time at which the operation times out
+     */
+    long deadlineNanos() {
+        return startTime + timeoutNanos();
+    }
+
     boolean maybeTimeout() {
-        if (MathUtils.elapsedNanos(startTime) >= perChannelBookieClient.readEntryTimeoutNanos) {
+        if (MathUtils.elapsedNanos(startTime) >= timeoutNanos()) {
             timeout();
             return true;
         } else {
@@ -22,12 +22,20 @@ package org.apache.bookkeeper.proto;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.apache.bookkeeper.client.BookKeeperClientStats;
 import org.apache.bookkeeper.common.util.MathUtils;
 import org.apache.bookkeeper.conf.ClientConfiguration;
 import org.apache.bookkeeper.net.BookieId;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.tls.SecurityException;
 import org.apache.bookkeeper.tls.SecurityHandlerFactory;
 import org.apache.bookkeeper.tls.SecurityProviderFactoryFactory;
@@ -37,12 +45,27 @@ import org.slf4j.LoggerFactory;
 /**
  *  Provide a simple round-robin style channel pool. We could improve it later to do more
  *  fantastic things.
+ *
+ * <p>When the max size of the pool is greater than its core size, the pool is adaptive: it grows by one channel
+ * when a channel is not writable or the channels have too many bytes waiting to be written, and shrinks back when
+ * the channels are idle for a few checks. The keys are spread on the active channels with a consistent hash, so
+ * only the keys of the added or removed channel move when the pool is resized, and a request whose channel is not
+ * writable is routed to the next writable channel. The protocol doesn't require the requests of a ledger to be
+ * ordered across channels, each entry is acknowledged on its own, but a ledger only leaves its channel when the
+ * channel is backlogged or removed. The channels removed from the pool are disconnected once all their pending
+ * requests are completed.
  */
 class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
         GenericCallback<PerChannelBookieClient> {
 
     static final Logger LOG = LoggerFactory.getLogger(DefaultPerChannelBookieClientPool.class);
 
+    // Number of consecutive idle checks before shrinking the pool
+    static final int SHRINK_IDLE_CHECKS = 3;
+    // Number of checks a channel stays out of the pool before being disconnected, so that the requests routed to it
+    // right before the shrink are registered as pending by then
+    static final int DISCONNECT_GRACE_CHECKS = 1;
+
     final PerChannelBookieClientFactory factory;
     final BookieId address;
 
@@ -55,29 +78,96 @@ class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
     final AtomicInteger counter = new AtomicInteger(0);
     final AtomicLong errorCounter = new AtomicLong(0);
 
+    final int coreSize;
+    final int maxSize;
+    // Only the first activeSize clients get new requests, the others are created lazily when growing
+    volatile int activeSize;
+    private final long growPendingWriteBytes;
+    private int idleChecks = 0;
+    // Number of checks each channel has been out of the pool
+    private final int[] inactiveChecks;
+
+    private final StatsLogger statsLogger;
+    private final Counter growCounter;
+    private final Counter shrinkCounter;
+    // Unregister the gauges of the pool on close
+    private final List<Runnable> gaugeUnregisters = new ArrayList<>();
+
     DefaultPerChannelBookieClientPool(ClientConfiguration conf, PerChannelBookieClientFactory factory,
                                       BookieId address,
                                       int coreSize) throws SecurityException {
+        this(conf, factory, address, coreSize, coreSize, NullStatsLogger.INSTANCE);
+    }
+
+    DefaultPerChannelBookieClientPool(ClientConfiguration conf, PerChannelBookieClientFactory factory,
+                                      BookieId address,
+                                      int coreSize,
+                                      int maxSize,
+                                      StatsLogger statsLogger) throws SecurityException {
         checkArgument(coreSize > 0);
+        checkArgument(maxSize >= coreSize);
         this.factory = factory;
         this.address = address;
         this.conf = conf;
+        this.coreSize = coreSize;
+        this.maxSize = maxSize;
+        this.activeSize = coreSize;
+        this.growPendingWriteBytes = conf.getClientWriteBufferLowWaterMark() / 2;
+        this.inactiveChecks = new int[maxSize];
 
         this.shFactory = SecurityProviderFactoryFactory.getSecurityProviderFactory(conf.getTLSProviderFactoryClass());
 
-        this.clients = new PerChannelBookieClient[coreSize];
+        this.clients = new PerChannelBookieClient[maxSize];
         for (int i = 0; i < coreSize; i++) {
             this.clients[i] = factory.create(address, this, shFactory, false);
         }
 
         if (conf.getUseV2WireProtocol()) {
-            this.clientsV3Enforced = new PerChannelBookieClient[coreSize];
+            this.clientsV3Enforced = new PerChannelBookieClient[maxSize];
             for (int i = 0; i < coreSize; i++) {
                 this.clientsV3Enforced[i] = factory.create(address, this, shFactory, true);
             }
         } else {
             this.clientsV3Enforced = this.clients;
         }
+
+        this.statsLogger = statsLogger.scope(BookKeeperClientStats.CHANNEL_SCOPE)
+                .scopeLabel(BookKeeperClientStats.BOOKIE_LABEL, address.toString());
+        this.growCounter = this.statsLogger.getCounter(BookKeeperClientStats.CHANNEL_POOL_GROW);
+        this.shrinkCounter = this.statsLogger.getCounter(BookKeeperClientStats.CHANNEL_POOL_SHRINK);
+    }
+
+    private void registerGauge(StatsLogger logger, String name, LongSupplier supplier) {
+        Gauge<Long> gauge = new Gauge<Long>() {
+            @Override
+            public Long getDefaultValue() {
+                return 0L;
+            }
+
+            @Override
+            public Long getSample() {
+                return supplier.getAsLong();
+            }
+        };
+        logger.registerGauge(name, gauge);
+        gaugeUnregisters.add(() -> logger.unregisterGauge(name, gauge));
+    }
+
+    private long sumChannelStat(int idx, ChannelStat stat) {
+        long value = 0;
+        PerChannelBookieClient client = clients[idx];
+        if (client != null) {
+            value += stat.get(client);
+        }
+        PerChannelBookieClient clientV3Enforced = clientsV3Enforced[idx];
+        if (clientV3Enforced != null && clientV3Enforced != client) {
+            value += stat.get(clientV3Enforced);
+        }
+        return value;
+    }
+
+    private interface ChannelStat {
+        long get(PerChannelBookieClient client);
     }
 
     @Override
@@ -87,22 +177,55 @@ class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
 
     @Override
     public void initialize() {
-        for (PerChannelBookieClient pcbc : this.clients) {
-            pcbc.connectIfNeededAndDoOp(this);
+        // Registered here rather than in the constructor, as only the pool winning the race to be added to the
+        // client gets initialized
+        registerGauge(this.statsLogger, BookKeeperClientStats.CHANNEL_POOL_SIZE, () -> activeSize);
+        for (int i = 0; i < maxSize; i++) {
+            final int idx = i;
+            StatsLogger channelStatsLogger =
+                    this.statsLogger.scopeLabel(BookKeeperClientStats.CHANNEL_LABEL, String.valueOf(i));
+            registerGauge(channelStatsLogger, BookKeeperClientStats.CHANNEL_WRITTEN_BYTES,
+                    () -> sumChannelStat(idx, PerChannelBookieClient::getWrittenBytes));
+            registerGauge(channelStatsLogger, BookKeeperClientStats.CHANNEL_PENDING_WRITE_BYTES,
+                    () -> sumChannelStat(idx, PerChannelBookieClient::getPendingWriteBytes));
+            registerGauge(channelStatsLogger, BookKeeperClientStats.CHANNEL_PENDING_REQUESTS,
+                    () -> sumChannelStat(idx, PerChannelBookieClient::getNumPendingCompletionRequests));
+        }
+        for (int i = 0; i < activeSize; i++) {
+            clients[i].connectIfNeededAndDoOp(this);
         }
     }
 
-    private PerChannelBookieClient getClient(long key) {
-        return getClient(key, false);
+    /**
+     * Get the index of the channel a key is mapped to, without routing around a backlogged channel.
+     */
+    private int getHomeIndex(long key, int size) {
+        if (1 == size) {
+            return 0;
+        }
+        if (maxSize == coreSize) {
+            return MathUtils.signSafeMod(key, size);
+        }
+        return consistentHash(key, size);
     }
 
     private PerChannelBookieClient getClient(long key, PerChannelBookieClient[] pcbc) {
-        if (1 == pcbc.length) {
-            return pcbc[0];
+        int size = activeSize;
+        int idx = getHomeIndex(key, size);
+        PerChannelBookieClient client = pcbc[idx];
+        if (maxSize == coreSize || client.isWritable()) {
+            return client;
         }
-        int idx = MathUtils.signSafeMod(key, pcbc.length);
-        return pcbc[idx];
+        // Route around the backlogged channel
+        for (int i = 1; i < size; i++) {
+            PerChannelBookieClient next = pcbc[(idx + i) % size];
+            if (next.isWritable()) {
+                return next;
+            }
+        }
+        return client;
     }
+
     private PerChannelBookieClient getClient(long key, boolean forceUseV3) {
         if (forceUseV3) {
             return getClient(key, clientsV3Enforced);
@@ -110,6 +233,21 @@ class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
         return getClient(key, clients);
     }
 
+    /**
+     * Jump consistent hash (Lamping and Veach), maps a key to one of the buckets, moving only 1/n of the keys when
+     * the n-th bucket is added or removed.
+     */
+    static int consistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
     @Override
     public void obtain(GenericCallback<PerChannelBookieClient> callback, long key) {
         obtain(callback, key, false);
@@ -120,19 +258,96 @@ class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
         getClient(key, forceUseV3).connectIfNeededAndDoOp(callback);
     }
 
+    /**
+     * Check the channel the key is mapped to. The requests of a backlogged channel might be routed to another
+     * channel of the pool, but the writability of the key only depends on its own channel, so that the write set
+     * of a ledger still waits for a backlogged bookie channel.
+     */
     @Override
     public boolean isWritable(long key) {
-        return getClient(key).isWritable();
+        return clients[getHomeIndex(key, activeSize)].isWritable();
     }
 
     @Override
     public void checkTimeoutOnPendingOperations() {
         for (int i = 0; i < clients.length; i++) {
-            clients[i].checkTimeoutOnPendingOperations();
-            if (clients != clientsV3Enforced) {
+            if (clients[i] != null) {
+                clients[i].checkTimeoutOnPendingOperations();
+            }
+            if (clients != clientsV3Enforced && clientsV3Enforced[i] != null) {
                 clientsV3Enforced[i].checkTimeoutOnPendingOperations();
             }
         }
+        if (maxSize > coreSize) {
+            resizeIfNeeded();
+        }
+    }
+
+    /**
+     * Grow or shrink the pool according to the backlog of the active channels. It's called periodically, with the
+     * timeout checks.
+     */
+    synchronized void resizeIfNeeded() {
+        int size = activeSize;
+        long pendingWriteBytes = 0;
+        boolean backlogged = false;
+        for (int i = 0; i < size; i++) {
+            pendingWriteBytes += clients[i].getPendingWriteBytes();
+            backlogged |= !clients[i].isWritable();
+            if (clients != clientsV3Enforced && clientsV3Enforced[i] != null) {
+                pendingWriteBytes += clientsV3Enforced[i].getPendingWriteBytes();
+            }
+        }
+
+        if (size < maxSize && (backlogged || pendingWriteBytes >= growPendingWriteBytes * size)) {
+            try {
+                if (clients[size] == null) {
+                    clients[size] = factory.create(address, this, shFactory, false);
+                    if (clients != clientsV3Enforced) {
+                        clientsV3Enforced[size] = factory.create(address, this, shFactory, true);
+                    }
+                }
+            } catch (SecurityException e) {
+                LOG.error("Failed to create a new channel to bookie {}", address, e);
+                return;
+            }
+            clients[size].connectIfNeededAndDoOp(this);
+            idleChecks = 0;
+            activeSize = size + 1;
+            growCounter.inc();
+            LOG.info("Grow the channel pool of bookie {} to {} channels, {} bytes pending write",
+                    address, size + 1, pendingWriteBytes);
+        } else if (size > coreSize && !backlogged
+                && pendingWriteBytes < growPendingWriteBytes * (size - 1) / 4) {
+            if (++idleChecks >= SHRINK_IDLE_CHECKS) {
+                idleChecks = 0;
+                activeSize = size - 1;
+                shrinkCounter.inc();
+                LOG.info("Shrink the channel pool of bookie {} to {} channels", address, size - 1);
+            }
+        } else {
+            idleChecks = 0;
+        }
+
+        // Disconnect the channels removed from the pool, once they are drained. A request might have picked the
+        // channel just before the shrink, so it's only disconnected after a grace period.
+        for (int i = 0; i < maxSize; i++) {
+            if (i < activeSize) {
+                inactiveChecks[i] = 0;
+            } else if (++inactiveChecks[i] > DISCONNECT_GRACE_CHECKS) {
+                disconnectIfDrained(clients[i]);
+                if (clients != clientsV3Enforced) {
+                    disconnectIfDrained(clientsV3Enforced[i]);
+                }
+            }
+        }
+    }
+
+    private static void disconnectIfDrained(PerChannelBookieClient client) {
+        if (client != null && client.state == PerChannelBookieClient.ConnectionState.CONNECTED
+                && client.getNumPendingCompletionRequests() == 0) {
+            client.disconnect(false);
+        }
     }
 
     @Override
@@ -143,8 +358,10 @@ class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
     @Override
     public void disconnect(boolean wait) {
         for (int i = 0; i < clients.length; i++) {
-            clients[i].disconnect();
-            if (clients != clientsV3Enforced) {
+            if (clients[i] != null) {
+                clients[i].disconnect();
+            }
+            if (clients != clientsV3Enforced && clientsV3Enforced[i] != null) {
                 clientsV3Enforced[i].disconnect();
             }
         }
@@ -153,22 +370,30 @@ class DefaultPerChannelBookieClientPool implements PerChannelBookieClientPool,
     @Override
     public void close(boolean wait) {
         for (int i = 0; i < clients.length; i++) {
-            clients[i].close(wait);
-            if (clients != clientsV3Enforced) {
+            if (clients[i] != null) {
+                clients[i].close(wait);
+            }
+            if (clients != clientsV3Enforced && clientsV3Enforced[i] != null) {
                 clientsV3Enforced[i].close(wait);
             }
         }
+        gaugeUnregisters.forEach(Runnable::run);
+        gaugeUnregisters.clear();
     }
 
     @Override
     public long getNumPendingCompletionRequests() {
         long numPending = 0;
         for (PerChannelBookieClient pcbc : clients) {
-            numPending += pcbc.getNumPendingCompletionRequests();
+            if (pcbc != null) {
+                numPending += pcbc.getNumPendingCompletionRequests();
+            }
         }
         if (clients != clientsV3Enforced) {
             for (PerChannelBookieClient pcbc : clientsV3Enforced) {
-                numPending += pcbc.getNumPendingCompletionRequests();
+                if (pcbc != null) {
+                    numPending += pcbc.getNumPendingCompletionRequests();
+                }
             }
         }
         return numPending;
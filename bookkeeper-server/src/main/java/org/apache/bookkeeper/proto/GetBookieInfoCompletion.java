@@ -23,7 +23,6 @@ package org.apache.bookkeeper.proto;
 
 import org.apache.bookkeeper.client.BKException;
 import org.apache.bookkeeper.client.BookieInfoReader;
-import org.apache.bookkeeper.common.util.MathUtils;
 
 class GetBookieInfoCompletion extends CompletionValue {
     final BookkeeperInternalCallbacks.GetBookieInfoCallback cb;
@@ -43,13 +42,8 @@ class GetBookieInfoCompletion extends CompletionValue {
     }
 
     @Override
-    boolean maybeTimeout() {
-        if (MathUtils.elapsedNanos(startTime) >= perChannelBookieClient.getBookieInfoTimeoutNanos) {
-            timeout();
-            return true;
-        } else {
-            return false;
-        }
+    long timeoutNanos() {
+        return perChannelBookieClient.getBookieInfoTimeoutNanos;
     }
 
     @Override
@@ -71,14 +65,18 @@ class GetBookieInfoCompletion extends CompletionValue {
 
         long freeDiskSpace = getBookieInfoResponse.getFreeDiskSpace();
         long totalDiskSpace = getBookieInfoResponse.getTotalDiskCapacity();
+        // Unknown when the bookie doesn't report it
+        long journalQueueLength = getBookieInfoResponse.hasJournalQueueLength()
+                ? getBookieInfoResponse.getJournalQueueLength() : -1L;
 
         if (LOG.isDebugEnabled()) {
-            logResponse(status, "freeDisk", freeDiskSpace, "totalDisk", totalDiskSpace);
+            logResponse(status, "freeDisk", freeDiskSpace, "totalDisk", totalDiskSpace,
+                    "journalQueueLength", journalQueueLength);
         }
 
         int rc = convertStatus(status, BKException.Code.ReadException);
         cb.getBookieInfoComplete(rc,
                 new BookieInfoReader.BookieInfo(totalDiskSpace,
-                        freeDiskSpace), ctx);
+                        freeDiskSpace, journalQueueLength), ctx);
     }
 }
@@ -70,6 +70,12 @@ public class GetBookieInfoProcessorV3 extends PacketProcessorBaseV3 implements R
                 totalDiskSpace = requestProcessor.getBookie().getTotalDiskSpace();
                 getBookieInfoResponse.setTotalDiskCapacity(totalDiskSpace);
             }
+            if ((requested & GetBookieInfoRequest.Flags.JOURNAL_QUEUE_LENGTH_VALUE) != 0) {
+                int journalQueueLength = requestProcessor.getBookie().getJournalQueueLength();
+                if (journalQueueLength >= 0) {
+                    getBookieInfoResponse.setJournalQueueLength(journalQueueLength);
+                }
+            }
             if (LOG.isDebugEnabled()) {
                 LOG.debug("FreeDiskSpace info is " + freeDiskSpace + " totalDiskSpace is: " + totalDiskSpace);
             }
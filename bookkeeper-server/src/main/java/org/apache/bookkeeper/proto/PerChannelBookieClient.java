@@ -34,6 +34,8 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultEventLoopGroup;
@@ -81,6 +83,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiPredicate;
 import javax.net.ssl.SSLException;
@@ -180,6 +183,10 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     private final SynchronizedHashMultiMap<CompletionKey, CompletionValue> completionObjectsV2Conflicts =
         new SynchronizedHashMultiMap<>();
 
+    // Deadlines of the operations in completionObjects, so that the timeout check doesn't need to scan the map.
+    // Null when the timeouts are disabled.
+    private final CompletionTimeoutWheel timeoutWheel;
+
     private final StatsLogger statsLogger;
     @StatsDoc(
         name = BookKeeperClientStats.CHANNEL_READ_OP,
@@ -334,6 +341,8 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     private final ExtensionRegistry extRegistry;
     private final SecurityHandlerFactory shFactory;
     private volatile boolean isWritable = true;
+    // Bytes written to the channels of this client, for the per connection throughput
+    private final LongAdder writtenBytes = new LongAdder();
     private long lastBookieUnavailableLogTimestamp = 0;
 
     public PerChannelBookieClient(OrderedExecutor executor, EventLoopGroup eventLoopGroup,
@@ -386,6 +395,19 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         this.addEntryTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getAddEntryTimeout());
         this.readEntryTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getReadEntryTimeout());
         this.getBookieInfoTimeoutNanos = TimeUnit.SECONDS.toNanos(conf.getBookieInfoTimeout());
+        if (conf.getAddEntryTimeout() > 0 || conf.getReadEntryTimeout() > 0) {
+            // Same condition as the timeout task of the BookieClient, which drains the wheel
+            long timeoutMonitorIntervalSec = conf.getTimeoutMonitorIntervalSec();
+            if (timeoutMonitorIntervalSec <= 0) {
+                throw new IllegalArgumentException("Invalid timeout monitor interval: " + timeoutMonitorIntervalSec);
+            }
+            this.timeoutWheel = new CompletionTimeoutWheel(
+                    TimeUnit.SECONDS.toNanos(timeoutMonitorIntervalSec),
+                    Math.max(Math.max(addEntryTimeoutNanos, readEntryTimeoutNanos), getBookieInfoTimeoutNanos),
+                    key -> completionObjects.removeIf(key, timeoutCheck));
+        } else {
+            this.timeoutWheel = null;
+        }
         this.startTLSTimeout = conf.getStartTLSTimeout();
         this.useV2WireProtocol = conf.getUseV2WireProtocol();
         this.preserveMdcForTaskExecution = conf.getPreserveMdcForTaskExecution();
@@ -515,6 +537,25 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         return completionObjects.size();
     }
 
+    /**
+     * @return the bytes queued in the channel and not yet written to the socket
+     */
+    long getPendingWriteBytes() {
+        Channel c = channel;
+        if (c == null) {
+            return 0L;
+        }
+        ChannelOutboundBuffer outboundBuffer = c.unsafe().outboundBuffer();
+        return outboundBuffer == null ? 0L : outboundBuffer.totalPendingWriteBytes();
+    }
+
+    /**
+     * @return the total bytes written by this client
+     */
+    long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
     protected ChannelFuture connect() {
         final long startTime = MathUtils.nowInNano();
         if (LOG.isDebugEnabled()) {
@@ -580,6 +621,16 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
             @Override
             protected void initChannel(Channel ch) throws Exception {
                 ChannelPipeline pipeline = ch.pipeline();
+                pipeline.addLast("writtenBytesCounter", new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+                            throws Exception {
+                        if (msg instanceof ByteBuf) {
+                            writtenBytes.add(((ByteBuf) msg).readableBytes());
+                        }
+                        ctx.write(msg, promise);
+                    }
+                });
                 pipeline.addLast(CONSOLIDATION_HANDLER_NAME, new FlushConsolidationHandler(1024, true));
                 pipeline.addLast("bytebufList", ByteBufList.ENCODER);
                 pipeline.addLast("lengthbasedframedecoder",
@@ -680,9 +731,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         final CompletionKey completionKey = new TxnCompletionKey(txnId,
                                                                 OperationType.WRITE_LAC);
         // writeLac is mostly like addEntry hence uses addEntryTimeout
-        completionObjects.put(completionKey,
-                              new WriteLacCompletion(completionKey, cb,
-                                                     ctx, ledgerId, this));
+        putCompletion(completionKey,
+                      new WriteLacCompletion(completionKey, cb,
+                                             ctx, ledgerId, this));
 
         // Build the request
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
@@ -719,9 +770,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         final CompletionKey completionKey = new TxnCompletionKey(txnId,
                                                                 OperationType.FORCE_LEDGER);
         // force is mostly like addEntry hence uses addEntryTimeout
-        completionObjects.put(completionKey,
-                              new ForceLedgerCompletion(completionKey, cb,
-                                                     ctx, ledgerId, this));
+        putCompletion(completionKey,
+                      new ForceLedgerCompletion(completionKey, cb,
+                                             ctx, ledgerId, this));
 
         // Build the request
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
@@ -862,7 +913,7 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     public void getListOfEntriesOfLedger(final long ledgerId, GetListOfEntriesOfLedgerCallback cb) {
         final long txnId = getTxnId();
         final CompletionKey completionKey = new TxnCompletionKey(txnId, OperationType.GET_LIST_OF_ENTRIES_OF_LEDGER);
-        completionObjects.put(completionKey, new GetListOfEntriesOfLedgerCompletion(
+        putCompletion(completionKey, new GetListOfEntriesOfLedgerCompletion(
                 completionKey, cb, ledgerId, this));
 
         // Build the request.
@@ -1032,9 +1083,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     public void getBookieInfo(final long requested, GetBookieInfoCallback cb, Object ctx) {
         final long txnId = getTxnId();
         final CompletionKey completionKey = new TxnCompletionKey(txnId, OperationType.GET_BOOKIE_INFO);
-        completionObjects.put(completionKey,
-                              new GetBookieInfoCompletion(
-                                      completionKey, cb, ctx, this));
+        putCompletion(completionKey,
+                      new GetBookieInfoCompletion(
+                              completionKey, cb, ctx, this));
 
         // Build the request and calculate the total size to be included in the packet.
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
@@ -1058,8 +1109,9 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     };
 
     public void checkTimeoutOnPendingOperations() {
-        int timedOutOperations = completionObjects.removeIf(timeoutCheck);
+        int timedOutOperations = timeoutWheel != null ? timeoutWheel.expire(MathUtils.nowInNano()) : 0;
 
+        // Conflicting V2 reads are rare, scan them all
         timedOutOperations += completionObjectsV2Conflicts.removeIf(timeoutCheck);
 
         if (timedOutOperations > 0) {
@@ -1647,10 +1699,24 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
     }
 
     private void putCompletionKeyValue(CompletionKey key, CompletionValue value) {
+        // Get the deadline first, the operation might complete as soon as it's in the map
+        long timeoutNanos = value.timeoutNanos();
+        long deadlineNanos = value.deadlineNanos();
         CompletionValue existingValue = completionObjects.putIfAbsent(key, value);
         if (existingValue != null) { // will only happen for V2 keys, as V3 have unique txnid
             // There's a pending read request on same ledger/entry. Use the multimap to track all of them
             completionObjectsV2Conflicts.put(key, value);
+        } else if (timeoutWheel != null) {
+            timeoutWheel.schedule(key, timeoutNanos, deadlineNanos);
+        }
+    }
+
+    private void putCompletion(CompletionKey key, CompletionValue value) {
+        long timeoutNanos = value.timeoutNanos();
+        long deadlineNanos = value.deadlineNanos();
+        completionObjects.put(key, value);
+        if (timeoutWheel != null) {
+            timeoutWheel.schedule(key, timeoutNanos, deadlineNanos);
         }
     }
 
@@ -1834,8 +1900,8 @@ public class PerChannelBookieClient extends ChannelInboundHandlerAdapter {
         assert state == ConnectionState.CONNECTING;
         final long txnId = getTxnId();
         final CompletionKey completionKey = new TxnCompletionKey(txnId, OperationType.START_TLS);
-        completionObjects.put(completionKey,
-                              new StartTLSCompletion(completionKey, this));
+        putCompletion(completionKey,
+                      new StartTLSCompletion(completionKey, this));
         BookkeeperProtocol.Request.Builder h = withRequestContext(BookkeeperProtocol.Request.newBuilder());
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
                 .setVersion(ProtocolVersion.VERSION_THREE)
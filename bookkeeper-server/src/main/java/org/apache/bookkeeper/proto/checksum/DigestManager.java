@@ -20,6 +20,7 @@ package org.apache.bookkeeper.proto.checksum;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.util.ReferenceCounted;
@@ -28,9 +29,11 @@ import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import org.apache.bookkeeper.client.BKException.BKDigestMatchException;
 import org.apache.bookkeeper.client.LedgerHandle;
+import org.apache.bookkeeper.client.api.CompressionType;
 import org.apache.bookkeeper.proto.BookieProtoEncoding;
 import org.apache.bookkeeper.proto.BookieProtocol;
 import org.apache.bookkeeper.proto.DataFormats.LedgerMetadataFormat.DigestType;
+import org.apache.bookkeeper.proto.compression.CompressionCodec;
 import org.apache.bookkeeper.util.ByteBufList;
 import org.apache.bookkeeper.util.ByteBufVisitor;
 import org.slf4j.Logger;
@@ -41,6 +44,10 @@ import org.slf4j.LoggerFactory;
  * data so that it can be shipped to the bookie. On the return side, it also
  * gets a packet, checks that the digest matches, and extracts the original entry
  * for the packet. Currently 3 types of digests are supported: MAC (based on SHA-1) and CRC32 and CRC32C.
+ *
+ * <p>If the ledger has a {@link CompressionType}, the payload is compressed before computing the digest and is
+ * decompressed once the digest is verified. The compressed payload starts with a flag telling whether the data
+ * was actually compressed, as data that doesn't compress is sent as is, and with the uncompressed length.
  */
 
 public abstract class DigestManager {
@@ -48,11 +55,16 @@ public abstract class DigestManager {
 
     public static final int METADATA_LENGTH = 32;
     public static final int LAC_METADATA_LENGTH = 16;
+    static final int COMPRESSION_HEADER_LENGTH = 1 + Integer.BYTES;
+    private static final byte PAYLOAD_UNCOMPRESSED = 0;
+    private static final byte PAYLOAD_COMPRESSED = 1;
 
     final long ledgerId;
     final boolean useV2Protocol;
     private final ByteBufAllocator allocator;
     private final DigestUpdaterByteBufVisitorCallback byteBufVisitorCallback;
+    // Null when the ledger is not compressed
+    private CompressionCodec compressionCodec = null;
 
     abstract int getMacCodeLength();
 
@@ -102,6 +114,14 @@ public abstract class DigestManager {
         }
     }
 
+    public static DigestManager instantiate(long ledgerId, byte[] passwd, DigestType digestType,
+            ByteBufAllocator allocator, boolean useV2Protocol, CompressionType compressionType)
+            throws GeneralSecurityException {
+        DigestManager digestManager = instantiate(ledgerId, passwd, digestType, allocator, useV2Protocol);
+        digestManager.compressionCodec = CompressionCodec.of(compressionType);
+        return digestManager;
+    }
+
     public static byte[] generateMasterKey(byte[] password) throws NoSuchAlgorithmException {
         return password.length > 0 ? MacDigestManager.genDigest("ledger", password) : MacDigestManager.EMPTY_LEDGER_KEY;
     }
@@ -117,6 +137,9 @@ public abstract class DigestManager {
      */
     public ReferenceCounted computeDigestAndPackageForSending(long entryId, long lastAddConfirmed, long length,
                                                               ByteBuf data, byte[] masterKey, int flags) {
+        if (compressionCodec != null) {
+            data = compressPayload(data);
+        }
         if (this.useV2Protocol) {
             return computeDigestAndPackageForSendingV2(entryId, lastAddConfirmed, length, data, masterKey, flags);
         } else {
@@ -181,6 +204,26 @@ public abstract class DigestManager {
         return ByteBufList.get(headersBuffer, data);
     }
 
+    private ByteBuf compressPayload(ByteBuf data) {
+        int uncompressedLength = data.readableBytes();
+        ByteBuf compressed = compressionCodec.compress(allocator, data, COMPRESSION_HEADER_LENGTH);
+        if (compressed.readableBytes() < COMPRESSION_HEADER_LENGTH + uncompressedLength) {
+            compressed.setByte(0, PAYLOAD_COMPRESSED);
+            compressed.setInt(1, uncompressedLength);
+            data.release();
+            return compressed;
+        }
+
+        // The data doesn't compress, send it as is after the header
+        compressed.release();
+        ByteBuf header = allocator.directBuffer(COMPRESSION_HEADER_LENGTH, COMPRESSION_HEADER_LENGTH);
+        header.writeByte(PAYLOAD_UNCOMPRESSED);
+        header.writeInt(uncompressedLength);
+        CompositeByteBuf payload = allocator.compositeDirectBuffer(2);
+        payload.addComponents(true, header, data);
+        return payload;
+    }
+
     /**
      * Computes the digest for writeLac for sending.
      *
@@ -314,6 +357,9 @@ public abstract class DigestManager {
     /**
      * Verify that the digest matches and returns the data in the entry.
      *
+     * <p>The returned buffer is the received buffer, unless the entry was compressed: then it's a new buffer
+     * holding the decompressed data, which has to be released by the caller.
+     *
      * @param entryId
      * @param dataReceived
      * @return
@@ -323,9 +369,34 @@ public abstract class DigestManager {
             throws BKDigestMatchException {
         verifyDigest(entryId, dataReceived);
         dataReceived.readerIndex(METADATA_LENGTH + macCodeLength);
+        if (compressionCodec != null) {
+            return decompressPayload(entryId, dataReceived);
+        }
         return dataReceived;
     }
 
+    private ByteBuf decompressPayload(long entryId, ByteBuf payload) throws BKDigestMatchException {
+        if (payload.readableBytes() < COMPRESSION_HEADER_LENGTH) {
+            logger.error("Compressed payload too small for ledger-id: " + ledgerId + ", entry-id: " + entryId);
+            throw new BKDigestMatchException();
+        }
+        byte flag = payload.readByte();
+        int uncompressedLength = payload.readInt();
+        if (flag == PAYLOAD_UNCOMPRESSED && uncompressedLength == payload.readableBytes()) {
+            return payload;
+        } else if (flag != PAYLOAD_COMPRESSED || uncompressedLength < 0) {
+            logger.error("Invalid compressed payload header for ledger-id: " + ledgerId + ", entry-id: " + entryId);
+            throw new BKDigestMatchException();
+        }
+
+        try {
+            return compressionCodec.decompress(allocator, payload, uncompressedLength);
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to decompress payload for ledger-id: " + ledgerId + ", entry-id: " + entryId, e);
+            throw new BKDigestMatchException();
+        }
+    }
+
     /**
      * A representation of RecoveryData.
      */
@@ -0,0 +1,100 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.bookkeeper.client.api.CompressionType;
+
+/**
+ * Codec compressing the payload of the entries.
+ *
+ * <p>The compressed and decompressed buffers are allocated as direct buffers from the given allocator. All
+ * functions are thread safe.
+ */
+public interface CompressionCodec {
+
+    /**
+     * Key of the ledger custom metadata holding the {@link CompressionType} of the entries of a ledger.
+     */
+    String METADATA_KEY = "bookkeeper.compression";
+
+    /**
+     * Compress a buffer.
+     *
+     * @param allocator the allocator of the compressed buffer
+     * @param uncompressed the data to compress, its reader index is not modified
+     * @param headerLen number of bytes to reserve at the beginning of the compressed buffer
+     * @return the compressed buffer, with the reader index at the beginning of the reserved header
+     */
+    ByteBuf compress(ByteBufAllocator allocator, ByteBuf uncompressed, int headerLen);
+
+    /**
+     * Decompress a buffer.
+     *
+     * @param allocator the allocator of the decompressed buffer
+     * @param compressed the data to decompress, from its reader index to its writer index
+     * @param uncompressedLen the size of the data once decompressed
+     * @return the decompressed buffer
+     * @throws IllegalArgumentException if the data can't be decompressed
+     */
+    ByteBuf decompress(ByteBufAllocator allocator, ByteBuf compressed, int uncompressedLen);
+
+    /**
+     * Get the codec of a compression type.
+     *
+     * @return the codec, or null for {@link CompressionType#NONE}
+     */
+    static CompressionCodec of(CompressionType compressionType) {
+        switch (compressionType) {
+        case LZ4:
+            return LZ4CompressionCodec.INSTANCE;
+        case SNAPPY:
+            return SnappyCompressionCodec.INSTANCE;
+        case NONE:
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Get the compression type recorded in the custom metadata of a ledger.
+     *
+     * @return the compression type, {@link CompressionType#NONE} if the metadata doesn't have one
+     * @throws IllegalArgumentException if the compression type is not known by this client
+     */
+    static CompressionType fromCustomMetadata(Map<String, byte[]> customMetadata) {
+        byte[] value = customMetadata.get(METADATA_KEY);
+        if (value == null) {
+            return CompressionType.NONE;
+        }
+        return CompressionType.valueOf(new String(value, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the custom metadata value recording a compression type.
+     */
+    static byte[] toCustomMetadata(CompressionType compressionType) {
+        return compressionType.name().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.nio.ByteBuffer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * An {@code lz4} based {@link CompressionCodec} implementation.
+ *
+ * <p>Uses the {@link ByteBuffer} api of the codec, so direct buffers are compressed without copies.
+ */
+class LZ4CompressionCodec implements CompressionCodec {
+
+    static final LZ4CompressionCodec INSTANCE = new LZ4CompressionCodec();
+
+    private static final LZ4Factory factory = LZ4Factory.fastestJavaInstance();
+    private static final LZ4Compressor compressor = factory.fastCompressor();
+    private static final LZ4FastDecompressor decompressor = factory.fastDecompressor();
+
+    private LZ4CompressionCodec() {}
+
+    @Override
+    public ByteBuf compress(ByteBufAllocator allocator, ByteBuf uncompressed, int headerLen) {
+        int uncompressedLen = uncompressed.readableBytes();
+        int maxLen = compressor.maxCompressedLength(uncompressedLen);
+
+        ByteBuffer uncompressedNio = uncompressed.nioBuffer(uncompressed.readerIndex(), uncompressedLen);
+        ByteBuf compressed = allocator.directBuffer(headerLen + maxLen, headerLen + maxLen);
+        ByteBuffer compressedNio = compressed.nioBuffer(headerLen, maxLen);
+
+        int compressedLen = compressor.compress(uncompressedNio, uncompressedNio.position(), uncompressedLen,
+                compressedNio, compressedNio.position(), maxLen);
+        compressed.writerIndex(headerLen + compressedLen);
+        return compressed;
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBufAllocator allocator, ByteBuf compressed, int uncompressedLen) {
+        ByteBuf uncompressed = allocator.directBuffer(uncompressedLen, uncompressedLen);
+        try {
+            ByteBuffer uncompressedNio = uncompressed.nioBuffer(0, uncompressedLen);
+            ByteBuffer compressedNio = compressed.nioBuffer(compressed.readerIndex(), compressed.readableBytes());
+            int read = decompressor.decompress(compressedNio, compressedNio.position(),
+                    uncompressedNio, uncompressedNio.position(), uncompressedLen);
+            if (read != compressed.readableBytes()) {
+                throw new IllegalArgumentException("Unexpected compressed length " + compressed.readableBytes()
+                        + ", decompressed " + read + " bytes");
+            }
+        } catch (LZ4Exception | IllegalArgumentException e) {
+            uncompressed.release();
+            throw new IllegalArgumentException("Failed to decompress lz4 data", e);
+        }
+        uncompressed.writerIndex(uncompressedLen);
+        return uncompressed;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.compression.DecompressionException;
+import io.netty.handler.codec.compression.Snappy;
+
+/**
+ * A {@code snappy} based {@link CompressionCodec} implementation, using the pure java codec from netty.
+ */
+class SnappyCompressionCodec implements CompressionCodec {
+
+    static final SnappyCompressionCodec INSTANCE = new SnappyCompressionCodec();
+
+    private SnappyCompressionCodec() {}
+
+    @Override
+    public ByteBuf compress(ByteBufAllocator allocator, ByteBuf uncompressed, int headerLen) {
+        int uncompressedLen = uncompressed.readableBytes();
+        ByteBuf compressed = allocator.directBuffer(headerLen + uncompressedLen);
+        compressed.writerIndex(headerLen);
+        // The codec keeps a state, so a new instance is needed for each call
+        new Snappy().encode(uncompressed.duplicate(), compressed, uncompressedLen);
+        return compressed;
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBufAllocator allocator, ByteBuf compressed, int uncompressedLen) {
+        ByteBuf uncompressed = allocator.directBuffer(uncompressedLen, uncompressedLen);
+        try {
+            new Snappy().decode(compressed.duplicate(), uncompressed);
+        } catch (DecompressionException | IndexOutOfBoundsException e) {
+            uncompressed.release();
+            throw new IllegalArgumentException("Failed to decompress snappy data", e);
+        }
+        if (uncompressed.readableBytes() != uncompressedLen) {
+            uncompressed.release();
+            throw new IllegalArgumentException("Unexpected decompressed length " + uncompressed.readableBytes()
+                    + ", expected " + uncompressedLen);
+        }
+        return uncompressed;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bookkeeper.tools.cli.commands.bookie;
+
+import java.io.IOException;
+import org.apache.bookkeeper.bookie.storage.ldb.LocationsIndexRangeMigrationOp;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.tools.cli.helpers.BookieCommand;
+import org.apache.bookkeeper.tools.framework.CliFlags;
+import org.apache.bookkeeper.tools.framework.CliSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Command to convert the DBLedgerStorage locations index to the range format.
+ */
+public class MigrateDBLedgerLocationsIndexCommand extends BookieCommand<CliFlags> {
+
+    static final Logger LOG = LoggerFactory.getLogger(MigrateDBLedgerLocationsIndexCommand.class);
+
+    private static final String NAME = "migrate-db-ledger-locations-index";
+    private static final String DESC = "Convert DBLedgerStorage locations index to range records";
+
+    public MigrateDBLedgerLocationsIndexCommand() {
+        super(CliSpec.newBuilder().withName(NAME).withDescription(DESC).withFlags(new CliFlags()).build());
+    }
+
+    @Override
+    public boolean apply(ServerConfiguration conf, CliFlags cmdFlags) {
+        LOG.info("=== Converting DBStorage locations index to range records ===");
+        ServerConfiguration serverConfiguration = new ServerConfiguration(conf);
+        try {
+            new LocationsIndexRangeMigrationOp(serverConfiguration).initiate();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        LOG.info("-- Done converting DBStorage locations index --");
+        return true;
+    }
+}
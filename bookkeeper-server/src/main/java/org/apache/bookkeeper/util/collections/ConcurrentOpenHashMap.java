@@ -235,14 +235,26 @@ public class ConcurrentOpenHashMap<K, V> {
     public V remove(K key) {
         checkNotNull(key);
         long h = hash(key);
-        return getSection(h).remove(key, null, (int) h);
+        return getSection(h).remove(key, null, null, (int) h);
     }
 
     public boolean remove(K key, Object value) {
         checkNotNull(key);
         checkNotNull(value);
         long h = hash(key);
-        return getSection(h).remove(key, value, (int) h) != null;
+        return getSection(h).remove(key, value, null, (int) h) != null;
+    }
+
+    /**
+     * Remove the entry of the given key if it matches the filter, which is evaluated under the section lock.
+     *
+     * @return true if the entry was removed
+     */
+    public boolean removeIf(K key, BiPredicate<K, V> filter) {
+        checkNotNull(key);
+        checkNotNull(filter);
+        long h = hash(key);
+        return getSection(h).remove(key, null, filter, (int) h) != null;
     }
 
     private Section<K, V> getSection(long hash) {
@@ -446,7 +458,7 @@ public class ConcurrentOpenHashMap<K, V> {
             }
         }
 
-        private V remove(K key, Object value, int keyHash) {
+        private V remove(K key, Object value, BiPredicate<K, V> filter, int keyHash) {
             long stamp = writeLock();
             int bucket = signSafeMod(keyHash, capacity);
 
@@ -455,7 +467,8 @@ public class ConcurrentOpenHashMap<K, V> {
                     K storedKey = (K) table[bucket];
                     V storedValue = (V) table[bucket + 1];
                     if (key.equals(storedKey)) {
-                        if (value == null || value.equals(storedValue)) {
+                        if ((value == null || value.equals(storedValue))
+                                && (filter == null || filter.test(storedKey, storedValue))) {
                             --size;
                             cleanBucket(bucket);
                             return storedValue;
@@ -0,0 +1,126 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie.storage.ldb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import org.apache.bookkeeper.bookie.storage.ldb.KeyValueStorage.Batch;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link EntryLocationIndex} with the range format.
+ */
+public class EntryLocationIndexTest {
+
+    private static final long LEDGER_ID = 1;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private EntryLocationIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        ServerConfiguration conf = new ServerConfiguration();
+        conf.setProperty(DbLedgerStorage.ENTRY_LOCATION_INDEX_FORMAT, EntryLocationIndex.FORMAT_RANGE);
+        // Without the location cache, the lookups are served by the records of the index
+        conf.setProperty(DbLedgerStorage.ENTRY_LOCATION_CACHE_MAX_SIZE_MB, 0);
+        index = new EntryLocationIndex(conf, KeyValueStorageRocksDB.factory,
+                tempFolder.newFolder().getAbsolutePath(), NullStatsLogger.INSTANCE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        index.close();
+    }
+
+    private void addRun(long firstEntryId, long lastEntryId) throws IOException {
+        try (Batch batch = index.newBatch()) {
+            for (long entryId = firstEntryId; entryId <= lastEntryId; entryId++) {
+                index.addLocation(batch, LEDGER_ID, entryId, location(entryId));
+            }
+            batch.flush();
+        }
+    }
+
+    private static long location(long entryId) {
+        return (1L << 32) + entryId * 100;
+    }
+
+    private void assertLocations(long firstEntryId, long lastEntryId) throws IOException {
+        for (long entryId = firstEntryId; entryId <= lastEntryId; entryId++) {
+            assertEquals("location of entry " + entryId, location(entryId), index.getLocation(LEDGER_ID, entryId));
+        }
+    }
+
+    @Test
+    public void testRunStartOverwrite() throws Exception {
+        addRun(100, 199);
+        assertEquals(199, index.getLastEntryInLedger(LEDGER_ID));
+
+        // Rewriting the first entry of the run must not drop the rest of the run
+        index.addLocation(LEDGER_ID, 100, location(100));
+        assertLocations(100, 199);
+        assertEquals(199, index.getLastEntryInLedger(LEDGER_ID));
+
+        // Same with a new location, that doesn't fit as a delta of the run base location
+        long newLocation = (2L << 32) + 100;
+        index.addLocation(LEDGER_ID, 100, newLocation);
+        assertEquals(newLocation, index.getLocation(LEDGER_ID, 100));
+        assertLocations(101, 199);
+        assertEquals(199, index.getLastEntryInLedger(LEDGER_ID));
+    }
+
+    @Test
+    public void testMidRunOverwrite() throws Exception {
+        addRun(0, 199);
+        assertEquals(199, index.getLastEntryInLedger(LEDGER_ID));
+
+        index.addLocation(LEDGER_ID, 50, location(50));
+        assertLocations(0, 199);
+        assertEquals(199, index.getLastEntryInLedger(LEDGER_ID));
+
+        long newLocation = (2L << 32) + 50;
+        index.addLocation(LEDGER_ID, 50, newLocation);
+        assertLocations(0, 49);
+        assertEquals(newLocation, index.getLocation(LEDGER_ID, 50));
+        assertLocations(51, 199);
+        assertEquals(199, index.getLastEntryInLedger(LEDGER_ID));
+    }
+
+    @Test
+    public void testOverwriteAcrossRecords() throws Exception {
+        addRun(0, 99);
+        addRun(100, 199);
+
+        // A single batch overlapping with both records, and extending the ledger
+        addRun(50, 249);
+        assertLocations(0, 249);
+        assertEquals(249, index.getLastEntryInLedger(LEDGER_ID));
+    }
+}
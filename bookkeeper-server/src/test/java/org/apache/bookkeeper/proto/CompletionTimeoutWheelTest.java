@@ -0,0 +1,138 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.OperationType;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CompletionTimeoutWheel}.
+ */
+public class CompletionTimeoutWheelTest {
+
+    private static final long TICK_NANOS = 1000;
+    private static final long TIMEOUT_NANOS = 10 * TICK_NANOS;
+
+    // Keys of the operations still pending, the check times out the ones still there
+    private final Set<CompletionKey> pending = new HashSet<>();
+    private final List<CompletionKey> checked = new ArrayList<>();
+    private final CompletionTimeoutWheel wheel = new CompletionTimeoutWheel(TICK_NANOS, TIMEOUT_NANOS, key -> {
+        checked.add(key);
+        return pending.remove(key);
+    });
+
+    private CompletionKey schedule(long txnId, long nowNanos) {
+        CompletionKey key = new TxnCompletionKey(txnId, OperationType.READ_ENTRY);
+        pending.add(key);
+        wheel.schedule(key, TIMEOUT_NANOS, nowNanos + TIMEOUT_NANOS);
+        return key;
+    }
+
+    @Test
+    public void testExpire() {
+        long now = 1_000_000;
+        CompletionKey first = schedule(1, now);
+        CompletionKey second = schedule(2, now + 5 * TICK_NANOS);
+
+        assertEquals(0, wheel.expire(now + TIMEOUT_NANOS - 1));
+        assertTrue(checked.isEmpty());
+
+        assertEquals(1, wheel.expire(now + TIMEOUT_NANOS));
+        assertEquals(Collections.singletonList(first), checked);
+
+        // Nothing expires twice
+        assertEquals(0, wheel.expire(now + TIMEOUT_NANOS + 1));
+        assertEquals(1, checked.size());
+
+        assertEquals(1, wheel.expire(now + 5 * TICK_NANOS + TIMEOUT_NANOS));
+        assertEquals(Arrays.asList(first, second), checked);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCompletedOperation() {
+        long now = 1_000_000;
+        CompletionKey key = schedule(1, now);
+        // The operation completes before its deadline, the check is still called but doesn't time it out
+        pending.remove(key);
+
+        assertEquals(0, wheel.expire(now + TIMEOUT_NANOS));
+        assertEquals(Collections.singletonList(key), checked);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testDeadlinesAfterOneRound() {
+        long now = 1_000_000;
+        wheel.expire(now);
+        // Longer than the wheel, the deadline stays in its bucket until the right round
+        CompletionKey key = new TxnCompletionKey(1, OperationType.READ_ENTRY);
+        pending.add(key);
+        long timeoutNanos = 100 * TIMEOUT_NANOS;
+        wheel.schedule(key, timeoutNanos, now + timeoutNanos);
+
+        for (long t = now; t < now + timeoutNanos; t += TICK_NANOS) {
+            assertEquals(0, wheel.expire(t));
+        }
+        assertEquals(1, wheel.expire(now + timeoutNanos));
+    }
+
+    @Test
+    public void testV2Conflicts() {
+        long now = 1_000_000;
+        // V2 keys of the reads of the same entry are equal, each read schedules its own deadline
+        CompletionKey key = schedule(1, now);
+        CompletionKey sameKey = schedule(1, now + TICK_NANOS);
+        assertEquals(key, sameKey);
+
+        // The first deadline times out the pending operation of the key, the second one finds it gone
+        assertEquals(1, wheel.expire(now + TICK_NANOS + TIMEOUT_NANOS));
+        assertEquals(2, checked.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testOperationsWithoutTimeout() {
+        CompletionKey key = new TxnCompletionKey(1, OperationType.READ_ENTRY);
+        pending.add(key);
+        wheel.schedule(key, 0, 1_000_000);
+        wheel.schedule(key, -1, 1_000_000);
+
+        // Nothing is retained for the operations that can't time out
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.expire(Long.MAX_VALUE / 2));
+        assertTrue(checked.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTick() {
+        new CompletionTimeoutWheel(0, TIMEOUT_NANOS, key -> false);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.proto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DefaultPerChannelBookieClientPool}.
+ */
+public class DefaultPerChannelBookieClientPoolTest {
+
+    private static final BookieId BOOKIE = BookieId.parse("127.0.0.1:3181");
+
+    private final ClientConfiguration conf = new ClientConfiguration();
+    private final List<PerChannelBookieClient> created = new ArrayList<>();
+    private PerChannelBookieClientFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        factory = mock(PerChannelBookieClientFactory.class);
+        when(factory.create(eq(BOOKIE), any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            PerChannelBookieClient client = mock(PerChannelBookieClient.class);
+            when(client.isWritable()).thenReturn(true);
+            created.add(client);
+            return client;
+        });
+    }
+
+    private DefaultPerChannelBookieClientPool newPool(int coreSize, int maxSize) throws Exception {
+        return new DefaultPerChannelBookieClientPool(conf, factory, BOOKIE, coreSize, maxSize,
+                NullStatsLogger.INSTANCE);
+    }
+
+    private static long findKey(int buckets, int bucket) {
+        long key = 0;
+        while (DefaultPerChannelBookieClientPool.consistentHash(key, buckets) != bucket) {
+            key++;
+        }
+        return key;
+    }
+
+    @Test
+    public void testConsistentHashStability() {
+        for (long key = 0; key < 10000; key++) {
+            for (int buckets = 1; buckets < 8; buckets++) {
+                int bucket = DefaultPerChannelBookieClientPool.consistentHash(key, buckets);
+                assertTrue(bucket >= 0 && bucket < buckets);
+                // growing by one bucket only moves keys to the new bucket
+                int next = DefaultPerChannelBookieClientPool.consistentHash(key, buckets + 1);
+                assertTrue(next == bucket || next == buckets);
+            }
+        }
+    }
+
+    @Test
+    public void testGrowOnNonWritableChannel() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 3);
+        assertEquals(1, created.size());
+        when(created.get(0).isWritable()).thenReturn(false);
+
+        pool.resizeIfNeeded();
+        assertEquals(2, pool.activeSize);
+        assertEquals(2, created.size());
+        verify(created.get(1)).connectIfNeededAndDoOp(pool);
+
+        pool.resizeIfNeeded();
+        assertEquals(3, pool.activeSize);
+
+        // never grow beyond the max size
+        pool.resizeIfNeeded();
+        assertEquals(3, pool.activeSize);
+        assertEquals(3, created.size());
+    }
+
+    @Test
+    public void testGrowOnPendingWriteBytes() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 2);
+        when(created.get(0).getPendingWriteBytes()).thenReturn((long) conf.getClientWriteBufferLowWaterMark());
+
+        pool.resizeIfNeeded();
+        assertEquals(2, pool.activeSize);
+    }
+
+    @Test
+    public void testFixedSizePoolNeverResizes() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(2, 2);
+        when(created.get(0).isWritable()).thenReturn(false);
+
+        pool.checkTimeoutOnPendingOperations();
+        assertEquals(2, pool.activeSize);
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void testShrinkAfterIdleChecks() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 2);
+        when(created.get(0).isWritable()).thenReturn(false);
+        pool.resizeIfNeeded();
+        assertEquals(2, pool.activeSize);
+
+        when(created.get(0).isWritable()).thenReturn(true);
+        for (int i = 1; i < DefaultPerChannelBookieClientPool.SHRINK_IDLE_CHECKS; i++) {
+            pool.resizeIfNeeded();
+            assertEquals(2, pool.activeSize);
+        }
+        pool.resizeIfNeeded();
+        assertEquals(1, pool.activeSize);
+    }
+
+    @Test
+    public void testDisconnectAfterGracePeriod() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 2);
+        when(created.get(0).isWritable()).thenReturn(false);
+        pool.resizeIfNeeded();
+        when(created.get(0).isWritable()).thenReturn(true);
+
+        PerChannelBookieClient removed = created.get(1);
+        removed.state = PerChannelBookieClient.ConnectionState.CONNECTED;
+        when(removed.getNumPendingCompletionRequests()).thenReturn(1L);
+        for (int i = 0; i < DefaultPerChannelBookieClientPool.SHRINK_IDLE_CHECKS; i++) {
+            pool.resizeIfNeeded();
+        }
+        assertEquals(1, pool.activeSize);
+
+        // still in the grace period, and then still has pending requests
+        for (int i = 0; i < DefaultPerChannelBookieClientPool.DISCONNECT_GRACE_CHECKS + 1; i++) {
+            pool.resizeIfNeeded();
+        }
+        verify(removed, never()).disconnect(false);
+
+        when(removed.getNumPendingCompletionRequests()).thenReturn(0L);
+        pool.resizeIfNeeded();
+        verify(removed).disconnect(false);
+        verify(created.get(0), never()).disconnect(false);
+    }
+
+    @Test
+    public void testDisconnectNotBeforeGracePeriod() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 2);
+        when(created.get(0).isWritable()).thenReturn(false);
+        pool.resizeIfNeeded();
+        when(created.get(0).isWritable()).thenReturn(true);
+
+        PerChannelBookieClient removed = created.get(1);
+        removed.state = PerChannelBookieClient.ConnectionState.CONNECTED;
+        for (int i = 0; i < DefaultPerChannelBookieClientPool.SHRINK_IDLE_CHECKS; i++) {
+            pool.resizeIfNeeded();
+        }
+        assertEquals(1, pool.activeSize);
+        for (int i = 1; i < DefaultPerChannelBookieClientPool.DISCONNECT_GRACE_CHECKS; i++) {
+            pool.resizeIfNeeded();
+        }
+        verify(removed, never()).disconnect(false);
+
+        pool.resizeIfNeeded();
+        verify(removed).disconnect(false);
+    }
+
+    @Test
+    public void testRouteAroundNonWritableChannel() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 2);
+        PerChannelBookieClient home = created.get(0);
+        when(home.isWritable()).thenReturn(false);
+        pool.resizeIfNeeded();
+        assertEquals(2, pool.activeSize);
+        PerChannelBookieClient other = created.get(1);
+
+        long key = findKey(2, 0);
+        @SuppressWarnings("unchecked")
+        GenericCallback<PerChannelBookieClient> callback = mock(GenericCallback.class);
+        pool.obtain(callback, key);
+        verify(other).connectIfNeededAndDoOp(callback);
+        verify(home, never()).connectIfNeededAndDoOp(callback);
+
+        // the writability of the key is still the one of its own channel
+        assertFalse(pool.isWritable(key));
+        assertTrue(pool.isWritable(findKey(2, 1)));
+
+        // stay on the home channel when no channel is writable
+        when(other.isWritable()).thenReturn(false);
+        pool.obtain(callback, key);
+        verify(home).connectIfNeededAndDoOp(callback);
+    }
+
+    @Test
+    public void testKeysStayOnTheirChannelWhenGrowing() throws Exception {
+        DefaultPerChannelBookieClientPool pool = newPool(1, 3);
+        when(created.get(0).getPendingWriteBytes()).thenReturn((long) conf.getClientWriteBufferLowWaterMark());
+        pool.resizeIfNeeded();
+        assertEquals(2, pool.activeSize);
+
+        long key = findKey(2, 1);
+        @SuppressWarnings("unchecked")
+        GenericCallback<PerChannelBookieClient> callback = mock(GenericCallback.class);
+        pool.obtain(callback, key);
+        verify(created.get(1)).connectIfNeededAndDoOp(callback);
+
+        // a key either stays on its channel or moves to the new channel
+        pool.resizeIfNeeded();
+        assertEquals(3, pool.activeSize);
+        int bucket = DefaultPerChannelBookieClientPool.consistentHash(key, 3);
+        assertTrue(bucket == 1 || bucket == 2);
+        @SuppressWarnings("unchecked")
+        GenericCallback<PerChannelBookieClient> callback2 = mock(GenericCallback.class);
+        pool.obtain(callback2, key);
+        verify(created.get(bucket)).connectIfNeededAndDoOp(callback2);
+    }
+}
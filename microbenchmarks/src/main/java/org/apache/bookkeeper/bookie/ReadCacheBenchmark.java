@@ -0,0 +1,121 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.bookie.storage.ldb.ReadCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmarks comparing the copying and the zero-copy lookups of the DbLedgerStorage read cache.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+public class ReadCacheBenchmark {
+
+    private static final int LEDGERS = 16;
+
+    /**
+     * State holder of the test.
+     */
+    @State(Scope.Benchmark)
+    public static class TestState {
+
+        @Param({"false", "true"})
+        private boolean zeroCopy;
+
+        @Param({"128", "1024", "16384"})
+        private int entrySize;
+
+        private int entriesPerLedger;
+
+        private ReadCache cache;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+            long cacheSize = 256 * 1024 * 1024;
+            cache = new ReadCache(allocator, cacheSize, 64 * 1024 * 1024, zeroCopy);
+
+            // Fill half of the cache, so that the lookups are not affected by segments rollover
+            entriesPerLedger = (int) (cacheSize / 2 / LEDGERS / entrySize);
+            ByteBuf entry = Unpooled.directBuffer(entrySize, entrySize);
+            entry.writerIndex(entrySize);
+            for (long ledgerId = 0; ledgerId < LEDGERS; ledgerId++) {
+                for (long entryId = 0; entryId < entriesPerLedger; entryId++) {
+                    cache.put(ledgerId, entryId, entry);
+                }
+            }
+            entry.release();
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() {
+            cache.close();
+        }
+    }
+
+    @Benchmark
+    public void get(TestState s, Blackhole bh) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        ByteBuf entry = s.cache.get(r.nextInt(LEDGERS), r.nextInt(s.entriesPerLedger));
+        bh.consume(entry.getByte(0));
+        entry.release();
+    }
+
+    @Benchmark
+    public void getWithConcurrentPut(TestState s, Blackhole bh) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        long ledgerId = r.nextInt(LEDGERS);
+        long entryId = r.nextInt(s.entriesPerLedger);
+        ByteBuf entry = s.cache.get(ledgerId, entryId);
+        if (entry != null) {
+            // Re-insert the entry to keep the segments rotating while the other threads are reading
+            s.cache.put(ledgerId, entryId, entry);
+            bh.consume(entry.getByte(0));
+            entry.release();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.client;
+
+import io.netty.util.HashedWheelTimer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.bookkeeper.client.BookieInfoReader.BookieInfo;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.feature.SettableFeatureProvider;
+import org.apache.bookkeeper.net.BookieId;
+import org.apache.bookkeeper.net.BookieSocketAddress;
+import org.apache.bookkeeper.net.DNSToSwitchMapping;
+import org.apache.bookkeeper.net.NetworkTopology;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Simulation of the ensemble placement of the {@link RackawareEnsemblePlacementPolicy} over a racked topology,
+ * with and without load based placement.
+ *
+ * <p>Each ledger placed adds some pending requests to the bookies of its ensemble, and the pending requests of all
+ * the bookies decay over time as the ledgers complete. A few hot bookies have an extra constant backlog and a long
+ * journal queue. The benchmark measures the cost of the placement, and the distribution of the load across the
+ * bookies is printed at the end of each trial: with load based placement, the hot bookies get less new ledgers
+ * and the max load gets closer to the mean.
+ */
+@BenchmarkMode({Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class EnsemblePlacementBenchmark {
+
+    private static final int LEDGER_PENDING_REQUESTS = 8;
+    // Pending requests of a bookie decay by 1/2^DECAY_SHIFT for each ledger placed
+    private static final int DECAY_SHIFT = 6;
+    private static final long HOT_BOOKIE_BACKLOG = 64;
+    private static final long HOT_BOOKIE_JOURNAL_QUEUE_LENGTH = 1000;
+    private static final long ADD_LATENCY_NANOS_PER_PENDING_REQUEST = TimeUnit.MICROSECONDS.toNanos(20);
+
+    @Param({"false", "true"})
+    boolean loadBased;
+
+    @Param({"3"})
+    int numRacks;
+
+    @Param({"10"})
+    int bookiesPerRack;
+
+    @Param({"3"})
+    int hotBookies;
+
+    private HashedWheelTimer timer;
+    private RackawareEnsemblePlacementPolicy policy;
+    private final Map<BookieId, Integer> bookieIndexes = new HashMap<>();
+    private long[] pendingRequests;
+    private long[] placements;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ClientConfiguration conf = new ClientConfiguration();
+        conf.setLoadBasedPlacementEnabled(loadBased);
+
+        timer = new HashedWheelTimer();
+        policy = new RackawareEnsemblePlacementPolicy();
+        policy.initialize(conf, Optional.of(new RackResolver()), timer, SettableFeatureProvider.DISABLE_ALL,
+                NullStatsLogger.INSTANCE, BookieSocketAddress.LEGACY_BOOKIEID_RESOLVER);
+
+        int numBookies = numRacks * bookiesPerRack;
+        pendingRequests = new long[numBookies];
+        placements = new long[numBookies];
+        Set<BookieId> bookies = new HashSet<>();
+        Map<BookieId, BookieInfo> bookieInfos = new HashMap<>();
+        for (int i = 0; i < numBookies; i++) {
+            BookieId bookie = BookieId.parse("bookie-" + (i % numRacks) + "-" + i + ":3181");
+            bookies.add(bookie);
+            bookieIndexes.put(bookie, i);
+            pendingRequests[i] = backlog(i);
+            bookieInfos.put(bookie, new BookieInfo(0L, 0L, isHot(i) ? HOT_BOOKIE_JOURNAL_QUEUE_LENGTH : 0L));
+        }
+        policy.onClusterChanged(bookies, Collections.emptySet());
+
+        if (loadBased) {
+            policy.registerBookiesLoadInfo(new BookiesLoadInfo() {
+                @Override
+                public long getBookiePendingRequests(BookieId bookieId) {
+                    return pendingRequests[bookieIndexes.get(bookieId)];
+                }
+
+                @Override
+                public long getBookieAddLatencyNanos(BookieId bookieId) {
+                    return pendingRequests[bookieIndexes.get(bookieId)] * ADD_LATENCY_NANOS_PER_PENDING_REQUEST;
+                }
+            });
+            policy.updateBookieInfo(bookieInfos);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        long hotPlacements = 0;
+        long totalPlacements = 0;
+        long maxPending = 0;
+        long totalPending = 0;
+        for (int i = 0; i < placements.length; i++) {
+            totalPlacements += placements[i];
+            if (isHot(i)) {
+                hotPlacements += placements[i];
+            }
+            maxPending = Math.max(maxPending, pendingRequests[i]);
+            totalPending += pendingRequests[i];
+        }
+        System.out.printf("%nloadBased=%s: %.1f%% of the placements on the %d hot bookies (fair share %.1f%%),"
+                        + " max/mean pending requests %.2f%n",
+                loadBased, 100.0 * hotPlacements / Math.max(1, totalPlacements), hotBookies,
+                100.0 * hotBookies / placements.length,
+                (double) maxPending * placements.length / Math.max(1, totalPending));
+
+        policy.uninitalize();
+        timer.stop();
+    }
+
+    private boolean isHot(int bookieIndex) {
+        return bookieIndex < hotBookies;
+    }
+
+    private long backlog(int bookieIndex) {
+        return isHot(bookieIndex) ? HOT_BOOKIE_BACKLOG : 0L;
+    }
+
+    @Benchmark
+    public List<BookieId> placeLedger() throws Exception {
+        for (int i = 0; i < pendingRequests.length; i++) {
+            pendingRequests[i] -= (pendingRequests[i] - backlog(i)) >> DECAY_SHIFT;
+        }
+
+        List<BookieId> ensemble = policy.newEnsemble(3, 3, 2, Collections.emptyMap(), new HashSet<>()).getResult();
+        for (BookieId bookie : ensemble) {
+            int idx = bookieIndexes.get(bookie);
+            pendingRequests[idx] += LEDGER_PENDING_REQUESTS;
+            placements[idx]++;
+        }
+        return ensemble;
+    }
+
+    /**
+     * Resolves the bookies named bookie-[rack]-[index] to their rack.
+     */
+    private static class RackResolver implements DNSToSwitchMapping {
+        @Override
+        public List<String> resolve(List<String> names) {
+            return names.stream()
+                    .map(name -> name.startsWith("bookie-")
+                            ? "/rack-" + name.split("-")[1] : NetworkTopology.DEFAULT_RACK)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        @Override
+        public void reloadCachedMappings() {
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.bookkeeper.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.common.util.nativeio.IoRing;
+import org.apache.bookkeeper.common.util.nativeio.NativeIO;
+import org.apache.bookkeeper.common.util.nativeio.NativeIOImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks comparing the O_DIRECT block reads done with a single pread, as the direct entry logger readers
+ * do by default, and with a batch of chunk reads submitted to an {@link IoRing}.
+ *
+ * <p>The file is created in the directory set by the "ioRingBenchmark.dir" system property, which should point to
+ * a local NVMe drive or a tmpfs mount, since O_DIRECT is not supported by all filesystems.
+ */
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+public class IoRingBenchmark {
+
+    private static final int ALIGNMENT = 4096;
+    private static final long FILE_SIZE = 1024L * 1024 * 1024;
+
+    /**
+     * The file read by all the threads.
+     */
+    @State(Scope.Benchmark)
+    public static class FileState {
+        private final NativeIO nativeIO = new NativeIOImpl();
+        private File file;
+        private int fd;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            File dir = new File(System.getProperty("ioRingBenchmark.dir", System.getProperty("java.io.tmpdir")));
+            file = File.createTempFile("io-ring-benchmark", ".log", dir);
+
+            int writeFd = nativeIO.open(file.toString(), NativeIO.O_CREAT | NativeIO.O_WRONLY | NativeIO.O_DIRECT,
+                                        00644);
+            int bufferSize = 1024 * 1024;
+            long buffer = nativeIO.posix_memalign(ALIGNMENT, bufferSize);
+            for (long offset = 0; offset < FILE_SIZE; offset += bufferSize) {
+                nativeIO.pwrite(writeFd, buffer, bufferSize, offset);
+            }
+            nativeIO.fsync(writeFd);
+            nativeIO.close(writeFd);
+            nativeIO.free(buffer);
+
+            fd = nativeIO.open(file.toString(), NativeIO.O_RDONLY | NativeIO.O_DIRECT, 00644);
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() throws IOException {
+            nativeIO.close(fd);
+            file.delete();
+        }
+    }
+
+    /**
+     * The read buffer and the ring of each thread, as in the direct entry logger readers.
+     */
+    @State(Scope.Thread)
+    public static class ReaderState {
+        @Param({"1048576", "8388608"})
+        private int blockSize;
+
+        @Param({"65536", "262144"})
+        private int chunkSize;
+
+        @Param({"16"})
+        private int ringDepth;
+
+        private final NativeIO nativeIO = new NativeIOImpl();
+        private long buffer;
+        private IoRing ring;
+        private long[] userData;
+        private int[] results;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            buffer = nativeIO.posix_memalign(ALIGNMENT, blockSize);
+            ring = IoRing.create(nativeIO, ringDepth);
+            userData = new long[ringDepth];
+            results = new int[ringDepth];
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() throws IOException {
+            ring.close();
+            nativeIO.free(buffer);
+        }
+
+        long randomBlock() {
+            return ThreadLocalRandom.current().nextLong(FILE_SIZE / blockSize) * blockSize;
+        }
+    }
+
+    @Benchmark
+    public long pread(FileState f, ReaderState r) throws IOException {
+        return f.nativeIO.pread(f.fd, r.buffer, r.blockSize, r.randomBlock());
+    }
+
+    @Benchmark
+    public long ring(FileState f, ReaderState r) throws IOException {
+        long blockStart = r.randomBlock();
+        int numChunks = r.blockSize / r.chunkSize;
+        int prepared = 0;
+        int completed = 0;
+        long bytesRead = 0;
+        while (completed < numChunks) {
+            while (prepared < numChunks
+                    && r.ring.prepareRead(f.fd, r.buffer + (long) prepared * r.chunkSize, r.chunkSize,
+                                          blockStart + (long) prepared * r.chunkSize, prepared)) {
+                prepared++;
+            }
+            r.ring.submit();
+            int reaped = r.ring.reap(r.userData, r.results, true);
+            for (int i = 0; i < reaped; i++) {
+                bytesRead += r.results[i];
+            }
+            completed += reaped;
+        }
+        return bytesRead;
+    }
+}
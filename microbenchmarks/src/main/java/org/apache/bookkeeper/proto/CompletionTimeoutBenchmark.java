@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.OperationType;
+import org.apache.bookkeeper.util.collections.ConcurrentOpenHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarking the periodic timeout check of the pending operations of a channel, scanning the whole map of
+ * pending operations vs going through the timing wheel.
+ *
+ * <p>Each invocation is a tick of the timeout task: a slice of the pending operations completes, the same number
+ * of new operations is added, then the timeouts are checked. As in the common case, nothing times out.
+ */
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CompletionTimeoutBenchmark {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // Operations complete within this number of ticks
+    private static final int TICKS_TO_COMPLETE = 10;
+
+    private static final BiPredicate<CompletionKey, CompletionValue> timeoutCheck =
+            (key, value) -> value.maybeTimeout();
+
+    @Param({"1000", "10000", "100000"})
+    int pending;
+
+    private ConcurrentOpenHashMap<CompletionKey, CompletionValue> completionObjects;
+    private CompletionTimeoutWheel wheel;
+    private ArrayDeque<CompletionKey> inFlight;
+    private long nextTxnId;
+    private long now;
+
+    @Setup
+    public void prepare() {
+        completionObjects = ConcurrentOpenHashMap.<CompletionKey, CompletionValue>newBuilder()
+                .autoShrink(true).build();
+        wheel = new CompletionTimeoutWheel(TICK_NANOS, TIMEOUT_NANOS,
+                key -> completionObjects.removeIf(key, timeoutCheck));
+        inFlight = new ArrayDeque<>(pending);
+        nextTxnId = 0;
+        now = 0;
+        for (int i = 0; i < pending; i++) {
+            addOperation(true);
+        }
+    }
+
+    private void addOperation(boolean useWheel) {
+        CompletionKey key = new TxnCompletionKey(nextTxnId++, OperationType.ADD_ENTRY);
+        completionObjects.put(key, new PendingOperation());
+        if (useWheel) {
+            wheel.schedule(key, TIMEOUT_NANOS, now + TIMEOUT_NANOS);
+        }
+        inFlight.add(key);
+    }
+
+    private void churn(boolean useWheel) {
+        now += TICK_NANOS;
+        int completed = Math.max(1, pending / TICKS_TO_COMPLETE);
+        for (int i = 0; i < completed; i++) {
+            completionObjects.remove(inFlight.poll());
+            addOperation(useWheel);
+        }
+    }
+
+    @Benchmark
+    public int scanMap() {
+        churn(false);
+        return completionObjects.removeIf(timeoutCheck);
+    }
+
+    @Benchmark
+    public int timingWheel() {
+        churn(true);
+        return wheel.expire(now);
+    }
+
+    private static class PendingOperation extends CompletionValue {
+        PendingOperation() {
+            super("Benchmark", null, 0, 0, null);
+        }
+
+        @Override
+        long timeoutNanos() {
+            return TIMEOUT_NANOS;
+        }
+
+        @Override
+        public void errorOut() {
+        }
+
+        @Override
+        public void errorOut(int rc) {
+        }
+
+        @Override
+        public void handleV3Response(BookkeeperProtocol.Response response) {
+        }
+    }
+}
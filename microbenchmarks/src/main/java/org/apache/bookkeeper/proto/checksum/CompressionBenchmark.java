@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bookkeeper.proto.checksum;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.client.api.CompressionType;
+import org.apache.bookkeeper.proto.DataFormats.LedgerMetadataFormat.DigestType;
+import org.apache.bookkeeper.util.ByteBufList;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the payload compression applied by the {@link DigestManager}.
+ *
+ * <p>Measures the cost of packaging and of verifying an entry with each compression type. The
+ * {@link ByteCounters} report the bytes before and after compression, so the CPU cost can be compared with the
+ * bytes saved on the network and on the bookie disks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final String[] WORDS = {
+        "ledger", "entry", "bookie", "journal", "ensemble", "quorum", "digest", "metadata", "{\"id\":", "\"ts\":",
+        "\"value\":", "\"status\":\"OK\"", "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", ",", " ", "}"
+    };
+
+    /**
+     * Payload of the entries.
+     */
+    public enum Data {
+        // Random bytes, not compressible
+        RANDOM,
+        // Text made of a small set of words, like json records or logs
+        TEXT
+    }
+
+    /**
+     * State of the benchmark.
+     */
+    @State(Scope.Thread)
+    public static class MyState {
+
+        @Param({"NONE", "LZ4", "SNAPPY"})
+        public CompressionType compressionType;
+
+        @Param({"TEXT", "RANDOM"})
+        public Data data;
+
+        @Param({"1024", "65536"})
+        public int entrySize;
+
+        private DigestManager dm;
+        private ByteBuf payload;
+        private ByteBuf packaged;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws Exception {
+            dm = DigestManager.instantiate(1L, "password".getBytes(StandardCharsets.UTF_8), DigestType.CRC32C,
+                    PooledByteBufAllocator.DEFAULT, false, compressionType);
+
+            Random random = new Random(1);
+            payload = PooledByteBufAllocator.DEFAULT.directBuffer(entrySize, entrySize);
+            if (data == Data.RANDOM) {
+                byte[] bytes = new byte[entrySize];
+                random.nextBytes(bytes);
+                payload.writeBytes(bytes);
+            } else {
+                while (payload.isWritable()) {
+                    byte[] word = WORDS[random.nextInt(WORDS.length)].getBytes(StandardCharsets.UTF_8);
+                    payload.writeBytes(word, 0, Math.min(word.length, payload.writableBytes()));
+                }
+            }
+
+            ByteBufList list = (ByteBufList) dm.computeDigestAndPackageForSending(1L, 0L, entrySize,
+                    payload.retainedDuplicate(), new byte[0], 0);
+            packaged = ByteBufList.coalesce(list);
+            list.release();
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            payload.release();
+            packaged.release();
+        }
+    }
+
+    /**
+     * Bytes before and after compression.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ByteCounters {
+        public long uncompressedBytes;
+        public long packagedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uncompressedBytes = 0;
+            packagedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public void compressAndDigest(MyState state, ByteCounters counters) {
+        ByteBufList list = (ByteBufList) state.dm.computeDigestAndPackageForSending(1L, 0L, state.entrySize,
+                state.payload.retainedDuplicate(), new byte[0], 0);
+        counters.uncompressedBytes += state.entrySize;
+        counters.packagedBytes += list.readableBytes();
+        list.release();
+    }
+
+    @Benchmark
+    public void verifyAndDecompress(MyState state) throws Exception {
+        state.packaged.readerIndex(0);
+        ByteBuf content = state.dm.verifyDigestAndReturnData(1L, state.packaged);
+        if (content != state.packaged) {
+            content.release();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog;
+
+import io.netty.buffer.ByteBuf;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.distributedlog.io.CompressionCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmarks of the decoding of the log records of an entry by the {@link Entry.Reader}.
+ *
+ * <p>Compares the reader copying the payload of each record with the reader returning records holding a slice of
+ * the decompressed entry. The {@link RecordCounters} report the records read per second. Run with
+ * {@code -prof gc} to compare the allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+public class EntryReaderBenchmark {
+
+    /**
+     * State of the benchmark.
+     */
+    @State(Scope.Thread)
+    public static class MyState {
+
+        @Param({"NONE", "LZ4"})
+        public CompressionCodec.Type codec;
+
+        @Param({"100", "1024"})
+        public int recordSize;
+
+        @Param({"true", "false"})
+        public boolean copyRecordPayloads;
+
+        @Param({"65536"})
+        public int entrySize;
+
+        private ByteBuf entry;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws Exception {
+            Random random = new Random(1);
+            Entry.Writer writer = Entry.newEntry("benchmark", entrySize, true, codec);
+            long txId = 1L;
+            while (writer.getNumBytes() + recordSize < entrySize) {
+                byte[] payload = new byte[recordSize];
+                // half random, half zeros, so lz4 has something to compress
+                for (int i = 0; i < recordSize / 2; i++) {
+                    payload[i] = (byte) random.nextInt();
+                }
+                writer.writeRecord(new LogRecord(txId++, payload), new CompletableFuture<>());
+            }
+            entry = writer.getBuffer();
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            entry.release();
+        }
+    }
+
+    /**
+     * Number of records read.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RecordCounters {
+        public long records;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            records = 0;
+        }
+    }
+
+    @Benchmark
+    public void readEntry(MyState state, RecordCounters counters, Blackhole bh) throws Exception {
+        Entry.Reader reader = Entry.newBuilder()
+                .setLogSegmentInfo(1L, 0L)
+                .setEntryId(0L)
+                .setEntry(state.entry)
+                .copyRecordPayloads(state.copyRecordPayloads)
+                .buildReader();
+        LogRecordWithDLSN record;
+        while (null != (record = reader.nextRecord())) {
+            // Same access to the payload in both modes, so only the decoding differs
+            ByteBuf payload = record.getPayloadBuf();
+            bh.consume(payload.getByte(payload.readerIndex()));
+            record.release();
+            ++counters.records;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog;
+
+import io.netty.buffer.ByteBuf;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.bookkeeper.client.AsyncCallback;
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.common.concurrent.FutureUtils;
+import org.apache.bookkeeper.common.util.OrderedScheduler;
+import org.apache.bookkeeper.feature.SettableFeatureProvider;
+import org.apache.bookkeeper.stats.AlertStatsLogger;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.distributedlog.common.util.PermitLimiter;
+import org.apache.distributedlog.lock.DistributedLock;
+import org.apache.distributedlog.logsegment.LogSegmentEntryWriter;
+import org.apache.distributedlog.util.ConfUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the write path of the {@link BKLogSegmentWriter} with several writer threads.
+ *
+ * <p>The entries are acknowledged as soon as they are added, so only the record appends and the transmit stage
+ * are measured. The records are appended under the writer monitor, so the throughput is not expected to scale
+ * with the number of writers: the benchmark measures how much the transmit stage, which envelopes, compresses
+ * and adds the sealed packets concurrently with the appends, gains over a single writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LogSegmentWriterBenchmark {
+
+    /**
+     * Writer shared by the benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class WriterState {
+
+        @Param({"none", "lz4"})
+        public String compressionType;
+
+        @Param({"100", "1024"})
+        public int recordSize;
+
+        @Param({"65536"})
+        public int outputBufferSize;
+
+        private OrderedScheduler scheduler;
+        private BKLogSegmentWriter writer;
+        private byte[] payload;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws Exception {
+            DistributedLogConfiguration conf = new DistributedLogConfiguration()
+                    .setCompressionType(compressionType)
+                    .setOutputBufferSize(outputBufferSize)
+                    .setImmediateFlushEnabled(false)
+                    .setPerWriterOutstandingWriteLimit(-1);
+            scheduler = OrderedScheduler.newSchedulerBuilder()
+                    .name("benchmark-log-segment-writer")
+                    .numThreads(1)
+                    .build();
+            writer = new BKLogSegmentWriter(
+                    "benchmark",
+                    "benchmark-segment",
+                    conf,
+                    LogSegmentMetadata.LEDGER_METADATA_CURRENT_LAYOUT_VERSION,
+                    new AckingEntryWriter(),
+                    new NopLock(),
+                    1L,
+                    1L,
+                    scheduler,
+                    NullStatsLogger.INSTANCE,
+                    NullStatsLogger.INSTANCE,
+                    new AlertStatsLogger(NullStatsLogger.INSTANCE, "benchmark"),
+                    PermitLimiter.NULL_PERMIT_LIMITER,
+                    SettableFeatureProvider.DISABLE_ALL,
+                    ConfUtils.getConstDynConf(conf));
+            payload = new byte[recordSize];
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() throws Exception {
+            FutureUtils.result(writer.asyncClose());
+            scheduler.shutdown();
+        }
+
+        CompletableFuture<DLSN> write() {
+            // The writers share the transaction id, so that they don't log the ids going backwards
+            return writer.asyncWrite(new LogRecord(1L, payload));
+        }
+    }
+
+    /**
+     * Bounds the outstanding writes of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        @Param({"1000"})
+        public int maxOutstandingWrites;
+
+        private int writes;
+
+        CompletableFuture<DLSN> write(WriterState state) throws Exception {
+            CompletableFuture<DLSN> future = state.write();
+            if (++writes % maxOutstandingWrites == 0) {
+                // The writes complete in order, waiting for the last one waits for all of them
+                FutureUtils.result(future);
+            }
+            return future;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CompletableFuture<DLSN> write1Thread(WriterState state, ThreadState thread) throws Exception {
+        return thread.write(state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CompletableFuture<DLSN> write4Threads(WriterState state, ThreadState thread) throws Exception {
+        return thread.write(state);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public CompletableFuture<DLSN> write16Threads(WriterState state, ThreadState thread) throws Exception {
+        return thread.write(state);
+    }
+
+    /**
+     * Acknowledges the entries as soon as they are added.
+     */
+    private static class AckingEntryWriter implements LogSegmentEntryWriter {
+
+        // Only called from the transmit stage, one packet at a time
+        private long nextEntryId = 0L;
+
+        @Override
+        public long getLogSegmentId() {
+            return 1L;
+        }
+
+        @Override
+        public void asyncClose(AsyncCallback.CloseCallback callback, Object ctx) {
+            callback.closeComplete(BKException.Code.OK, null, ctx);
+        }
+
+        @Override
+        public void asyncAddEntry(ByteBuf entry, AsyncCallback.AddCallback callback, Object ctx) {
+            entry.release();
+            callback.addComplete(BKException.Code.OK, null, nextEntryId++, ctx);
+        }
+
+        @Override
+        public long size() {
+            return 0L;
+        }
+    }
+
+    /**
+     * Lock that is always owned.
+     */
+    private static class NopLock implements DistributedLock {
+
+        @Override
+        public CompletableFuture<? extends DistributedLock> asyncAcquire() {
+            return FutureUtils.value(this);
+        }
+
+        @Override
+        public void checkOwnershipAndReacquire() {
+        }
+
+        @Override
+        public void checkOwnership() {
+        }
+
+        @Override
+        public CompletableFuture<Void> asyncClose() {
+            return FutureUtils.Void();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.common.util.nativeio;
+
+/**
+ * A submission/completion queue for asynchronous reads and writes.
+ *
+ * <p>Operations are first prepared, then handed over to the kernel in a single {@link #submit()} call, and their
+ * results are collected with {@link #reap(long[], int[], boolean)}. Each operation carries a user data value that
+ * is returned with its completion, and completions can be reaped in any order.
+ *
+ * <p>A ring is not thread safe, callers need to serialize the access to it.
+ */
+public interface IoRing extends AutoCloseable {
+
+    /**
+     * Prepare a read of {@code size} bytes at {@code offset} into the memory at {@code pointer}.
+     *
+     * @return false if the ring is full and some completions need to be reaped first
+     */
+    boolean prepareRead(int fd, long pointer, int size, long offset, long userData) throws NativeIOException;
+
+    /**
+     * Prepare a write of {@code size} bytes from the memory at {@code pointer} at {@code offset}.
+     *
+     * @return false if the ring is full and some completions need to be reaped first
+     */
+    boolean prepareWrite(int fd, long pointer, int size, long offset, long userData) throws NativeIOException;
+
+    /**
+     * Submit the prepared operations.
+     *
+     * @return the number of operations submitted
+     */
+    int submit() throws NativeIOException;
+
+    /**
+     * Collect the completed operations. For each completion, the user data of the operation and its result are
+     * stored at the same index of the two arrays. The result is the number of bytes transferred or, on failure, the
+     * negated errno.
+     *
+     * @param wait whether to block until at least one operation completes, when there are operations in flight
+     * @return the number of completions collected
+     */
+    int reap(long[] userData, int[] results, boolean wait) throws NativeIOException;
+
+    /**
+     * @return the max number of operations that can be prepared or in flight at the same time
+     */
+    int depth();
+
+    /**
+     * @return whether the ring is backed by io_uring or by the synchronous fallback
+     */
+    boolean isIoUring();
+
+    @Override
+    void close() throws NativeIOException;
+
+    /**
+     * Create a ring, backed by io_uring when the native library and the kernel support it, or by a fallback that
+     * executes the operations synchronously at submit time otherwise. Kernels older than 5.6 have io_uring, but
+     * without the read and write operations, and get the fallback too.
+     */
+    static IoRing create(NativeIO nativeIO, int depth) {
+        if (nativeIO instanceof NativeIOImpl) {
+            try {
+                return new IoUringRing(depth);
+            } catch (NativeIOException | LinkageError e) {
+                // io_uring, or its read and write operations, are not available on this host
+            }
+        }
+        return new SyncIoRing(nativeIO, depth);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.common.util.nativeio;
+
+/**
+ * IoRing backed by a Linux io_uring instance.
+ */
+class IoUringRing implements IoRing {
+
+    private static final int OP_READ = 0;
+    private static final int OP_WRITE = 1;
+
+    private final int depth;
+    private long ring;
+
+    // Operations prepared but not yet submitted, and submitted but not yet reaped
+    private int queued = 0;
+    private int inFlight = 0;
+
+    IoUringRing(int depth) throws NativeIOException {
+        this.depth = depth;
+        this.ring = NativeIOJni.ioUringSetup(depth);
+    }
+
+    @Override
+    public boolean prepareRead(int fd, long pointer, int size, long offset, long userData)
+            throws NativeIOException {
+        return prepare(OP_READ, fd, pointer, size, offset, userData);
+    }
+
+    @Override
+    public boolean prepareWrite(int fd, long pointer, int size, long offset, long userData)
+            throws NativeIOException {
+        return prepare(OP_WRITE, fd, pointer, size, offset, userData);
+    }
+
+    private boolean prepare(int opcode, int fd, long pointer, int size, long offset, long userData)
+            throws NativeIOException {
+        // Never have more operations outstanding than the completion queue can hold
+        if (queued + inFlight >= depth
+                || NativeIOJni.ioUringPrepare(ring, opcode, fd, pointer, size, offset, userData) != 0) {
+            return false;
+        }
+        queued++;
+        return true;
+    }
+
+    @Override
+    public int submit() throws NativeIOException {
+        if (queued == 0) {
+            return 0;
+        }
+        int submitted = NativeIOJni.ioUringSubmit(ring);
+        queued -= submitted;
+        inFlight += submitted;
+        return submitted;
+    }
+
+    @Override
+    public int reap(long[] userData, int[] results, boolean wait) throws NativeIOException {
+        int reaped = NativeIOJni.ioUringReap(ring, userData, results, wait && inFlight > 0);
+        inFlight -= reaped;
+        return reaped;
+    }
+
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    @Override
+    public boolean isIoUring() {
+        return true;
+    }
+
+    @Override
+    public void close() throws NativeIOException {
+        if (ring != 0) {
+            NativeIOJni.ioUringClose(ring);
+            ring = 0;
+        }
+    }
+}
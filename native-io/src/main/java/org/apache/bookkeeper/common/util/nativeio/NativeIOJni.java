@@ -49,6 +49,23 @@ class NativeIOJni {
 
     static native int close(int fd) throws NativeIOException;
 
+    /**
+     * io_uring is a linux-only interface, available since kernel 5.6 for the operations used here, so callers
+     * must handle the possibility that it does not exist. The setup fails if the kernel has io_uring but doesn't
+     * support these operations.
+     */
+    static native long ioUringSetup(int entries) throws NativeIOException;
+
+    static native int ioUringPrepare(long ring, int opcode, int fd, long pointer, int size, long offset,
+                                     long userData) throws NativeIOException;
+
+    static native int ioUringSubmit(long ring) throws NativeIOException;
+
+    static native int ioUringReap(long ring, long[] userData, int[] results, boolean wait)
+            throws NativeIOException;
+
+    static native void ioUringClose(long ring) throws NativeIOException;
+
     static {
         try {
             if (SystemUtils.IS_OS_MAC_OSX) {
@@ -0,0 +1,137 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.common.util.nativeio;
+
+/**
+ * IoRing fallback, for the hosts without io_uring support.
+ *
+ * <p>The prepared operations are executed one after the other with pread/pwrite on {@link #submit()}, so all of
+ * them are already completed when the submit returns.
+ */
+class SyncIoRing implements IoRing {
+
+    private static final int OP_READ = 0;
+    private static final int OP_WRITE = 1;
+
+    private final NativeIO nativeIO;
+    private final int depth;
+
+    private final int[] opcodes;
+    private final int[] fds;
+    private final long[] pointers;
+    private final int[] sizes;
+    private final long[] offsets;
+    private final long[] prepared;
+    private int numPrepared = 0;
+
+    private final long[] completed;
+    private final int[] completedResults;
+    private int completedHead = 0;
+    private int numCompleted = 0;
+
+    SyncIoRing(NativeIO nativeIO, int depth) {
+        this.nativeIO = nativeIO;
+        this.depth = depth;
+        this.opcodes = new int[depth];
+        this.fds = new int[depth];
+        this.pointers = new long[depth];
+        this.sizes = new int[depth];
+        this.offsets = new long[depth];
+        this.prepared = new long[depth];
+        this.completed = new long[depth];
+        this.completedResults = new int[depth];
+    }
+
+    @Override
+    public boolean prepareRead(int fd, long pointer, int size, long offset, long userData) {
+        return prepare(OP_READ, fd, pointer, size, offset, userData);
+    }
+
+    @Override
+    public boolean prepareWrite(int fd, long pointer, int size, long offset, long userData) {
+        return prepare(OP_WRITE, fd, pointer, size, offset, userData);
+    }
+
+    private boolean prepare(int opcode, int fd, long pointer, int size, long offset, long userData) {
+        if (numPrepared + numCompleted >= depth) {
+            return false;
+        }
+        int i = numPrepared++;
+        opcodes[i] = opcode;
+        fds[i] = fd;
+        pointers[i] = pointer;
+        sizes[i] = size;
+        offsets[i] = offset;
+        prepared[i] = userData;
+        return true;
+    }
+
+    @Override
+    public int submit() {
+        int submitted = numPrepared;
+        for (int i = 0; i < submitted; i++) {
+            int result;
+            try {
+                if (opcodes[i] == OP_READ) {
+                    result = (int) nativeIO.pread(fds[i], pointers[i], sizes[i], offsets[i]);
+                } else {
+                    result = nativeIO.pwrite(fds[i], pointers[i], sizes[i], offsets[i]);
+                }
+            } catch (NativeIOException e) {
+                result = e.getErrno() > 0 ? -e.getErrno() : -1;
+            }
+
+            int slot = (completedHead + numCompleted) % depth;
+            completed[slot] = prepared[i];
+            completedResults[slot] = result;
+            numCompleted++;
+        }
+        numPrepared = 0;
+        return submitted;
+    }
+
+    @Override
+    public int reap(long[] userData, int[] results, boolean wait) {
+        int reaped = 0;
+        while (numCompleted > 0 && reaped < userData.length) {
+            userData[reaped] = completed[completedHead];
+            results[reaped] = completedResults[completedHead];
+            completedHead = (completedHead + 1) % depth;
+            numCompleted--;
+            reaped++;
+        }
+        return reaped;
+    }
+
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    @Override
+    public boolean isIoUring() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
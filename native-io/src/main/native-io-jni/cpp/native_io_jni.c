@@ -28,6 +28,15 @@
 
 #include <org_apache_bookkeeper_common_util_nativeio_NativeIOJni.h>
 
+#if defined(__linux__) && defined(__has_include)
+#if __has_include(<linux/io_uring.h>)
+#define HAVE_IO_URING 1
+#include <linux/io_uring.h>
+#include <sys/mman.h>
+#include <sys/syscall.h>
+#endif
+#endif
+
 #ifdef _WIN32
 
 #define fsync(fd) fflush(fd)
@@ -311,3 +320,288 @@ JNIEXPORT void JNICALL Java_org_apache_bookkeeper_common_util_nativeio_NativeIOJ
      free((const void*) pointer);
 }
 
+#ifdef HAVE_IO_URING
+
+/*
+ * Minimal io_uring ring, driven with the raw syscalls to avoid a dependency on liburing.
+ */
+struct io_ring {
+    int fd;
+    unsigned *sq_head;
+    unsigned *sq_tail;
+    unsigned *sq_mask;
+    unsigned *sq_entries;
+    unsigned *sq_array;
+    unsigned *cq_head;
+    unsigned *cq_tail;
+    unsigned *cq_mask;
+    struct io_uring_sqe *sqes;
+    struct io_uring_cqe *cqes;
+    void *sq_ptr;
+    size_t sq_len;
+    void *cq_ptr;
+    size_t cq_len;
+    size_t sqes_len;
+    unsigned to_submit;
+};
+
+static void io_ring_unmap(struct io_ring *ring) {
+    if (ring->sqes != NULL && ring->sqes != MAP_FAILED) {
+        munmap(ring->sqes, ring->sqes_len);
+    }
+    if (ring->cq_ptr != NULL && ring->cq_ptr != MAP_FAILED && ring->cq_ptr != ring->sq_ptr) {
+        munmap(ring->cq_ptr, ring->cq_len);
+    }
+    if (ring->sq_ptr != NULL && ring->sq_ptr != MAP_FAILED) {
+        munmap(ring->sq_ptr, ring->sq_len);
+    }
+}
+
+/*
+ * Check that the kernel supports the read and write operations. io_uring exists since 5.1, but IORING_OP_READ and
+ * IORING_OP_WRITE were only added in 5.6, along with the probe itself, so on older kernels the probe fails.
+ */
+static int io_ring_supports_read_write(int fd) {
+#ifdef IORING_REGISTER_PROBE
+    size_t len = sizeof(struct io_uring_probe) + 256 * sizeof(struct io_uring_probe_op);
+    struct io_uring_probe *probe = calloc(1, len);
+    if (probe == NULL) {
+        return 0;
+    }
+
+    int supported = 0;
+    if (syscall(__NR_io_uring_register, fd, IORING_REGISTER_PROBE, probe, 256) == 0) {
+        supported = probe->last_op >= IORING_OP_WRITE
+                && (probe->ops[IORING_OP_READ].flags & IO_URING_OP_SUPPORTED)
+                && (probe->ops[IORING_OP_WRITE].flags & IO_URING_OP_SUPPORTED);
+    }
+    free(probe);
+    return supported;
+#else
+    return 0;
+#endif
+}
+
+#endif
+
+/*
+ * Class:     org_apache_bookkeeper_common_util_nativeio_NativeIOJni
+ * Method:    ioUringSetup
+ * Signature: (I)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_bookkeeper_common_util_nativeio_NativeIOJni_ioUringSetup
+  (JNIEnv * env, jclass clazz, jint entries) {
+#ifdef HAVE_IO_URING
+    struct io_uring_params p;
+    memset(&p, 0, sizeof(p));
+
+    int fd = syscall(__NR_io_uring_setup, entries, &p);
+    if (fd < 0) {
+        throwExceptionWithErrno(env, "Failed to setup io_uring");
+        return 0;
+    }
+
+    if (!io_ring_supports_read_write(fd)) {
+        close(fd);
+        throwException(env, "io_uring doesn't support the read and write operations on this kernel");
+        return 0;
+    }
+
+    struct io_ring *ring = calloc(1, sizeof(struct io_ring));
+    if (ring == NULL) {
+        close(fd);
+        throwException(env, "Failed to allocate io_uring");
+        return 0;
+    }
+    ring->fd = fd;
+    ring->sq_len = p.sq_off.array + p.sq_entries * sizeof(unsigned);
+    ring->cq_len = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+    ring->sqes_len = p.sq_entries * sizeof(struct io_uring_sqe);
+
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        if (ring->cq_len > ring->sq_len) {
+            ring->sq_len = ring->cq_len;
+        }
+        ring->cq_len = ring->sq_len;
+    }
+
+    ring->sq_ptr = mmap(NULL, ring->sq_len, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                        fd, IORING_OFF_SQ_RING);
+    if (ring->sq_ptr == MAP_FAILED) {
+        goto mmap_error;
+    }
+
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        ring->cq_ptr = ring->sq_ptr;
+    } else {
+        ring->cq_ptr = mmap(NULL, ring->cq_len, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                            fd, IORING_OFF_CQ_RING);
+        if (ring->cq_ptr == MAP_FAILED) {
+            goto mmap_error;
+        }
+    }
+
+    ring->sqes = mmap(NULL, ring->sqes_len, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                      fd, IORING_OFF_SQES);
+    if (ring->sqes == MAP_FAILED) {
+        goto mmap_error;
+    }
+
+    ring->sq_head = ring->sq_ptr + p.sq_off.head;
+    ring->sq_tail = ring->sq_ptr + p.sq_off.tail;
+    ring->sq_mask = ring->sq_ptr + p.sq_off.ring_mask;
+    ring->sq_entries = ring->sq_ptr + p.sq_off.ring_entries;
+    ring->sq_array = ring->sq_ptr + p.sq_off.array;
+    ring->cq_head = ring->cq_ptr + p.cq_off.head;
+    ring->cq_tail = ring->cq_ptr + p.cq_off.tail;
+    ring->cq_mask = ring->cq_ptr + p.cq_off.ring_mask;
+    ring->cqes = ring->cq_ptr + p.cq_off.cqes;
+
+    return (jlong) ring;
+
+mmap_error:
+    throwExceptionWithErrno(env, "Failed to map io_uring");
+    io_ring_unmap(ring);
+    close(fd);
+    free(ring);
+    return 0;
+#else
+    throwException(env, "io_uring is not available");
+    return 0;
+#endif
+}
+
+/*
+ * Class:     org_apache_bookkeeper_common_util_nativeio_NativeIOJni
+ * Method:    ioUringPrepare
+ * Signature: (JIIJIJJ)I
+ */
+JNIEXPORT jint JNICALL Java_org_apache_bookkeeper_common_util_nativeio_NativeIOJni_ioUringPrepare
+  (JNIEnv * env, jclass clazz, jlong ringPtr, jint opcode, jint fd, jlong pointer, jint size,
+   jlong offset, jlong userData) {
+#ifdef HAVE_IO_URING
+    struct io_ring *ring = (struct io_ring *) ringPtr;
+
+    unsigned head = __atomic_load_n(ring->sq_head, __ATOMIC_ACQUIRE);
+    unsigned tail = *ring->sq_tail;
+    if (tail - head >= *ring->sq_entries) {
+        // Submission queue is full
+        return -1;
+    }
+
+    unsigned index = tail & *ring->sq_mask;
+    struct io_uring_sqe *sqe = &ring->sqes[index];
+    memset(sqe, 0, sizeof(*sqe));
+    sqe->opcode = opcode == 0 ? IORING_OP_READ : IORING_OP_WRITE;
+    sqe->fd = fd;
+    sqe->addr = (unsigned long) pointer;
+    sqe->len = size;
+    sqe->off = offset;
+    sqe->user_data = userData;
+
+    ring->sq_array[index] = index;
+    __atomic_store_n(ring->sq_tail, tail + 1, __ATOMIC_RELEASE);
+    ring->to_submit++;
+    return 0;
+#else
+    throwException(env, "io_uring is not available");
+    return -1;
+#endif
+}
+
+/*
+ * Class:     org_apache_bookkeeper_common_util_nativeio_NativeIOJni
+ * Method:    ioUringSubmit
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_org_apache_bookkeeper_common_util_nativeio_NativeIOJni_ioUringSubmit
+  (JNIEnv * env, jclass clazz, jlong ringPtr) {
+#ifdef HAVE_IO_URING
+    struct io_ring *ring = (struct io_ring *) ringPtr;
+    if (ring->to_submit == 0) {
+        return 0;
+    }
+
+    int res;
+    do {
+        res = syscall(__NR_io_uring_enter, ring->fd, ring->to_submit, 0, 0, NULL, 0);
+    } while (res == -1 && errno == EINTR);
+
+    if (res == -1) {
+        if (errno == EAGAIN || errno == EBUSY) {
+            // Kernel is out of resources, the entries stay in the queue for the next submit
+            return 0;
+        }
+        throwExceptionWithErrno(env, "Failed to submit to io_uring");
+        return -1;
+    }
+
+    ring->to_submit -= res;
+    return res;
+#else
+    throwException(env, "io_uring is not available");
+    return -1;
+#endif
+}
+
+/*
+ * Class:     org_apache_bookkeeper_common_util_nativeio_NativeIOJni
+ * Method:    ioUringReap
+ * Signature: (J[J[IZ)I
+ */
+JNIEXPORT jint JNICALL Java_org_apache_bookkeeper_common_util_nativeio_NativeIOJni_ioUringReap
+  (JNIEnv * env, jclass clazz, jlong ringPtr, jlongArray userDataArray, jintArray resultsArray,
+   jboolean wait) {
+#ifdef HAVE_IO_URING
+    struct io_ring *ring = (struct io_ring *) ringPtr;
+    jsize max = (*env)->GetArrayLength(env, userDataArray);
+    jsize resultsLength = (*env)->GetArrayLength(env, resultsArray);
+    if (resultsLength < max) {
+        max = resultsLength;
+    }
+
+    unsigned head = *ring->cq_head;
+    unsigned tail = __atomic_load_n(ring->cq_tail, __ATOMIC_ACQUIRE);
+    while (head == tail && wait) {
+        int res = syscall(__NR_io_uring_enter, ring->fd, 0, 1, IORING_ENTER_GETEVENTS, NULL, 0);
+        if (res == -1 && errno != EINTR) {
+            throwExceptionWithErrno(env, "Failed to wait for io_uring completions");
+            return -1;
+        }
+        tail = __atomic_load_n(ring->cq_tail, __ATOMIC_ACQUIRE);
+    }
+
+    jint count = 0;
+    while (head != tail && count < max) {
+        struct io_uring_cqe *cqe = &ring->cqes[head & *ring->cq_mask];
+        jlong userData = cqe->user_data;
+        jint result = cqe->res;
+        (*env)->SetLongArrayRegion(env, userDataArray, count, 1, &userData);
+        (*env)->SetIntArrayRegion(env, resultsArray, count, 1, &result);
+        head++;
+        count++;
+    }
+    __atomic_store_n(ring->cq_head, head, __ATOMIC_RELEASE);
+    return count;
+#else
+    throwException(env, "io_uring is not available");
+    return -1;
+#endif
+}
+
+/*
+ * Class:     org_apache_bookkeeper_common_util_nativeio_NativeIOJni
+ * Method:    ioUringClose
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_bookkeeper_common_util_nativeio_NativeIOJni_ioUringClose
+  (JNIEnv * env, jclass clazz, jlong ringPtr) {
+#ifdef HAVE_IO_URING
+    struct io_ring *ring = (struct io_ring *) ringPtr;
+    io_ring_unmap(ring);
+    close(ring->fd);
+    free(ring);
+#else
+    throwException(env, "io_uring is not available");
+#endif
+}
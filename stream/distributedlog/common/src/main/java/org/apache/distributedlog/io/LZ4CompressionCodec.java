@@ -75,7 +75,7 @@ public class LZ4CompressionCodec implements CompressionCodec {
         checkArgument(compressed.readableBytes() >= 0);
         checkArgument(decompressedSize >= 0);
 
-        ByteBuf uncompressed = PooledByteBufAllocator.DEFAULT.buffer(decompressedSize, decompressedSize);
+        ByteBuf uncompressed = PooledByteBufAllocator.DEFAULT.directBuffer(decompressedSize, decompressedSize);
         ByteBuffer uncompressedNio = uncompressed.nioBuffer(0, decompressedSize);
         ByteBuffer compressedNio = compressed.nioBuffer(compressed.readerIndex(), compressed.readableBytes());
 
@@ -105,6 +105,9 @@ public class LedgerReader {
                     try {
                         content = lh.macManager.verifyDigestAndReturnData(eid, buffer);
                         ByteBuf toRet = Unpooled.copiedBuffer(content);
+                        if (content != buffer) {
+                            content.release();
+                        }
                         rr = new ReadResult<>(eid, BKException.Code.OK, toRet, bookieAddress.getSocketAddress());
                     } catch (BKException.BKDigestMatchException e) {
                         rr = new ReadResult<>(
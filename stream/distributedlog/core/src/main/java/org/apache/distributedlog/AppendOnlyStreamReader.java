@@ -63,6 +63,12 @@ public class AppendOnlyStreamReader extends InputStream {
             return logRecord;
         }
 
+        // Release the payload of the record once it is fully read, in case it isn't a copy
+        void release() throws IOException {
+            payloadStream.close();
+            logRecord.release();
+        }
+
         // The last txid of the log record is the position of the next byte in the stream.
         // Subtract length to get starting offset.
         long getOffset() {
@@ -133,6 +139,7 @@ public class AppendOnlyStreamReader extends InputStream {
         while (read < len) {
             int thisread = currentLogRecord.getPayLoadInputStream().read(b, off + read, (len - read));
             if (thisread == -1) {
+                currentLogRecord.release();
                 currentLogRecord = nextLogRecord();
                 if (currentLogRecord == null) {
                     return read;
@@ -182,6 +189,9 @@ public class AppendOnlyStreamReader extends InputStream {
         // Transaction ID gives us the starting position of the log record. Read ahead
         // if necessary.
         currentPosition = logRecord.getOffset();
+        if (null != currentLogRecord) {
+            currentLogRecord.release();
+        }
         currentLogRecord = logRecord;
         LogReader oldReader = reader;
         reader = skipReader;
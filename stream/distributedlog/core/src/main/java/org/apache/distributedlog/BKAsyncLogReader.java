@@ -170,6 +170,17 @@ class BKAsyncLogReader implements AsyncLogReader, Runnable, AsyncNotification {
                 delayUntilPromiseSatisfied.registerFailedEvent(
                     enqueueTime.elapsed(TimeUnit.MICROSECONDS), TimeUnit.MICROSECONDS);
             }
+            if (promise.isCompletedExceptionally()) {
+                // the records read so far are never handed to the application
+                releaseRecords();
+            }
+        }
+
+        private void releaseRecords() {
+            for (LogRecordWithDLSN record : records) {
+                record.release();
+            }
+            records.clear();
         }
 
         boolean hasReadRecords() {
@@ -246,6 +257,10 @@ class BKAsyncLogReader implements AsyncLogReader, Runnable, AsyncNotification {
     }
 
     synchronized void releaseCurrentEntry() {
+        if (null != nextRecord) {
+            nextRecord.release();
+            nextRecord = null;
+        }
         if (null != currentEntry) {
             currentEntry.release();
             currentEntry = null;
@@ -636,14 +651,18 @@ class BKAsyncLogReader implements AsyncLogReader, Runnable, AsyncNotification {
                     LogRecordWithDLSN record;
                     while (!nextRequest.hasReadEnoughRecords()) {
                         // read single record
-                        do {
+                        record = readNextRecord();
+                        while (null != record && (record.isControl()
+                                || (record.getDlsn().compareTo(getStartDLSN()) < 0))) {
+                            // the record is skipped, release its payload in case it isn't a copy
+                            record.release();
                             record = readNextRecord();
-                        } while (null != record && (record.isControl()
-                                || (record.getDlsn().compareTo(getStartDLSN()) < 0)));
+                        }
                         if (null == record) {
                             break;
                         } else {
                             if (record.isEndOfStream() && !returnEndOfStreamRecord) {
+                                record.release();
                                 setLastException(new EndOfStreamException("End of Stream Reached for "
                                         + readHandler.getFullyQualifiedName()));
                                 break;
@@ -654,8 +673,9 @@ class BKAsyncLogReader implements AsyncLogReader, Runnable, AsyncNotification {
                                 bkDistributedLogManager.raiseAlert("Gap detected between records at record = {}",
                                         record);
                                 if (positionGapDetectionEnabled) {
-                                    throw new DLIllegalStateException("Gap detected between records at record = "
-                                            + record);
+                                    String errMsg = "Gap detected between records at record = " + record;
+                                    record.release();
+                                    throw new DLIllegalStateException(errMsg);
                                 }
                             }
                             lastPosition = record.getLastPositionWithinLogSegment();
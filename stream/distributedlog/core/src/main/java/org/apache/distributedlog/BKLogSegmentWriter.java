@@ -28,16 +28,17 @@ import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import org.apache.bookkeeper.client.AsyncCallback.AddCallback;
 import org.apache.bookkeeper.client.AsyncCallback.CloseCallback;
@@ -166,7 +167,12 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
     private final int transmissionThreshold;
     protected final LogSegmentEntryWriter entryWriter;
     private final CompressionCodec.Type compressionType;
-    private final ReentrantLock transmitLock = new ReentrantLock();
+    // Packets sealed by the writers, waiting for the transmit stage
+    private final ConcurrentLinkedQueue<BKTransmitPacket> pendingTransmitPackets =
+        new ConcurrentLinkedQueue<BKTransmitPacket>();
+    private static final AtomicIntegerFieldUpdater<BKLogSegmentWriter> transmitStageScheduleCountUpdater =
+        AtomicIntegerFieldUpdater.newUpdater(BKLogSegmentWriter.class, "transmitStageScheduleCount");
+    private volatile int transmitStageScheduleCount = 0;
     private static final AtomicIntegerFieldUpdater<BKLogSegmentWriter> transmitResultUpdater =
         AtomicIntegerFieldUpdater.newUpdater(BKLogSegmentWriter.class, "transmitResult");
     private volatile int transmitResult = BKException.Code.OK;
@@ -180,6 +186,8 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
     private long numFlushesSinceRestart = 0;
     private long numBytes = 0;
     private long lastEntryId = Long.MIN_VALUE;
+    // null if the log segment version doesn't support txid index
+    private final LogSegmentTxIdIndex.Builder txIdIndexBuilder;
     private long lastTransmitNanos = Long.MIN_VALUE;
     private final int periodicKeepAliveMs;
 
@@ -350,6 +358,8 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
         this.startTxId = startTxId;
         this.lastTxId = startTxId;
         this.lastTxIdAcknowledged = startTxId;
+        this.txIdIndexBuilder = LogSegmentMetadata.supportsTxIdIndex(logSegmentMetadataVersion)
+                ? new LogSegmentTxIdIndex.Builder() : null;
         this.enableRecordCounts = conf.getEnableRecordCounts();
         this.immediateFlushEnabled = conf.getImmediateFlushEnabled();
         this.isDurableWriteEnabled = dynConf.isDurableWriteEnabled();
@@ -458,6 +468,15 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
         return lastTxIdAcknowledged;
     }
 
+    /**
+     * Get the txid index of the entries that have been acknowledged.
+     *
+     * @return txid index of the log segment.
+     */
+    synchronized LogSegmentTxIdIndex getTxIdIndex() {
+        return null == txIdIndexBuilder ? LogSegmentTxIdIndex.EMPTY : txIdIndexBuilder.build();
+    }
+
     /**
      * Get the position-within-logsemgnet of the last written log record.
      *
@@ -803,8 +822,7 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
     }
 
     public synchronized CompletableFuture<DLSN> writeInternal(LogRecord record)
-            throws LogRecordTooLongException, LockingException, BKTransmitException,
-                   WriteException, InvalidEnvelopedEntryException {
+            throws LogRecordTooLongException, LockingException, BKTransmitException, WriteException {
         int logRecordSize = record.getPersistentSize();
 
         if (logRecordSize > MAX_LOGRECORD_SIZE) {
@@ -844,16 +862,14 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
     }
 
     private synchronized CompletableFuture<DLSN> writeControlLogRecord()
-            throws BKTransmitException, WriteException, InvalidEnvelopedEntryException,
-                   LockingException, LogRecordTooLongException {
+            throws BKTransmitException, WriteException, LockingException, LogRecordTooLongException {
         LogRecord controlRec = new LogRecord(lastTxId, DistributedLogConstants.CONTROL_RECORD_CONTENT);
         controlRec.setControl();
         return writeControlLogRecord(controlRec);
     }
 
     private synchronized CompletableFuture<DLSN> writeControlLogRecord(LogRecord record)
-            throws BKTransmitException, WriteException, InvalidEnvelopedEntryException,
-                   LockingException, LogRecordTooLongException {
+            throws BKTransmitException, WriteException, LockingException, LogRecordTooLongException {
         return writeInternal(record);
     }
 
@@ -919,11 +935,10 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
      * @return last txn id that already acknowledged
      * @throws BKTransmitException if the segment writer is already in error state
      * @throws LockingException if the segment writer lost lock before transmit
-     * @throws WriteException if failed to create the envelope for the data to transmit
-     * @throws InvalidEnvelopedEntryException when built an invalid enveloped entry
+     * @throws WriteException if the transmit failpoint is triggered
      */
     synchronized void checkStateAndTransmit()
-            throws BKTransmitException, WriteException, InvalidEnvelopedEntryException, LockingException {
+            throws BKTransmitException, WriteException, LockingException {
         checkStateBeforeTransmit();
         transmit();
     }
@@ -943,10 +958,6 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
             return FutureUtils.exception(e);
         } catch (LockingException e) {
             return FutureUtils.exception(e);
-        } catch (WriteException e) {
-            return FutureUtils.exception(e);
-        } catch (InvalidEnvelopedEntryException e) {
-            return FutureUtils.exception(e);
         }
 
         if (null == transmitFuture) {
@@ -1022,8 +1033,7 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
 
     // Based on transmit buffer size, immediate flush, etc., should we flush the current
     // packet now.
-    void flushIfNeeded() throws BKTransmitException, WriteException, InvalidEnvelopedEntryException,
-            LockingException, FlushException {
+    void flushIfNeeded() throws BKTransmitException, WriteException, LockingException, FlushException {
         if (outstandingBytes > transmissionThreshold) {
             // If flush delay is disabled, flush immediately, else schedule appropriately.
             if (0 == minDelayBetweenImmediateFlushMs) {
@@ -1072,91 +1082,143 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
      * NOTE: This method should only throw known exceptions so that we don't accidentally
      *       add new code that throws in an inappropriate place.
      *
+     * <p>The packet is enveloped by the transmit stage, so the envelope failures are not thrown here: they
+     * fail the returned transmit future, along with the packets sealed after it.
+     *
      * @return a transmit future for caller to wait for transmit result if we transmit successfully,
      *         null if no data to transmit
      * @throws BKTransmitException if the segment writer is already in error state
      * @throws LockingException if the segment writer lost lock before transmit
-     * @throws WriteException if failed to create the envelope for the data to transmit
-     * @throws InvalidEnvelopedEntryException when built an invalid enveloped entry
      */
     private CompletableFuture<Integer> transmit()
-        throws BKTransmitException, LockingException, WriteException, InvalidEnvelopedEntryException {
-        EntryBuffer recordSetToTransmit;
-        transmitLock.lock();
-        try {
-            synchronized (this) {
-                checkWriteLock();
-                // If transmitResult is anything other than BKException.Code.OK, it means that the
-                // stream has encountered an error and cannot be written to.
-                if (!transmitResultUpdater.compareAndSet(this, BKException.Code.OK,
-                                                  BKException.Code.OK)) {
-                    LOG.error("Log Segment {} Trying to write to an errored stream; Error is {}",
-                              fullyQualifiedLogSegment,
-                              BKException.getMessage(transmitResultUpdater.get(this)));
-                    throw new BKTransmitException("Trying to write to an errored stream;"
-                                                          + " Error code : (" + transmitResultUpdater.get(this) + ") "
-                            + BKException.getMessage(transmitResultUpdater.get(this)), transmitResultUpdater.get(this));
-                }
+        throws BKTransmitException, LockingException {
+        BKTransmitPacket packet;
+        synchronized (this) {
+            checkWriteLock();
+            // If transmitResult is anything other than BKException.Code.OK, it means that the
+            // stream has encountered an error and cannot be written to.
+            if (!transmitResultUpdater.compareAndSet(this, BKException.Code.OK,
+                                              BKException.Code.OK)) {
+                LOG.error("Log Segment {} Trying to write to an errored stream; Error is {}",
+                          fullyQualifiedLogSegment,
+                          BKException.getMessage(transmitResultUpdater.get(this)));
+                throw new BKTransmitException("Trying to write to an errored stream;"
+                                                      + " Error code : (" + transmitResultUpdater.get(this) + ") "
+                        + BKException.getMessage(transmitResultUpdater.get(this)), transmitResultUpdater.get(this));
+            }
 
-                if (recordSetWriter.getNumRecords() == 0) {
-                    // Control flushes always have at least the control record to flush
-                    transmitDataMisses.inc();
-                    return null;
-                }
+            if (recordSetWriter.getNumRecords() == 0) {
+                // Control flushes always have at least the control record to flush
+                transmitDataMisses.inc();
+                return null;
+            }
 
-                recordSetToTransmit = recordSetWriter;
-                recordSetWriter = newRecordSetWriter();
-                outstandingBytes = 0;
+            EntryBuffer recordSetToTransmit = recordSetWriter;
+            recordSetWriter = newRecordSetWriter();
+            outstandingBytes = 0;
 
-                if (recordSetToTransmit.hasUserRecords()) {
-                    numBytes += recordSetToTransmit.getNumBytes();
-                    numFlushesSinceRestart++;
-                }
+            if (recordSetToTransmit.hasUserRecords()) {
+                numBytes += recordSetToTransmit.getNumBytes();
+                numFlushesSinceRestart++;
+                transmitDataSuccesses.inc();
+            } else {
+                transmitControlSuccesses.inc();
             }
 
-            ByteBuf toSend;
-            try {
-                toSend = recordSetToTransmit.getBuffer();
-                FailpointUtils.checkFailPoint(FailpointUtils.FailPointName.FP_TransmitFailGetBuffer);
-            } catch (IOException e) {
-                if (e instanceof InvalidEnvelopedEntryException) {
-                    alertStatsLogger.raise("Invalid enveloped entry for segment {} : ", fullyQualifiedLogSegment, e);
-                }
-                LOG.error("Exception while enveloping entries for segment: {}",
-                          new Object[] {fullyQualifiedLogSegment}, e);
-                // If a write fails here, we need to set the transmit result to an error so that
-                // no future writes go through and violate ordering guarantees.
-                transmitResultUpdater.set(this, BKException.Code.WriteException);
-                if (e instanceof InvalidEnvelopedEntryException) {
-                    alertStatsLogger.raise("Invalid enveloped entry for segment {} : ", fullyQualifiedLogSegment, e);
-                    throw (InvalidEnvelopedEntryException) e;
-                } else {
-                    throw new WriteException(streamName, "Envelope Error");
-                }
-            }
+            // update the transmit timestamp
+            lastTransmitNanos = MathUtils.nowInNano();
 
-            synchronized (this) {
-                // update the transmit timestamp
-                lastTransmitNanos = MathUtils.nowInNano();
+            // seal the packet, it is enveloped and added to the ledger by the transmit stage,
+            // in the order the packets are sealed.
+            packet = new BKTransmitPacket(recordSetToTransmit);
+            packetPrevious = packet;
+            pendingTransmitPackets.add(packet);
 
-                BKTransmitPacket packet = new BKTransmitPacket(recordSetToTransmit);
-                packetPrevious = packet;
-                entryWriter.asyncAddEntry(toSend, this, packet);
+            lastTransmit.reset().start();
+            outstandingTransmitsUpdater.incrementAndGet(this);
+            controlFlushNeeded = false;
+        }
+        scheduleTransmitStage();
+        return packet.getTransmitFuture();
+    }
+
+    private void scheduleTransmitStage() {
+        if (0 == transmitStageScheduleCountUpdater.getAndIncrement(this)) {
+            if (null == scheduler) {
+                runTransmitStage();
+            } else {
+                scheduler.executeOrdered(streamName, this::runTransmitStage);
+            }
+        }
+    }
 
-                if (recordSetToTransmit.hasUserRecords()) {
-                    transmitDataSuccesses.inc();
-                } else {
-                    transmitControlSuccesses.inc();
+    /**
+     * The transmit stage envelopes (and compresses) the sealed packets and adds them to the ledger.
+     * Only one thread runs it at a time, so the writers can fill the next packet in the meantime.
+     * Appending the records to the packet still happens under the writer monitor: only the work done
+     * once a packet is sealed is offloaded to this stage.
+     */
+    private void runTransmitStage() {
+        int scheduleCount = transmitStageScheduleCountUpdater.get(this);
+        while (true) {
+            BKTransmitPacket packet = pendingTransmitPackets.poll();
+            while (null != packet) {
+                try {
+                    transmitPacket(packet);
+                } catch (RuntimeException e) {
+                    // The stage must keep draining the queue, otherwise it would never be scheduled again
+                    LOG.error("Unexpected exception while transmitting packet for segment: {}",
+                              fullyQualifiedLogSegment, e);
+                    // Fail this packet, and the ones sealed after it, to keep the ordering guarantees
+                    transmitResultUpdater.compareAndSet(this, BKException.Code.OK, BKException.Code.WriteException);
+                    try {
+                        failTransmitPacket(packet, transmitResultUpdater.get(this));
+                    } catch (RuntimeException re) {
+                        LOG.error("Failed to abort packet for segment: {}", fullyQualifiedLogSegment, re);
+                    }
                 }
+                packet = pendingTransmitPackets.poll();
+            }
+            scheduleCount = transmitStageScheduleCountUpdater.addAndGet(this, -scheduleCount);
+            if (0 == scheduleCount) {
+                return;
+            }
+        }
+    }
+
+    private void transmitPacket(BKTransmitPacket packet) {
+        int rc = transmitResultUpdater.get(this);
+        if (BKException.Code.OK != rc) {
+            // don't transmit the packets sealed after a failure, to keep the ordering guarantees.
+            failTransmitPacket(packet, rc);
+            return;
+        }
 
-                lastTransmit.reset().start();
-                outstandingTransmitsUpdater.incrementAndGet(this);
-                controlFlushNeeded = false;
-                return packet.getTransmitFuture();
+        ByteBuf toSend = null;
+        try {
+            toSend = packet.getRecordSet().getBuffer();
+            FailpointUtils.checkFailPoint(FailpointUtils.FailPointName.FP_TransmitFailGetBuffer);
+        } catch (IOException e) {
+            ReferenceCountUtil.safeRelease(toSend);
+            if (e instanceof InvalidEnvelopedEntryException) {
+                alertStatsLogger.raise("Invalid enveloped entry for segment {} : ", fullyQualifiedLogSegment, e);
             }
-        } finally {
-            transmitLock.unlock();
+            LOG.error("Exception while enveloping entries for segment: {}",
+                      new Object[] {fullyQualifiedLogSegment}, e);
+            // If a write fails here, we need to set the transmit result to an error so that
+            // no future writes go through and violate ordering guarantees.
+            transmitResultUpdater.compareAndSet(this, BKException.Code.OK, BKException.Code.WriteException);
+            failTransmitPacket(packet, transmitResultUpdater.get(this));
+            return;
         }
+
+        entryWriter.asyncAddEntry(toSend, this, packet);
+    }
+
+    private void failTransmitPacket(BKTransmitPacket packet, int rc) {
+        packet.notifyTransmitComplete(rc);
+        outstandingTransmitsUpdater.getAndDecrement(this);
+        packet.getRecordSet().abortTransmit(Utils.transmitException(rc));
     }
 
     /**
@@ -1310,6 +1372,9 @@ class BKLogSegmentWriter implements LogSegmentWriter, AddCallback, Runnable, Siz
                     if (null != lastDLSNInPacket && lastDLSN.compareTo(lastDLSNInPacket) < 0) {
                         lastDLSN = lastDLSNInPacket;
                     }
+                    if (null != txIdIndexBuilder) {
+                        txIdIndexBuilder.add(entryId, recordSet.getMaxTxId());
+                    }
                 }
             }
         }
@@ -734,6 +734,7 @@ class BKLogWriteHandler extends BKLogHandler {
                         writer.getPositionWithinLogSegment(),
                         writer.getLastDLSN().getEntryId(),
                         writer.getLastDLSN().getSlotId(),
+                        writer.getTxIdIndex(),
                         promise);
             }
 
@@ -853,6 +854,29 @@ class BKLogWriteHandler extends BKLogHandler {
                                                 final long lastEntryId,
                                                 final long lastSlotId,
                                                 final CompletableFuture<LogSegmentMetadata> promise) {
+        doCompleteAndCloseLogSegment(
+                inprogressZnodeName,
+                logSegmentSeqNo,
+                logSegmentId,
+                firstTxId,
+                lastTxId,
+                recordCount,
+                lastEntryId,
+                lastSlotId,
+                LogSegmentTxIdIndex.EMPTY,
+                promise);
+    }
+
+    protected void doCompleteAndCloseLogSegment(final String inprogressZnodeName,
+                                                final long logSegmentSeqNo,
+                                                final long logSegmentId,
+                                                final long firstTxId,
+                                                final long lastTxId,
+                                                final int recordCount,
+                                                final long lastEntryId,
+                                                final long lastSlotId,
+                                                final LogSegmentTxIdIndex txIdIndex,
+                                                final CompletableFuture<LogSegmentMetadata> promise) {
         fetchForWrite.whenComplete(new FutureEventListener<Versioned<List<LogSegmentMetadata>>>() {
             @Override
             public void onFailure(Throwable cause) {
@@ -870,6 +894,7 @@ class BKLogWriteHandler extends BKLogHandler {
                         recordCount,
                         lastEntryId,
                         lastSlotId,
+                        txIdIndex,
                         promise);
             }
         });
@@ -884,6 +909,7 @@ class BKLogWriteHandler extends BKLogHandler {
             int recordCount,
             long lastEntryId,
             long lastSlotId,
+            LogSegmentTxIdIndex txIdIndex,
             final CompletableFuture<LogSegmentMetadata> promise) {
         try {
             lock.checkOwnershipAndReacquire();
@@ -974,7 +1000,8 @@ class BKLogWriteHandler extends BKLogHandler {
                         recordCount,
                         lastEntryId,
                         lastSlotId,
-                        startSequenceId);
+                        startSequenceId,
+                        txIdIndex);
         setLastLedgerRollingTimeMillis(completedLogSegment.getCompletionTime());
 
         // prepare the transaction
@@ -201,18 +201,21 @@ class BKSyncLogReader implements LogReader, AsyncNotification {
 
             // check if we reached the end of stream
             if (record.isEndOfStream()) {
+                record.release();
                 EndOfStreamException eos = new EndOfStreamException("End of Stream Reached for "
                         + readHandler.getFullyQualifiedName());
                 readerException.compareAndSet(null, eos);
                 throw eos;
             }
-            // skip control records
+            // skip control records, releasing their payload in case it isn't a copy
             if (record.isControl()) {
+                record.release();
                 record = null;
                 continue;
             }
             if (!positioned) {
                 if (record.getTransactionId() < startTransactionId.get()) {
+                    record.release();
                     record = null;
                     continue;
                 } else {
@@ -318,6 +318,8 @@ public class DistributedLogConfiguration extends CompositeConfiguration {
     public static final int BKDL_READLACLONGPOLL_TIMEOUT_DEFAULT = 1000;
     public static final String BKDL_DESERIALIZE_RECORDSET_ON_READS = "deserializeRecordSetOnReads";
     public static final boolean BKDL_DESERIALIZE_RECORDSET_ON_READS_DEFAULT = true;
+    public static final String BKDL_COPY_RECORD_PAYLOADS_ON_READS = "copyRecordPayloadsOnReads";
+    public static final boolean BKDL_COPY_RECORD_PAYLOADS_ON_READS_DEFAULT = true;
 
     // Idle reader settings
     public static final String BKDL_READER_IDLE_WARN_THRESHOLD_MILLIS = "readerIdleWarnThresholdMillis";
@@ -359,6 +361,12 @@ public class DistributedLogConfiguration extends CompositeConfiguration {
     public static final int BKDL_NUM_PREFETCH_ENTRIES_PER_LOGSEGMENT_DEFAULT = 4;
     public static final String BKDL_MAX_PREFETCH_ENTRIES_PER_LOGSEGMENT = "maxPrefetchEntriesPerLogSegment";
     public static final int BKDL_MAX_PREFETCH_ENTRIES_PER_LOGSEGMENT_DEFAULT = 32;
+    public static final String BKDL_READER_ENTRY_CACHE_SIZE_BYTES = "readerEntryCacheSizeBytes";
+    public static final long BKDL_READER_ENTRY_CACHE_SIZE_BYTES_DEFAULT = 0L;
+    public static final String BKDL_READAHEAD_NUM_CATCHUP_LOGSEGMENTS = "readAheadNumCatchupLogSegments";
+    public static final int BKDL_READAHEAD_NUM_CATCHUP_LOGSEGMENTS_DEFAULT = 0;
+    public static final String BKDL_READAHEAD_CATCHUP_MAX_PREFETCH_ENTRIES = "readAheadCatchupMaxPrefetchEntries";
+    public static final int BKDL_READAHEAD_CATCHUP_MAX_PREFETCH_ENTRIES_DEFAULT = 1024;
 
     // Scan Settings
     public static final String BKDL_FIRST_NUM_ENTRIES_PER_READ_LAST_RECORD_SCAN =
@@ -2512,6 +2520,33 @@ public class DistributedLogConfiguration extends CompositeConfiguration {
         return this;
     }
 
+    /**
+     * Get the flag whether to copy the payloads of the records read by the log readers.
+     *
+     * @return true if the payloads are copied, otherwise false.
+     * @see #setCopyRecordPayloadsOnReads(boolean)
+     */
+    public boolean getCopyRecordPayloadsOnReads() {
+        return getBoolean(BKDL_COPY_RECORD_PAYLOADS_ON_READS, BKDL_COPY_RECORD_PAYLOADS_ON_READS_DEFAULT);
+    }
+
+    /**
+     * Enable or disable copying the payloads of the records read by the log readers.
+     *
+     * <p>When disabled, the records returned by {@link org.apache.distributedlog.api.AsyncLogReader} and
+     * {@link org.apache.distributedlog.api.LogReader} hold a retained slice of the entry they were read from,
+     * and the application must call {@link LogRecord#release()} on each of them once done with it.
+     * {@link LogRecord#getPayload()} still returns a copy of the payload.
+     *
+     * @param enabled
+     *          flag whether to copy the record payloads
+     * @return distributedlog configuration
+     */
+    public DistributedLogConfiguration setCopyRecordPayloadsOnReads(boolean enabled) {
+        setProperty(BKDL_COPY_RECORD_PAYLOADS_ON_READS, enabled);
+        return this;
+    }
+
     //
     // Idle reader settings
     //
@@ -2879,6 +2914,84 @@ public class DistributedLogConfiguration extends CompositeConfiguration {
         return this;
     }
 
+    /**
+     * Get the size in bytes of the entry cache shared by all the readers of a namespace.
+     *
+     * <p>When the readers of a namespace tail the same logs, the entries read by one reader are served from
+     * this cache to the other readers, and concurrent reads of the same entry are sent once to the bookies.
+     * 0 disables the cache.
+     *
+     * @return the size of the reader entry cache, in bytes.
+     */
+    public long getReaderEntryCacheSizeBytes() {
+        return getLong(BKDL_READER_ENTRY_CACHE_SIZE_BYTES, BKDL_READER_ENTRY_CACHE_SIZE_BYTES_DEFAULT);
+    }
+
+    /**
+     * Set the size in bytes of the entry cache shared by all the readers of a namespace.
+     *
+     * @param sizeBytes the size of the reader entry cache, in bytes. 0 disables the cache.
+     * @return configuration
+     * @see #getReaderEntryCacheSizeBytes()
+     */
+    public DistributedLogConfiguration setReaderEntryCacheSizeBytes(long sizeBytes) {
+        setProperty(BKDL_READER_ENTRY_CACHE_SIZE_BYTES, sizeBytes);
+        return this;
+    }
+
+    /**
+     * Get the number of completed log segments prefetched in parallel while readahead is catching up.
+     *
+     * <p>A reader far behind the tail normally reads the log segments one after another. With this setting,
+     * it also prefetches from the next completed log segments at the same time, so it can use the bandwidth
+     * of the bookies holding the different segments. The entries are still delivered in DLSN order. Each
+     * segment prefetches up to {@link #getMaxPrefetchEntriesPerLogSegment()} entries, and the number of segments
+     * is capped so that the entries prefetched from them fit in {@link #getReadAheadCatchupMaxPrefetchEntries()}.
+     * 0 disables it.
+     *
+     * @return the number of completed log segments prefetched in parallel while catching up.
+     */
+    public int getReadAheadNumCatchupLogSegments() {
+        return getInt(BKDL_READAHEAD_NUM_CATCHUP_LOGSEGMENTS, BKDL_READAHEAD_NUM_CATCHUP_LOGSEGMENTS_DEFAULT);
+    }
+
+    /**
+     * Set the number of completed log segments prefetched in parallel while readahead is catching up.
+     *
+     * @param numLogSegments the number of completed log segments prefetched in parallel. 0 disables it.
+     * @return configuration
+     * @see #getReadAheadNumCatchupLogSegments()
+     */
+    public DistributedLogConfiguration setReadAheadNumCatchupLogSegments(int numLogSegments) {
+        setProperty(BKDL_READAHEAD_NUM_CATCHUP_LOGSEGMENTS, numLogSegments);
+        return this;
+    }
+
+    /**
+     * Get the max number of entries prefetched from the completed log segments read in parallel while readahead
+     * is catching up. It bounds the memory used by these segments, on top of the readahead cache.
+     *
+     * @return the max number of entries prefetched from the catch up log segments.
+     * @see #getReadAheadNumCatchupLogSegments()
+     */
+    public int getReadAheadCatchupMaxPrefetchEntries() {
+        return getInt(BKDL_READAHEAD_CATCHUP_MAX_PREFETCH_ENTRIES,
+                BKDL_READAHEAD_CATCHUP_MAX_PREFETCH_ENTRIES_DEFAULT);
+    }
+
+    /**
+     * Set the max number of entries prefetched from the completed log segments read in parallel while readahead
+     * is catching up.
+     *
+     * @param maxEntries the max number of entries prefetched from the catch up log segments.
+     * @return configuration
+     * @see #getReadAheadCatchupMaxPrefetchEntries()
+     */
+    public DistributedLogConfiguration setReadAheadCatchupMaxPrefetchEntries(int maxEntries) {
+        setProperty(BKDL_READAHEAD_CATCHUP_MAX_PREFETCH_ENTRIES, maxEntries);
+        return this;
+    }
+
     //
     // DL Reader Scan Settings
     //
@@ -72,6 +72,7 @@ public class Entry {
         private boolean envelopeEntry = true;
         private ByteBuf buffer;
         private boolean deserializeRecordSet = true;
+        private boolean copyRecordPayloads = true;
 
         private Builder() {}
 
@@ -139,6 +140,23 @@ public class Entry {
             return this;
         }
 
+        /**
+         * Enable/disable copying the payloads of the records read.
+         *
+         * <p>When disabled, the records returned by the reader hold a retained slice of the
+         * decompressed entry instead of a copy of their payload. It avoids an allocation and a
+         * copy per record, but the application has to call {@link LogRecord#release()} on each
+         * record once done with it. {@link LogRecord#getPayload()} still returns a copy.
+         *
+         * @param enabled
+         *          flag to enable/disable copying the record payloads.
+         * @return builder
+         */
+        public Builder copyRecordPayloads(boolean enabled) {
+            this.copyRecordPayloads = enabled;
+            return this;
+        }
+
         public Entry.Reader buildReader() throws IOException {
             checkNotNull(buffer,
                     "Serialized data or input stream isn't provided");
@@ -149,6 +167,7 @@ public class Entry {
                     buffer,
                     envelopeEntry,
                     deserializeRecordSet,
+                    copyRecordPayloads,
                     NullStatsLogger.INSTANCE);
         }
 
@@ -49,6 +49,18 @@ class EnvelopedEntryReader implements Entry.Reader, RecordStream {
                          boolean deserializeRecordSet,
                          StatsLogger statsLogger)
             throws IOException {
+        this(logSegmentSeqNo, entryId, startSequenceId, in, envelopedEntry, deserializeRecordSet, true, statsLogger);
+    }
+
+    EnvelopedEntryReader(long logSegmentSeqNo,
+                         long entryId,
+                         long startSequenceId,
+                         ByteBuf in,
+                         boolean envelopedEntry,
+                         boolean deserializeRecordSet,
+                         boolean copyRecordPayloads,
+                         StatsLogger statsLogger)
+            throws IOException {
         this.logSegmentSeqNo = logSegmentSeqNo;
         this.entryId = entryId;
         if (envelopedEntry) {
@@ -60,7 +72,8 @@ class EnvelopedEntryReader implements Entry.Reader, RecordStream {
                 this,
                 src,
                 startSequenceId,
-                deserializeRecordSet);
+                deserializeRecordSet,
+                copyRecordPayloads);
     }
 
     @VisibleForTesting
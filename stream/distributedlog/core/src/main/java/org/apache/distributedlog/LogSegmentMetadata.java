@@ -54,7 +54,8 @@ public class LogSegmentMetadata {
         VERSION_V2_LEDGER_SEQNO(2),
         VERSION_V3_MIN_ACTIVE_DLSN(3),
         VERSION_V4_ENVELOPED_ENTRIES(4),
-        VERSION_V5_SEQUENCE_ID(5);
+        VERSION_V5_SEQUENCE_ID(5),
+        VERSION_V6_TXID_INDEX(6);
 
         public final int value;
 
@@ -64,6 +65,8 @@ public class LogSegmentMetadata {
 
         public static LogSegmentMetadataVersion of(int version) {
             switch (version) {
+                case 6:
+                    return VERSION_V6_TXID_INDEX;
                 case 5:
                     return VERSION_V5_SEQUENCE_ID;
                 case 4:
@@ -113,6 +116,7 @@ public class LogSegmentMetadata {
         protected long minActiveSlotId;
         protected long startSequenceId;
         protected boolean inprogress;
+        protected LogSegmentTxIdIndex txIdIndex;
 
         // This is a derived attribute.
         // Since we overwrite the original version with the target version, information that is
@@ -151,6 +155,7 @@ public class LogSegmentMetadata {
             minActiveSlotId = 0;
             startSequenceId = DistributedLogConstants.UNASSIGNED_SEQUENCE_ID;
             inprogress = true;
+            txIdIndex = LogSegmentTxIdIndex.EMPTY;
         }
 
         LogSegmentMetadataBuilder setRegionId(int regionId) {
@@ -223,6 +228,11 @@ public class LogSegmentMetadata {
             return this;
         }
 
+        LogSegmentMetadataBuilder setTxIdIndex(LogSegmentTxIdIndex txIdIndex) {
+            this.txIdIndex = txIdIndex;
+            return this;
+        }
+
         public LogSegmentMetadata build() {
             return new LogSegmentMetadata(
                 zkPath,
@@ -241,7 +251,8 @@ public class LogSegmentMetadata {
                 minActiveEntryId,
                 minActiveSlotId,
                 startSequenceId,
-                envelopeEntries
+                envelopeEntries,
+                txIdIndex
             );
         }
 
@@ -268,6 +279,7 @@ public class LogSegmentMetadata {
             this.minActiveSlotId = original.getMinActiveDLSN().getSlotId();
             this.startSequenceId = original.getStartSequenceId();
             this.envelopeEntries = original.getEnvelopeEntries();
+            this.txIdIndex = original.getTxIdIndex();
         }
 
         @VisibleForTesting
@@ -333,6 +345,7 @@ public class LogSegmentMetadata {
     // is lost while parsing.
     // NOTE: This value is not stored in the Metadata store.
     private final boolean envelopeEntries;
+    private final LogSegmentTxIdIndex txIdIndex;
 
     public static final Comparator<LogSegmentMetadata> COMPARATOR =
             new Comparator<LogSegmentMetadata>() {
@@ -402,7 +415,7 @@ public class LogSegmentMetadata {
     };
 
     public static final int LEDGER_METADATA_CURRENT_LAYOUT_VERSION =
-                LogSegmentMetadataVersion.VERSION_V5_SEQUENCE_ID.value;
+                LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX.value;
 
     public static final int LEDGER_METADATA_OLDEST_SUPPORTED_VERSION =
         LogSegmentMetadataVersion.VERSION_V2_LEDGER_SEQNO.value;
@@ -437,7 +450,8 @@ public class LogSegmentMetadata {
                                long minActiveEntryId,
                                long minActiveSlotId,
                                long startSequenceId,
-                               boolean envelopeEntries) {
+                               boolean envelopeEntries,
+                               LogSegmentTxIdIndex txIdIndex) {
         this.zkPath = zkPath;
         this.logSegmentId = logSegmentId;
         this.version = version;
@@ -452,6 +466,7 @@ public class LogSegmentMetadata {
         this.regionId = regionId;
         this.status = status;
         this.envelopeEntries = envelopeEntries;
+        this.txIdIndex = txIdIndex;
     }
 
     public String getZkPath() {
@@ -498,6 +513,16 @@ public class LogSegmentMetadata {
         return status;
     }
 
+    /**
+     * Get the txid index of the log segment. It is only built for completed log segments
+     * whose version supports the txid index.
+     *
+     * @return the txid index, empty if the log segment doesn't have one.
+     */
+    public LogSegmentTxIdIndex getTxIdIndex() {
+        return txIdIndex;
+    }
+
     public long getStartSequenceId() {
         // generate negative sequence id for log segments that created <= v4
         return supportsSequenceId() && startSequenceId != DistributedLogConstants.UNASSIGNED_SEQUENCE_ID
@@ -596,6 +621,10 @@ public class LogSegmentMetadata {
      *          last entry id
      * @param lastSlotId
      *          last slot id
+     * @param startSequenceId
+     *          start sequence id
+     * @param txIdIndex
+     *          txid index built while writing the log segment
      * @return completed log segment.
      */
     LogSegmentMetadata completeLogSegment(String zkPath,
@@ -603,10 +632,12 @@ public class LogSegmentMetadata {
                                                 int recordCount,
                                                 long lastEntryId,
                                                 long lastSlotId,
-                                                long startSequenceId) {
+                                                long startSequenceId,
+                                                LogSegmentTxIdIndex txIdIndex) {
         assert this.lastTxId == DistributedLogConstants.INVALID_TXID;
 
         return new Mutator(this)
+                .setTxIdIndex(supportsTxIdIndex() ? txIdIndex : LogSegmentTxIdIndex.EMPTY)
                 .setZkPath(zkPath)
                 .setLastDLSN(new DLSN(this.lastDLSN.getLogSegmentSequenceNo(), lastEntryId, lastSlotId))
                 .setLastTxId(newLastTxId)
@@ -859,7 +890,8 @@ public class LogSegmentMetadata {
                     .setStartSequenceId(startSequenceId)
                     .setEnvelopeEntries(true);
             return builder.build();
-        } else if (parts.length == 11) {
+        } else if (parts.length == 11
+                || (parts.length == 12 && LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX.value <= version)) {
             long recordCount = (versionStatusCount & LOGRECORD_COUNT_MASK) >> LOGRECORD_COUNT_SHIFT;
             assert (recordCount >= Integer.MIN_VALUE && recordCount <= Integer.MAX_VALUE);
 
@@ -887,6 +919,9 @@ public class LogSegmentMetadata {
                     .setStatus(status)
                     .setStartSequenceId(startSequenceId)
                     .setEnvelopeEntries(true);
+            if (parts.length == 12) {
+                builder.setTxIdIndex(LogSegmentTxIdIndex.parse(parts[11]));
+            }
             return builder.build();
         } else {
             throw new IOException("Invalid log segment metadata : "
@@ -990,6 +1025,9 @@ public class LogSegmentMetadata {
                     finalisedData = String.format("%d;%d;%d;%d;%d;%d;%d;%d;%d;%d;%d",
                         versionStatusCount, logSegmentId, firstTxId, lastTxId, completionTime,
                         logSegmentSeqNo, lastEntryId, lastSlotId, minActiveEntryId, minActiveSlotId, startSequenceId);
+                    if (supportsTxIdIndex(version.value) && !txIdIndex.isEmpty()) {
+                        finalisedData = finalisedData + ";" + txIdIndex.serialize();
+                    }
                 }
             } else {
                 throw new IllegalStateException("Unsupported log segment ledger metadata version '" + version + "'");
@@ -1154,4 +1192,19 @@ public class LogSegmentMetadata {
         return version >= LogSegmentMetadataVersion.VERSION_V5_SEQUENCE_ID.value;
     }
 
+    public boolean supportsTxIdIndex() {
+        return supportsTxIdIndex(version.value);
+    }
+
+    /**
+     * Whether the provided version supports storing a txid index in the metadata of completed log segments.
+     *
+     * @param version
+     *          log segment metadata version
+     * @return true if the log segment supports txid index.
+     */
+    public static boolean supportsTxIdIndex(int version) {
+        return version >= LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX.value;
+    }
+
 }
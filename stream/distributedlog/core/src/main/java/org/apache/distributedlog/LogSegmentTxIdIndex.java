@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A sparse index from transaction ids to entry ids of a log segment.
+ *
+ * <p>Each point of the index is a pair of (entryId, txId), where txId is the max transaction id of all the records
+ * written in the log segment up to (and including) entry entryId. It is built by the writer as the entries are
+ * acknowledged and stored in the metadata of the log segment when the log segment is completed, so a reader looking
+ * for a transaction id only has to search the entries between two consecutive points instead of the whole log
+ * segment.
+ *
+ * <p>The number of points is bounded: when the index is full, every other point is dropped and the interval between
+ * two points is doubled. The bound is kept small since the index is stored inline in the log segment znode and read
+ * by every reader listing the log segments.
+ */
+public class LogSegmentTxIdIndex {
+
+    static final int DEFAULT_MAX_POINTS = 64;
+
+    public static final LogSegmentTxIdIndex EMPTY = new LogSegmentTxIdIndex(new long[0], new long[0]);
+
+    private final long[] entryIds;
+    private final long[] txIds;
+
+    private LogSegmentTxIdIndex(long[] entryIds, long[] txIds) {
+        this.entryIds = entryIds;
+        this.txIds = txIds;
+    }
+
+    public int size() {
+        return entryIds.length;
+    }
+
+    public boolean isEmpty() {
+        return entryIds.length == 0;
+    }
+
+    /**
+     * Get the first entry to search for the first record whose transaction id is not less than
+     * <code>transactionId</code>. All the records before this entry have a smaller transaction id.
+     *
+     * @param transactionId
+     *          transaction id to search
+     * @return the first entry to search.
+     */
+    public long getFirstEntryToSearch(long transactionId) {
+        int idx = findPointNotLessThan(transactionId);
+        return idx == 0 ? 0L : entryIds[idx - 1] + 1;
+    }
+
+    /**
+     * Get the last entry to search for the first record whose transaction id is not less than
+     * <code>transactionId</code>. A record with a transaction id not less than <code>transactionId</code>
+     * exists up to this entry, if it exists in the log segment.
+     *
+     * @param transactionId
+     *          transaction id to search
+     * @param lastEntryId
+     *          last entry of the log segment
+     * @return the last entry to search.
+     */
+    public long getLastEntryToSearch(long transactionId, long lastEntryId) {
+        int idx = findPointNotLessThan(transactionId);
+        return idx == entryIds.length ? lastEntryId : Math.min(entryIds[idx], lastEntryId);
+    }
+
+    private int findPointNotLessThan(long transactionId) {
+        // txIds are non-decreasing, find the first point whose txId is not less than transactionId
+        int low = 0;
+        int high = txIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (txIds[mid] < transactionId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Serialize the index to be stored in the log segment metadata.
+     *
+     * @return the serialized index, an empty string for an empty index.
+     */
+    public String serialize() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entryIds.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(entryIds[i]).append(':').append(txIds[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parse the index from its serialized form.
+     *
+     * @param data
+     *          serialized index
+     * @return the txid index.
+     * @throws IOException if the data is not a valid txid index.
+     */
+    public static LogSegmentTxIdIndex parse(String data) throws IOException {
+        if (data.isEmpty()) {
+            return EMPTY;
+        }
+        String[] points = data.split(",");
+        long[] entryIds = new long[points.length];
+        long[] txIds = new long[points.length];
+        try {
+            for (int i = 0; i < points.length; i++) {
+                int sep = points[i].indexOf(':');
+                entryIds[i] = Long.parseLong(points[i].substring(0, sep));
+                txIds[i] = Long.parseLong(points[i].substring(sep + 1));
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid txid index : " + data, e);
+        }
+        return new LogSegmentTxIdIndex(entryIds, txIds);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LogSegmentTxIdIndex)) {
+            return false;
+        }
+        LogSegmentTxIdIndex other = (LogSegmentTxIdIndex) o;
+        return Arrays.equals(entryIds, other.entryIds) && Arrays.equals(txIds, other.txIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(entryIds) + Arrays.hashCode(txIds);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + serialize() + "]";
+    }
+
+    /**
+     * Builder to accumulate the index points while writing a log segment. It is not thread safe.
+     */
+    static class Builder {
+
+        private final int maxPoints;
+        private final long[] entryIds;
+        private final long[] txIds;
+        private int numPoints = 0;
+        private long interval = 1;
+        private long maxTxId = DistributedLogConstants.INVALID_TXID;
+
+        Builder() {
+            this(DEFAULT_MAX_POINTS);
+        }
+
+        Builder(int maxPoints) {
+            this.maxPoints = Math.max(2, maxPoints);
+            this.entryIds = new long[this.maxPoints];
+            this.txIds = new long[this.maxPoints];
+        }
+
+        /**
+         * Add an acknowledged entry of user records.
+         *
+         * @param entryId
+         *          entry id
+         * @param entryMaxTxId
+         *          max transaction id of the records in the entry
+         */
+        void add(long entryId, long entryMaxTxId) {
+            maxTxId = Math.max(maxTxId, entryMaxTxId);
+            if (numPoints > 0 && entryId - entryIds[numPoints - 1] < interval) {
+                return;
+            }
+            if (numPoints == maxPoints) {
+                compact();
+            }
+            entryIds[numPoints] = entryId;
+            txIds[numPoints] = maxTxId;
+            numPoints++;
+        }
+
+        private void compact() {
+            int j = 0;
+            for (int i = 1; i < numPoints; i += 2) {
+                entryIds[j] = entryIds[i];
+                txIds[j] = txIds[i];
+                j++;
+            }
+            numPoints = j;
+            interval *= 2;
+        }
+
+        LogSegmentTxIdIndex build() {
+            if (numPoints == 0) {
+                return EMPTY;
+            }
+            return new LogSegmentTxIdIndex(Arrays.copyOf(entryIds, numPoints), Arrays.copyOf(txIds, numPoints));
+        }
+    }
+}
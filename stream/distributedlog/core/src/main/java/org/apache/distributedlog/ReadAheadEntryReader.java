@@ -252,6 +252,7 @@ class ReadAheadEntryReader implements
     private final DLSN fromDLSN;
     private final int maxCachedEntries;
     private final int numReadAheadEntries;
+    private final int numCatchupSegments;
     private final int idleWarnThresholdMillis;
 
     //
@@ -307,6 +308,16 @@ class ReadAheadEntryReader implements
         this.conf = conf;
         this.maxCachedEntries = conf.getReadAheadMaxRecords();
         this.numReadAheadEntries = conf.getReadAheadBatchSize();
+        // the entries prefetched from the catch up segments fit in their own budget
+        int maxCatchupSegments = conf.getReadAheadCatchupMaxPrefetchEntries()
+                / Math.max(1, conf.getMaxPrefetchEntriesPerLogSegment());
+        this.numCatchupSegments = Math.max(0, Math.min(conf.getReadAheadNumCatchupLogSegments(), maxCatchupSegments));
+        if (numCatchupSegments < conf.getReadAheadNumCatchupLogSegments()) {
+            logger.warn("Prefetching from {} catch up log segments of {} instead of the {} configured: each segment"
+                    + " prefetches up to {} entries, raise {} to prefetch from more segments", numCatchupSegments,
+                    streamName, conf.getReadAheadNumCatchupLogSegments(), conf.getMaxPrefetchEntriesPerLogSegment(),
+                    DistributedLogConfiguration.BKDL_READAHEAD_CATCHUP_MAX_PREFETCH_ENTRIES);
+        }
         this.idleWarnThresholdMillis = conf.getReaderIdleWarnThresholdMillis();
         this.readHandler = readHandler;
         this.entryStore = entryStore;
@@ -492,6 +503,11 @@ class ReadAheadEntryReader implements
         for (SegmentReader reader : segmentReadersToClose) {
             closeFutures.add(reader.close());
         }
+        // release the entries that were never read
+        Entry.Reader entry;
+        while (null != (entry = entryQueue.poll())) {
+            entry.release();
+        }
         FutureUtils.proxyTo(
             FutureUtils.collect(closeFutures).thenApply((value) -> null),
             closePromise);
@@ -790,6 +806,7 @@ class ReadAheadEntryReader implements
         if (null == currentSegmentReader) {
             unsafeMoveToNextLogSegment();
         }
+        unsafePrefetchCatchupSegments();
         // resume readahead if necessary
         scheduleRead();
     }
@@ -854,6 +871,7 @@ class ReadAheadEntryReader implements
                 reader.openReader();
             }
             unsafePrefetchNextSegment(true);
+            unsafePrefetchCatchupSegments();
         }
         // mark the reader initialized
         isInitialized = true;
@@ -872,6 +890,26 @@ class ReadAheadEntryReader implements
         }
     }
 
+    /**
+     * Start prefetching from the next completed log segments while readahead is catching up, so the entries
+     * of these segments are read from the bookies in parallel with the current segment. The entries are only
+     * delivered once the segment becomes the current segment, so they are still added to the cache in order.
+     */
+    private void unsafePrefetchCatchupSegments() {
+        if (numCatchupSegments <= 0 || !isCatchingUp) {
+            return;
+        }
+        int numSegments = 0;
+        for (SegmentReader reader : segmentReaders) {
+            if (numSegments >= numCatchupSegments || reader.getSegment().isInProgress()) {
+                break;
+            }
+            reader.openReader();
+            reader.startRead();
+            ++numSegments;
+        }
+    }
+
     /**
      * Check if we are allowed to position the reader at <i>fromDLSN</i>.
      *
@@ -954,6 +992,7 @@ class ReadAheadEntryReader implements
                 isCatchingUp = false;
             }
         }
+        unsafePrefetchCatchupSegments();
 
         scheduleRead();
     }
@@ -470,6 +470,9 @@ public class ReadUtils {
      *   <code>transactionId</code>.
      *
      * N could be chosen based on trading off concurrency and latency.
+     *
+     * If the log segment has a txid index, the search starts from the entries between the two index points
+     * surrounding the provided <code>transactionId</code> rather than from the whole log segment.
      * </p>
      *
      * @param logName
@@ -542,13 +545,23 @@ public class ReadUtils {
 
                         return;
                     }
+                    List<Long> entriesToSearch;
+                    LogSegmentTxIdIndex txIdIndex = segment.getTxIdIndex();
+                    if (txIdIndex.isEmpty()) {
+                        entriesToSearch = Lists.newArrayList(0L, lastEntryId);
+                    } else {
+                        entriesToSearch = getEntriesToSearch(
+                                txIdIndex.getFirstEntryToSearch(transactionId),
+                                txIdIndex.getLastEntryToSearch(transactionId, lastEntryId),
+                                nWays);
+                    }
                     getLogRecordNotLessThanTxIdFromEntries(
                             logName,
                             segment,
                             transactionId,
                             executorService,
                             reader,
-                            Lists.newArrayList(0L, lastEntryId),
+                            entriesToSearch,
                             nWays,
                             Optional.<LogRecordWithDLSN>empty(),
                             promise);
@@ -27,6 +27,11 @@ import org.apache.distributedlog.io.AsyncCloseable;
 
 /**
  * AsyncLogReader.
+ *
+ * <p>By default the payload of each record is copied out of the entry it is read from. When
+ * {@link org.apache.distributedlog.DistributedLogConfiguration#setCopyRecordPayloadsOnReads(boolean)} disables it,
+ * the records hold a retained slice of the entry instead, and the application has to call
+ * {@link org.apache.distributedlog.LogRecord#release()} on each record once done with it.
  */
 @Public
 @Evolving
@@ -156,6 +156,12 @@ import org.apache.distributedlog.io.AsyncCloseable;
  *</p>
  * </pre>
  *
+ * <h3>Release Records</h3>
+ * By default the payload of each record is copied out of the entry it is read from. When
+ * {@link DistributedLogConfiguration#setCopyRecordPayloadsOnReads(boolean)} disables it, the records hold
+ * a retained slice of the entry instead, and the application has to call
+ * {@link org.apache.distributedlog.LogRecord#release()} on each record once done with it.
+ *
  * <p>NOTE: Extending {@link AsyncCloseable}: BKSyncLogReader is implemented based on BKAsyncLogReader, exposing
  * the {@link AsyncCloseable} interface so the reader could be closed asynchronously
  *
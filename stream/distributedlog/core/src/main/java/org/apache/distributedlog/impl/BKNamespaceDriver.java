@@ -150,8 +150,8 @@ public class BKNamespaceDriver implements NamespaceDriver {
     private LedgerAllocator allocator;
 
     // log segment entry stores
-    private LogSegmentEntryStore writerEntryStore;
-    private LogSegmentEntryStore readerEntryStore;
+    private BKLogSegmentEntryStore writerEntryStore;
+    private BKLogSegmentEntryStore readerEntryStore;
 
     // access control manager
     private AccessControlManager accessControlManager;
@@ -401,6 +401,11 @@ public class BKNamespaceDriver implements NamespaceDriver {
         Utils.close(writerStreamMetadataStore);
         Utils.close(readerStreamMetadataStore);
 
+        // Release the entries cached by the readers
+        if (null != readerEntryStore) {
+            readerEntryStore.close();
+        }
+
         writerBKC.close();
         readerBKC.close();
         writerZKC.close();
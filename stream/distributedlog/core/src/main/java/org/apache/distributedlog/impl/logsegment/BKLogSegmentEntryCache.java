@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog.impl.logsegment;
+
+import io.netty.buffer.ByteBuf;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.bookkeeper.common.concurrent.FutureUtils;
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.StatsLogger;
+
+/**
+ * A size bounded cache of ledger entries, shared by the log segment readers of a namespace.
+ *
+ * <p>Entries are keyed by (ledgerId, entryId), so the readers tailing the same log segment read each entry from
+ * the bookies only once: a reader missing an entry that is already being read by another reader waits for that
+ * read rather than issuing its own. The cache owns a reference of each cached buffer, and readers get a retained
+ * duplicate that they are responsible for releasing.
+ *
+ * <p>Entries are evicted in insertion order, as the readers of a log are usually close to each other.
+ *
+ * <p>Once the cache is closed, the entries are read without being cached: the loads still in flight hand their
+ * buffer to the readers waiting for them and release it instead of inserting it.
+ */
+class BKLogSegmentEntryCache implements AutoCloseable {
+
+    private static class EntryKey {
+        private final long ledgerId;
+        private final long entryId;
+
+        EntryKey(long ledgerId, long entryId) {
+            this.ledgerId = ledgerId;
+            this.entryId = entryId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EntryKey)) {
+                return false;
+            }
+            EntryKey other = (EntryKey) o;
+            return ledgerId == other.ledgerId && entryId == other.entryId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(ledgerId) * 31 + Long.hashCode(entryId);
+        }
+    }
+
+    private static class CachedEntry {
+        private final EntryKey key;
+        private final CompletableFuture<Void> loadFuture = new CompletableFuture<Void>();
+        private ByteBuf buffer = null;
+        private int size = 0;
+
+        CachedEntry(EntryKey key) {
+            this.key = key;
+        }
+
+        synchronized void setBuffer(ByteBuf buffer) {
+            this.buffer = buffer;
+            this.size = buffer.readableBytes();
+        }
+
+        synchronized int getSize() {
+            return size;
+        }
+
+        /**
+         * @return a retained duplicate of the buffer, or null if the entry is not loaded or already evicted.
+         */
+        synchronized ByteBuf retain() {
+            return null == buffer ? null : buffer.retainedDuplicate();
+        }
+
+        synchronized void release() {
+            if (null != buffer) {
+                buffer.release();
+                buffer = null;
+            }
+        }
+    }
+
+    private final long maxSize;
+    private final ConcurrentHashMap<EntryKey, CachedEntry> entries;
+    private final ConcurrentLinkedQueue<CachedEntry> evictionQueue;
+    private final AtomicLong size = new AtomicLong(0L);
+    // Set under the lock of the cache, so that no entry is inserted once the cache is drained on close
+    private volatile boolean closed = false;
+
+    // Stats
+    private final StatsLogger cacheStatsLogger;
+    private final Gauge<Number> sizeGauge;
+    private final Gauge<Number> numEntriesGauge;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalescedReads;
+    private final Counter evictions;
+
+    BKLogSegmentEntryCache(long maxSize, StatsLogger statsLogger) {
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<EntryKey, CachedEntry>();
+        this.evictionQueue = new ConcurrentLinkedQueue<CachedEntry>();
+
+        this.cacheStatsLogger = statsLogger.scope("reader_entry_cache");
+        this.hits = cacheStatsLogger.getCounter("hits");
+        this.misses = cacheStatsLogger.getCounter("misses");
+        this.coalescedReads = cacheStatsLogger.getCounter("coalesced_reads");
+        this.evictions = cacheStatsLogger.getCounter("evictions");
+        this.sizeGauge = new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return size.get();
+            }
+        };
+        cacheStatsLogger.registerGauge("size", sizeGauge);
+        this.numEntriesGauge = new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return entries.size();
+            }
+        };
+        cacheStatsLogger.registerGauge("num_entries", numEntriesGauge);
+    }
+
+    /**
+     * Read an entry from the cache, or load it with the provided <i>loader</i> if it is not cached. The loader
+     * is only called once for concurrent reads of the same entry, the cache takes the ownership of the buffer it
+     * returns.
+     *
+     * @param ledgerId ledger id
+     * @param entryId entry id
+     * @param loader loader to read the entry from the bookies
+     * @return future of the entry buffer. The caller is responsible for releasing it.
+     */
+    CompletableFuture<ByteBuf> read(long ledgerId, long entryId, Supplier<CompletableFuture<ByteBuf>> loader) {
+        if (closed) {
+            return loader.get();
+        }
+        EntryKey key = new EntryKey(ledgerId, entryId);
+        CachedEntry cachedEntry = entries.get(key);
+        if (null != cachedEntry) {
+            ByteBuf buffer = cachedEntry.retain();
+            if (null != buffer) {
+                hits.inc();
+                return FutureUtils.value(buffer);
+            }
+            if (!cachedEntry.loadFuture.isDone()) {
+                coalescedReads.inc();
+                return waitForLoad(cachedEntry, loader);
+            }
+        }
+
+        CachedEntry newEntry = new CachedEntry(key);
+        CachedEntry oldEntry = entries.putIfAbsent(key, newEntry);
+        if (null != oldEntry) {
+            coalescedReads.inc();
+            return waitForLoad(oldEntry, loader);
+        }
+        misses.inc();
+        loader.get().whenComplete((buffer, cause) -> {
+            if (null != cause) {
+                entries.remove(key, newEntry);
+                newEntry.loadFuture.completeExceptionally(cause);
+                return;
+            }
+            newEntry.setBuffer(buffer);
+            if (!insert(newEntry)) {
+                // closed while loading, hand the buffer to the waiting readers and release it
+                entries.remove(key, newEntry);
+                newEntry.loadFuture.complete(null);
+                newEntry.release();
+                return;
+            }
+            newEntry.loadFuture.complete(null);
+            evictIfNeeded();
+        });
+        return waitForLoad(newEntry, loader);
+    }
+
+    private static CompletableFuture<ByteBuf> waitForLoad(CachedEntry cachedEntry,
+                                                          Supplier<CompletableFuture<ByteBuf>> loader) {
+        return cachedEntry.loadFuture.thenCompose(ignored -> {
+            ByteBuf buffer = cachedEntry.retain();
+            // the entry was evicted right after being loaded, read it again without caching it
+            return null != buffer ? FutureUtils.value(buffer) : loader.get();
+        });
+    }
+
+    /**
+     * Add an entry read outside of the cache, eg: by a long poll read. The cache retains its own reference of the
+     * buffer.
+     *
+     * @param ledgerId ledger id
+     * @param entryId entry id
+     * @param buffer entry buffer
+     */
+    void put(long ledgerId, long entryId, ByteBuf buffer) {
+        EntryKey key = new EntryKey(ledgerId, entryId);
+        if (entries.containsKey(key)) {
+            return;
+        }
+        CachedEntry newEntry = new CachedEntry(key);
+        newEntry.setBuffer(buffer.retainedDuplicate());
+        if (null != entries.putIfAbsent(key, newEntry)) {
+            newEntry.release();
+            return;
+        }
+        if (!insert(newEntry)) {
+            entries.remove(key, newEntry);
+            newEntry.loadFuture.complete(null);
+            newEntry.release();
+            return;
+        }
+        newEntry.loadFuture.complete(null);
+        evictIfNeeded();
+    }
+
+    /**
+     * Account a loaded entry in the cache size and queue it for eviction.
+     *
+     * @return false if the cache is closed, the entry is not cached then.
+     */
+    private synchronized boolean insert(CachedEntry cachedEntry) {
+        if (closed) {
+            return false;
+        }
+        size.addAndGet(cachedEntry.getSize());
+        evictionQueue.add(cachedEntry);
+        return true;
+    }
+
+    private void evictIfNeeded() {
+        while (size.get() > maxSize) {
+            CachedEntry cachedEntry = evictionQueue.poll();
+            if (null == cachedEntry) {
+                return;
+            }
+            entries.remove(cachedEntry.key, cachedEntry);
+            size.addAndGet(-cachedEntry.getSize());
+            cachedEntry.release();
+            evictions.inc();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        cacheStatsLogger.unregisterGauge("size", sizeGauge);
+        cacheStatsLogger.unregisterGauge("num_entries", numEntriesGauge);
+        CachedEntry cachedEntry = evictionQueue.poll();
+        while (null != cachedEntry) {
+            entries.remove(cachedEntry.key, cachedEntry);
+            size.addAndGet(-cachedEntry.getSize());
+            cachedEntry.release();
+            cachedEntry = evictionQueue.poll();
+        }
+    }
+}
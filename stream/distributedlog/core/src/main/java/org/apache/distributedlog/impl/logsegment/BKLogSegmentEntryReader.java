@@ -21,6 +21,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
 import io.netty.util.ReferenceCountUtil;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -68,7 +69,7 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
 
         protected final long entryId;
         private boolean done;
-        private LedgerEntry entry;
+        private ByteBuf entry;
         private int rc;
 
         private CacheEntry(long entryId) {
@@ -88,18 +89,18 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
 
         synchronized void release() {
             if (null != this.entry) {
-                this.entry.getEntryBuffer().release();
+                this.entry.release();
                 this.entry = null;
             }
         }
 
-        void release(LedgerEntry entry) {
+        void release(ByteBuf entry) {
             if (null != entry) {
-                entry.getEntryBuffer().release();
+                entry.release();
             }
         }
 
-        void complete(LedgerEntry entry) {
+        void complete(ByteBuf entry) {
             // the reader is already closed
             if (isClosed()) {
                 release(entry);
@@ -135,9 +136,9 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
             return BKException.Code.OK == rc;
         }
 
-        synchronized LedgerEntry getEntry() {
+        synchronized ByteBuf getEntry() {
             // retain reference for the caller
-            this.entry.getEntryBuffer().retain();
+            this.entry.retain();
             return this.entry;
         }
 
@@ -179,7 +180,22 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
                 completeExceptionally(BKException.Code.UnexpectedConditionException);
                 return;
             }
-            complete(entry);
+            complete(entry.getEntryBuffer());
+        }
+
+        void processCachedRead(ByteBuf buffer, Throwable cause) {
+            int rc = null == cause ? BKException.Code.OK : BKException.getExceptionCode(cause);
+            if (BKException.Code.OK == rc && failureInjector.shouldInjectCorruption(entryId, entryId)) {
+                release(buffer);
+                rc = BKException.Code.DigestMatchException;
+            }
+            if (isDone() || !checkReturnCodeAndHandleFailure(rc, false)) {
+                if (BKException.Code.OK == rc) {
+                    release(buffer);
+                }
+                return;
+            }
+            complete(buffer);
         }
 
         @Override
@@ -204,7 +220,11 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
                 return;
             }
             if (null != entry && this.entryId == entryId) {
-                complete(entry);
+                if (null != entryCache) {
+                    // make the entry available to the other readers of the log segment
+                    entryCache.put(getSegment().getLogSegmentId(), entryId, entry.getEntryBuffer());
+                }
+                complete(entry.getEntryBuffer());
                 return;
             }
             // the long poll is timeout or interrupted; we will retry it again.
@@ -292,8 +312,11 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
     private final long startSequenceId;
     private final boolean envelopeEntries;
     private final boolean deserializeRecordSet;
+    private final boolean copyRecordPayloads;
     private final int numPrefetchEntries;
     private final int maxPrefetchEntries;
+    // entry cache shared with the other readers, null if disabled
+    private final BKLogSegmentEntryCache entryCache;
     // state
     private CompletableFuture<Void> closePromise = null;
     private LogSegmentMetadata metadata;
@@ -337,17 +360,31 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
                             DistributedLogConfiguration conf,
                             StatsLogger statsLogger,
                             AsyncFailureInjector failureInjector) {
+        this(metadata, lh, startEntryId, bk, scheduler, conf, statsLogger, failureInjector, null);
+    }
+
+    BKLogSegmentEntryReader(LogSegmentMetadata metadata,
+                            LedgerHandle lh,
+                            long startEntryId,
+                            BookKeeper bk,
+                            OrderedScheduler scheduler,
+                            DistributedLogConfiguration conf,
+                            StatsLogger statsLogger,
+                            AsyncFailureInjector failureInjector,
+                            BKLogSegmentEntryCache entryCache) {
         this.metadata = metadata;
         this.lssn = metadata.getLogSegmentSequenceNumber();
         this.startSequenceId = metadata.getStartSequenceId();
         this.envelopeEntries = metadata.getEnvelopeEntries();
         this.deserializeRecordSet = conf.getDeserializeRecordSetOnReads();
+        this.copyRecordPayloads = conf.getCopyRecordPayloadsOnReads();
         this.lh = lh;
         this.nextEntryId = Math.max(startEntryId, 0);
         this.bk = bk;
         this.conf = conf;
         this.numPrefetchEntries = conf.getNumPrefetchEntriesPerLogSegment();
         this.maxPrefetchEntries = conf.getMaxPrefetchEntriesPerLogSegment();
+        this.entryCache = entryCache;
         this.scheduler = scheduler;
         this.openLedgerHandles = Lists.newArrayList();
         this.openLedgerHandles.add(lh);
@@ -629,7 +666,41 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
     }
 
     private void issueSimpleRead(CacheEntry cacheEntry) {
-        getLh().asyncReadEntries(cacheEntry.entryId, cacheEntry.entryId, cacheEntry, null);
+        if (null == entryCache) {
+            getLh().asyncReadEntries(cacheEntry.entryId, cacheEntry.entryId, cacheEntry, null);
+            return;
+        }
+        final LedgerHandle lh = getLh();
+        entryCache.read(lh.getId(), cacheEntry.entryId, () -> readEntry(lh, cacheEntry.entryId))
+                .whenComplete(cacheEntry::processCachedRead);
+    }
+
+    private static CompletableFuture<ByteBuf> readEntry(LedgerHandle lh, long entryId) {
+        final CompletableFuture<ByteBuf> promise = new CompletableFuture<ByteBuf>();
+        lh.asyncReadEntries(entryId, entryId, (rc, handle, entries, ctx) -> {
+            if (BKException.Code.OK != rc) {
+                promise.completeExceptionally(BKException.create(rc));
+                return;
+            }
+            ByteBuf buffer = null;
+            boolean unexpected = false;
+            while (entries.hasMoreElements()) {
+                LedgerEntry entry = entries.nextElement();
+                if (null == buffer && entry.getEntryId() == entryId) {
+                    buffer = entry.getEntryBuffer();
+                } else {
+                    entry.getEntryBuffer().release();
+                    unexpected = true;
+                }
+            }
+            if (null == buffer || unexpected) {
+                ReferenceCountUtil.release(buffer);
+                promise.completeExceptionally(BKException.create(BKException.Code.UnexpectedConditionException));
+                return;
+            }
+            promise.complete(buffer);
+        }, null);
+        return promise;
     }
 
     private void issueLongPollRead(CacheEntry cacheEntry) {
@@ -654,13 +725,14 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
     // Foreground Read Operations
     //
 
-    Entry.Reader processReadEntry(LedgerEntry entry) throws IOException {
+    Entry.Reader processReadEntry(long entryId, ByteBuf entry) throws IOException {
         return Entry.newBuilder()
                 .setLogSegmentInfo(lssn, startSequenceId)
-                .setEntryId(entry.getEntryId())
+                .setEntryId(entryId)
                 .setEnvelopeEntry(envelopeEntries)
                 .deserializeRecordSet(deserializeRecordSet)
-                .setEntry(entry.getEntryBuffer())
+                .copyRecordPayloads(copyRecordPayloads)
+                .setEntry(entry)
                 .buildReader();
     }
 
@@ -794,7 +866,7 @@ public class BKLogSegmentEntryReader implements Runnable, LogSegmentEntryReader,
                     try {
                         // the reference is retained on `entry.getEntry()`.
                         // Entry.Reader is responsible for releasing it.
-                        nextRequest.addEntry(processReadEntry(entry.getEntry()));
+                        nextRequest.addEntry(processReadEntry(entry.getEntryId(), entry.getEntry()));
                     } catch (IOException e) {
                         completeExceptionally(e, false);
                         return;
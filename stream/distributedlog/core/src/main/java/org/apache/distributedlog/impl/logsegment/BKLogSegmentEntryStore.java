@@ -98,6 +98,9 @@ public class BKLogSegmentEntryStore implements
     private final DynamicDistributedLogConfiguration dynConf;
     private final StatsLogger statsLogger;
     private final AsyncFailureInjector failureInjector;
+    // entry cache shared by the readers, created on the first reader, null if disabled
+    private BKLogSegmentEntryCache entryCache = null;
+    private boolean closed = false;
     // ledger allocator
     private final LedgerAllocator allocator;
 
@@ -120,6 +123,23 @@ public class BKLogSegmentEntryStore implements
         this.failureInjector = failureInjector;
     }
 
+    private synchronized BKLogSegmentEntryCache getEntryCache() {
+        if (null == entryCache && !closed && conf.getReaderEntryCacheSizeBytes() > 0) {
+            entryCache = new BKLogSegmentEntryCache(conf.getReaderEntryCacheSizeBytes(), statsLogger);
+        }
+        return entryCache;
+    }
+
+    /**
+     * Release the entries cached for the readers.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (null != entryCache) {
+            entryCache.close();
+        }
+    }
+
     @Override
     public CompletableFuture<LogSegmentMetadata> deleteLogSegment(LogSegmentMetadata segment) {
         DeleteLogSegmentRequest request = new DeleteLogSegmentRequest(segment);
@@ -243,7 +263,8 @@ public class BKLogSegmentEntryStore implements
                     scheduler,
                     conf,
                     statsLogger,
-                    failureInjector);
+                    failureInjector,
+                    getEntryCache());
             FutureUtils.complete(request.openPromise, reader);
         } catch (IOException e) {
             FutureUtils.completeExceptionally(request.openPromise, e);
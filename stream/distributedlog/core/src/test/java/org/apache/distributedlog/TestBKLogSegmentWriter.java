@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.bookkeeper.client.AsyncCallback.AddCallback;
+import org.apache.bookkeeper.client.BKException;
+import org.apache.bookkeeper.common.util.OrderedScheduler;
+import org.apache.bookkeeper.feature.SettableFeatureProvider;
+import org.apache.bookkeeper.stats.AlertStatsLogger;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.distributedlog.common.util.PermitLimiter;
+import org.apache.distributedlog.exceptions.BKTransmitException;
+import org.apache.distributedlog.exceptions.WriteException;
+import org.apache.distributedlog.lock.DistributedLock;
+import org.apache.distributedlog.logsegment.LogSegmentEntryWriter;
+import org.apache.distributedlog.util.ConfUtils;
+import org.apache.distributedlog.util.FailpointUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Cases for {@link BKLogSegmentWriter}.
+ */
+public class TestBKLogSegmentWriter {
+
+    private static final String STREAM_NAME = "test-bk-log-segment-writer";
+    private static final long LOG_SEGMENT_SEQUENCE_NUMBER = 1L;
+
+    private OrderedScheduler scheduler;
+    private LogSegmentEntryWriter entryWriter;
+    private BKLogSegmentWriter writer;
+
+    @Before
+    public void setup() throws Exception {
+        scheduler = OrderedScheduler.newSchedulerBuilder()
+                .name(STREAM_NAME)
+                .numThreads(1)
+                .build();
+
+        // Acknowledges the entries as soon as they are added
+        AtomicLong nextEntryId = new AtomicLong(0L);
+        entryWriter = mock(LogSegmentEntryWriter.class);
+        doAnswer(invocation -> {
+            ByteBuf entry = invocation.getArgument(0);
+            AddCallback callback = invocation.getArgument(1);
+            entry.release();
+            callback.addComplete(BKException.Code.OK, null, nextEntryId.getAndIncrement(), invocation.getArgument(2));
+            return null;
+        }).when(entryWriter).asyncAddEntry(any(ByteBuf.class), any(AddCallback.class), any());
+
+        DistributedLogConfiguration conf = new DistributedLogConfiguration()
+                .setOutputBufferSize(LogRecord.MAX_LOGRECORDSET_SIZE)
+                .setImmediateFlushEnabled(false)
+                .setPeriodicFlushFrequencyMilliSeconds(0)
+                .setPeriodicKeepAliveMilliSeconds(0)
+                .setPerWriterOutstandingWriteLimit(-1);
+        writer = new BKLogSegmentWriter(
+                STREAM_NAME,
+                STREAM_NAME + "-segment",
+                conf,
+                LogSegmentMetadata.LEDGER_METADATA_CURRENT_LAYOUT_VERSION,
+                entryWriter,
+                mock(DistributedLock.class),
+                1L,
+                LOG_SEGMENT_SEQUENCE_NUMBER,
+                scheduler,
+                NullStatsLogger.INSTANCE,
+                NullStatsLogger.INSTANCE,
+                new AlertStatsLogger(NullStatsLogger.INSTANCE, "test"),
+                PermitLimiter.NULL_PERMIT_LIMITER,
+                SettableFeatureProvider.DISABLE_ALL,
+                ConfUtils.getConstDynConf(conf));
+    }
+
+    @After
+    public void teardown() {
+        FailpointUtils.removeFailpoint(FailpointUtils.FailPointName.FP_TransmitFailGetBuffer);
+        scheduler.shutdown();
+    }
+
+    private CompletableFuture<DLSN> write(long txId) {
+        return writer.asyncWrite(new LogRecord(txId, ("record-" + txId).getBytes(UTF_8)), false);
+    }
+
+    /**
+     * A packet failing to be enveloped fails every packet sealed after it, the packets sealed before it keep
+     * their DLSNs.
+     */
+    @Test(timeout = 60000)
+    public void testEnvelopeFailureFailsPacketsSealedAfterIt() throws Exception {
+        CompletableFuture<DLSN> first = write(1L);
+        CompletableFuture<DLSN> second = write(2L);
+        writer.flush();
+        CompletableFuture<DLSN> third = write(3L);
+        writer.flush();
+        assertEquals(new DLSN(LOG_SEGMENT_SEQUENCE_NUMBER, 0L, 0L), first.get());
+        assertEquals(new DLSN(LOG_SEGMENT_SEQUENCE_NUMBER, 0L, 1L), second.get());
+        assertEquals(new DLSN(LOG_SEGMENT_SEQUENCE_NUMBER, 1L, 0L), third.get());
+
+        // Hold the transmit stage, so that the next packets are all sealed before the first of them fails
+        CountDownLatch transmitStageBlocked = new CountDownLatch(1);
+        CountDownLatch releaseTransmitStage = new CountDownLatch(1);
+        scheduler.executeOrdered(STREAM_NAME, () -> {
+            transmitStageBlocked.countDown();
+            try {
+                releaseTransmitStage.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        transmitStageBlocked.await();
+
+        List<CompletableFuture<DLSN>> failedWrites = new ArrayList<>();
+        List<CompletableFuture<Long>> failedFlushes = new ArrayList<>();
+        for (long txId = 4L; txId <= 6L; txId++) {
+            failedWrites.add(write(txId));
+            failedFlushes.add(writer.flush());
+        }
+
+        // Only the first packet fails to be enveloped, the next ones are failed for the ordering guarantees
+        AtomicBoolean failed = new AtomicBoolean(false);
+        FailpointUtils.setFailpoint(FailpointUtils.FailPointName.FP_TransmitFailGetBuffer,
+                new FailpointUtils.AbstractFailPointAction() {
+                    @Override
+                    public boolean checkFailPoint() throws IOException {
+                        if (failed.compareAndSet(false, true)) {
+                            throw new IOException("Fail enveloping the first packet");
+                        }
+                        return false;
+                    }
+                });
+        releaseTransmitStage.countDown();
+
+        for (int i = 0; i < failedWrites.size(); i++) {
+            try {
+                failedWrites.get(i).get();
+                fail("Write " + i + " should fail after the envelope failure");
+            } catch (ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof BKTransmitException);
+                assertEquals(BKException.Code.WriteException, ((BKTransmitException) ee.getCause()).getBKResultCode());
+            }
+            try {
+                failedFlushes.get(i).get();
+                fail("Flush " + i + " should fail after the envelope failure");
+            } catch (ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof BKTransmitException);
+            }
+        }
+        assertTrue(failed.get());
+        // The failed packets are not added to the ledger
+        verify(entryWriter, times(2)).asyncAddEntry(any(ByteBuf.class), any(AddCallback.class), any());
+        assertTrue(writer.isLogSegmentInError());
+        assertEquals(new DLSN(LOG_SEGMENT_SEQUENCE_NUMBER, 1L, 0L), writer.getLastDLSN());
+
+        // The next writes fail fast
+        try {
+            write(7L).get();
+            fail("Should fail writing to an errored log segment");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof WriteException);
+        }
+    }
+}
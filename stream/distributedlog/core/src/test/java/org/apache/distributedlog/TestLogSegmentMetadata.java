@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import org.apache.distributedlog.LogSegmentMetadata.LogSegmentMetadataBuilder;
+import org.apache.distributedlog.LogSegmentMetadata.LogSegmentMetadataVersion;
+import org.junit.Test;
+
+/**
+ * Test Cases for {@link LogSegmentMetadata}.
+ */
+public class TestLogSegmentMetadata {
+
+    private static final String PATH = "/test-log-segment-metadata/ledgers/logrecs_000000000000000000001";
+
+    private static LogSegmentTxIdIndex buildTxIdIndex() {
+        LogSegmentTxIdIndex.Builder builder = new LogSegmentTxIdIndex.Builder();
+        for (long entryId = 0L; entryId <= 99L; entryId++) {
+            builder.add(entryId, 1000L + entryId * 10);
+        }
+        return builder.build();
+    }
+
+    private static LogSegmentMetadata completedSegment(LogSegmentMetadataVersion version,
+                                                       LogSegmentTxIdIndex txIdIndex) {
+        return new LogSegmentMetadataBuilder(PATH, version, 1234L, 1000L)
+                .setInprogress(false)
+                .setLastTxId(1990L)
+                .setCompletionTime(5678L)
+                .setRecordCount(100)
+                .setLogSegmentSequenceNo(1L)
+                .setLastEntryId(99L)
+                .setLastSlotId(0L)
+                .setStartSequenceId(0L)
+                .setEnvelopeEntries(true)
+                .setTxIdIndex(txIdIndex)
+                .build();
+    }
+
+    private static LogSegmentMetadata roundTrip(LogSegmentMetadata metadata) throws IOException {
+        return LogSegmentMetadata.parseData(PATH, metadata.getFinalisedData().getBytes(UTF_8));
+    }
+
+    @Test
+    public void testV6RoundTrip() throws Exception {
+        LogSegmentTxIdIndex txIdIndex = buildTxIdIndex();
+        LogSegmentMetadata metadata = completedSegment(LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX, txIdIndex);
+        String data = metadata.getFinalisedData();
+        assertEquals(12, data.split(";").length);
+
+        LogSegmentMetadata parsed = roundTrip(metadata);
+        assertEquals(metadata, parsed);
+        assertEquals(LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX, parsed.getVersion());
+        assertEquals(txIdIndex, parsed.getTxIdIndex());
+        assertEquals(data, parsed.getFinalisedData());
+    }
+
+    @Test
+    public void testV6EmptyTxIdIndex() throws Exception {
+        LogSegmentMetadata metadata =
+                completedSegment(LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX, LogSegmentTxIdIndex.EMPTY);
+        assertEquals(11, metadata.getFinalisedData().split(";").length);
+
+        LogSegmentMetadata parsed = roundTrip(metadata);
+        assertEquals(metadata, parsed);
+        assertSame(LogSegmentTxIdIndex.EMPTY, parsed.getTxIdIndex());
+    }
+
+    @Test
+    public void testV5StillParses() throws Exception {
+        // the txid index is not written by versions that do not support it
+        LogSegmentMetadata metadata =
+                completedSegment(LogSegmentMetadataVersion.VERSION_V5_SEQUENCE_ID, buildTxIdIndex());
+        assertEquals(11, metadata.getFinalisedData().split(";").length);
+
+        LogSegmentMetadata parsed = roundTrip(metadata);
+        assertEquals(metadata, parsed);
+        assertEquals(LogSegmentMetadataVersion.VERSION_V5_SEQUENCE_ID, parsed.getVersion());
+        assertSame(LogSegmentTxIdIndex.EMPTY, parsed.getTxIdIndex());
+    }
+
+    @Test
+    public void testV5WithTwelveFields() throws Exception {
+        LogSegmentMetadata metadata =
+                completedSegment(LogSegmentMetadataVersion.VERSION_V5_SEQUENCE_ID, LogSegmentTxIdIndex.EMPTY);
+        String data = metadata.getFinalisedData() + ";0:1000";
+        try {
+            LogSegmentMetadata.parseData(PATH, data.getBytes(UTF_8));
+            fail("Should fail to parse v5 metadata with a txid index");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testV6CorruptedTxIdIndex() throws Exception {
+        LogSegmentMetadata metadata =
+                completedSegment(LogSegmentMetadataVersion.VERSION_V6_TXID_INDEX, LogSegmentTxIdIndex.EMPTY);
+        String data = metadata.getFinalisedData() + ";0:1000,corrupted";
+        try {
+            LogSegmentMetadata.parseData(PATH, data.getBytes(UTF_8));
+            fail("Should fail to parse v6 metadata with a corrupted txid index");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+}
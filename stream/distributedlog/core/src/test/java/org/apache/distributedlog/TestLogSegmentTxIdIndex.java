@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Test Cases for {@link LogSegmentTxIdIndex}.
+ */
+public class TestLogSegmentTxIdIndex {
+
+    private static LogSegmentTxIdIndex buildIndex() {
+        LogSegmentTxIdIndex.Builder builder = new LogSegmentTxIdIndex.Builder(4);
+        builder.add(0L, 10L);
+        builder.add(1L, 20L);
+        builder.add(2L, 30L);
+        builder.add(3L, 40L);
+        // the index is full, it is compacted to entries 1 and 3 and the interval is doubled
+        builder.add(4L, 50L);
+        // skipped since it is within the interval, but its txid is carried to the next point
+        builder.add(5L, 70L);
+        builder.add(6L, 60L);
+        return builder.build();
+    }
+
+    @Test
+    public void testBuildEmptyIndex() {
+        assertSame(LogSegmentTxIdIndex.EMPTY, new LogSegmentTxIdIndex.Builder().build());
+    }
+
+    @Test
+    public void testCompact() {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(4, index.size());
+        assertEquals("1:20,3:40,4:50,6:70", index.serialize());
+    }
+
+    @Test
+    public void testMaxPoints() {
+        LogSegmentTxIdIndex.Builder builder = new LogSegmentTxIdIndex.Builder();
+        for (long entryId = 0L; entryId < 100000L; entryId++) {
+            builder.add(entryId, entryId);
+        }
+        LogSegmentTxIdIndex index = builder.build();
+        assertTrue("index should be bounded but has " + index.size() + " points",
+                index.size() <= LogSegmentTxIdIndex.DEFAULT_MAX_POINTS);
+        assertTrue(index.size() > LogSegmentTxIdIndex.DEFAULT_MAX_POINTS / 2);
+    }
+
+    @Test
+    public void testSearchBeforeFirstPoint() {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(0L, index.getFirstEntryToSearch(5L));
+        assertEquals(1L, index.getLastEntryToSearch(5L, 9L));
+    }
+
+    @Test
+    public void testSearchEqualToPoint() {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(0L, index.getFirstEntryToSearch(20L));
+        assertEquals(1L, index.getLastEntryToSearch(20L, 9L));
+        assertEquals(2L, index.getFirstEntryToSearch(40L));
+        assertEquals(3L, index.getLastEntryToSearch(40L, 9L));
+        assertEquals(5L, index.getFirstEntryToSearch(70L));
+        assertEquals(6L, index.getLastEntryToSearch(70L, 9L));
+    }
+
+    @Test
+    public void testSearchBetweenPoints() {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(2L, index.getFirstEntryToSearch(21L));
+        assertEquals(3L, index.getLastEntryToSearch(21L, 9L));
+    }
+
+    @Test
+    public void testSearchAfterLastPoint() {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(7L, index.getFirstEntryToSearch(71L));
+        assertEquals(9L, index.getLastEntryToSearch(71L, 9L));
+    }
+
+    @Test
+    public void testSearchBoundedByLastEntry() {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(5L, index.getLastEntryToSearch(70L, 5L));
+    }
+
+    @Test
+    public void testSearchEmptyIndex() {
+        assertEquals(0L, LogSegmentTxIdIndex.EMPTY.getFirstEntryToSearch(100L));
+        assertEquals(9L, LogSegmentTxIdIndex.EMPTY.getLastEntryToSearch(100L, 9L));
+    }
+
+    @Test
+    public void testSerializeAndParse() throws Exception {
+        LogSegmentTxIdIndex index = buildIndex();
+        assertEquals(index, LogSegmentTxIdIndex.parse(index.serialize()));
+        assertEquals("", LogSegmentTxIdIndex.EMPTY.serialize());
+        assertSame(LogSegmentTxIdIndex.EMPTY, LogSegmentTxIdIndex.parse(""));
+    }
+
+    @Test
+    public void testParseCorruptedIndex() {
+        String[] corrupted = new String[] { "abc", "1:20,3", "1:20,x:40", "1:20,3:" };
+        for (String data : corrupted) {
+            try {
+                LogSegmentTxIdIndex.parse(data);
+                fail("Should fail to parse corrupted txid index " + data);
+            } catch (IOException ioe) {
+                // expected
+            }
+        }
+    }
+}
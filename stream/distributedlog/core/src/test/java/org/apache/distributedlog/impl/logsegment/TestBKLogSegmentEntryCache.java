@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.distributedlog.impl.logsegment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test Cases for {@link BKLogSegmentEntryCache}.
+ */
+public class TestBKLogSegmentEntryCache {
+
+    private static final long LEDGER_ID = 1L;
+    private static final int ENTRY_SIZE = 16;
+
+    private final BKLogSegmentEntryCache cache = new BKLogSegmentEntryCache(2 * ENTRY_SIZE, NullStatsLogger.INSTANCE);
+
+    @After
+    public void teardown() {
+        cache.close();
+    }
+
+    private static ByteBuf newEntry(long entryId) {
+        ByteBuf buffer = Unpooled.buffer(ENTRY_SIZE);
+        buffer.writeLong(entryId);
+        buffer.writeLong(entryId);
+        return buffer;
+    }
+
+    /**
+     * Loader returning the provided buffer and counting its calls.
+     */
+    private static class CountingLoader implements Supplier<CompletableFuture<ByteBuf>> {
+
+        private final CompletableFuture<ByteBuf> future;
+        private final AtomicInteger numLoads = new AtomicInteger(0);
+
+        CountingLoader(CompletableFuture<ByteBuf> future) {
+            this.future = future;
+        }
+
+        CountingLoader(ByteBuf buffer) {
+            this(CompletableFuture.completedFuture(buffer));
+        }
+
+        @Override
+        public CompletableFuture<ByteBuf> get() {
+            numLoads.incrementAndGet();
+            return future;
+        }
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        ByteBuf entry = newEntry(0L);
+        CountingLoader loader = new CountingLoader(entry);
+
+        ByteBuf first = cache.read(LEDGER_ID, 0L, loader).get();
+        ByteBuf second = cache.read(LEDGER_ID, 0L, loader).get();
+        assertEquals(1, loader.numLoads.get());
+        assertEquals(entry, first);
+        assertEquals(entry, second);
+        // the cache owns a reference, and each reader got its own
+        assertEquals(3, entry.refCnt());
+
+        first.release();
+        second.release();
+        assertEquals(1, entry.refCnt());
+
+        cache.close();
+        assertEquals(0, entry.refCnt());
+    }
+
+    @Test
+    public void testCoalescedMiss() throws Exception {
+        CompletableFuture<ByteBuf> loadFuture = new CompletableFuture<>();
+        CountingLoader loader = new CountingLoader(loadFuture);
+
+        CompletableFuture<ByteBuf> first = cache.read(LEDGER_ID, 0L, loader);
+        CompletableFuture<ByteBuf> second = cache.read(LEDGER_ID, 0L, loader);
+        assertEquals(1, loader.numLoads.get());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        ByteBuf entry = newEntry(0L);
+        loadFuture.complete(entry);
+        assertEquals(entry, first.get());
+        assertEquals(entry, second.get());
+        assertEquals(3, entry.refCnt());
+
+        first.get().release();
+        second.get().release();
+        assertEquals(1, entry.refCnt());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+        CompletableFuture<ByteBuf> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new Exception("failed to read entry"));
+        CompletableFuture<ByteBuf> result = cache.read(LEDGER_ID, 0L, new CountingLoader(failedFuture));
+        assertTrue(result.isCompletedExceptionally());
+
+        ByteBuf entry = newEntry(0L);
+        CountingLoader loader = new CountingLoader(entry);
+        cache.read(LEDGER_ID, 0L, loader).get().release();
+        assertEquals(1, loader.numLoads.get());
+        assertEquals(1, entry.refCnt());
+    }
+
+    @Test
+    public void testEvictionReleasesEntries() throws Exception {
+        ByteBuf[] entries = new ByteBuf[3];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = newEntry(i);
+        }
+        ByteBuf held = cache.read(LEDGER_ID, 0L, new CountingLoader(entries[0])).get();
+        cache.read(LEDGER_ID, 1L, new CountingLoader(entries[1])).get().release();
+        assertEquals(2, entries[0].refCnt());
+        assertEquals(1, entries[1].refCnt());
+
+        // exceeds the max size, evicts the first entry
+        cache.read(LEDGER_ID, 2L, new CountingLoader(entries[2])).get().release();
+        // the reader still holds its reference of the evicted entry
+        assertEquals(1, entries[0].refCnt());
+        assertEquals(1, entries[1].refCnt());
+        assertEquals(1, entries[2].refCnt());
+        held.release();
+        assertEquals(0, entries[0].refCnt());
+
+        // the evicted entry is loaded again
+        ByteBuf reloaded = newEntry(0L);
+        CountingLoader loader = new CountingLoader(reloaded);
+        cache.read(LEDGER_ID, 0L, loader).get().release();
+        assertEquals(1, loader.numLoads.get());
+        assertEquals(0, entries[1].refCnt());
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        ByteBuf entry = newEntry(0L);
+        cache.put(LEDGER_ID, 0L, entry);
+        assertEquals(2, entry.refCnt());
+        // already cached
+        cache.put(LEDGER_ID, 0L, entry);
+        assertEquals(2, entry.refCnt());
+
+        CountingLoader loader = new CountingLoader(newEntry(0L));
+        cache.read(LEDGER_ID, 0L, loader).get().release();
+        assertEquals(0, loader.numLoads.get());
+
+        entry.release();
+        cache.close();
+        assertEquals(0, entry.refCnt());
+    }
+
+    @Test
+    public void testCloseWithInFlightLoad() throws Exception {
+        CompletableFuture<ByteBuf> loadFuture = new CompletableFuture<>();
+        CompletableFuture<ByteBuf> result = cache.read(LEDGER_ID, 0L, new CountingLoader(loadFuture));
+
+        cache.close();
+
+        // the load completing after close is handed to the reader but not cached
+        ByteBuf entry = newEntry(0L);
+        loadFuture.complete(entry);
+        ByteBuf buffer = result.get();
+        assertEquals(entry, buffer);
+        assertEquals(1, entry.refCnt());
+        buffer.release();
+        assertEquals(0, entry.refCnt());
+    }
+
+    @Test
+    public void testReadAndPutAfterClose() throws Exception {
+        cache.close();
+
+        ByteBuf entry = newEntry(0L);
+        CountingLoader loader = new CountingLoader(entry);
+        assertSame(entry, cache.read(LEDGER_ID, 0L, loader).get());
+        assertSame(entry, cache.read(LEDGER_ID, 0L, loader).get());
+        assertEquals(2, loader.numLoads.get());
+        assertEquals(1, entry.refCnt());
+
+        cache.put(LEDGER_ID, 0L, entry);
+        assertEquals(1, entry.refCnt());
+        entry.release();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCloseUnregistersGauges() {
+        StatsLogger statsLogger = mock(StatsLogger.class);
+        when(statsLogger.scope(anyString())).thenReturn(statsLogger);
+        when(statsLogger.getCounter(anyString())).thenReturn(mock(Counter.class));
+
+        BKLogSegmentEntryCache entryCache = new BKLogSegmentEntryCache(ENTRY_SIZE, statsLogger);
+        verify(statsLogger).registerGauge(eq("size"), any(Gauge.class));
+        verify(statsLogger).registerGauge(eq("num_entries"), any(Gauge.class));
+
+        entryCache.close();
+        verify(statsLogger).unregisterGauge(eq("size"), any(Gauge.class));
+        verify(statsLogger).unregisterGauge(eq("num_entries"), any(Gauge.class));
+    }
+}
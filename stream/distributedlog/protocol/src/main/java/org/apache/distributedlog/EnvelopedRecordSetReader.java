@@ -41,6 +41,7 @@ class EnvelopedRecordSetReader implements LogRecordSet.Reader {
     private final long startSequenceId;
     private int numRecords;
     private final ByteBuf reader;
+    private final boolean copyRecordPayloads;
 
     // slot id
     private long slotId;
@@ -52,7 +53,8 @@ class EnvelopedRecordSetReader implements LogRecordSet.Reader {
                              long startSlotId,
                              int startPositionWithinLogSegment,
                              long startSequenceId,
-                             ByteBuf src)
+                             ByteBuf src,
+                             boolean copyRecordPayloads)
             throws IOException {
         this.logSegmentSeqNo = logSegmentSeqNo;
         this.entryId = entryId;
@@ -60,6 +62,7 @@ class EnvelopedRecordSetReader implements LogRecordSet.Reader {
         this.slotId = startSlotId;
         this.position = startPositionWithinLogSegment;
         this.startSequenceId = startSequenceId;
+        this.copyRecordPayloads = copyRecordPayloads;
 
         // read data
         int metadata = src.readInt();
@@ -95,7 +98,9 @@ class EnvelopedRecordSetReader implements LogRecordSet.Reader {
         }
 
         int recordLen = reader.readInt();
-        ByteBuf recordBuf = reader.slice(reader.readerIndex(), recordLen);
+        ByteBuf recordBuf = copyRecordPayloads
+                ? reader.slice(reader.readerIndex(), recordLen)
+                : reader.retainedSlice(reader.readerIndex(), recordLen);
         reader.readerIndex(reader.readerIndex() + recordLen);
 
         DLSN dlsn = new DLSN(logSegmentSeqNo, entryId, slotId);
@@ -103,7 +108,7 @@ class EnvelopedRecordSetReader implements LogRecordSet.Reader {
                 new LogRecordWithDLSN(dlsn, startSequenceId);
         record.setPositionWithinLogSegment(position);
         record.setTransactionId(transactionId);
-        record.setPayloadBuf(recordBuf, true);
+        record.setPayloadBuf(recordBuf, copyRecordPayloads);
 
         ++slotId;
         ++position;
@@ -224,6 +224,20 @@ public class LogRecord {
         return payload.slice();
     }
 
+    /**
+     * Release the payload buffer of this log record.
+     *
+     * <p>The records read without copying their payload, see {@code copyRecordPayloadsOnReads} in the reader
+     * configuration, hold a retained slice of the entry buffer, which has to be released once the application is
+     * done with the record. Releasing a record whose payload is a copy is harmless. The payload of the record is
+     * empty after the release, and releasing it again is a no-op.
+     */
+    public void release() {
+        ByteBuf buf = payload;
+        payload = Unpooled.EMPTY_BUFFER;
+        ReferenceCountUtil.release(buf);
+    }
+
     void setPayloadBuf(ByteBuf payload, boolean copyData) {
         if (null != this.payload) {
             ReferenceCountUtil.release(this.payload);
@@ -447,6 +461,7 @@ public class LogRecord {
         private final ByteBuf in;
         private final long startSequenceId;
         private final boolean deserializeRecordSet;
+        private final boolean copyRecordPayloads;
         private static final int SKIP_BUFFER_SIZE = 512;
         private LogRecordSet.Reader recordSetReader = null;
         private LogRecordWithDLSN lastRecordSkipTo = null;
@@ -468,10 +483,29 @@ public class LogRecord {
                       ByteBuf in,
                       long startSequenceId,
                       boolean deserializeRecordSet) {
+            this(recordStream, in, startSequenceId, deserializeRecordSet, true);
+        }
+
+        /**
+         * Construct the reader.
+         *
+         * @param recordStream the record stream for generating {@code DLSN}s.
+         * @param in The stream to read from.
+         * @param startSequenceId the start sequence id.
+         * @param deserializeRecordSet whether to deserialize the records of the record sets.
+         * @param copyRecordPayloads whether to copy the payloads of the records. If false, the records hold a
+         *                           retained slice of <i>in</i> and must be released by {@link LogRecord#release()}.
+         */
+        public Reader(RecordStream recordStream,
+                      ByteBuf in,
+                      long startSequenceId,
+                      boolean deserializeRecordSet,
+                      boolean copyRecordPayloads) {
             this.recordStream = recordStream;
             this.in = in;
             this.startSequenceId = startSequenceId;
             this.deserializeRecordSet = deserializeRecordSet;
+            this.copyRecordPayloads = copyRecordPayloads;
         }
 
         /**
@@ -522,7 +556,8 @@ public class LogRecord {
                     //    defer data copying to deserializing record from record set.
                     // 3) if it is record set and deserializeRecordSet is false, we copy the data, so applications
                     //    don't have to deal with reference count.
-                    boolean copyData = !isRecordSet(metadata) || !deserializeRecordSet;
+                    // 4) if copyRecordPayloads is false, the applications release the records, don't copy the data.
+                    boolean copyData = copyRecordPayloads && (!isRecordSet(metadata) || !deserializeRecordSet);
                     nextRecordInStream.readPayload(in, copyData);
                     if (LOG.isTraceEnabled()) {
                         if (nextRecordInStream.isControl()) {
@@ -540,7 +575,7 @@ public class LogRecord {
                     }
 
                     if (deserializeRecordSet && nextRecordInStream.isRecordSet()) {
-                        recordSetReader = LogRecordSet.of(nextRecordInStream);
+                        recordSetReader = LogRecordSet.of(nextRecordInStream, copyRecordPayloads);
                     } else {
                         recordStream.advance(numRecords);
                         return nextRecordInStream;
@@ -609,6 +644,9 @@ public class LogRecord {
                     }
 
                     if (null != lastRecordSkipTo) {
+                        // the record is skipped, release its payload in case it isn't a copy
+                        lastRecordSkipTo.release();
+                        lastRecordSkipTo = null;
                         recordStream.advance(1);
                         continue;
                     }
@@ -621,7 +659,7 @@ public class LogRecord {
                         record.setMetadata(flags);
                         record.setTransactionId(currTxId);
                         record.readPayload(in, false);
-                        recordSetReader = LogRecordSet.of(record);
+                        recordSetReader = LogRecordSet.of(record, copyRecordPayloads);
                     } else {
                         int length = in.readInt();
                         if (length < 0) {
@@ -92,6 +92,19 @@ public class LogRecordSet {
     }
 
     public static Reader of(LogRecordWithDLSN record) throws IOException {
+        return of(record, true);
+    }
+
+    /**
+     * Create a reader to read the records of the record set <i>record</i>.
+     *
+     * @param record the record set
+     * @param copyRecordPayloads whether to copy the payloads of the records. If false, the records hold a
+     *                           retained slice of the record set and must be released by {@link LogRecord#release()}.
+     * @return reader to read the records of the record set.
+     * @throws IOException if the record set is corrupted.
+     */
+    public static Reader of(LogRecordWithDLSN record, boolean copyRecordPayloads) throws IOException {
         checkArgument(record.isRecordSet(),
                 "record is not a recordset");
         DLSN dlsn = record.getDlsn();
@@ -105,7 +118,8 @@ public class LogRecordSet {
                 dlsn.getSlotId(),
                 startPosition,
                 startSequenceId,
-                record.getPayloadBuf());
+                record.getPayloadBuf(),
+                copyRecordPayloads);
     }
 
     /**